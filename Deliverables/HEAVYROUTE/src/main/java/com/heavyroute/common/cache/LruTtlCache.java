@@ -0,0 +1,193 @@
+package com.heavyroute.common.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache in memoria a capacità limitata con politica di rimpiazzo LRU e scadenza temporale (TTL).
+ * <p>
+ * Pensata come primo livello (L1) davanti a sorgenti dati lente (API esterne, tabelle di cache su DB).
+ * La struttura è volutamente semplice: una {@link LinkedHashMap} in <i>access-order</i> protetta
+ * da un lock intrinseco. Per le cardinalità in gioco (qualche migliaio di chiavi) il costo del lock
+ * è trascurabile rispetto al round-trip di rete che la cache evita.
+ * </p>
+ * <p>
+ * <b>Politica di eviction:</b>
+ * <ul>
+ * <li><b>Capacità:</b> superato {@code maxEntries}, viene rimossa la voce usata meno di recente.</li>
+ * <li><b>TTL:</b> una voce scaduta viene considerata assente e rimossa alla prima lettura.</li>
+ * </ul>
+ * </p>
+ *
+ * @param <K> Tipo della chiave (deve implementare correttamente equals/hashCode).
+ * @param <V> Tipo del valore memorizzato.
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Crea una cache basata sull'orologio monotono di sistema.
+     *
+     * @param maxEntries Numero massimo di voci mantenute in memoria (deve essere positivo).
+     * @param ttl        Durata di validità di ogni voce dal momento dell'inserimento.
+     */
+    public LruTtlCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    /**
+     * Costruttore con orologio iniettabile, utile per testare la scadenza senza attese reali.
+     */
+    LruTtlCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("La capacità della cache deve essere positiva");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruTtlCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Recupera un valore se presente e non scaduto, aggiornandone la posizione LRU.
+     *
+     * @param key Chiave da cercare.
+     * @return Il valore, oppure {@code null} se assente o scaduto.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(nanoClock.getAsLong())) {
+            map.remove(key);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Inserisce (o sostituisce) un valore, azzerandone il TTL.
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * Rimuove esplicitamente una voce.
+     */
+    public synchronized void invalidate(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Rimuove tutte le voci che soddisfano il predicato (invalidazione selettiva).
+     *
+     * @param predicate Condizione valutata su chiave e valore.
+     * @return Numero di voci rimosse.
+     */
+    public synchronized int invalidateIf(BiPredicate<K, V> predicate) {
+        int removed = 0;
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey(), e.getValue().value)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Svuota completamente la cache (i contatori statistici vengono preservati).
+     */
+    public synchronized void invalidateAll() {
+        map.clear();
+    }
+
+    /**
+     * Rimuove proattivamente tutte le voci scadute.
+     *
+     * @return Numero di voci rimosse.
+     */
+    public synchronized int purgeExpired() {
+        long now = nanoClock.getAsLong();
+        int removed = 0;
+        Iterator<Entry<V>> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        expirations.addAndGet(removed);
+        return removed;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Fotografia dei contatori della cache, esposta a fini diagnostici.
+     */
+    public Stats stats() {
+        return new Stats(size(), maxEntries, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * Contatori aggregati della cache.
+     *
+     * @param size        Voci attualmente presenti.
+     * @param maxEntries  Capacità massima configurata.
+     * @param hits        Letture servite dalla cache.
+     * @param misses      Letture non servite (assenti o scadute).
+     * @param evictions   Voci rimosse per superamento della capacità (LRU).
+     * @param expirations Voci rimosse per scadenza del TTL.
+     */
+    public record Stats(int size, int maxEntries, long hits, long misses, long evictions, long expirations) {
+
+        /**
+         * @return Percentuale di letture servite dalla cache (0.0 - 1.0).
+         */
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
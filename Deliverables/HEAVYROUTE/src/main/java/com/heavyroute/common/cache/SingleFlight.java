@@ -0,0 +1,172 @@
+package com.heavyroute.common.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicazione delle richieste concorrenti per chiave (<i>single-flight</i>).
+ * <p>
+ * Se più thread richiedono contemporaneamente lo stesso dato, solo il primo (il <i>leader</i>)
+ * esegue il caricamento; gli altri si agganciano al {@link CompletableFuture} già in corso e
+ * ricevono lo stesso risultato (o la stessa eccezione). Terminato il caricamento la chiave viene
+ * rimossa: il componente non memorizza risultati, per quello va affiancato a una cache.
+ * </p>
+ * <p>
+ * <b>Timeout:</b> l'attesa di chi si aggancia a un caricamento altrui è limitata per chiave;
+ * allo scadere viene sollevata una {@link IllegalStateException} senza interrompere il leader.
+ * </p>
+ *
+ * @param <K> Tipo della chiave (deve implementare correttamente equals/hashCode).
+ * @param <V> Tipo del valore caricato.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * @param timeout Attesa massima di un chiamante agganciato a un caricamento già in corso.
+     */
+    public SingleFlight(Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Esegue il caricamento per la chiave, oppure attende quello già in corso.
+     *
+     * @param key    Chiave logica della richiesta.
+     * @param loader Caricamento da eseguire se nessun altro thread lo sta già facendo.
+     * @return Il valore prodotto dal leader.
+     * @throws IllegalStateException se l'attesa del caricamento altrui supera il timeout.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(key, existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Variante non bloccante di {@link #execute}: il caricamento restituisce a sua volta un future.
+     * <p>
+     * Nessun thread resta in attesa: il leader avvia il {@code loader} e la chiave viene liberata al
+     * completamento del future che questo restituisce. Chi si aggancia riceve un future che fallisce
+     * con {@link IllegalStateException} se il caricamento altrui non termina entro il timeout.
+     * </p>
+     *
+     * @param key    Chiave logica della richiesta.
+     * @param loader Avvio del caricamento, eseguito solo se nessun altro lo sta già facendo.
+     * @return Future completato con il valore prodotto dal leader (o con il suo errore).
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            CompletableFuture<V> follower = new CompletableFuture<>();
+            existing.copy()
+                    .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                    .whenComplete((value, error) -> {
+                        if (error == null) {
+                            follower.complete(value);
+                        } else if (error instanceof TimeoutException) {
+                            timeouts.incrementAndGet();
+                            follower.completeExceptionally(
+                                    new IllegalStateException("Timeout in attesa della richiesta in corso per: " + key));
+                        } else {
+                            follower.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error);
+                        }
+                    });
+            return follower;
+        }
+
+        executions.incrementAndGet();
+        CompletableFuture<V> loading;
+        try {
+            loading = loader.get();
+        } catch (RuntimeException | Error e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((value, error) -> {
+            inFlight.remove(key, own);
+            if (error == null) {
+                own.complete(value);
+            } else {
+                own.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+        return own;
+    }
+
+    private V await(K key, CompletableFuture<V> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.incrementAndGet();
+            throw new IllegalStateException("Timeout in attesa della richiesta in corso per: " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attesa interrotta per: " + key, e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Richiesta annullata per: " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Fotografia dei contatori, esposta a fini diagnostici.
+     */
+    public Stats stats() {
+        return new Stats(inFlight.size(), executions.get(), coalesced.get(), timeouts.get());
+    }
+
+    /**
+     * Contatori aggregati della deduplicazione.
+     *
+     * @param inFlight   Caricamenti attualmente in corso.
+     * @param executions Caricamenti effettivamente eseguiti (chiamate al provider).
+     * @param coalesced  Richieste servite agganciandosi a un caricamento già in corso.
+     * @param timeouts   Attese interrotte per superamento del timeout.
+     */
+    public record Stats(int inFlight, long executions, long coalesced, long timeouts) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.heavyroute.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Abilita l'esecuzione asincrona ({@code @Async}) e definisce i pool di thread dedicati.
+ * <p>
+ * Il pool {@code routingExecutor} esegue il pre-calcolo delle rotte in background:
+ * è limitato sia nei thread sia nella coda, così che un picco di nuove richieste non
+ * saturi il provider cartografico né la memoria. A coda piena il pre-calcolo viene rifiutato
+ * e la richiesta segnata come fallita (la rotta verrà calcolata all'approvazione).
+ * </p>
+ * <p>
+ * Il pool {@code reroutingExecutor} ricalcola in parallelo le rotte dei viaggi colpiti da un evento
+ * stradale critico; quando la coda è piena il ricalcolo prosegue nel thread che lo ha avviato,
+ * così nessun viaggio viene scartato e la concorrenza resta comunque limitata.
+ * </p>
+ * <p>
+ * Il pool {@code roadEventExecutor} (un solo thread) riceve gli eventi stradali critici e ne coordina
+ * il ricalcolo, in attesa dei task sottomessi a {@code reroutingExecutor}: per questo non può
+ * condividere quel pool, né quello del pre-calcolo, dove resterebbe in coda dietro le nuove richieste.
+ * A coda piena l'evento viene gestito nel thread che lo ha pubblicato invece di andare perso.
+ * </p>
+ * <p>
+ * Il pool {@code schedulingExecutor} esegue in parallelo le ripartenze della programmazione
+ * settimanale dei viaggi (calcolo puro, un thread per core dedicato).
+ * </p>
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean(name = "routingExecutor")
+    public ThreadPoolTaskExecutor routingExecutor(@Value("${routing.precompute.pool-size:2}") int poolSize,
+                                                  @Value("${routing.precompute.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("route-precompute-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "reroutingExecutor")
+    public ThreadPoolTaskExecutor reroutingExecutor(@Value("${routing.reroute.parallelism:4}") int parallelism,
+                                                    @Value("${routing.reroute.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("route-reroute-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "roadEventExecutor")
+    public ThreadPoolTaskExecutor roadEventExecutor(@Value("${routing.reroute.event-queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("road-event-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "schedulingExecutor")
+    public ThreadPoolTaskExecutor schedulingExecutor(@Value("${planning.schedule.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("trip-schedule-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
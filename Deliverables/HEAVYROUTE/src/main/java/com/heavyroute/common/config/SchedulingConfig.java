@@ -0,0 +1,13 @@
+package com.heavyroute.common.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Abilita l'esecuzione dei task pianificati ({@code @Scheduled}),
+ * ad esempio la pulizia periodica delle cache persistenti.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -4,6 +4,7 @@ import com.heavyroute.common.config.DataSeeder;
 import com.heavyroute.core.enums.RequestStatus;
 import com.heavyroute.core.repository.TransportRequestRepository;
 import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.ExternalMapService;
 import com.heavyroute.resources.repository.VehicleRepository;
 import com.heavyroute.users.enums.UserRole;
 import com.heavyroute.users.model.User;
@@ -40,6 +41,7 @@ public class DebugController {
     private final TransportRequestRepository requestRepository;
     private final TripRepository tripRepository;
     private final VehicleRepository vehicleRepository;
+    private final ExternalMapService externalMapService;
 
     // Iniezione del DataSeeder
     private final DataSeeder dataSeeder;
@@ -135,4 +137,13 @@ public class DebugController {
         }
         return ResponseEntity.ok(requestRepository.findByRequestStatus(status));
     }
-}
\ No newline at end of file
+
+    /**
+     * Espone i contatori delle cache del servizio cartografico (hit, miss, eviction).
+     * Esempio: GET /api/debug/map-stats
+     */
+    @GetMapping("/map-stats")
+    public ResponseEntity<Map<String, Object>> getMapServiceStats() {
+        return ResponseEntity.ok(externalMapService.getCacheStats());
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.net.URI;
 import java.time.Instant;
@@ -102,6 +103,53 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return problem;
     }
 
+    /**
+     * Gestisce le modifiche concorrenti alla stessa entità.
+     * <p>
+     * Intercetta {@link OptimisticLockingFailureException}, sollevata al commit quando un'altra
+     * transazione ha già aggiornato il record (campo {@code @Version}). L'operazione è stata annullata
+     * per intero e può essere ripetuta sui dati aggiornati.
+     * </p>
+     * <p>
+     * <strong>Risposta HTTP:</strong> 409 Conflict
+     *
+     * @param ex L'eccezione di conflitto di versione.
+     * @return Un {@link ProblemDetail} con type "concurrent-update".
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Il dato è stato modificato da un'altra operazione. Ricaricare e riprovare.");
+        problem.setTitle("Modifica Concorrente");
+        problem.setType(URI.create("https://heavyroute.com/errors/concurrent-update"));
+        problem.setProperty("timestamp", Instant.now());
+        return problem;
+    }
+
+    /**
+     * Gestisce l'indisponibilità temporanea di un servizio esterno.
+     * <p>
+     * Intercetta {@link ServiceUnavailableException}, lanciata quando il provider cartografico
+     * non risponde o il circuit breaker ne ha sospeso le chiamate e non esiste un dato di ripiego.
+     * </p>
+     * <p>
+     * <strong>Risposta HTTP:</strong> 503 Service Unavailable, con header {@code Retry-After}.
+     * </p>
+     *
+     * @param ex L'eccezione con la descrizione del servizio non disponibile.
+     * @return Un {@link ProblemDetail} con type "service-unavailable".
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleServiceUnavailable(ServiceUnavailableException ex) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        problem.setTitle("Servizio Temporaneamente Non Disponibile");
+        problem.setType(URI.create("https://heavyroute.com/errors/service-unavailable"));
+        problem.setProperty("timestamp", Instant.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(problem);
+    }
+
     /**
      * Gestisce i tentativi di violazione dei vincoli di univocità (Unique Constraints).
      * <p>
@@ -0,0 +1,15 @@
+package com.heavyroute.common.exception;
+
+/**
+ * Un servizio esterno (es. il provider cartografico) non è al momento raggiungibile
+ * o è stato isolato dal circuit breaker. La richiesta può essere ritentata più tardi.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
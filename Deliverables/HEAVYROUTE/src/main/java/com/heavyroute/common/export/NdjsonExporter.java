@@ -0,0 +1,83 @@
+package com.heavyroute.common.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Esporta il risultato di una query in formato NDJSON (un oggetto JSON per riga).
+ * <p>
+ * Le entità vengono lette da uno {@link Stream} del repository (cursore JDBC in avanti, vedi
+ * {@link #FETCH_SIZE}) e processate a blocchi: ogni blocco viene convertito in DTO, scritto sullo stream
+ * di uscita e poi rimosso dal contesto di persistenza. La memoria occupata dipende dalla dimensione del
+ * blocco e non dal numero di righe esportate.
+ * </p>
+ * <p>
+ * Deve essere invocato all'interno di una transazione (richiesta dagli stream di Spring Data JPA).
+ * </p>
+ */
+@Component
+public class NdjsonExporter {
+
+    /** Righe lette dal driver JDBC per ogni round-trip, usato come hint sulle query di esportazione. */
+    public static final String FETCH_SIZE = "500";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    public NdjsonExporter(ObjectMapper objectMapper, EntityManager entityManager,
+                          @Value("${export.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        // Lo svuotamento del buffer avviene una volta per blocco, non dopo ogni riga
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Scrive tutte le righe dello stream in formato NDJSON.
+     *
+     * @param rows   Entità lette dal repository; lo stream viene chiuso al termine.
+     * @param mapper Conversione di un blocco di entità nei DTO da scrivere (può precaricare associazioni).
+     * @param out    Stream di uscita (non viene chiuso).
+     * @return Numero di righe scritte.
+     * @throws IOException se la scrittura fallisce (es. client disconnesso).
+     */
+    public <E> long export(Stream<E> rows, Function<List<E>, List<?>> mapper, OutputStream out) throws IOException {
+        long written = 0;
+        try (rows; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            List<E> chunk = new ArrayList<>(chunkSize);
+            Iterator<E> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    for (Object dto : mapper.apply(chunk)) {
+                        writer.writeValue(generator, dto);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                    written += chunk.size();
+                    chunk.clear();
+                    // Le entità del blocco sono già state scritte: le rilasciamo dal contesto di persistenza
+                    entityManager.clear();
+                }
+            }
+        }
+        return written;
+    }
+}
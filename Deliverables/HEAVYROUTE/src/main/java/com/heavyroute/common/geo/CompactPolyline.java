@@ -0,0 +1,179 @@
+package com.heavyroute.common.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Rappresentazione binaria compatta di una polyline, per la memorizzazione su database.
+ * <p>
+ * Layout: un byte di formato seguito dal payload compresso con Deflate.
+ * <ul>
+ * <li>{@link #FORMAT_DELTA}: numero di punti e differenze successive delle coordinate scalate
+ * (1e-5 gradi) come varint con codifica zigzag. Le differenze tra punti vicini sono piccole, quindi
+ * occupano 1-2 byte ciascuna e si comprimono bene.</li>
+ * <li>{@link #FORMAT_RAW}: testo UTF-8 della stringa originale, usato quando la stringa non è una
+ * polyline valida o non verrebbe ricostruita identica (la conversione è sempre senza perdita).</li>
+ * </ul>
+ * </p>
+ */
+public final class CompactPolyline {
+
+    /** Testo originale compresso. */
+    public static final byte FORMAT_RAW = 0;
+
+    /** Coordinate delta + varint zigzag, compresse. */
+    public static final byte FORMAT_DELTA = 1;
+
+    private CompactPolyline() {
+    }
+
+    /**
+     * Converte una polyline codificata nella rappresentazione binaria.
+     *
+     * @param polyline Stringa in formato Encoded Polyline (precisione 5).
+     * @return I byte da memorizzare.
+     */
+    public static byte[] pack(String polyline) {
+        int[] scaled;
+        try {
+            scaled = PolylineCodec.decodeScaled(polyline);
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            scaled = null;
+        }
+        if (scaled == null || !PolylineCodec.encodeScaled(scaled).equals(polyline)) {
+            return withHeader(FORMAT_RAW, deflate(polyline.getBytes(StandardCharsets.UTF_8)));
+        }
+        return packScaled(scaled);
+    }
+
+    /**
+     * Converte direttamente coordinate scalate ({@code [lat0, lon0, ...]}, unità di 1e-5 gradi)
+     * nella rappresentazione binaria.
+     */
+    public static byte[] packScaled(int[] scaled) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(scaled.length * 2 + 5);
+        writeVarint(out, scaled.length / 2);
+        int prevLat = 0;
+        int prevLon = 0;
+        for (int i = 0; i < scaled.length; i += 2) {
+            writeVarint(out, zigzag(scaled[i] - prevLat));
+            writeVarint(out, zigzag(scaled[i + 1] - prevLon));
+            prevLat = scaled[i];
+            prevLon = scaled[i + 1];
+        }
+        return withHeader(FORMAT_DELTA, deflate(out.toByteArray()));
+    }
+
+    /**
+     * Ricostruisce la polyline codificata a partire dalla rappresentazione binaria.
+     *
+     * @throws IllegalArgumentException se i byte non sono in un formato riconosciuto.
+     */
+    public static String unpack(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Geometria vuota");
+        }
+        byte[] payload = inflate(data, 1);
+        return switch (data[0]) {
+            case FORMAT_RAW -> new String(payload, StandardCharsets.UTF_8);
+            case FORMAT_DELTA -> {
+                int[] position = {0};
+                int points = readVarint(payload, position);
+                int[] scaled = new int[points * 2];
+                int lat = 0;
+                int lon = 0;
+                for (int i = 0; i < scaled.length; i += 2) {
+                    lat += unzigzag(readVarint(payload, position));
+                    lon += unzigzag(readVarint(payload, position));
+                    scaled[i] = lat;
+                    scaled[i + 1] = lon;
+                }
+                yield PolylineCodec.encodeScaled(scaled);
+            }
+            default -> throw new IllegalArgumentException("Formato di geometria sconosciuto: " + data[0]);
+        };
+    }
+
+    private static byte[] withHeader(byte format, byte[] payload) {
+        byte[] result = new byte[payload.length + 1];
+        result[0] = format;
+        System.arraycopy(payload, 0, result, 1, payload.length);
+        return result;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, input.length - offset);
+            byte[] out = new byte[Math.max(256, (input.length - offset) * 4)];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int n = inflater.inflate(out, size, out.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Geometria compressa troncata");
+                }
+                size += n;
+            }
+            return Arrays.copyOf(out, size);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Geometria compressa non valida", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Geometria troncata");
+            }
+            byte b = data[position[0]++];
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
+}
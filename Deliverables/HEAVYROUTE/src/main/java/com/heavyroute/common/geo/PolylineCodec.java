@@ -0,0 +1,124 @@
+package com.heavyroute.common.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codifica e decodifica di geometrie nel formato <i>Encoded Polyline Algorithm</i> (precisione 5).
+ * <p>
+ * È il formato restituito da Mapbox con {@code geometries=polyline} e quello decodificato
+ * dall'app Flutter ({@code flutter_polyline_points}). Le coordinate vengono gestite come
+ * interi in unità di 1e-5 gradi per evitare errori di arrotondamento cumulativi.
+ * </p>
+ */
+public final class PolylineCodec {
+
+    /** Fattore di scala della precisione 5 (1e5). */
+    public static final double SCALE = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Decodifica una polyline in un array piatto di coordinate scalate.
+     *
+     * @param encoded Stringa codificata.
+     * @return Array {@code [lat0, lon0, lat1, lon1, ...]} in unità di 1e-5 gradi.
+     * @throws IllegalArgumentException se la stringa non è una polyline valida.
+     */
+    public static int[] decodeScaled(String encoded) {
+        int[] buffer = new int[Math.max(8, encoded.length())];
+        int count = 0;
+        int index = 0;
+        int lat = 0;
+        int lon = 0;
+        int len = encoded.length();
+        int[] result = new int[1];
+
+        while (index < len) {
+            index = readValue(encoded, index, result);
+            lat += result[0];
+            if (index >= len) {
+                throw new IllegalArgumentException("Polyline troncata: manca la longitudine");
+            }
+            index = readValue(encoded, index, result);
+            lon += result[0];
+
+            if (count + 2 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[count++] = lat;
+            buffer[count++] = lon;
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Decodifica una polyline in una lista di coppie {@code [lat, lon]} in gradi decimali.
+     */
+    public static List<double[]> decode(String encoded) {
+        int[] scaled = decodeScaled(encoded);
+        List<double[]> points = new ArrayList<>(scaled.length / 2);
+        for (int i = 0; i < scaled.length; i += 2) {
+            points.add(new double[]{scaled[i] / SCALE, scaled[i + 1] / SCALE});
+        }
+        return points;
+    }
+
+    /**
+     * Codifica un array piatto di coordinate scalate ({@code [lat0, lon0, ...]}).
+     */
+    public static String encodeScaled(int[] scaled) {
+        StringBuilder sb = new StringBuilder(scaled.length * 3);
+        int prevLat = 0;
+        int prevLon = 0;
+        for (int i = 0; i + 1 < scaled.length; i += 2) {
+            writeValue(sb, scaled[i] - prevLat);
+            writeValue(sb, scaled[i + 1] - prevLon);
+            prevLat = scaled[i];
+            prevLon = scaled[i + 1];
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Codifica una lista di coppie {@code [lat, lon]} in gradi decimali.
+     */
+    public static String encode(List<double[]> points) {
+        int[] scaled = new int[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            scaled[2 * i] = (int) Math.round(points.get(i)[0] * SCALE);
+            scaled[2 * i + 1] = (int) Math.round(points.get(i)[1] * SCALE);
+        }
+        return encodeScaled(scaled);
+    }
+
+    private static int readValue(String encoded, int index, int[] out) {
+        int shift = 0;
+        int result = 0;
+        int b;
+        do {
+            if (index >= encoded.length()) {
+                throw new IllegalArgumentException("Polyline troncata alla posizione " + index);
+            }
+            b = encoded.charAt(index++) - 63;
+            if (b < 0 || b > 63 || shift > 30) {
+                throw new IllegalArgumentException("Carattere non valido nella polyline alla posizione " + (index - 1));
+            }
+            result |= (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        out[0] = (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+        return index;
+    }
+
+    private static void writeValue(StringBuilder sb, int value) {
+        int v = value < 0 ? ~(value << 1) : (value << 1);
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+}
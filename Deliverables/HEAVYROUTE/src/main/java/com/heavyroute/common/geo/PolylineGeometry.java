@@ -0,0 +1,157 @@
+package com.heavyroute.common.geo;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Misure geometriche su polyline in coordinate scalate ({@code [lat0, lon0, ...]}, unità di 1e-5 gradi).
+ * <p>
+ * Come {@link PolylineSimplifier}, le distanze sono calcolate su una proiezione equirettangolare
+ * locale: l'errore è trascurabile per corridoi di qualche chilometro.
+ * </p>
+ */
+public final class PolylineGeometry {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Lato delle celle della griglia di indicizzazione, in unità scalate (0,05 gradi, circa 5,5 km). */
+    private static final int CELL_SCALED = 5_000;
+
+    /** Moltiplicatore della riga di cella nell'identificativo (le colonne sono al massimo 360 / 0,05). */
+    private static final long CELL_ROW = 100_000L;
+
+    private PolylineGeometry() {
+    }
+
+    /**
+     * Rettangolo di ingombro della geometria.
+     *
+     * @return {@code [minLat, maxLat, minLon, maxLon]} in gradi, oppure {@code null} se la geometria è vuota.
+     */
+    public static double[] bounds(int[] scaled) {
+        if (scaled.length < 2) {
+            return null;
+        }
+        int minLat = Integer.MAX_VALUE;
+        int maxLat = Integer.MIN_VALUE;
+        int minLon = Integer.MAX_VALUE;
+        int maxLon = Integer.MIN_VALUE;
+        for (int i = 0; i + 1 < scaled.length; i += 2) {
+            minLat = Math.min(minLat, scaled[i]);
+            maxLat = Math.max(maxLat, scaled[i]);
+            minLon = Math.min(minLon, scaled[i + 1]);
+            maxLon = Math.max(maxLon, scaled[i + 1]);
+        }
+        return new double[]{
+                minLat / PolylineCodec.SCALE, maxLat / PolylineCodec.SCALE,
+                minLon / PolylineCodec.SCALE, maxLon / PolylineCodec.SCALE};
+    }
+
+    /**
+     * Celle della griglia fissa attraversate dal tracciato.
+     * <p>
+     * Ogni segmento viene suddiviso in tratti lunghi al massimo mezza cella per asse: un tratto tocca
+     * al più quattro celle, tutte incluse nel rettangolo tra i suoi estremi. Il risultato contiene
+     * quindi ogni cella attraversata (eventualmente qualcuna in più agli angoli), con un numero di celle
+     * proporzionale alla lunghezza del percorso e non all'area del suo rettangolo di ingombro.
+     * </p>
+     *
+     * @return Identificativi delle celle (vedi {@link #cellsInBox}), vuoto se la geometria è vuota.
+     */
+    public static Set<Long> cells(int[] scaled) {
+        Set<Long> cells = new HashSet<>();
+        int points = scaled.length / 2;
+        if (points == 1) {
+            addCells(cells, scaled[0], scaled[0], scaled[1], scaled[1]);
+        }
+        for (int i = 1; i < points; i++) {
+            int lat0 = scaled[2 * i - 2];
+            int lon0 = scaled[2 * i - 1];
+            int dLat = scaled[2 * i] - lat0;
+            int dLon = scaled[2 * i + 1] - lon0;
+            int steps = Math.max(Math.abs(dLat), Math.abs(dLon)) / (CELL_SCALED / 2) + 1;
+            int prevLat = lat0;
+            int prevLon = lon0;
+            for (int s = 1; s <= steps; s++) {
+                int lat = lat0 + (int) ((long) dLat * s / steps);
+                int lon = lon0 + (int) ((long) dLon * s / steps);
+                addCells(cells, Math.min(prevLat, lat), Math.max(prevLat, lat), Math.min(prevLon, lon), Math.max(prevLon, lon));
+                prevLat = lat;
+                prevLon = lon;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Celle della griglia che intersecano un rettangolo (es. l'area attorno a un evento stradale).
+     *
+     * @return Identificativi confrontabili con quelli di {@link #cells(int[])}.
+     */
+    public static Set<Long> cellsInBox(double minLat, double maxLat, double minLon, double maxLon) {
+        Set<Long> cells = new HashSet<>();
+        addCells(cells, scale(minLat), scale(maxLat), scale(minLon), scale(maxLon));
+        return cells;
+    }
+
+    private static void addCells(Set<Long> cells, int minLat, int maxLat, int minLon, int maxLon) {
+        for (long row = row(minLat); row <= row(maxLat); row++) {
+            for (long column = column(minLon); column <= column(maxLon); column++) {
+                cells.add(row * CELL_ROW + column);
+            }
+        }
+    }
+
+    private static long row(int lat) {
+        return Math.floorDiv(lat + 90 * (int) PolylineCodec.SCALE, CELL_SCALED);
+    }
+
+    private static long column(int lon) {
+        return Math.floorDiv(lon + 180 * (int) PolylineCodec.SCALE, CELL_SCALED);
+    }
+
+    private static int scale(double degrees) {
+        return (int) Math.round(degrees * PolylineCodec.SCALE);
+    }
+
+    /**
+     * Distanza minima tra un punto e il tracciato (segmenti compresi, non solo i vertici).
+     *
+     * @param scaled Geometria in coordinate scalate.
+     * @param lat    Latitudine del punto in gradi.
+     * @param lon    Longitudine del punto in gradi.
+     * @return Distanza in metri, oppure {@link Double#POSITIVE_INFINITY} se la geometria è vuota.
+     */
+    public static double distanceMeters(int[] scaled, double lat, double lon) {
+        int points = scaled.length / 2;
+        if (points == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double yScale = METERS_PER_DEGREE / PolylineCodec.SCALE;
+        double xScale = yScale * Math.cos(Math.toRadians(lat));
+        double px = lon * PolylineCodec.SCALE * xScale;
+        double py = lat * PolylineCodec.SCALE * yScale;
+
+        double bestSq = Double.POSITIVE_INFINITY;
+        double ax = scaled[1] * xScale;
+        double ay = scaled[0] * yScale;
+        if (points == 1) {
+            return Math.hypot(ax - px, ay - py);
+        }
+        for (int i = 1; i < points; i++) {
+            double bx = scaled[2 * i + 1] * xScale;
+            double by = scaled[2 * i] * yScale;
+            double dx = bx - ax;
+            double dy = by - ay;
+            double lengthSq = dx * dx + dy * dy;
+            double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+            t = Math.max(0, Math.min(1, t));
+            double ex = ax + t * dx - px;
+            double ey = ay + t * dy - py;
+            bestSq = Math.min(bestSq, ex * ex + ey * ey);
+            ax = bx;
+            ay = by;
+        }
+        return Math.sqrt(bestSq);
+    }
+}
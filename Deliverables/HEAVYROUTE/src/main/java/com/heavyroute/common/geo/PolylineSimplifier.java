@@ -0,0 +1,109 @@
+package com.heavyroute.common.geo;
+
+import java.util.Arrays;
+
+/**
+ * Semplificazione di geometrie con l'algoritmo di Douglas-Peucker.
+ * <p>
+ * Lavora direttamente sulle coordinate scalate di {@link PolylineCodec} e misura le distanze su una
+ * proiezione equirettangolare locale, più che sufficiente alla scala di un percorso stradale.
+ * L'implementazione è iterativa (pila esplicita) per non dipendere dalla profondità di ricorsione
+ * su geometrie con decine di migliaia di punti.
+ * </p>
+ */
+public final class PolylineSimplifier {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private PolylineSimplifier() {
+    }
+
+    /**
+     * Semplifica una geometria mantenendo primo e ultimo punto.
+     *
+     * @param scaled          Coordinate {@code [lat0, lon0, lat1, lon1, ...]} in unità di 1e-5 gradi.
+     * @param toleranceMeters Scostamento massimo ammesso dal tracciato originale.
+     * @return Le coordinate dei punti mantenuti, nello stesso formato.
+     */
+    public static int[] simplifyScaled(int[] scaled, double toleranceMeters) {
+        int points = scaled.length / 2;
+        if (points <= 2 || toleranceMeters <= 0) {
+            return scaled.clone();
+        }
+
+        // Proiezione in metri rispetto alla latitudine media
+        double meanLat = 0;
+        for (int i = 0; i < scaled.length; i += 2) {
+            meanLat += scaled[i];
+        }
+        meanLat /= points * PolylineCodec.SCALE;
+        double yScale = METERS_PER_DEGREE / PolylineCodec.SCALE;
+        double xScale = yScale * Math.cos(Math.toRadians(meanLat));
+
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        double toleranceSq = toleranceMeters * toleranceMeters;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = points - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            double ax = scaled[2 * first + 1] * xScale;
+            double ay = scaled[2 * first] * yScale;
+            double bx = scaled[2 * last + 1] * xScale;
+            double by = scaled[2 * last] * yScale;
+
+            int farthest = -1;
+            double farthestSq = toleranceSq;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(scaled[2 * i + 1] * xScale, scaled[2 * i] * yScale, ax, ay, bx, by);
+                if (d > farthestSq) {
+                    farthestSq = d;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        int[] result = new int[kept * 2];
+        for (int i = 0, j = 0; i < points; i++) {
+            if (keep[i]) {
+                result[j++] = scaled[2 * i];
+                result[j++] = scaled[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px;
+        double ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,184 @@
+package com.heavyroute.common.geo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indice dei segmenti di una polyline per proiettare rapidamente una posizione sul tracciato.
+ * <p>
+ * Costruito una volta per rotta, memorizza:
+ * <ul>
+ * <li>la distanza progressiva (metri) di ogni vertice dall'inizio del tracciato;</li>
+ * <li>una griglia di celle (circa 1 km di lato) con i segmenti che la attraversano.</li>
+ * </ul>
+ * La proiezione parte dal segmento dell'aggiornamento precedente e controlla solo una finestra di
+ * segmenti successivi; se il punto non è vicino a nessuno di questi consulta le celle della griglia
+ * attorno al punto. In nessun caso l'intera polyline viene scandita.
+ * </p>
+ * <p>
+ * Le distanze usano la stessa proiezione equirettangolare locale di {@link PolylineGeometry}.
+ * L'istanza è immutabile e condivisibile tra thread.
+ * </p>
+ */
+public final class RouteProgressIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Lato della cella della griglia, in gradi (circa 1 km di latitudine). */
+    private static final double CELL_DEGREES = 0.01;
+
+    private final int[] scaled;
+    private final double[] cumulativeMeters;
+    private final Map<Long, int[]> cells;
+
+    private RouteProgressIndex(int[] scaled, double[] cumulativeMeters, Map<Long, int[]> cells) {
+        this.scaled = scaled;
+        this.cumulativeMeters = cumulativeMeters;
+        this.cells = cells;
+    }
+
+    /**
+     * Costruisce l'indice di una geometria in coordinate scalate ({@code [lat0, lon0, ...]}).
+     *
+     * @throws IllegalArgumentException se la geometria ha meno di due punti.
+     */
+    public static RouteProgressIndex of(int[] scaled) {
+        int points = scaled.length / 2;
+        if (points < 2) {
+            throw new IllegalArgumentException("Geometria con meno di due punti");
+        }
+        double[] cumulative = new double[points];
+        for (int i = 1; i < points; i++) {
+            cumulative[i] = cumulative[i - 1] + segmentLength(scaled, i - 1);
+        }
+
+        Map<Long, int[]> counts = new HashMap<>();
+        Map<Long, int[]> cells = new HashMap<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int s = 0; s < points - 1; s++) {
+                long minLat = cellOf(Math.min(scaled[2 * s], scaled[2 * s + 2]));
+                long maxLat = cellOf(Math.max(scaled[2 * s], scaled[2 * s + 2]));
+                long minLon = cellOf(Math.min(scaled[2 * s + 1], scaled[2 * s + 3]));
+                long maxLon = cellOf(Math.max(scaled[2 * s + 1], scaled[2 * s + 3]));
+                for (long la = minLat; la <= maxLat; la++) {
+                    for (long lo = minLon; lo <= maxLon; lo++) {
+                        long key = cellKey(la, lo);
+                        if (pass == 0) {
+                            counts.computeIfAbsent(key, k -> new int[1])[0]++;
+                        } else {
+                            int[] fill = counts.get(key);
+                            cells.computeIfAbsent(key, k -> new int[fill[0]])[--fill[0]] = s;
+                        }
+                    }
+                }
+            }
+        }
+        return new RouteProgressIndex(scaled, cumulative, cells);
+    }
+
+    /**
+     * @return Lunghezza complessiva del tracciato in metri.
+     */
+    public double totalMeters() {
+        return cumulativeMeters[cumulativeMeters.length - 1];
+    }
+
+    /**
+     * @return Numero di segmenti del tracciato.
+     */
+    public int segmentCount() {
+        return cumulativeMeters.length - 1;
+    }
+
+    /**
+     * Proietta una posizione sul tracciato.
+     *
+     * @param lat             Latitudine in gradi.
+     * @param lon             Longitudine in gradi.
+     * @param hintSegment     Segmento della proiezione precedente ({@code -1} se non disponibile).
+     * @param window          Numero di segmenti controllati a partire dal suggerimento.
+     * @param maxOffsetMeters Distanza oltre la quale il punto in finestra è considerato lontano e si consulta la griglia.
+     * @return La proiezione più vicina trovata (da verificare con {@link Projection#offsetMeters()}), oppure
+     *         {@code null} se senza suggerimento nessun segmento attraversa la cella del punto o quelle adiacenti.
+     */
+    public Projection project(double lat, double lon, int hintSegment, int window, double maxOffsetMeters) {
+        double yScale = METERS_PER_DEGREE / PolylineCodec.SCALE;
+        double xScale = yScale * Math.cos(Math.toRadians(lat));
+        double px = lon * PolylineCodec.SCALE * xScale;
+        double py = lat * PolylineCodec.SCALE * yScale;
+
+        Projection best = null;
+        if (hintSegment >= 0) {
+            // Piccolo margine all'indietro per assorbire l'imprecisione del GPS
+            int from = Math.max(0, hintSegment - 1);
+            int to = Math.min(segmentCount(), hintSegment + window);
+            for (int s = from; s < to; s++) {
+                best = closer(best, projectOnSegment(s, px, py, xScale, yScale));
+            }
+            if (best != null && best.offsetMeters() <= maxOffsetMeters) {
+                return best;
+            }
+        }
+
+        long baseLat = cellOf(lat * PolylineCodec.SCALE);
+        long baseLon = cellOf(lon * PolylineCodec.SCALE);
+        for (long dLat = -1; dLat <= 1; dLat++) {
+            for (long dLon = -1; dLon <= 1; dLon++) {
+                int[] segments = cells.get(cellKey(baseLat + dLat, baseLon + dLon));
+                if (segments == null) {
+                    continue;
+                }
+                for (int s : segments) {
+                    best = closer(best, projectOnSegment(s, px, py, xScale, yScale));
+                }
+            }
+        }
+        return best;
+    }
+
+    private Projection projectOnSegment(int s, double px, double py, double xScale, double yScale) {
+        double ax = scaled[2 * s + 1] * xScale;
+        double ay = scaled[2 * s] * yScale;
+        double dx = scaled[2 * s + 3] * xScale - ax;
+        double dy = scaled[2 * s + 2] * yScale - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double offset = Math.hypot(ax + t * dx - px, ay + t * dy - py);
+        double along = cumulativeMeters[s] + t * (cumulativeMeters[s + 1] - cumulativeMeters[s]);
+        return new Projection(s, along, offset);
+    }
+
+    private static Projection closer(Projection current, Projection candidate) {
+        if (current == null || candidate.offsetMeters() < current.offsetMeters()
+                || (candidate.offsetMeters() == current.offsetMeters() && candidate.segment() > current.segment())) {
+            return candidate;
+        }
+        return current;
+    }
+
+    private static double segmentLength(int[] scaled, int s) {
+        double yScale = METERS_PER_DEGREE / PolylineCodec.SCALE;
+        double midLat = (scaled[2 * s] + scaled[2 * s + 2]) / 2.0 / PolylineCodec.SCALE;
+        double xScale = yScale * Math.cos(Math.toRadians(midLat));
+        return Math.hypot((scaled[2 * s + 3] - scaled[2 * s + 1]) * xScale, (scaled[2 * s + 2] - scaled[2 * s]) * yScale);
+    }
+
+    private static long cellOf(double scaledDegrees) {
+        return (long) Math.floor(scaledDegrees / PolylineCodec.SCALE / CELL_DEGREES);
+    }
+
+    private static long cellKey(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+
+    /**
+     * Posizione proiettata sul tracciato.
+     *
+     * @param segment      Indice del segmento su cui cade la proiezione.
+     * @param alongMeters  Distanza percorsa dall'inizio del tracciato, in metri.
+     * @param offsetMeters Distanza della posizione dal tracciato, in metri.
+     */
+    public record Projection(int segment, double alongMeters, double offsetMeters) {
+    }
+}
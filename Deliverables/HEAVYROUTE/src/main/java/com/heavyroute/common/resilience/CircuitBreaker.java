@@ -0,0 +1,200 @@
+package com.heavyroute.common.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker a finestra scorrevole per le chiamate verso servizi esterni.
+ * <p>
+ * Evita di continuare a inviare richieste (e a bloccare thread in attesa dei timeout) verso
+ * un servizio che sta già fallendo:
+ * <ul>
+ * <li><b>CLOSED:</b> le chiamate passano; gli esiti delle ultime {@code windowSize} chiamate vengono
+ * registrati in un buffer circolare. Se, raggiunto {@code minimumCalls}, la percentuale di fallimenti
+ * supera la soglia, il circuito si apre.</li>
+ * <li><b>OPEN:</b> le chiamate vengono rifiutate immediatamente per {@code openDuration}.</li>
+ * <li><b>HALF_OPEN:</b> trascorsa l'attesa viene ammessa una sola chiamata di prova: se riesce il
+ * circuito si richiude (con finestra azzerata), altrimenti si riapre per un altro intervallo.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Come {@link com.heavyroute.common.cache.LruTtlCache}, lo stato è protetto da un lock intrinseco:
+ * le sezioni critiche sono di poche istruzioni, trascurabili rispetto alla chiamata di rete.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * Stato del circuito.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    /** Esiti delle ultime chiamate ({@code true} = fallimento), in un buffer circolare. */
+    private final boolean[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong openings = new AtomicLong();
+
+    /**
+     * Crea un circuit breaker basato sull'orologio monotono di sistema.
+     *
+     * @param name                 Nome del servizio protetto (per log e diagnostica).
+     * @param windowSize           Numero di chiamate recenti su cui calcolare la percentuale di fallimenti.
+     * @param minimumCalls         Chiamate minime nella finestra prima di poter aprire il circuito.
+     * @param failureRateThreshold Percentuale di fallimenti (0.0 - 1.0) oltre la quale il circuito si apre.
+     * @param openDuration         Durata dello stato aperto prima della chiamata di prova.
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, System::nanoTime);
+    }
+
+    /**
+     * Costruttore con orologio iniettabile, utile per testare le transizioni senza attese reali.
+     */
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                   Duration openDuration, LongSupplier nanoClock) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Finestra del circuit breaker non valida");
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Chiede il permesso di eseguire una chiamata.
+     * <p>
+     * Chi ottiene il permesso deve poi segnalare l'esito con {@link #onSuccess()} o {@link #onFailure()}.
+     * </p>
+     *
+     * @return {@code false} se il circuito è aperto o se una chiamata di prova è già in corso.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Registra una chiamata riuscita.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            resetWindow();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Registra una chiamata fallita (errore di rete, timeout o errore lato server).
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Fotografia dello stato e dei contatori, esposta a fini diagnostici.
+     */
+    public synchronized Stats stats() {
+        double failureRate = recorded == 0 ? 0.0 : (double) failures / recorded;
+        return new Stats(state(), recorded, failureRate, rejected.get(), openings.get());
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[windowIndex]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = nanoClock.getAsLong();
+        probeInFlight = false;
+        resetWindow();
+        openings.incrementAndGet();
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    /**
+     * Contatori aggregati del circuit breaker.
+     *
+     * @param state          Stato corrente.
+     * @param bufferedCalls  Chiamate registrate nella finestra corrente.
+     * @param failureRate    Percentuale di fallimenti nella finestra (0.0 - 1.0).
+     * @param rejectedCalls  Chiamate rifiutate senza contattare il servizio.
+     * @param openings       Numero di aperture del circuito dall'avvio.
+     */
+    public record Stats(State state, int bufferedCalls, double failureRate, long rejectedCalls, long openings) {
+    }
+}
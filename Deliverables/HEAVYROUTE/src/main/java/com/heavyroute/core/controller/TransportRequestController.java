@@ -3,13 +3,16 @@ package com.heavyroute.core.controller;
 import com.heavyroute.core.dto.RequestCreationDTO;
 import com.heavyroute.core.dto.TransportRequestResponseDTO;
 import com.heavyroute.core.service.TransportRequestService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -97,6 +100,26 @@ public class TransportRequestController {
         return ResponseEntity.ok(requestService.getAllRequests());
     }
 
+    /**
+     * Endpoint di esportazione dell'intero storico delle richieste in formato NDJSON.
+     * <p>
+     * <b>Access Control:</b> Riservato al ruolo <b>LOGISTIC_PLANNER</b>.
+     * <br>
+     * Le richieste vengono scritte sulla risposta una per riga man mano che sono lette dal database,
+     * così l'esportazione non dipende dalla memoria disponibile.
+     * </p>
+     *
+     * @param response Risposta HTTP su cui scrivere le righe ({@code application/x-ndjson}).
+     * @throws IOException se la scrittura fallisce (es. client disconnesso).
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
+    public void exportRequests(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        requestService.exportRequests(response.getOutputStream());
+    }
+
     /**
      * Metodo di utilità per recuperare l'identità dell'utente corrente.
      * <p>
@@ -1,18 +1,38 @@
 package com.heavyroute.core.controller;
 
+import com.heavyroute.core.dto.AssignmentPlanDTO;
+import com.heavyroute.core.dto.BatchPlanRequestDTO;
+import com.heavyroute.core.dto.BatchStatusUpdateDTO;
+import com.heavyroute.core.dto.PositionUpdateDTO;
 import com.heavyroute.core.dto.RouteValidationRequestDTO;
 import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.dto.TripPageDTO;
+import com.heavyroute.core.dto.TripPlanResultDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.dto.TripStatusResultDTO;
+import com.heavyroute.core.dto.WeeklyScheduleDTO;
+import com.heavyroute.core.service.AssignmentPlanner;
+import com.heavyroute.core.service.SchedulePlanner;
 import com.heavyroute.core.service.TripService;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.repository.TripFilter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -36,6 +56,8 @@ import java.util.List;
 public class TripManagementController {
 
     private final TripService tripService;
+    private final AssignmentPlanner assignmentPlanner;
+    private final SchedulePlanner schedulePlanner;
 
     // ================== ENDPOINT DI LETTURA ==================
 
@@ -46,19 +68,23 @@ public class TripManagementController {
      * una visione d'insieme di tutte le operazioni.
      * </p>
      *
+     * @param status Stati da filtrare (opzionale).
+     * @param detail Livello di dettaglio della polyline ({@code FULL}, {@code SIMPLIFIED}, {@code OVERVIEW},
+     *               {@code NONE}). Default {@code FULL}; le tabelle senza mappa possono usare {@code NONE}.
      * @return {@link ResponseEntity} contenente la lista completa dei {@link TripResponseDTO}.
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('LOGISTIC_PLANNER', 'TRAFFIC_COORDINATOR')")
     public ResponseEntity<List<TripResponseDTO>> getTrips(
-            @RequestParam(required = false) TripStatus[] status
+            @RequestParam(required = false) TripStatus[] status,
+            @RequestParam(defaultValue = "FULL") PolylineDetail detail
     ) {
         if (status != null && status.length > 0) {
-            return ResponseEntity.ok(tripService.getTripsByStatuses(List.of(status)));
+            return ResponseEntity.ok(tripService.getTripsByStatuses(List.of(status), detail));
         }
 
         log.info("GET /api/trips invocato - Recupero lista completa");
-        return ResponseEntity.ok(tripService.getAllTrips());
+        return ResponseEntity.ok(tripService.getAllTrips(detail));
     }
 
     /**
@@ -68,12 +94,14 @@ public class TripManagementController {
      * che richiedono un intervento manuale per l'assegnazione delle risorse.
      * </p>
      *
+     * @param detail Livello di dettaglio della polyline (default {@code FULL}).
      * @return Lista dei viaggi in attesa di pianificazione.
      */
     @GetMapping("/planning")
     @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
-    public ResponseEntity<List<TripResponseDTO>> getTripsToPlan() {
-        return ResponseEntity.ok(tripService.getTripsByStatus(TripStatus.IN_PLANNING));
+    public ResponseEntity<List<TripResponseDTO>> getTripsToPlan(
+            @RequestParam(defaultValue = "FULL") PolylineDetail detail) {
+        return ResponseEntity.ok(tripService.getTripsByStatus(TripStatus.IN_PLANNING, detail));
     }
 
     /**
@@ -84,13 +112,88 @@ public class TripManagementController {
      * </p>
      *
      * @param driverId ID dell'autista loggato.
+     * @param detail   Livello di dettaglio della polyline (default {@code FULL}).
      * @return Lista cronologica dei viaggi assegnati a quell'autista.
      */
     @GetMapping("/driver/{driverId}")
     @PreAuthorize("hasAnyRole('DRIVER', 'LOGISTIC_PLANNER')")
-    public ResponseEntity<List<TripResponseDTO>> getDriverTrips(@PathVariable Long driverId) {
+    public ResponseEntity<List<TripResponseDTO>> getDriverTrips(
+            @PathVariable Long driverId,
+            @RequestParam(defaultValue = "FULL") PolylineDetail detail) {
         log.info("GET /api/trips/driver/{} - Recupero viaggi per autista", driverId);
-        return ResponseEntity.ok(tripService.getTripsByDriver(driverId));
+        return ResponseEntity.ok(tripService.getTripsByDriver(driverId, detail));
+    }
+
+    /**
+     * Recupera una pagina dell'elenco dei viaggi, dal più recente, con filtri lato server.
+     * <p>
+     * Alternativa paginata a {@code GET /api/trips} per le dashboard con molto storico:
+     * la pagina successiva si ottiene passando il {@code nextCursor} della risposta come {@code cursor}.
+     * </p>
+     *
+     * @param status     Stati da filtrare (opzionale).
+     * @param driverId   Autista assegnato (opzionale).
+     * @param vehicleId  Veicolo assegnato (opzionale).
+     * @param clientId   Committente della richiesta (opzionale).
+     * @param pickupFrom Data di ritiro minima, inclusa (opzionale, formato ISO).
+     * @param pickupTo   Data di ritiro massima, inclusa (opzionale, formato ISO).
+     * @param cursor     Cursore della pagina precedente (assente per la prima pagina).
+     * @param limit      Dimensione della pagina (default 50, massimo {@value TripService#MAX_PAGE_SIZE}).
+     * @param detail     Livello di dettaglio della polyline (default {@code FULL}).
+     * @return La pagina di viaggi con il cursore per la successiva.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('LOGISTIC_PLANNER', 'TRAFFIC_COORDINATOR')")
+    public ResponseEntity<TripPageDTO> getTripPage(
+            @RequestParam(required = false) TripStatus[] status,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) Long vehicleId,
+            @RequestParam(required = false) Long clientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate pickupFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate pickupTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "FULL") PolylineDetail detail
+    ) {
+        TripFilter filter = new TripFilter(status != null ? List.of(status) : null,
+                driverId, vehicleId, clientId, pickupFrom, pickupTo);
+        return ResponseEntity.ok(tripService.searchTrips(filter, cursor, limit, detail));
+    }
+
+    /**
+     * Esporta l'intero storico dei viaggi in formato NDJSON ({@code application/x-ndjson}).
+     * <p>
+     * Pensato per gli strumenti di reportistica: le righe vengono scritte sulla risposta man mano che
+     * sono lette dal database, quindi la memoria usata non cresce con il numero di viaggi.
+     * </p>
+     *
+     * @param detail   Livello di dettaglio della polyline (default {@code NONE}).
+     * @param response Risposta HTTP su cui scrivere le righe.
+     * @throws IOException se la scrittura fallisce (es. client disconnesso).
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('LOGISTIC_PLANNER', 'TRAFFIC_COORDINATOR')")
+    public void exportTrips(@RequestParam(defaultValue = "NONE") PolylineDetail detail,
+                            HttpServletResponse response) throws IOException {
+        log.info("GET /api/trips/export - Esportazione NDJSON dei viaggi");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        tripService.exportTrips(response.getOutputStream(), detail);
+    }
+
+    /**
+     * Restituisce l'ultima stima di arrivo di un viaggio in corso.
+     * <p>
+     * Un committente può consultare solo i viaggi nati dalle proprie richieste.
+     * </p>
+     *
+     * @param tripId ID del viaggio.
+     * @return La stima di arrivo, oppure 404 se non ancora disponibile.
+     */
+    @GetMapping("/{tripId}/eta")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'LOGISTIC_PLANNER', 'TRAFFIC_COORDINATOR')")
+    public ResponseEntity<TripEtaDTO> getTripEta(@PathVariable Long tripId) {
+        return ResponseEntity.ok(tripService.getTripEta(tripId, usernameIfRole("ROLE_CUSTOMER")));
     }
 
     /**
@@ -109,12 +212,13 @@ public class TripManagementController {
      * Aggiorna lo stato operativo di un viaggio.
      * <p>
      * <b>Endpoint Mobile:</b> Invocato dall'app autista per segnalare avanzamenti
-     * (es. IN_TRANSIT, DELIVERED).
+     * (es. IN_TRANSIT, DELIVERED). Un autista può aggiornare solo i viaggi a lui assegnati e non
+     * può annullarli.
      * </p>
      *
      * @param tripId    ID del viaggio da aggiornare.
      * @param newStatus Nuovo stato come Stringa (es. "IN_TRANSIT").
-     * @return 200 OK se l'operazione ha successo.
+     * @return 200 OK se l'operazione ha successo, 403 se il cambio non è consentito all'autista.
      */
     @PatchMapping("/{tripId}/status")
     @PreAuthorize("hasAnyRole('DRIVER', 'LOGISTIC_PLANNER')")
@@ -123,11 +227,51 @@ public class TripManagementController {
             @RequestBody String newStatus) {
 
         log.info("Aggiornamento stato richiesto per Trip ID {}: {}", tripId, newStatus);
-        tripService.updateStatus(tripId, newStatus);
+        tripService.updateStatus(tripId, newStatus, usernameIfRole("ROLE_DRIVER"));
 
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Aggiorna lo stato di più viaggi con una sola richiesta.
+     * <p>
+     * <b>Endpoint Mobile e Pianificazione:</b> consente all'app autista di inviare gli aggiornamenti
+     * accumulati offline e al Planner di aggiornare più viaggi insieme. I cambi vengono applicati
+     * in un'unica transazione; le transizioni non consentite sono riportate con il motivo senza
+     * bloccare le altre. Per un autista sono scartati i cambi su viaggi altrui e gli annullamenti.
+     * </p>
+     *
+     * @param request Elenco dei cambi di stato.
+     * @return 200 OK con l'esito di ogni cambio, nello stesso ordine.
+     */
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('DRIVER', 'LOGISTIC_PLANNER')")
+    public ResponseEntity<List<TripStatusResultDTO>> updateTripStatuses(@Valid @RequestBody BatchStatusUpdateDTO request) {
+        log.info("Aggiornamento stati a lotti: {} cambi", request.getChanges().size());
+        return ResponseEntity.ok(tripService.updateStatuses(request.getChanges(), usernameIfRole("ROLE_DRIVER")));
+    }
+
+    /**
+     * Riceve la posizione GPS corrente del mezzo e aggiorna la stima di arrivo.
+     * <p>
+     * <b>Endpoint Mobile:</b> Invocato periodicamente dall'app autista durante il viaggio.
+     * Solo l'autista assegnato al viaggio può inviarne la posizione.
+     * </p>
+     *
+     * @param tripId ID del viaggio in corso.
+     * @param dto    Coordinate della posizione corrente.
+     * @return 200 OK con la stima aggiornata (corpo vuoto se la rotta non consente la stima), 403 se il
+     *         viaggio è assegnato a un altro autista.
+     */
+    @PutMapping("/{tripId}/position")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<TripEtaDTO> updatePosition(
+            @PathVariable Long tripId,
+            @Valid @RequestBody PositionUpdateDTO dto) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(tripService.updatePosition(tripId, username, dto));
+    }
+
     /**
      * Approva una richiesta di trasporto trasformandola in un Viaggio effettivo.
      * <p>
@@ -168,6 +312,58 @@ public class TripManagementController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Assegna le risorse a più viaggi con una sola richiesta (es. pianificazione di inizio giornata).
+     * <p>
+     * Le assegnazioni vengono validate e applicate in un'unica transazione; quelle non valide
+     * (viaggio inesistente, risorsa occupata, portata insufficiente...) sono riportate con il motivo
+     * senza bloccare le altre.
+     * </p>
+     *
+     * @param request Elenco delle assegnazioni viaggio → autista/veicolo.
+     * @return 200 OK con l'esito di ogni assegnazione, nello stesso ordine.
+     */
+    @PutMapping("/plan")
+    @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
+    public ResponseEntity<List<TripPlanResultDTO>> planResourcesBatch(@Valid @RequestBody BatchPlanRequestDTO request) {
+        log.info("Pianificazione a lotti: {} assegnazioni", request.getAssignments().size());
+        return ResponseEntity.ok(tripService.planTrips(request.getAssignments()));
+    }
+
+    /**
+     * Propone autisti e veicoli per tutti i viaggi in pianificazione, minimizzando la distanza di
+     * avvicinamento e la portata inutilizzata.
+     * <p>
+     * Nessuna risorsa viene prenotata: le assegnazioni proposte si confermano con
+     * {@code PUT /api/trips/plan}.
+     * </p>
+     *
+     * @return 200 OK con le assegnazioni proposte e i viaggi rimasti senza proposta.
+     */
+    @GetMapping("/plan/proposal")
+    @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
+    public ResponseEntity<AssignmentPlanDTO> proposeAssignments() {
+        log.info("Richiesta proposta di pianificazione automatica ricevuta");
+        return ResponseEntity.ok(assignmentPlanner.proposePlan());
+    }
+
+    /**
+     * Propone la programmazione dei viaggi approvati sui prossimi giorni: ogni equipaggio
+     * (autista e veicolo) riceve una sequenza di viaggi compatibile con le date di ritiro.
+     * <p>
+     * Nessuna risorsa viene prenotata: il primo viaggio di ogni equipaggio ({@code nextAssignments})
+     * si conferma con {@code PUT /api/trips/plan}.
+     * </p>
+     *
+     * @return 200 OK con le sequenze proposte e i viaggi non programmabili.
+     */
+    @GetMapping("/plan/schedule")
+    @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
+    public ResponseEntity<WeeklyScheduleDTO> proposeSchedule() {
+        log.info("Richiesta programmazione settimanale ricevuta");
+        return ResponseEntity.ok(schedulePlanner.proposeSchedule());
+    }
+
     /**
      * Permette al Traffic Coordinator di approvare o rifiutare una rotta calcolata.
      * <p>
@@ -191,4 +387,15 @@ public class TripManagementController {
 
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Username dell'utente autenticato se ha il ruolo indicato, altrimenti {@code null}
+     * (chiamante non soggetto alle restrizioni di quel ruolo).
+     */
+    private String usernameIfRole(String role) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean hasRole = authentication.getAuthorities().stream()
+                .anyMatch(a -> role.equals(a.getAuthority()));
+        return hasRole ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) con il piano di assegnazione proposto per i viaggi in pianificazione.
+ * <p>
+ * Il piano è solo una proposta: nessuna risorsa viene prenotata finché il pianificatore
+ * non lo conferma.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentPlanDTO {
+
+    /**
+     * Assegnazioni proposte, ordinate per data di ritiro.
+     */
+    private List<AssignmentProposalDTO> assignments;
+
+    /**
+     * Viaggi rimasti senza proposta (risorse insufficienti, nessun veicolo compatibile
+     * o punto di ritiro non localizzabile).
+     */
+    private List<Long> unassignedTripIds;
+}
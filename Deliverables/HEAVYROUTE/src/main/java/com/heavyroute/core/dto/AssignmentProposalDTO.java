@@ -0,0 +1,61 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) con una singola assegnazione proposta dalla pianificazione automatica.
+ * <p>
+ * I campi {@code tripId}, {@code driverId} e {@code vehiclePlate} corrispondono a quelli di
+ * {@link TripAssignmentDTO}: la proposta può essere accettata così com'è tramite la pianificazione
+ * del viaggio (singola o a lotti).
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentProposalDTO {
+
+    /**
+     * ID del viaggio da pianificare.
+     */
+    private Long tripId;
+
+    /**
+     * Codice leggibile del viaggio (es. "T-2026-0042").
+     */
+    private String tripCode;
+
+    /**
+     * ID dell'autista proposto.
+     */
+    private Long driverId;
+
+    /**
+     * Nome e cognome dell'autista proposto.
+     */
+    private String driverName;
+
+    /**
+     * Targa del veicolo proposto.
+     */
+    private String vehiclePlate;
+
+    /**
+     * Distanza in linea d'aria tra la posizione dell'autista e il punto di ritiro, in chilometri.
+     */
+    private Double deadheadKm;
+
+    /**
+     * Portata residua del veicolo con il carico a bordo, in kg.
+     */
+    private Double spareCapacityKg;
+
+    /**
+     * Data di ritiro richiesta dal committente.
+     */
+    private LocalDate pickupDate;
+}
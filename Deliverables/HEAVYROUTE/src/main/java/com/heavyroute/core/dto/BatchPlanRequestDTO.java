@@ -0,0 +1,30 @@
+package com.heavyroute.core.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) per la pianificazione di più viaggi in una sola richiesta.
+ * <p>
+ * Ogni elemento indica il viaggio ({@code tripId}, obbligatorio in questo contesto),
+ * l'autista e la targa del veicolo da assegnare.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPlanRequestDTO {
+
+    /**
+     * Le assegnazioni da applicare, nell'ordine in cui vengono valutate.
+     */
+    @NotEmpty(message = "Indicare almeno un'assegnazione")
+    @Size(max = 200, message = "Al massimo 200 assegnazioni per richiesta")
+    private List<@Valid TripAssignmentDTO> assignments;
+}
@@ -0,0 +1,26 @@
+package com.heavyroute.core.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) per aggiornare lo stato di più viaggi in una sola richiesta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStatusUpdateDTO {
+
+    /**
+     * I cambi di stato da applicare, nell'ordine in cui vengono valutati.
+     */
+    @NotEmpty(message = "Indicare almeno un cambio di stato")
+    @Size(max = 500, message = "Al massimo 500 cambi di stato per richiesta")
+    private List<@Valid TripStatusChangeDTO> changes;
+}
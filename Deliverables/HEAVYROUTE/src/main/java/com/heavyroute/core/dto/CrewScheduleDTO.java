@@ -0,0 +1,36 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) con la sequenza di viaggi proposta per un equipaggio (autista e veicolo).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrewScheduleDTO {
+
+    /**
+     * ID dell'autista.
+     */
+    private Long driverId;
+
+    /**
+     * Nome e cognome dell'autista.
+     */
+    private String driverName;
+
+    /**
+     * Targa del veicolo.
+     */
+    private String vehiclePlate;
+
+    /**
+     * Viaggi nell'ordine di esecuzione.
+     */
+    private List<ScheduledTripDTO> trips;
+}
@@ -0,0 +1,33 @@
+package com.heavyroute.core.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) per l'invio della posizione GPS corrente dall'app autista.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionUpdateDTO {
+
+    /**
+     * Latitudine della posizione corrente del mezzo.
+     */
+    @NotNull(message = "La latitudine è obbligatoria")
+    @DecimalMin(value = "-90.0", message = "La latitudine deve essere compresa tra -90 e 90")
+    @DecimalMax(value = "90.0", message = "La latitudine deve essere compresa tra -90 e 90")
+    private Double latitude;
+
+    /**
+     * Longitudine della posizione corrente del mezzo.
+     */
+    @NotNull(message = "La longitudine è obbligatoria")
+    @DecimalMin(value = "-180.0", message = "La longitudine deve essere compresa tra -180 e 180")
+    @DecimalMax(value = "180.0", message = "La longitudine deve essere compresa tra -180 e 180")
+    private Double longitude;
+}
@@ -1,5 +1,6 @@
 package com.heavyroute.core.dto;
 
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.enums.TripStatus;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -35,6 +36,8 @@ public class RouteResponseDTO {
     private Double distance;         // Distanza in km
     private Double duration;         // Durata in minuti
     private String polyline;
+    private PolylineDetail polylineDetail; // Livello di dettaglio della polyline (FULL se non richiesto)
+    private boolean provisional;     // Stima provvisoria (provider cartografico non disponibile)
 
     // Coordinate Partenza
     private Double startLat;
@@ -0,0 +1,47 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) con un viaggio nella sequenza proposta per un equipaggio.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledTripDTO {
+
+    /**
+     * ID del viaggio.
+     */
+    private Long tripId;
+
+    /**
+     * Codice leggibile del viaggio (es. "T-2026-0042").
+     */
+    private String tripCode;
+
+    /**
+     * Data di ritiro richiesta dal committente.
+     */
+    private LocalDate pickupDate;
+
+    /**
+     * Inizio previsto del viaggio (ritiro del carico).
+     */
+    private LocalDateTime plannedStart;
+
+    /**
+     * Fine prevista del viaggio (consegna completata).
+     */
+    private LocalDateTime plannedEnd;
+
+    /**
+     * Trasferimento a vuoto stimato per raggiungere il punto di ritiro, in chilometri.
+     */
+    private Double transferKm;
+}
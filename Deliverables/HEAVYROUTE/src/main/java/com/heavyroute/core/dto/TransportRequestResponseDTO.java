@@ -1,6 +1,7 @@
 package com.heavyroute.core.dto;
 
 import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
 import lombok.Data;
 import java.time.LocalDate;
 
@@ -55,6 +56,17 @@ public class TransportRequestResponseDTO {
      */
     private RequestStatus requestStatus;
 
+    /**
+     * Esito del pre-calcolo della rotta (PENDING, READY, FAILED).
+     * Permette al Pianificatore di individuare subito le richieste con indirizzi non risolvibili.
+     */
+    private RoutePrecomputeStatus routeStatus;
+
+    /**
+     * Motivo del fallimento del pre-calcolo, se presente.
+     */
+    private String routeError;
+
     /**
      * Raggruppamento dei dettagli fisici del carico (Dimensioni e Peso).
      */
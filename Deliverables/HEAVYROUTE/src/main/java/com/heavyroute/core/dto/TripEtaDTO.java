@@ -0,0 +1,51 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) con la stima di arrivo di un viaggio in corso.
+ * <p>
+ * Calcolata a ogni aggiornamento di posizione dell'autista proiettando la posizione sul
+ * tracciato della rotta, senza ricalcolare il percorso.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripEtaDTO {
+
+    /**
+     * Distanza residua lungo la rotta, in chilometri.
+     */
+    private Double remainingKm;
+
+    /**
+     * Tempo residuo stimato, in minuti.
+     */
+    private Double remainingMinutes;
+
+    /**
+     * Frazione del percorso già completata (da 0 a 1).
+     */
+    private Double progress;
+
+    /**
+     * Orario di arrivo stimato.
+     */
+    private LocalDateTime estimatedArrival;
+
+    /**
+     * Momento dell'ultimo aggiornamento di posizione usato per la stima.
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * {@code true} se l'ultima posizione ricevuta è lontana dal tracciato: la stima si basa
+     * sull'ultimo punto del percorso riconosciuto.
+     */
+    private boolean offRoute;
+}
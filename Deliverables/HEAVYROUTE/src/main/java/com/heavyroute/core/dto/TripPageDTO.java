@@ -0,0 +1,29 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) per una pagina dell'elenco dei viaggi.
+ * <p>
+ * La pagina successiva si richiede passando {@link #nextCursor} come parametro {@code cursor}.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripPageDTO {
+
+    /**
+     * Viaggi della pagina, dal più recente.
+     */
+    private List<TripResponseDTO> items;
+
+    /**
+     * Cursore opaco per la pagina successiva; {@code null} se questa è l'ultima pagina.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) con l'esito di una singola assegnazione della pianificazione a lotti.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripPlanResultDTO {
+
+    /**
+     * ID del viaggio a cui si riferisce l'esito.
+     */
+    private Long tripId;
+
+    /**
+     * {@code true} se le risorse sono state assegnate.
+     */
+    private boolean planned;
+
+    /**
+     * Motivo del rifiuto; {@code null} se l'assegnazione è andata a buon fine.
+     */
+    private String message;
+}
@@ -81,4 +81,10 @@ public class TripResponseDTO {
     private String clientFullName;
 
     private RouteResponseDTO route;
+
+    /**
+     * Stima di arrivo aggiornata con l'ultima posizione dell'autista.
+     * {@code null} se il viaggio non è in corso o non ha ancora inviato posizioni.
+     */
+    private TripEtaDTO eta;
 }
\ No newline at end of file
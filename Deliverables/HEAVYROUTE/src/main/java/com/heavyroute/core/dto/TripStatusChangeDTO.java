@@ -0,0 +1,28 @@
+package com.heavyroute.core.dto;
+
+import com.heavyroute.core.enums.TripStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) per un singolo cambio di stato nell'aggiornamento a lotti.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripStatusChangeDTO {
+
+    /**
+     * ID del viaggio da aggiornare.
+     */
+    @NotNull(message = "L'ID del viaggio è obbligatorio")
+    private Long tripId;
+
+    /**
+     * Nuovo stato del viaggio.
+     */
+    @NotNull(message = "Il nuovo stato è obbligatorio")
+    private TripStatus status;
+}
@@ -0,0 +1,35 @@
+package com.heavyroute.core.dto;
+
+import com.heavyroute.core.enums.TripStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) con l'esito di un singolo cambio di stato dell'aggiornamento a lotti.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripStatusResultDTO {
+
+    /**
+     * ID del viaggio a cui si riferisce l'esito.
+     */
+    private Long tripId;
+
+    /**
+     * {@code true} se il viaggio si trova ora nello stato richiesto.
+     */
+    private boolean applied;
+
+    /**
+     * Stato del viaggio dopo l'aggiornamento; {@code null} se il viaggio non esiste.
+     */
+    private TripStatus status;
+
+    /**
+     * Motivo del rifiuto; {@code null} se il cambio di stato è stato applicato.
+     */
+    private String message;
+}
@@ -0,0 +1,53 @@
+package com.heavyroute.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) con la programmazione proposta dei viaggi su più giorni.
+ * <p>
+ * Ogni equipaggio può eseguire più viaggi in sequenza nell'orizzonte. Poiché autista e veicolo
+ * possono avere un solo incarico attivo alla volta, si conferma solo il primo viaggio di ogni
+ * equipaggio ({@link #nextAssignments}, da inviare alla pianificazione a lotti); i successivi
+ * si confermano ricalcolando la programmazione quando l'equipaggio torna libero.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklyScheduleDTO {
+
+    /**
+     * Primo giorno dell'orizzonte di pianificazione.
+     */
+    private LocalDate horizonStart;
+
+    /**
+     * Ultimo giorno dell'orizzonte di pianificazione (incluso).
+     */
+    private LocalDate horizonEnd;
+
+    /**
+     * Sequenze proposte per gli equipaggi che hanno almeno un viaggio.
+     */
+    private List<CrewScheduleDTO> crews;
+
+    /**
+     * Viaggi dell'orizzonte rimasti senza equipaggio.
+     */
+    private List<Long> unscheduledTripIds;
+
+    /**
+     * Primo viaggio di ogni equipaggio, nel formato della pianificazione a lotti.
+     */
+    private List<TripAssignmentDTO> nextAssignments;
+
+    /**
+     * Chilometri complessivi di trasferimento a vuoto.
+     */
+    private Double totalTransferKm;
+}
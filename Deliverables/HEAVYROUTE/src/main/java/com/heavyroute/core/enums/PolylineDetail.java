@@ -0,0 +1,32 @@
+package com.heavyroute.core.enums;
+
+/**
+ * Livello di dettaglio della geometria restituita con i percorsi.
+ * <p>
+ * I livelli semplificati sono precalcolati al salvataggio della rotta con l'algoritmo di
+ * Douglas-Peucker: la tolleranza indica lo scostamento massimo dal tracciato originale.
+ * </p>
+ */
+public enum PolylineDetail {
+    /** Geometria completa, come restituita dal provider di routing. */
+    FULL(0),
+
+    /** Adatta alle mappe di dettaglio a scala cittadina/provinciale (scostamento massimo 25 m). */
+    SIMPLIFIED(25),
+
+    /** Adatta a miniature e mappe d'insieme (scostamento massimo 250 m). */
+    OVERVIEW(250),
+
+    /** Nessuna geometria (tabelle e liste senza mappa). */
+    NONE(0);
+
+    private final double toleranceMeters;
+
+    PolylineDetail(double toleranceMeters) {
+        this.toleranceMeters = toleranceMeters;
+    }
+
+    public double toleranceMeters() {
+        return toleranceMeters;
+    }
+}
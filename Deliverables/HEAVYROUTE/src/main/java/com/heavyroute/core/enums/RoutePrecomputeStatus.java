@@ -0,0 +1,15 @@
+package com.heavyroute.core.enums;
+
+/**
+ * Esito del pre-calcolo in background della rotta associata a una richiesta di trasporto.
+ */
+public enum RoutePrecomputeStatus {
+    /** Il calcolo è in coda o in esecuzione. */
+    PENDING,
+
+    /** Geocoding e rotta calcolati: l'approvazione non richiede chiamate al provider. */
+    READY,
+
+    /** Geocoding o calcolo rotta falliti (es. indirizzo non risolvibile). */
+    FAILED
+}
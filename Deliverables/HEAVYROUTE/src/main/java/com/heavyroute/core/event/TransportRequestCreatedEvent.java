@@ -0,0 +1,19 @@
+package com.heavyroute.core.event;
+
+import com.heavyroute.core.routing.RouteConstraints;
+
+/**
+ * Evento applicativo pubblicato quando un Committente registra una nuova richiesta di trasporto.
+ * <p>
+ * Consente di avviare attività accessorie (es. pre-calcolo della rotta) dopo il commit,
+ * senza rallentare la risposta al Committente.
+ * </p>
+ *
+ * @param requestId          ID della {@link com.heavyroute.core.model.TransportRequest} salvata.
+ * @param originAddress      Indirizzo di partenza.
+ * @param destinationAddress Indirizzo di destinazione.
+ * @param constraints        Profilo dimensionale e di peso del carico.
+ */
+public record TransportRequestCreatedEvent(Long requestId, String originAddress, String destinationAddress,
+                                           RouteConstraints constraints) {
+}
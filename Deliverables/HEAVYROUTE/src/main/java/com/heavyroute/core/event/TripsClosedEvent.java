@@ -0,0 +1,15 @@
+package com.heavyroute.core.event;
+
+import java.util.List;
+
+/**
+ * Evento applicativo pubblicato quando uno o più viaggi vengono completati o annullati.
+ * <p>
+ * Consente di rilasciare lo stato in memoria legato ai viaggi (es. la stima di arrivo) solo dopo il
+ * commit: se la transazione viene annullata i viaggi restano attivi e lo stato resta valido.
+ * </p>
+ *
+ * @param tripIds ID dei viaggi conclusi.
+ */
+public record TripsClosedEvent(List<Long> tripIds) {
+}
@@ -1,6 +1,7 @@
 package com.heavyroute.core.mapper;
 
 import com.heavyroute.core.dto.RouteResponseDTO;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.model.Route;
 import org.springframework.stereotype.Component;
 
@@ -12,6 +13,13 @@ import org.springframework.stereotype.Component;
 public class RouteMapper {
 
     public RouteResponseDTO toDTO(Route route) {
+        return toDTO(route, PolylineDetail.FULL);
+    }
+
+    /**
+     * Converte la rotta includendo la geometria al livello di dettaglio indicato.
+     */
+    public RouteResponseDTO toDTO(Route route, PolylineDetail detail) {
         if (route == null) {
             return null;
         }
@@ -21,7 +29,9 @@ public class RouteMapper {
                 .routeDescription(route.getDescription())
                 .distance(route.getRouteDistance())
                 .duration(route.getRouteDuration())
-                .polyline(route.getPolyline())
+                .polyline(route.getPolyline(detail))
+                .polylineDetail(detail)
+                .provisional(route.isProvisional())
                 .startLat(route.getStartLocation() != null ? route.getStartLocation().getLatitude() : null)
                 .startLon(route.getStartLocation() != null ? route.getStartLocation().getLongitude() : null)
                 .endLat(route.getEndLocation() != null ? route.getEndLocation().getLatitude() : null)
@@ -2,6 +2,7 @@ package com.heavyroute.core.mapper;
 
 import com.heavyroute.core.dto.TransportRequestResponseDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.model.TransportRequest;
 import com.heavyroute.core.model.Trip;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,11 @@ public class TripMapper {
     private final RouteMapper routeMapper;
 
     public TripResponseDTO toDTO(Trip trip) {
+        return toDTO(trip, PolylineDetail.FULL);
+    }
+
+    // Il livello di dettaglio evita di decomprimere la geometria completa per le viste d'insieme
+    public TripResponseDTO toDTO(Trip trip, PolylineDetail detail) {
         if (trip == null) return null;
 
         TripResponseDTO dto = new TripResponseDTO();
@@ -47,7 +53,7 @@ public class TripMapper {
 
         // 4. Mappatura Rotta
         if (trip.getRoute() != null) {
-            dto.setRoute(routeMapper.toDTO(trip.getRoute()));
+            dto.setRoute(routeMapper.toDTO(trip.getRoute(), detail));
         }
 
         return dto;
@@ -0,0 +1,56 @@
+package com.heavyroute.core.model;
+
+import com.heavyroute.common.model.BaseEntity;
+import com.heavyroute.common.model.GeoLocation;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Voce persistente della cache di geocoding (secondo livello, L2).
+ * <p>
+ * Memorizza il risultato di una risoluzione indirizzo -> coordinate ottenuta dal provider
+ * cartografico, indicizzata per indirizzo <b>normalizzato</b>. In questo modo le sedi ricorrenti
+ * dei committenti (es. stabilimenti di Napoli e Pistoia) vengono geocodificate una sola volta
+ * e sopravvivono ai riavvii dell'applicazione.
+ * </p>
+ */
+@Entity
+@Table(name = "geocoding_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+public class GeocodingCacheEntry extends BaseEntity {
+
+    /**
+     * Chiave di ricerca: indirizzo normalizzato (minuscolo, spazi compattati, senza suffisso nazione).
+     */
+    @Column(name = "normalized_address", nullable = false, unique = true, length = 512)
+    private String normalizedAddress;
+
+    /**
+     * Coordinate risolte dal provider.
+     */
+    @Embedded
+    private GeoLocation location;
+
+    /**
+     * Istante oltre il quale la voce non è più considerata affidabile e va risolta nuovamente.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Verifica se la voce è scaduta rispetto all'istante fornito.
+     *
+     * @param now Istante di riferimento.
+     * @return {@code true} se la voce deve essere ricalcolata.
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,32 @@
+package com.heavyroute.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Polyline testuale di una rotta salvata prima dell'introduzione di {@link RouteGeometry}.
+ * <p>
+ * Spostata dalla colonna {@code routes.polyline} in una tabella dedicata (vedi
+ * {@code db/migration/route_legacy_polylines.sql}) per poterla caricare in modo lazy: una colonna
+ * {@code @Basic(fetch = LAZY)} viene ignorata da Hibernate senza bytecode enhancement e il testo
+ * verrebbe letto a ogni caricamento della rotta. L'ID coincide con quello della rotta.
+ * </p>
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@Table(name = "route_legacy_polylines")
+public class LegacyRoutePolyline {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String polyline;
+}
@@ -1,5 +1,6 @@
 package com.heavyroute.core.model;
 
+import com.heavyroute.resources.model.Vehicle;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 import lombok.Data;
@@ -54,4 +55,25 @@ public class LoadDetails {
      * Parametro critico per la manovrabilità nei tratti a raggio di curvatura stretto.
      */
     private Double length;
+
+    /**
+     * Verifica se il carico può essere trasportato da un veicolo.
+     * <p>
+     * Stessi vincoli della ricerca dei veicoli compatibili: portata e dimensioni del veicolo
+     * non inferiori a quelle del carico (le misure non indicate non pongono vincoli).
+     * </p>
+     * @param vehicle Veicolo candidato.
+     * @return true se peso e dimensioni rientrano nei limiti del veicolo.
+     */
+    public boolean fitsIn(Vehicle vehicle) {
+        return vehicle.getMaxLoadCapacity() != null && vehicle.getMaxLoadCapacity() > 0
+                && vehicle.getMaxLoadCapacity() >= valueOf(weightKg)
+                && valueOf(vehicle.getMaxHeight()) >= valueOf(height)
+                && valueOf(vehicle.getMaxWidth()) >= valueOf(width)
+                && valueOf(vehicle.getMaxLength()) >= valueOf(length);
+    }
+
+    private static double valueOf(Double measure) {
+        return measure == null ? 0.0 : measure;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,18 @@
 package com.heavyroute.core.model;
 
 import com.heavyroute.common.model.BaseEntity;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.geo.PolylineGeometry;
+import com.heavyroute.common.geo.PolylineSimplifier;
 import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.PolylineDetail;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Entità che rappresenta i dettagli tecnici di un percorso calcolato.
  * <p>
@@ -45,12 +52,109 @@ public class Route extends BaseEntity {
      * La stringa codificata che rappresenta la geometria del percorso.
      * <p>
      * Solitamente in formato Google Encoded Polyline Algorithm Format.
-     * Viene mappata come TEXT per accomodare stringhe molto lunghe.
+     * Non è mappata su una colonna: viene persistita in forma compressa in {@link RouteGeometry}
+     * e ricostruita solo quando richiesta tramite {@link #getPolyline()}.
      * </p>
      */
-    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    @Transient
     private String polyline;
 
+    /**
+     * Geometria compressa, caricata solo al primo accesso alla polyline.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "geometry_id")
+    private RouteGeometry geometry;
+
+    /**
+     * Geometria semplificata per {@link PolylineDetail#SIMPLIFIED}, precalcolata al salvataggio.
+     * {@code null} se la semplificazione non riduce i punti o per le rotte precedenti.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "simplified_geometry_id")
+    private RouteGeometry simplifiedGeometry;
+
+    /**
+     * Polyline d'insieme per {@link PolylineDetail#OVERVIEW}: poche centinaia di punti al massimo,
+     * quindi memorizzata direttamente nella tabella delle rotte.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "overview_polyline", columnDefinition = "TEXT")
+    private String overviewPolyline;
+
+    /**
+     * Polyline testuale delle rotte salvate prima dell'introduzione di {@link RouteGeometry},
+     * caricata solo al primo accesso.
+     * <p>
+     * Solo lettura: le nuove rotte la lasciano vuota.
+     * </p>
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "legacy_polyline_id", insertable = false, updatable = false)
+    private LegacyRoutePolyline legacyPolyline;
+
+    /**
+     * Indica una rotta stimata in modalità degradata (provider cartografico non disponibile):
+     * percorso recuperato da una cache scaduta oppure stima in linea d'aria.
+     * <p>
+     * Le rotte provvisorie vengono ricalcolate in background appena il provider torna disponibile.
+     * </p>
+     */
+    @Column(name = "provisional", nullable = false)
+    private boolean provisional;
+
+    /**
+     * Impronta delle chiusure stradali attive evitate nel calcolo (vuota se nessuna).
+     * Non persistita: permette di scartare una rotta pre-calcolata se nel frattempo le chiusure sono cambiate.
+     */
+    @Transient
+    private String closuresKey;
+
+    /**
+     * Rettangolo di ingombro della geometria, aggiornato insieme alla polyline.
+     * {@code null} per le rotte con geometria non standard.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "bbox_min_lat")
+    private Double bboxMinLat;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "bbox_max_lat")
+    private Double bboxMaxLat;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "bbox_min_lon")
+    private Double bboxMinLon;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "bbox_max_lon")
+    private Double bboxMaxLon;
+
+    /**
+     * Celle della griglia fissa attraversate dal tracciato (vedi {@link PolylineGeometry#cells(int[])}),
+     * aggiornate insieme alla polyline.
+     * <p>
+     * Indicizzate per cella: i percorsi che passano vicino a un punto (es. un nuovo evento stradale) si
+     * trovano con una ricerca per uguaglianza sulle poche celle attorno al punto, senza scorrere le rotte
+     * per intervallo di coordinate né decomprimere le geometrie. Vuoto per le geometrie non standard.
+     * </p>
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    @ElementCollection
+    @CollectionTable(name = "route_cells", joinColumns = @JoinColumn(name = "route_id"),
+            indexes = @Index(name = "idx_route_cells_cell", columnList = "cell, route_id"))
+    @Column(name = "cell", nullable = false)
+    private Set<Long> cells = new HashSet<>();
+
     @Embedded
     @AttributeOverrides({
             @AttributeOverride(name = "latitude", column = @Column(name = "start_lat")),
@@ -70,4 +174,155 @@ public class Route extends BaseEntity {
      */
     @OneToOne(mappedBy = "route")
     private Trip trip;
+
+    /**
+     * Restituisce la polyline, decomprimendo la geometria al primo accesso.
+     */
+    public String getPolyline() {
+        if (polyline == null) {
+            if (geometry != null) {
+                polyline = geometry.toPolyline();
+            } else if (legacyPolyline != null) {
+                polyline = legacyPolyline.getPolyline();
+            }
+        }
+        return polyline;
+    }
+
+    /**
+     * Restituisce la polyline al livello di dettaglio richiesto.
+     * <p>
+     * Se il livello non è disponibile (rotte salvate prima dell'introduzione dei livelli, o
+     * geometrie che non si semplificano) viene restituito il livello più dettagliato successivo.
+     * </p>
+     *
+     * @param detail Livello di dettaglio; {@link PolylineDetail#NONE} restituisce {@code null}.
+     */
+    public String getPolyline(PolylineDetail detail) {
+        return switch (detail) {
+            case NONE -> null;
+            case OVERVIEW -> overviewPolyline != null ? overviewPolyline : getPolyline(PolylineDetail.SIMPLIFIED);
+            case SIMPLIFIED -> simplifiedGeometry != null ? simplifiedGeometry.toPolyline() : getPolyline();
+            case FULL -> getPolyline();
+        };
+    }
+
+    /**
+     * Geometria compressa che {@link #getPolyline(PolylineDetail)} leggerà per il livello indicato.
+     * <p>
+     * Non inizializza le associazioni lazy: consente a chi elenca molte rotte di caricare
+     * in un'unica query solo le geometrie effettivamente necessarie.
+     * </p>
+     *
+     * @return La geometria da caricare, oppure {@code null} se il livello non ne richiede.
+     */
+    public RouteGeometry geometryFor(PolylineDetail detail) {
+        return switch (detail) {
+            case NONE -> null;
+            case OVERVIEW -> overviewPolyline != null ? null : geometryFor(PolylineDetail.SIMPLIFIED);
+            case SIMPLIFIED -> simplifiedGeometry != null ? simplifiedGeometry : geometryFor(PolylineDetail.FULL);
+            case FULL -> polyline != null ? null : geometry;
+        };
+    }
+
+    /**
+     * Come {@link #geometryFor(PolylineDetail)}, per le rotte salvate prima di {@link RouteGeometry}.
+     *
+     * @return La polyline testuale da caricare, oppure {@code null} se il livello non la richiede.
+     */
+    public LegacyRoutePolyline legacyPolylineFor(PolylineDetail detail) {
+        return switch (detail) {
+            case NONE -> null;
+            case OVERVIEW -> overviewPolyline != null ? null : legacyPolylineFor(PolylineDetail.SIMPLIFIED);
+            case SIMPLIFIED -> simplifiedGeometry != null ? null : legacyPolylineFor(PolylineDetail.FULL);
+            case FULL -> polyline != null || geometry != null ? null : legacyPolyline;
+        };
+    }
+
+    /**
+     * Imposta una nuova geometria; la versione compressa e i livelli semplificati vengono aggiornati subito.
+     */
+    public void setPolyline(String polyline) {
+        this.polyline = polyline;
+        packGeometry();
+    }
+
+    /**
+     * Ricava dalla polyline attuale i dati derivati: geometria compressa (per le rotte salvate prima di
+     * {@link RouteGeometry}), livelli semplificati, rettangolo di ingombro e celle della griglia.
+     *
+     * @return {@code true} se la rotta è stata aggiornata, {@code false} se non ha una polyline.
+     */
+    public boolean rebuildDerivedGeometry() {
+        String current = getPolyline();
+        if (current == null) {
+            return false;
+        }
+        setPolyline(current);
+        return true;
+    }
+
+    /**
+     * Garantisce che la geometria compressa sia allineata anche per le rotte create tramite builder.
+     */
+    @PrePersist
+    void packGeometryBeforeInsert() {
+        if (geometry == null) {
+            packGeometry();
+        }
+    }
+
+    private void packGeometry() {
+        if (polyline == null) {
+            return;
+        }
+        if (geometry == null) {
+            geometry = RouteGeometry.of(polyline);
+        } else {
+            geometry.setData(RouteGeometry.of(polyline).getData());
+        }
+        simplify();
+    }
+
+    /**
+     * Precalcola i livelli semplificati (Douglas-Peucker) e il rettangolo di ingombro
+     * a partire dalla geometria completa.
+     */
+    private void simplify() {
+        int[] scaled;
+        try {
+            scaled = PolylineCodec.decodeScaled(polyline);
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            // Geometria non standard: disponibile solo a dettaglio pieno
+            simplifiedGeometry = null;
+            overviewPolyline = null;
+            setBounds(null);
+            cells.clear();
+            return;
+        }
+        setBounds(PolylineGeometry.bounds(scaled));
+        cells.clear();
+        cells.addAll(PolylineGeometry.cells(scaled));
+
+        int[] simplified = PolylineSimplifier.simplifyScaled(scaled, PolylineDetail.SIMPLIFIED.toleranceMeters());
+        if (simplified.length < scaled.length) {
+            if (simplifiedGeometry == null) {
+                simplifiedGeometry = RouteGeometry.ofScaled(simplified);
+            } else {
+                simplifiedGeometry.setData(RouteGeometry.ofScaled(simplified).getData());
+            }
+        } else {
+            simplifiedGeometry = null;
+        }
+
+        int[] overview = PolylineSimplifier.simplifyScaled(scaled, PolylineDetail.OVERVIEW.toleranceMeters());
+        overviewPolyline = overview.length < scaled.length ? PolylineCodec.encodeScaled(overview) : null;
+    }
+
+    private void setBounds(double[] bounds) {
+        bboxMinLat = bounds == null ? null : bounds[0];
+        bboxMaxLat = bounds == null ? null : bounds[1];
+        bboxMinLon = bounds == null ? null : bounds[2];
+        bboxMaxLon = bounds == null ? null : bounds[3];
+    }
 }
\ No newline at end of file
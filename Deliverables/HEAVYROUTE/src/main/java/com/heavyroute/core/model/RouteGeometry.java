@@ -0,0 +1,53 @@
+package com.heavyroute.core.model;
+
+import com.heavyroute.common.geo.CompactPolyline;
+import com.heavyroute.common.model.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Geometria di un percorso in formato binario compatto ({@link CompactPolyline}).
+ * <p>
+ * Separata da {@link Route} in una tabella dedicata e caricata in modo lazy: le letture che
+ * necessitano solo dei dati metrici (distanza, durata, coordinate di partenza e arrivo) non
+ * trasferiscono la geometria dal database.
+ * </p>
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Table(name = "route_geometries")
+public class RouteGeometry extends BaseEntity {
+
+    /**
+     * Polyline compressa (byte di formato + payload Deflate).
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] data;
+
+    /**
+     * Crea la geometria a partire da una polyline codificata.
+     */
+    public static RouteGeometry of(String polyline) {
+        return RouteGeometry.builder().data(CompactPolyline.pack(polyline)).build();
+    }
+
+    /**
+     * Crea la geometria a partire da coordinate scalate (es. una versione semplificata).
+     */
+    public static RouteGeometry ofScaled(int[] scaled) {
+        return RouteGeometry.builder().data(CompactPolyline.packScaled(scaled)).build();
+    }
+
+    /**
+     * @return La polyline codificata ricostruita dai dati compressi.
+     */
+    public String toPolyline() {
+        return CompactPolyline.unpack(data);
+    }
+}
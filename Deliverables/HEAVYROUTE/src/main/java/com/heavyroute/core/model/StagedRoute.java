@@ -0,0 +1,108 @@
+package com.heavyroute.core.model;
+
+import com.heavyroute.common.model.BaseEntity;
+import com.heavyroute.common.model.GeoLocation;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.util.Objects;
+
+/**
+ * Rotta pre-calcolata in background per una richiesta di trasporto non ancora approvata.
+ * <p>
+ * Area di staging separata da {@link Route}: al momento dell'approvazione i dati vengono
+ * copiati in una nuova {@link Route} associata al viaggio e la voce di staging viene eliminata.
+ * Gli indirizzi, il profilo dimensionale e le chiusure stradali considerati nel calcolo sono
+ * memorizzati per scartare la rotta se la richiesta o la viabilità cambiano nel frattempo.
+ * </p>
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@SuperBuilder
+@Table(name = "staged_routes")
+public class StagedRoute extends BaseEntity {
+
+    /**
+     * ID della richiesta di trasporto a cui si riferisce la rotta (una sola voce per richiesta).
+     */
+    @Column(name = "request_id", nullable = false, unique = true)
+    private Long requestId;
+
+    @Column(name = "origin_address", nullable = false)
+    private String originAddress;
+
+    @Column(name = "destination_address", nullable = false)
+    private String destinationAddress;
+
+    /**
+     * Profilo dimensionale del carico usato per il calcolo ({@code RouteConstraints#cacheKey()}).
+     */
+    @Column(name = "constraints_key", length = 64)
+    private String constraintsKey;
+
+    /**
+     * Impronta delle chiusure stradali attive al momento del calcolo ({@code RoadClosureLocator#fingerprint}).
+     */
+    @Column(name = "closures_key", length = 64)
+    private String closuresKey;
+
+    @Column(name = "distance", nullable = false)
+    private Double routeDistance;
+
+    @Column(name = "duration", nullable = false)
+    private Double routeDuration;
+
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String polyline;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "latitude", column = @Column(name = "start_lat")),
+            @AttributeOverride(name = "longitude", column = @Column(name = "start_lon"))
+    })
+    private GeoLocation startLocation;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "latitude", column = @Column(name = "end_lat")),
+            @AttributeOverride(name = "longitude", column = @Column(name = "end_lon"))
+    })
+    private GeoLocation endLocation;
+
+    /**
+     * Verifica che la rotta sia stata calcolata sugli indirizzi e sul profilo del carico indicati.
+     */
+    public boolean matches(String origin, String destination, String constraints) {
+        return originAddress.equals(origin) && destinationAddress.equals(destination)
+                && Objects.equals(nullToEmpty(constraintsKey), nullToEmpty(constraints));
+    }
+
+    /**
+     * Verifica che la rotta sia stata calcolata con le stesse chiusure stradali oggi attive.
+     */
+    public boolean avoidsSameClosures(String currentClosures) {
+        return Objects.equals(nullToEmpty(closuresKey), nullToEmpty(currentClosures));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Crea una nuova {@link Route} (non persistita) con gli stessi dati metrici e geometrici.
+     */
+    public Route toRoute() {
+        return Route.builder()
+                .description(originAddress + " -> " + destinationAddress)
+                .routeDistance(routeDistance)
+                .routeDuration(routeDuration)
+                .polyline(polyline)
+                .startLocation(startLocation)
+                .endLocation(endLocation)
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.heavyroute.core.model;
 
 import com.heavyroute.common.model.BaseEntity;
 import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
 import com.heavyroute.users.model.User;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -20,7 +21,10 @@ import java.time.LocalDate;
  * * @author Heavy Route Team
  */
 @Entity
-@Table(name = "transport_request")
+@Table(name = "transport_request", indexes = {
+        @Index(name = "idx_request_client_pickup", columnList = "client_id, pickup_date"),
+        @Index(name = "idx_request_pickup", columnList = "pickup_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -69,4 +73,18 @@ public class TransportRequest extends BaseEntity {
     @Embedded
     private LoadDetails load;
 
+    /**
+     * Esito del pre-calcolo in background della rotta (geocoding degli indirizzi e percorso).
+     * Valorizzato alla creazione e aggiornato dal processo asincrono tramite query di update mirate.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "route_status")
+    private RoutePrecomputeStatus routeStatus;
+
+    /**
+     * Motivo del fallimento del pre-calcolo (es. indirizzo non trovato), {@code null} se non fallito.
+     */
+    @Column(name = "route_error", length = 500)
+    private String routeError;
+
 }
\ No newline at end of file
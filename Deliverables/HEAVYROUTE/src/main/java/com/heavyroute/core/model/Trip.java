@@ -19,14 +19,44 @@ import java.util.UUID;
  * collegando logicamente un autista e un veicolo a un codice univoco di tracciamento.
  * Estende {@link BaseEntity} per la gestione automatica di ID e timestamp (audit).
  * </p>
+ * <p>
+ * Il grafo {@value #LISTING_GRAPH} carica in un'unica query tutte le associazioni mostrate negli
+ * elenchi dei viaggi, incluso il lato inverso {@code Vehicle.currentDriver} che altrimenti
+ * verrebbe risolto con una query per veicolo.
+ * </p>
+ * <p>
+ * Gli indici compositi terminano con {@code created_at, id}, l'ordinamento dell'elenco paginato
+ * ({@code TripListingRepository}): ogni filtro principale legge la pagina direttamente dall'indice.
+ * </p>
  */
 
 @Entity
-@Table(name = "trips")
+@Table(name = "trips", indexes = {
+        @Index(name = "idx_trips_created", columnList = "created_at, id"),
+        @Index(name = "idx_trips_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_trips_driver_created", columnList = "driver_id, created_at, id"),
+        @Index(name = "idx_trips_vehicle_created", columnList = "vehicle_id, created_at, id")
+})
+@NamedEntityGraph(
+        name = Trip.LISTING_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "request", subgraph = "request"),
+                @NamedAttributeNode("route"),
+                @NamedAttributeNode(value = "driver", subgraph = "driver"),
+                @NamedAttributeNode(value = "vehicle", subgraph = "vehicle")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "request", attributeNodes = @NamedAttributeNode("client")),
+                @NamedSubgraph(name = "driver", attributeNodes = @NamedAttributeNode(value = "vehicle", subgraph = "vehicle")),
+                @NamedSubgraph(name = "vehicle", attributeNodes = @NamedAttributeNode("currentDriver"))
+        })
 @Getter
 @Setter
 public class Trip extends BaseEntity {
 
+    /** Nome del fetch plan usato dagli elenchi (vedi {@code TripRepository}). */
+    public static final String LISTING_GRAPH = "Trip.listing";
+
     /**
      * Codice univoco di business che identifica il viaggio.
      * <p>
@@ -45,6 +75,17 @@ public class Trip extends BaseEntity {
     @Column(nullable = false)
     private TripStatus status;
 
+    /**
+     * Versione per il controllo di concorrenza ottimistico.
+     * <p>
+     * Due pianificazioni concorrenti dello stesso viaggio non si sovrascrivono: la seconda
+     * fallisce al commit e viene annullata per intero (compresa la prenotazione delle risorse).
+     * </p>
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // --- RELAZIONI ---
 
     /**
@@ -62,7 +103,15 @@ public class Trip extends BaseEntity {
     @JoinColumn(name = "request_id", unique = true)
     private TransportRequest request;
     
-    @OneToOne(cascade = CascadeType.ALL)
+    /**
+     * Il percorso calcolato per il viaggio.
+     * <p>
+     * Caricato in modo lazy: la geometria (potenzialmente molto grande) vive a sua volta in
+     * {@link RouteGeometry} e viene letta solo se effettivamente richiesta. Una rotta sostituita
+     * da un ricalcolo viene eliminata insieme alle sue geometrie.
+     * </p>
+     */
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "route_id")
     private Route route;
 
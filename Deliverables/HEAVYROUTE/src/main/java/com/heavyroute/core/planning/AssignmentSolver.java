@@ -0,0 +1,161 @@
+package com.heavyroute.core.planning;
+
+import java.util.Arrays;
+
+/**
+ * Risolutore del problema di assegnamento a costo minimo (algoritmo ungherese).
+ * <p>
+ * Data una matrice dei costi {@code righe x colonne}, abbina ogni riga ad al più una colonna
+ * (e viceversa) minimizzando il costo totale. Se righe e colonne sono in numero diverso vengono
+ * abbinati {@code min(righe, colonne)} elementi: quelli esclusi sono i più costosi da servire.
+ * </p>
+ * <p>
+ * Implementazione con cammini aumentanti minimi e potenziali duali, complessità
+ * {@code O(n²·m)} con {@code n = min(righe, colonne)}: migliaia di viaggi su qualche centinaio
+ * di risorse si risolvono in memoria in pochi secondi. Le coppie non ammesse si indicano con
+ * {@link #FORBIDDEN} e non compaiono mai nel risultato.
+ * </p>
+ */
+public final class AssignmentSolver {
+
+    /** Costo di una coppia non ammessa (es. veicolo con portata insufficiente). */
+    public static final double FORBIDDEN = Double.POSITIVE_INFINITY;
+
+    /** Riga o colonna non abbinata nel risultato. */
+    public static final int UNASSIGNED = -1;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * Calcola l'assegnamento a costo minimo.
+     *
+     * @param cost Matrice dei costi, con {@link #FORBIDDEN} sulle coppie non ammesse. Non viene modificata.
+     * @return Per ogni riga l'indice della colonna assegnata, oppure {@link #UNASSIGNED}.
+     * @throws IllegalArgumentException se la matrice non è rettangolare o contiene costi negativi o NaN.
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] result = new int[rows];
+        Arrays.fill(result, UNASSIGNED);
+        if (rows == 0 || columns == 0) {
+            return result;
+        }
+
+        // Le coppie non ammesse valgono più di qualunque assegnamento completo di coppie ammesse:
+        // l'algoritmo le usa solo quando non c'è alternativa e vengono scartate alla fine.
+        double forbidden = 1.0;
+        for (double[] row : cost) {
+            if (row.length != columns) {
+                throw new IllegalArgumentException("La matrice dei costi deve essere rettangolare");
+            }
+            for (double value : row) {
+                if (Double.isNaN(value) || value < 0) {
+                    throw new IllegalArgumentException("Costo non valido: " + value);
+                }
+                if (value != FORBIDDEN) {
+                    forbidden += value;
+                }
+            }
+        }
+
+        // L'algoritmo richiede righe <= colonne: altrimenti si risolve la trasposta
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+        double[][] a = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double value = transposed ? cost[j][i] : cost[i][j];
+                a[i][j] = value == FORBIDDEN ? forbidden : value;
+            }
+        }
+
+        int[] columnOwner = hungarian(a, n, m);
+
+        for (int j = 0; j < m; j++) {
+            int i = columnOwner[j];
+            if (i == UNASSIGNED || a[i][j] == forbidden) {
+                continue;
+            }
+            if (transposed) {
+                result[j] = i;
+            } else {
+                result[i] = j;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Algoritmo ungherese su matrice {@code n x m} con {@code n <= m}.
+     *
+     * @return Per ogni colonna la riga assegnata, oppure {@link #UNASSIGNED}.
+     */
+    private static int[] hungarian(double[][] a, int n, int m) {
+        // Indici 1-based: la colonna 0 è la radice fittizia del cammino aumentante
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] owner = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        // Colonne non ancora visitate nella fase corrente in columns[0..pending), quelle visitate in coda:
+        // ogni passo scorre solo le prime invece di tutta la riga
+        int[] columns = new int[m];
+
+        for (int i = 1; i <= n; i++) {
+            owner[0] = i;
+            int j0 = 0;
+            for (int j = 1; j <= m; j++) {
+                columns[j - 1] = j;
+                minSlack[j] = Double.POSITIVE_INFINITY;
+            }
+            int pending = m;
+            do {
+                int i0 = owner[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = -1;
+                double[] row = a[i0 - 1];
+                double ui0 = u[i0];
+                for (int k = 0; k < pending; k++) {
+                    int j = columns[k];
+                    double slack = row[j - 1] - ui0 - v[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = j0;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        next = k;
+                    }
+                }
+                u[i] += delta;
+                for (int k = pending; k < m; k++) {
+                    int j = columns[k];
+                    u[owner[j]] += delta;
+                    v[j] -= delta;
+                }
+                for (int k = 0; k < pending; k++) {
+                    minSlack[columns[k]] -= delta;
+                }
+                j0 = columns[next];
+                columns[next] = columns[--pending];
+                columns[pending] = j0;
+            } while (owner[j0] != 0);
+
+            // Inversione del cammino aumentante
+            do {
+                int j1 = way[j0];
+                owner[j0] = owner[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] columnOwner = new int[m];
+        for (int j = 1; j <= m; j++) {
+            columnOwner[j - 1] = owner[j] == 0 ? UNASSIGNED : owner[j] - 1;
+        }
+        return columnOwner;
+    }
+}
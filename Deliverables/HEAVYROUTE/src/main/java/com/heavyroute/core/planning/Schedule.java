@@ -0,0 +1,21 @@
+package com.heavyroute.core.planning;
+
+import java.util.List;
+
+/**
+ * Soluzione del problema di programmazione su più giorni.
+ *
+ * @param sequences  Per ogni equipaggio, gli indici dei viaggi nell'ordine di esecuzione.
+ * @param startTimes Per ogni viaggio l'istante di inizio (minuti), {@link Double#NaN} se non programmato.
+ * @param unassigned Indici dei viaggi rimasti senza equipaggio.
+ * @param transferKm Chilometri complessivi di trasferimento a vuoto.
+ */
+public record Schedule(List<int[]> sequences, double[] startTimes, List<Integer> unassigned, double transferKm) {
+
+    /**
+     * Numero di viaggi programmati.
+     */
+    public int assignedCount() {
+        return startTimes.length - unassigned.size();
+    }
+}
@@ -0,0 +1,115 @@
+package com.heavyroute.core.planning;
+
+import com.heavyroute.core.routing.graph.RoadGraph;
+
+import java.util.List;
+
+/**
+ * Istanza del problema di programmazione su più giorni, in forma numerica.
+ * <p>
+ * I tempi sono espressi in minuti dall'inizio dell'orizzonte di pianificazione. Le distanze di
+ * trasferimento (fine di un viaggio → inizio del successivo) sono calcolate una sola volta alla
+ * costruzione, in linea d'aria corretta dal fattore stradale: la ricerca locale le rilegge
+ * milioni di volte. L'istanza è immutabile e può essere condivisa tra più thread.
+ * </p>
+ */
+public final class ScheduleProblem {
+
+    /**
+     * Viaggio da programmare.
+     *
+     * @param windowStart     Inizio della finestra di ritiro (minuti).
+     * @param windowEnd       Fine della finestra di ritiro: il viaggio deve iniziare entro questo istante.
+     * @param durationMinutes Durata del viaggio, operazioni di carico e scarico comprese.
+     */
+    public record Job(double windowStart, double windowEnd, double durationMinutes,
+                      double originLat, double originLon, double destinationLat, double destinationLon) {
+    }
+
+    /**
+     * Equipaggio (autista e veicolo) che esegue i viaggi in sequenza.
+     *
+     * @param availableFrom Istante da cui l'equipaggio è disponibile (minuti).
+     * @param startLat      Posizione iniziale; {@code null} se non nota (nessun trasferimento per il primo viaggio).
+     * @param startLon      Posizione iniziale; {@code null} se non nota.
+     */
+    public record Crew(double availableFrom, Double startLat, Double startLon) {
+    }
+
+    final int jobCount;
+    final int crewCount;
+    final double[] windowStart;
+    final double[] windowEnd;
+    final double[] duration;
+    final double[] availableFrom;
+    /** Trasferimento in km dalla destinazione del viaggio {@code i} all'origine del viaggio {@code j}. */
+    final double[][] transferKm;
+    /** Trasferimento in km dalla posizione iniziale dell'equipaggio {@code c} all'origine del viaggio {@code j}. */
+    final double[][] startKm;
+    final boolean[][] compatible;
+    final double minutesPerKm;
+
+    /**
+     * @param jobs       Viaggi da programmare.
+     * @param crews      Equipaggi disponibili.
+     * @param compatible {@code compatible[job][crew]}: il veicolo dell'equipaggio può trasportare il carico.
+     * @param roadFactor Rapporto medio tra distanza stradale e distanza in linea d'aria.
+     * @param speedKmh   Velocità media di trasferimento.
+     */
+    public ScheduleProblem(List<Job> jobs, List<Crew> crews, boolean[][] compatible, double roadFactor, double speedKmh) {
+        this.jobCount = jobs.size();
+        this.crewCount = crews.size();
+        this.windowStart = new double[jobCount];
+        this.windowEnd = new double[jobCount];
+        this.duration = new double[jobCount];
+        for (int j = 0; j < jobCount; j++) {
+            windowStart[j] = jobs.get(j).windowStart();
+            windowEnd[j] = jobs.get(j).windowEnd();
+            duration[j] = jobs.get(j).durationMinutes();
+        }
+
+        this.transferKm = new double[jobCount][jobCount];
+        for (int i = 0; i < jobCount; i++) {
+            Job from = jobs.get(i);
+            for (int j = 0; j < jobCount; j++) {
+                Job to = jobs.get(j);
+                transferKm[i][j] = roadKm(from.destinationLat(), from.destinationLon(), to.originLat(), to.originLon(), roadFactor);
+            }
+        }
+
+        this.availableFrom = new double[crewCount];
+        this.startKm = new double[crewCount][jobCount];
+        for (int c = 0; c < crewCount; c++) {
+            Crew crew = crews.get(c);
+            availableFrom[c] = crew.availableFrom();
+            if (crew.startLat() == null || crew.startLon() == null) {
+                continue;
+            }
+            for (int j = 0; j < jobCount; j++) {
+                startKm[c][j] = roadKm(crew.startLat(), crew.startLon(), jobs.get(j).originLat(), jobs.get(j).originLon(), roadFactor);
+            }
+        }
+
+        this.compatible = compatible;
+        this.minutesPerKm = 60.0 / speedKmh;
+    }
+
+    public int jobCount() {
+        return jobCount;
+    }
+
+    public int crewCount() {
+        return crewCount;
+    }
+
+    /**
+     * Durata del viaggio {@code job} in minuti.
+     */
+    public double duration(int job) {
+        return duration[job];
+    }
+
+    private static double roadKm(double lat1, double lon1, double lat2, double lon2, double roadFactor) {
+        return RoadGraph.distanceMeters(lat1, lon1, lat2, lon2) / 1000.0 * roadFactor;
+    }
+}
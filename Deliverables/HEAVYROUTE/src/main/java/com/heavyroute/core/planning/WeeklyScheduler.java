@@ -0,0 +1,406 @@
+package com.heavyroute.core.planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Programmazione dei viaggi su più giorni con finestre di ritiro (VRPTW).
+ * <p>
+ * Ogni equipaggio esegue una sequenza di viaggi: tra la fine di un viaggio e l'inizio del successivo
+ * percorre il trasferimento a vuoto, e ogni viaggio deve iniziare entro la propria finestra di ritiro
+ * (se l'equipaggio arriva prima, attende l'apertura). Un viaggio può essere assegnato solo a un
+ * equipaggio il cui veicolo è compatibile con il carico.
+ * </p>
+ * <p>
+ * <b>Obiettivo:</b> massimizzare i viaggi programmati e, a parità, minimizzare i km di trasferimento.
+ * </p>
+ * <p>
+ * <b>Metodo:</b>
+ * <ol>
+ * <li><b>Costruzione:</b> i viaggi, in ordine di scadenza della finestra, vengono inseriti nella
+ * posizione ammissibile più economica tra tutti gli equipaggi.</li>
+ * <li><b>Ricerca locale:</b> spostamenti di un viaggio in un'altra posizione o in un altro equipaggio,
+ * scambi tra equipaggi e reinserimento dei viaggi esclusi; si accettano solo le mosse migliorative.</li>
+ * </ol>
+ * Le ripartenze sono indipendenti: la prima parte dall'ordine di scadenza, le altre da un ordine
+ * perturbato con un seme diverso, e vengono eseguite in parallelo sull'{@link Executor} ricevuto.
+ * Il risultato dipende solo dal seme e dal numero di ripartenze, non dal numero di thread.
+ * </p>
+ */
+public final class WeeklyScheduler {
+
+    /** Perturbazione massima (minuti) della scadenza usata per ordinare i viaggi nelle ripartenze. */
+    private static final double ORDER_NOISE_MINUTES = 720;
+
+    /** Equipaggi estratti a caso (oltre a quello corrente) come destinazione di uno spostamento. */
+    private static final int RELOCATE_CANDIDATES = 16;
+
+    private static final double EPSILON = 1e-9;
+
+    private WeeklyScheduler() {
+    }
+
+    /**
+     * Calcola la programmazione.
+     *
+     * @param problem       Istanza da risolvere.
+     * @param restarts      Numero di ripartenze indipendenti (almeno 1).
+     * @param maxIterations Mosse tentate al massimo da ogni ripartenza.
+     * @param seed          Seme dei generatori casuali.
+     * @param executor      Pool su cui eseguire le ripartenze.
+     * @return La migliore programmazione trovata.
+     */
+    public static Schedule solve(ScheduleProblem problem, int restarts, int maxIterations, long seed, Executor executor) {
+        List<CompletableFuture<Schedule>> searches = new ArrayList<>();
+        for (int r = 0; r < Math.max(1, restarts); r++) {
+            long restartSeed = seed + r;
+            boolean perturbed = r > 0;
+            searches.add(CompletableFuture.supplyAsync(
+                    () -> new Search(problem, new Random(restartSeed)).run(perturbed, maxIterations), executor));
+        }
+
+        Schedule best = null;
+        for (CompletableFuture<Schedule> search : searches) {
+            Schedule candidate = search.join();
+            if (best == null || isBetter(candidate, best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isBetter(Schedule candidate, Schedule incumbent) {
+        if (candidate.assignedCount() != incumbent.assignedCount()) {
+            return candidate.assignedCount() > incumbent.assignedCount();
+        }
+        return candidate.transferKm() < incumbent.transferKm() - EPSILON;
+    }
+
+    /**
+     * Stato di una singola ripartenza (non condiviso tra thread).
+     */
+    private static final class Search {
+
+        private final ScheduleProblem p;
+        private final Random random;
+        private final int[][] routes;
+        private final int[] lengths;
+        private final double[] routeKm;
+        private final int[] crewOf;
+        private final int[] buffer;
+        private int assigned;
+
+        Search(ScheduleProblem problem, Random random) {
+            this.p = problem;
+            this.random = random;
+            this.routes = new int[problem.crewCount][4];
+            this.lengths = new int[problem.crewCount];
+            this.routeKm = new double[problem.crewCount];
+            this.crewOf = new int[problem.jobCount];
+            this.buffer = new int[problem.jobCount + 1];
+            Arrays.fill(crewOf, -1);
+        }
+
+        Schedule run(boolean perturbed, int maxIterations) {
+            construct(perturbed);
+            improve(maxIterations);
+            return toSchedule();
+        }
+
+        // ================= COSTRUZIONE =================
+
+        private void construct(boolean perturbed) {
+            double[] key = new double[p.jobCount];
+            Integer[] order = new Integer[p.jobCount];
+            for (int j = 0; j < p.jobCount; j++) {
+                order[j] = j;
+                key[j] = p.windowEnd[j] + (perturbed ? random.nextDouble() * ORDER_NOISE_MINUTES : 0);
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingDouble(j -> key[j]).thenComparing(j -> -p.duration[j]));
+            for (int job : order) {
+                insertBest(job);
+            }
+        }
+
+        // ================= RICERCA LOCALE =================
+
+        private void improve(int maxIterations) {
+            int stale = 0;
+            int patience = 2 * p.jobCount + p.crewCount;
+            for (int iteration = 0; iteration < maxIterations && stale < patience && assigned > 0; iteration++) {
+                boolean improved = random.nextBoolean() ? relocate() : swap();
+                if (improved) {
+                    stale = 0;
+                    insertUnassigned();
+                } else {
+                    stale++;
+                }
+            }
+        }
+
+        /** Tenta di inserire i viaggi esclusi, liberati o resi raggiungibili dalle mosse precedenti. */
+        private void insertUnassigned() {
+            if (assigned == p.jobCount) {
+                return;
+            }
+            for (int job = 0; job < p.jobCount; job++) {
+                if (crewOf[job] < 0) {
+                    insertBest(job);
+                }
+            }
+        }
+
+        /**
+         * Sposta un viaggio a caso nella posizione migliore dello stesso equipaggio o di uno tra
+         * {@value #RELOCATE_CANDIDATES} equipaggi estratti a caso: il costo della mossa non cresce
+         * con la dimensione della flotta.
+         */
+        private boolean relocate() {
+            int job = randomAssignedJob();
+            int from = crewOf[job];
+            int position = indexOf(from, job);
+            double removedKm = evaluateWithout(from, position);
+            double gain = routeKm[from] - removedKm;
+
+            int bestCrew = -1;
+            int bestPosition = -1;
+            double bestDelta = gain - EPSILON;
+            int candidates = Math.min(RELOCATE_CANDIDATES, p.crewCount - 1);
+            for (int k = 0; k <= candidates; k++) {
+                int c = k == 0 ? from
+                        : candidates == p.crewCount - 1 ? (from + k) % p.crewCount
+                        : random.nextInt(p.crewCount);
+                if ((k > 0 && c == from) || !p.compatible[job][c]) {
+                    continue;
+                }
+                int length = lengths[c];
+                for (int pos = 0; pos <= length; pos++) {
+                    double km;
+                    if (c == from) {
+                        if (pos == position || pos == position + 1) {
+                            continue;
+                        }
+                        km = evaluateMoved(from, position, pos);
+                    } else {
+                        km = evaluateWith(c, job, pos) - routeKm[c];
+                    }
+                    double delta = c == from ? km - removedKm : km;
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestCrew = c;
+                        bestPosition = pos;
+                    }
+                }
+            }
+            if (bestCrew < 0) {
+                return false;
+            }
+            if (bestCrew == from) {
+                int target = bestPosition > position ? bestPosition - 1 : bestPosition;
+                remove(from, position);
+                insert(from, job, target);
+            } else {
+                remove(from, position);
+                insert(bestCrew, job, bestPosition);
+            }
+            return true;
+        }
+
+        /** Scambia due viaggi a caso di equipaggi diversi, mantenendo le rispettive posizioni. */
+        private boolean swap() {
+            int first = randomAssignedJob();
+            int second = randomAssignedJob();
+            int a = crewOf[first];
+            int b = crewOf[second];
+            if (a == b || !p.compatible[first][b] || !p.compatible[second][a]) {
+                return false;
+            }
+            int positionA = indexOf(a, first);
+            int positionB = indexOf(b, second);
+            double kmA = evaluateReplaced(a, positionA, second);
+            double kmB = evaluateReplaced(b, positionB, first);
+            if (kmA + kmB >= routeKm[a] + routeKm[b] - EPSILON) {
+                return false;
+            }
+            routes[a][positionA] = second;
+            routes[b][positionB] = first;
+            crewOf[first] = b;
+            crewOf[second] = a;
+            routeKm[a] = kmA;
+            routeKm[b] = kmB;
+            return true;
+        }
+
+        // ================= OPERAZIONI SULLE SEQUENZE =================
+
+        /**
+         * Inserisce il viaggio nella posizione ammissibile più economica tra tutti gli equipaggi.
+         *
+         * @return {@code true} se è stata trovata una posizione ammissibile.
+         */
+        private boolean insertBest(int job) {
+            int bestCrew = -1;
+            int bestPosition = -1;
+            double bestDelta = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < p.crewCount; c++) {
+                if (!p.compatible[job][c]) {
+                    continue;
+                }
+                for (int pos = 0; pos <= lengths[c]; pos++) {
+                    double delta = evaluateWith(c, job, pos) - routeKm[c];
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestCrew = c;
+                        bestPosition = pos;
+                    }
+                }
+            }
+            if (bestCrew < 0 || bestDelta == Double.POSITIVE_INFINITY) {
+                return false;
+            }
+            insert(bestCrew, job, bestPosition);
+            return true;
+        }
+
+        private void insert(int crew, int job, int position) {
+            if (lengths[crew] == routes[crew].length) {
+                routes[crew] = Arrays.copyOf(routes[crew], routes[crew].length * 2);
+            }
+            int[] route = routes[crew];
+            System.arraycopy(route, position, route, position + 1, lengths[crew] - position);
+            route[position] = job;
+            lengths[crew]++;
+            crewOf[job] = crew;
+            assigned++;
+            routeKm[crew] = evaluate(crew, route, lengths[crew]);
+        }
+
+        private void remove(int crew, int position) {
+            int[] route = routes[crew];
+            crewOf[route[position]] = -1;
+            System.arraycopy(route, position + 1, route, position, lengths[crew] - position - 1);
+            lengths[crew]--;
+            assigned--;
+            routeKm[crew] = evaluate(crew, route, lengths[crew]);
+        }
+
+        private double evaluateWith(int crew, int job, int position) {
+            int length = lengths[crew];
+            int[] route = routes[crew];
+            System.arraycopy(route, 0, buffer, 0, position);
+            buffer[position] = job;
+            System.arraycopy(route, position, buffer, position + 1, length - position);
+            return evaluate(crew, buffer, length + 1);
+        }
+
+        private double evaluateWithout(int crew, int position) {
+            int length = lengths[crew];
+            int[] route = routes[crew];
+            System.arraycopy(route, 0, buffer, 0, position);
+            System.arraycopy(route, position + 1, buffer, position, length - position - 1);
+            return evaluate(crew, buffer, length - 1);
+        }
+
+        private double evaluateReplaced(int crew, int position, int job) {
+            int length = lengths[crew];
+            System.arraycopy(routes[crew], 0, buffer, 0, length);
+            buffer[position] = job;
+            return evaluate(crew, buffer, length);
+        }
+
+        /** Sequenza con il viaggio in {@code from} spostato davanti all'elemento in {@code to} (o in coda). */
+        private double evaluateMoved(int crew, int from, int to) {
+            int length = lengths[crew];
+            int[] route = routes[crew];
+            int job = route[from];
+            int k = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == to) {
+                    buffer[k++] = job;
+                }
+                if (i < length && i != from) {
+                    buffer[k++] = route[i];
+                }
+            }
+            return evaluate(crew, buffer, length);
+        }
+
+        /**
+         * Km di trasferimento della sequenza, oppure {@link Double#POSITIVE_INFINITY} se un viaggio
+         * non può iniziare entro la propria finestra.
+         */
+        private double evaluate(int crew, int[] sequence, int length) {
+            double time = p.availableFrom[crew];
+            double km = 0;
+            int previous = -1;
+            for (int k = 0; k < length; k++) {
+                int job = sequence[k];
+                double transfer = previous < 0 ? p.startKm[crew][job] : p.transferKm[previous][job];
+                km += transfer;
+                time += transfer * p.minutesPerKm;
+                if (time > p.windowEnd[job]) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                time = Math.max(time, p.windowStart[job]) + p.duration[job];
+                previous = job;
+            }
+            return km;
+        }
+
+        private int randomAssignedJob() {
+            int skip = random.nextInt(assigned);
+            for (int c = 0; c < p.crewCount; c++) {
+                if (skip < lengths[c]) {
+                    return routes[c][skip];
+                }
+                skip -= lengths[c];
+            }
+            throw new IllegalStateException("Nessun viaggio assegnato");
+        }
+
+        private int indexOf(int crew, int job) {
+            int[] route = routes[crew];
+            for (int i = 0; i < lengths[crew]; i++) {
+                if (route[i] == job) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Viaggio " + job + " assente dall'equipaggio " + crew);
+        }
+
+        // ================= RISULTATO =================
+
+        private Schedule toSchedule() {
+            List<int[]> sequences = new ArrayList<>(p.crewCount);
+            double[] startTimes = new double[p.jobCount];
+            Arrays.fill(startTimes, Double.NaN);
+            double totalKm = 0;
+            for (int c = 0; c < p.crewCount; c++) {
+                int[] sequence = Arrays.copyOf(routes[c], lengths[c]);
+                sequences.add(sequence);
+                totalKm += routeKm[c];
+                double time = p.availableFrom[c];
+                int previous = -1;
+                for (int job : sequence) {
+                    double transfer = previous < 0 ? p.startKm[c][job] : p.transferKm[previous][job];
+                    time = Math.max(time + transfer * p.minutesPerKm, p.windowStart[job]);
+                    startTimes[job] = time;
+                    time += p.duration[job];
+                    previous = job;
+                }
+            }
+            List<Integer> unassigned = new ArrayList<>();
+            for (int job = 0; job < p.jobCount; job++) {
+                if (crewOf[job] < 0) {
+                    unassigned.add(job);
+                }
+            }
+            return new Schedule(sequences, startTimes, unassigned, totalKm);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.heavyroute.core.repository;
+
+import com.heavyroute.core.model.GeocodingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository per il livello persistente (L2) della cache di geocoding.
+ */
+@Repository
+public interface GeocodingCacheRepository extends JpaRepository<GeocodingCacheEntry, Long> {
+
+    /**
+     * Recupera la voce associata a un indirizzo già normalizzato.
+     *
+     * @param normalizedAddress Chiave normalizzata.
+     * @return La voce, se presente (anche se scaduta: la verifica del TTL spetta al chiamante).
+     */
+    Optional<GeocodingCacheEntry> findByNormalizedAddress(String normalizedAddress);
+
+    /**
+     * Elimina in blocco tutte le voci scadute.
+     *
+     * @param referenceTime Istante di riferimento (solitamente {@code LocalDateTime.now()}).
+     * @return Numero di righe eliminate.
+     */
+    @Modifying
+    @Query("DELETE FROM GeocodingCacheEntry g WHERE g.expiresAt <= :referenceTime")
+    int deleteExpired(@Param("referenceTime") LocalDateTime referenceTime);
+}
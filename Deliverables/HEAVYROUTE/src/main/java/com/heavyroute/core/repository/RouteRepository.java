@@ -2,13 +2,51 @@ package com.heavyroute.core.repository;
 
 import com.heavyroute.core.model.Route;
 import com.heavyroute.core.enums.TripStatus; // <--- Importa il tuo Enum
+import com.heavyroute.core.model.LegacyRoutePolyline;
+import com.heavyroute.core.model.RouteGeometry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RouteRepository extends JpaRepository<Route, Long> {
     // Spring Data JPA filtrerà i Route in base allo stato del Trip associato
     List<Route> findAllByTripStatus(TripStatus status);
+
+    /**
+     * Carica in un'unica query le geometrie compresse indicate.
+     * <p>
+     * Le geometrie caricate inizializzano i proxy lazy già presenti nel contesto di persistenza:
+     * usato dagli elenchi di viaggi per evitare una query per rotta.
+     * </p>
+     *
+     * @param ids ID delle geometrie (vedi {@link Route#geometryFor}).
+     * @return Le geometrie trovate.
+     */
+    @Query("SELECT g FROM RouteGeometry g WHERE g.id IN :ids")
+    List<RouteGeometry> findGeometriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Come {@link #findGeometriesByIdIn(Collection)}, per le polyline testuali delle rotte precedenti.
+     *
+     * @param ids ID delle polyline (vedi {@link Route#legacyPolylineFor}).
+     * @return Le polyline trovate.
+     */
+    @Query("SELECT l FROM LegacyRoutePolyline l WHERE l.id IN :ids")
+    List<LegacyRoutePolyline> findLegacyPolylinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Rotte con dati derivati mancanti, in ordine di ID a partire da {@code afterId}: rotte precedenti a
+     * {@link RouteGeometry} (solo polyline testuale) o salvate prima dell'indicizzazione per celle.
+     * La polyline testuale viene caricata nella stessa query.
+     */
+    @Query("SELECT r FROM Route r LEFT JOIN FETCH r.legacyPolyline " +
+            "WHERE r.id > :afterId AND ((r.geometry IS NULL AND r.legacyPolyline IS NOT NULL) " +
+            "OR (r.geometry IS NOT NULL AND r.cells IS EMPTY)) ORDER BY r.id")
+    List<Route> findRoutesToBackfill(@Param("afterId") long afterId, Pageable pageable);
 }
\ No newline at end of file
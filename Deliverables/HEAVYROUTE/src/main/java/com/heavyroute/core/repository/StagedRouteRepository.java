@@ -0,0 +1,28 @@
+package com.heavyroute.core.repository;
+
+import com.heavyroute.core.model.StagedRoute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository per le rotte pre-calcolate in attesa di approvazione della richiesta.
+ */
+@Repository
+public interface StagedRouteRepository extends JpaRepository<StagedRoute, Long> {
+
+    Optional<StagedRoute> findByRequestId(Long requestId);
+
+    /**
+     * Elimina la rotta di staging di una richiesta (dopo l'approvazione o prima di un nuovo calcolo).
+     *
+     * @return Numero di righe eliminate.
+     */
+    @Modifying
+    @Query("DELETE FROM StagedRoute s WHERE s.requestId = :requestId")
+    int deleteByRequestId(@Param("requestId") Long requestId);
+}
@@ -1,9 +1,20 @@
 package com.heavyroute.core.repository;
 
+import com.heavyroute.common.export.NdjsonExporter;
 import com.heavyroute.core.model.TransportRequest;
 import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository JPA per la gestione della persistenza delle entità {@link TransportRequest}.
@@ -61,4 +72,48 @@ public interface TransportRequestRepository extends JpaRepository<TransportReque
      * non ha ancora effettuato ordini.
      */
     List<TransportRequest> findAllByClientId(Long clientId);
-}
\ No newline at end of file
+
+    /**
+     * Aggiorna esclusivamente l'esito del pre-calcolo della rotta.
+     * <p>
+     * Eseguito dal processo asincrono di pre-calcolo: una UPDATE mirata evita di sovrascrivere
+     * (lost update) le modifiche concorrenti agli altri campi della richiesta, ad esempio
+     * l'approvazione da parte del Pianificatore avvenuta nel frattempo.
+     * </p>
+     *
+     * @param id     ID della richiesta.
+     * @param status Nuovo esito del pre-calcolo.
+     * @param error  Motivo dell'eventuale fallimento (o {@code null}).
+     * @return Numero di righe aggiornate.
+     */
+    @Modifying
+    @Query("UPDATE TransportRequest r SET r.routeStatus = :status, r.routeError = :error WHERE r.id = :id")
+    int updateRouteStatus(@Param("id") Long id,
+                          @Param("status") RoutePrecomputeStatus status,
+                          @Param("error") String error);
+
+    /**
+     * Legge tutte le richieste (con il committente) come cursore in avanti per l'esportazione NDJSON.
+     * <p>
+     * Le righe arrivano dal driver a blocchi di {@value NdjsonExporter#FETCH_SIZE} e le entità sono
+     * caricate in sola lettura. Va consumato (e chiuso) all'interno di una transazione.
+     * </p>
+     */
+    @EntityGraph(attributePaths = "client")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonExporter.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM TransportRequest r ORDER BY r.id")
+    Stream<TransportRequest> streamAllForExport();
+
+    /**
+     * Imposta lo stato di più richieste con un solo UPDATE.
+     *
+     * @param ids ID delle richieste (non vuoto).
+     * @return Numero di richieste aggiornate.
+     */
+    @Modifying
+    @Query("UPDATE TransportRequest r SET r.requestStatus = :status, r.updatedAt = CURRENT_TIMESTAMP WHERE r.id IN :ids")
+    int updateRequestStatuses(@Param("ids") Collection<Long> ids, @Param("status") RequestStatus status);
+}
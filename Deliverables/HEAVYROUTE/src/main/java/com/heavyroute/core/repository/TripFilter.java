@@ -0,0 +1,28 @@
+package com.heavyroute.core.repository;
+
+import com.heavyroute.core.enums.TripStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Criteri di ricerca per l'elenco paginato dei viaggi.
+ * <p>
+ * Ogni campo {@code null} (o collezione vuota) non applica alcun filtro.
+ * I criteri valorizzati sono combinati in AND.
+ * </p>
+ *
+ * @param statuses   Stati ammessi.
+ * @param driverId   Autista assegnato.
+ * @param vehicleId  Veicolo assegnato.
+ * @param clientId   Committente della richiesta di trasporto.
+ * @param pickupFrom Data di ritiro minima (inclusa).
+ * @param pickupTo   Data di ritiro massima (inclusa).
+ */
+public record TripFilter(Collection<TripStatus> statuses,
+                         Long driverId,
+                         Long vehicleId,
+                         Long clientId,
+                         LocalDate pickupFrom,
+                         LocalDate pickupTo) {
+}
@@ -0,0 +1,29 @@
+package com.heavyroute.core.repository;
+
+import com.heavyroute.core.model.Trip;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Frammento di {@link TripRepository} per l'elenco paginato e filtrato dei viaggi.
+ * <p>
+ * La paginazione è a chiave (keyset): invece di un offset si passa la coppia
+ * {@code (createdAt, id)} dell'ultimo viaggio della pagina precedente. Il database legge solo le righe
+ * della pagina richiesta sugli indici compositi di {@code trips}, qualunque sia la profondità dello storico.
+ * </p>
+ */
+public interface TripListingRepository {
+
+    /**
+     * Recupera una pagina di viaggi ordinata dal più recente ({@code createdAt DESC, id DESC}),
+     * con le associazioni dell'elenco già caricate ({@link Trip#LISTING_GRAPH}).
+     *
+     * @param filter         Criteri di ricerca.
+     * @param afterCreatedAt Data di creazione dell'ultimo viaggio già restituito ({@code null} per la prima pagina).
+     * @param afterId        ID dell'ultimo viaggio già restituito ({@code null} per la prima pagina).
+     * @param limit          Numero massimo di viaggi da restituire.
+     * @return Viaggi successivi alla chiave indicata.
+     */
+    List<Trip> findPageForListing(TripFilter filter, LocalDateTime afterCreatedAt, Long afterId, int limit);
+}
@@ -0,0 +1,73 @@
+package com.heavyroute.core.repository;
+
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione Criteria di {@link TripListingRepository}.
+ * <p>
+ * Solo i criteri valorizzati finiscono nella clausola WHERE, così il database può scegliere
+ * l'indice composito adatto al filtro (stato, autista o veicolo seguiti da {@code created_at, id}).
+ * </p>
+ */
+class TripListingRepositoryImpl implements TripListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Trip> findPageForListing(TripFilter filter, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Trip> query = cb.createQuery(Trip.class);
+        Root<Trip> trip = query.from(Trip.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            where.add(trip.get("status").in(filter.statuses()));
+        }
+        if (filter.driverId() != null) {
+            where.add(cb.equal(trip.get("driver").get("id"), filter.driverId()));
+        }
+        if (filter.vehicleId() != null) {
+            where.add(cb.equal(trip.get("vehicle").get("id"), filter.vehicleId()));
+        }
+        if (filter.clientId() != null || filter.pickupFrom() != null || filter.pickupTo() != null) {
+            Join<Trip, TransportRequest> request = trip.join("request");
+            if (filter.clientId() != null) {
+                where.add(cb.equal(request.get("client").get("id"), filter.clientId()));
+            }
+            if (filter.pickupFrom() != null) {
+                where.add(cb.greaterThanOrEqualTo(request.get("pickupDate"), filter.pickupFrom()));
+            }
+            if (filter.pickupTo() != null) {
+                where.add(cb.lessThanOrEqualTo(request.get("pickupDate"), filter.pickupTo()));
+            }
+        }
+        if (afterCreatedAt != null && afterId != null) {
+            // (createdAt, id) < (:afterCreatedAt, :afterId)
+            where.add(cb.or(
+                    cb.lessThan(trip.get("createdAt"), afterCreatedAt),
+                    cb.and(cb.equal(trip.get("createdAt"), afterCreatedAt), cb.lessThan(trip.get("id"), afterId))));
+        }
+
+        query.select(trip)
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(trip.get("createdAt")), cb.desc(trip.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint("jakarta.persistence.fetchgraph", entityManager.getEntityGraph(Trip.LISTING_GRAPH))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
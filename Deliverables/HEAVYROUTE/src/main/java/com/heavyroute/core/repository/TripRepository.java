@@ -1,12 +1,24 @@
 package com.heavyroute.core.repository;
 
+import com.heavyroute.common.export.NdjsonExporter;
 import com.heavyroute.core.model.Trip;
 import com.heavyroute.core.enums.TripStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository per la gestione della persistenza dell'entità {@link Trip}.
@@ -14,9 +26,12 @@ import java.util.Optional;
  * Fornisce le operazioni CRUD standard e query personalizzate basate
  * sui campi di business e sulle relazioni logiche.
  * </p>
+ * <p>
+ * L'elenco paginato e filtrato è fornito dal frammento {@link TripListingRepository}.
+ * </p>
  */
 @Repository
-public interface TripRepository extends JpaRepository<Trip, Long> {
+public interface TripRepository extends JpaRepository<Trip, Long>, TripListingRepository {
 
     /**
      * Recupera un viaggio tramite il suo codice identificativo di business.
@@ -40,6 +55,15 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
      */
     List<Trip> findByDriverIdAndStatus(Long driverId, TripStatus status);
 
+    /**
+     * Viaggio dell'autista che si trova in uno degli stati indicati (es. il viaggio in corso).
+     *
+     * @param driverId L'identificativo dell'autista.
+     * @param statuses Stati ammessi.
+     * @return Il viaggio, se presente.
+     */
+    Optional<Trip> findFirstByDriverIdAndStatusIn(Long driverId, Collection<TripStatus> statuses);
+
     /**
      * Recupera tutti i viaggi assegnati a uno specifico autista, ordinati per data di creazione.
      * <p>
@@ -62,4 +86,127 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
     Optional<Trip> findByRequestId(Long requestId);
 
     List<Trip> findByStatusIn(List<TripStatus> statuses);
-}
\ No newline at end of file
+
+    // ================= ELENCHI (fetch plan) =================
+    // Le associazioni mostrate nei DTO di elenco (richiesta, cliente, rotta, autista, veicolo)
+    // vengono caricate nella stessa query dei viaggi (Trip.LISTING_GRAPH): il numero di query
+    // non cresce con i risultati.
+
+    /**
+     * Come {@link #findAll()}, con le associazioni dell'elenco già caricate.
+     */
+    @EntityGraph(Trip.LISTING_GRAPH)
+    @Query("SELECT t FROM Trip t ORDER BY t.id")
+    List<Trip> findAllForListing();
+
+    /**
+     * Come {@link #findByStatus(TripStatus)}, con le associazioni dell'elenco già caricate.
+     */
+    @EntityGraph(Trip.LISTING_GRAPH)
+    List<Trip> findForListingByStatus(TripStatus status);
+
+    /**
+     * Come {@link #findByStatusIn(List)}, con le associazioni dell'elenco già caricate.
+     */
+    @EntityGraph(Trip.LISTING_GRAPH)
+    List<Trip> findForListingByStatusIn(List<TripStatus> statuses);
+
+    /**
+     * Come {@link #findByDriverIdOrderByCreatedAtDesc(Long)}, con le associazioni dell'elenco già caricate.
+     */
+    @EntityGraph(Trip.LISTING_GRAPH)
+    List<Trip> findForListingByDriverIdOrderByCreatedAtDesc(Long driverId);
+
+    /**
+     * Legge tutti i viaggi come cursore in avanti per l'esportazione NDJSON ({@link NdjsonExporter}).
+     * <p>
+     * Le righe arrivano dal driver a blocchi di {@value NdjsonExporter#FETCH_SIZE} e le entità sono
+     * caricate in sola lettura. Va consumato (e chiuso) all'interno di una transazione.
+     * </p>
+     */
+    @EntityGraph(Trip.LISTING_GRAPH)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = NdjsonExporter.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Trip t ORDER BY t.id")
+    Stream<Trip> streamAllForExport();
+
+    /**
+     * Recupera gli ID dei viaggi negli stati indicati la cui rotta è una stima provvisoria.
+     *
+     * @param statuses Stati in cui la rotta può ancora essere ricalcolata.
+     * @param afterId  Ultimo ID già elaborato (0 per ripartire dall'inizio).
+     * @param pageable Numero massimo di viaggi da restituire per esecuzione.
+     * @return ID dei viaggi successivi ad {@code afterId}, in ordine crescente.
+     */
+    @Query("SELECT t.id FROM Trip t WHERE t.route.provisional = true AND t.status IN :statuses "
+            + "AND t.id > :afterId ORDER BY t.id")
+    List<Long> findIdsWithProvisionalRoute(@Param("statuses") List<TripStatus> statuses,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    /**
+     * Recupera i viaggi la cui rotta attraversa almeno una delle celle di griglia indicate.
+     * <p>
+     * Ricerca per uguaglianza sull'indice {@code idx_route_cells_cell}: restituisce candidati da
+     * verificare sulla geometria effettiva. Sono escluse le rotte calcolate dopo {@code computedBefore}
+     * (già aggiornate, es. da un ricalcolo precedente).
+     * </p>
+     *
+     * @param statuses       Stati dei viaggi da considerare.
+     * @param computedBefore Istante di riferimento per il calcolo della rotta.
+     * @param cells          Celle dell'area (vedi {@link com.heavyroute.common.geo.PolylineGeometry#cellsInBox}).
+     * @return Viaggi con rotta, richiesta e autista già caricati (nessuna query aggiuntiva per viaggio).
+     */
+    @Query("SELECT t FROM Trip t JOIN FETCH t.route r JOIN FETCH t.request LEFT JOIN FETCH t.driver " +
+            "WHERE t.status IN :statuses AND r.createdAt < :computedBefore " +
+            "AND r.id IN (SELECT c.id FROM Route c JOIN c.cells cell WHERE cell IN :cells)")
+    List<Trip> findWithRouteInCells(@Param("statuses") List<TripStatus> statuses,
+                                    @Param("computedBefore") LocalDateTime computedBefore,
+                                    @Param("cells") Collection<Long> cells);
+
+    /**
+     * Dati minimi di un viaggio per le transizioni di stato a lotti: stato e identificativi collegati.
+     */
+    interface StatusSnapshot {
+        Long getId();
+
+        TripStatus getStatus();
+
+        Long getRequestId();
+
+        Long getDriverId();
+
+        String getDriverUsername();
+
+        Long getVehicleId();
+    }
+
+    /**
+     * Legge stato e identificativi collegati dei viaggi indicati con una sola query, senza caricare le entità.
+     *
+     * @param ids ID dei viaggi (non vuoto).
+     */
+    @Query("SELECT t.id AS id, t.status AS status, r.id AS requestId, d.id AS driverId, d.username AS driverUsername, " +
+            "v.id AS vehicleId " +
+            "FROM Trip t JOIN t.request r LEFT JOIN t.driver d LEFT JOIN t.vehicle v WHERE t.id IN :ids")
+    List<StatusSnapshot> findStatusSnapshots(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Cambia lo stato dei viaggi indicati solo se è ancora quello atteso (compare-and-set).
+     * <p>
+     * Un solo UPDATE per tutti i viaggi; incrementa la versione, così le copie dell'entità lette
+     * in precedenza non possono sovrascrivere il nuovo stato. L'UPDATE JPQL non passa dall'auditing
+     * dell'entità: la data di modifica viene impostata esplicitamente.
+     * </p>
+     *
+     * @return Numero di viaggi effettivamente aggiornati.
+     */
+    @Modifying
+    @Query("UPDATE Trip t SET t.status = :to, t.version = t.version + 1, t.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE t.id IN :ids AND t.status = :expected")
+    int compareAndSetStatuses(@Param("ids") Collection<Long> ids,
+                              @Param("expected") TripStatus expected,
+                              @Param("to") TripStatus to);
+}
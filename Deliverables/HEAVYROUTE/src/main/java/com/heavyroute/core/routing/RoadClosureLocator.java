@@ -0,0 +1,110 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.geo.PolylineGeometry;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.resources.enums.EventSeverity;
+import com.heavyroute.resources.repository.RoadEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Individua le chiusure stradali (eventi {@code CRITICAL} attivi) lungo il corridoio di un percorso.
+ * <p>
+ * Il corridoio è il rettangolo che contiene partenza e arrivo, espanso di
+ * {@code routing.avoid.corridor-margin-km}: la ricerca è una singola query per intervallo di
+ * coordinate sull'indice di {@code road_events}, non una scansione di tutti gli eventi.
+ * </p>
+ * <p>
+ * Le chiusure attive dipendono dall'istante della richiesta (eventi con {@code validFrom} futuro o
+ * già scaduti): {@link #fingerprint(List)} ne riassume l'insieme, così che cache di tratta e rotte
+ * pre-calcolate vengano scartate quando cambia.
+ * </p>
+ */
+@Slf4j
+@Component
+public class RoadClosureLocator {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final RoadEventRepository roadEventRepository;
+    private final double marginKm;
+    private final int maxClosures;
+
+    public RoadClosureLocator(RoadEventRepository roadEventRepository,
+                              @Value("${routing.avoid.corridor-margin-km:20}") double marginKm,
+                              @Value("${routing.avoid.max-closures:50}") int maxClosures) {
+        this.roadEventRepository = roadEventRepository;
+        this.marginKm = marginKm;
+        this.maxClosures = maxClosures;
+    }
+
+    /**
+     * @param start Coordinate di partenza.
+     * @param end   Coordinate di arrivo.
+     * @return Posizioni delle chiusure attive nel corridoio, dalla più vicina alla congiungente
+     *         partenza-arrivo (al massimo {@code routing.avoid.max-closures}).
+     */
+    public List<GeoLocation> activeClosures(GeoLocation start, GeoLocation end) {
+        double minLat = Math.min(start.getLatitude(), end.getLatitude());
+        double maxLat = Math.max(start.getLatitude(), end.getLatitude());
+        double minLon = Math.min(start.getLongitude(), end.getLongitude());
+        double maxLon = Math.max(start.getLongitude(), end.getLongitude());
+
+        double latMargin = marginKm / KM_PER_DEGREE;
+        // La longitudine si restringe verso i poli: margine calcolato sulla latitudine più alta
+        double lonMargin = marginKm / (KM_PER_DEGREE * Math.max(0.1,
+                Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))))));
+
+        List<GeoLocation> closures = roadEventRepository.findActiveLocationsInArea(
+                EventSeverity.CRITICAL, LocalDateTime.now(),
+                minLat - latMargin, maxLat + latMargin,
+                minLon - lonMargin, maxLon + lonMargin);
+
+        if (closures.size() <= 1) {
+            return closures;
+        }
+        // Le chiusure più vicine all'asse del corridoio sono le più probabili sul percorso
+        int[] axis = {scaled(start.getLatitude()), scaled(start.getLongitude()),
+                scaled(end.getLatitude()), scaled(end.getLongitude())};
+        List<GeoLocation> nearestFirst = closures.stream()
+                .sorted(Comparator.comparingDouble(
+                        (GeoLocation c) -> PolylineGeometry.distanceMeters(axis, c.getLatitude(), c.getLongitude())))
+                .toList();
+        if (nearestFirst.size() > maxClosures) {
+            log.warn("❌ {} chiusure nel corridoio, vengono considerate solo le {} più vicine", closures.size(), maxClosures);
+            return nearestFirst.subList(0, maxClosures);
+        }
+        return nearestFirst;
+    }
+
+    /**
+     * Impronta di un insieme di chiusure, indipendente dall'ordine.
+     *
+     * @param closures Chiusure restituite da {@link #activeClosures(GeoLocation, GeoLocation)}.
+     * @return Stringa vuota se non ci sono chiusure, altrimenti numero di chiusure e hash delle posizioni.
+     */
+    public static String fingerprint(List<GeoLocation> closures) {
+        if (closures == null || closures.isEmpty()) {
+            return "";
+        }
+        long[] cells = closures.stream()
+                .mapToLong(c -> scaled(c.getLatitude()) * 100_000_000L + scaled(c.getLongitude()))
+                .sorted()
+                .toArray();
+        long hash = 1;
+        for (long cell : cells) {
+            hash = 31 * hash + cell;
+        }
+        return cells.length + ":" + Long.toHexString(hash);
+    }
+
+    private static int scaled(double degrees) {
+        return (int) Math.round(degrees * PolylineCodec.SCALE);
+    }
+}
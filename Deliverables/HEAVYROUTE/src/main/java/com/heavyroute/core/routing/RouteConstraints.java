@@ -0,0 +1,87 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.core.model.LoadDetails;
+import com.heavyroute.resources.model.Vehicle;
+
+import java.util.Locale;
+
+/**
+ * Profilo dimensionale e di peso del trasporto, usato per escludere le strade non percorribili.
+ * <p>
+ * Per i trasporti eccezionali l'ingombro effettivo è il maggiore tra quello del carico e quello
+ * del mezzo: il profilo viene quindi derivato da {@link LoadDetails} e, se già assegnato, dal
+ * {@link Vehicle}. I valori {@code null} indicano un vincolo non specificato (nessuna esclusione).
+ * </p>
+ *
+ * @param heightM  Altezza complessiva in metri.
+ * @param widthM   Larghezza complessiva in metri.
+ * @param lengthM  Lunghezza complessiva in metri.
+ * @param weightKg Peso del carico in chilogrammi.
+ */
+public record RouteConstraints(Double heightM, Double widthM, Double lengthM, Double weightKg) {
+
+    /** Nessun vincolo: percorso per un veicolo ordinario. */
+    public static final RouteConstraints NONE = new RouteConstraints(null, null, null, null);
+
+    /**
+     * Deriva il profilo dal carico della richiesta e dal veicolo assegnato.
+     *
+     * @param load    Dettagli del carico (può essere {@code null}).
+     * @param vehicle Veicolo assegnato (può essere {@code null} se il viaggio non è ancora pianificato).
+     * @return Il profilo combinato, oppure {@link #NONE} se non sono disponibili dati.
+     */
+    public static RouteConstraints of(LoadDetails load, Vehicle vehicle) {
+        Double height = null;
+        Double width = null;
+        Double length = null;
+        Double weight = null;
+        if (load != null) {
+            height = load.getHeight();
+            width = load.getWidth();
+            length = load.getLength();
+            weight = load.getWeightKg();
+        }
+        if (vehicle != null) {
+            height = max(height, vehicle.getMaxHeight());
+            width = max(width, vehicle.getMaxWidth());
+            length = max(length, vehicle.getMaxLength());
+        }
+        RouteConstraints constraints = new RouteConstraints(height, width, length, weight);
+        return constraints.isUnconstrained() ? NONE : constraints;
+    }
+
+    public boolean isUnconstrained() {
+        return heightM == null && widthM == null && lengthM == null && weightKg == null;
+    }
+
+    /**
+     * Peso espresso in tonnellate, o {@code null} se non specificato.
+     */
+    public Double weightTonnes() {
+        return weightKg == null ? null : weightKg / 1000.0;
+    }
+
+    /**
+     * Rappresentazione compatta e stabile per la chiave di cache (decimetri e tonnellate).
+     * Profili che differiscono meno della risoluzione dei limiti stradali condividono la voce.
+     */
+    public String cacheKey() {
+        if (isUnconstrained()) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "h%s-w%s-l%s-t%s",
+                decimeters(heightM), decimeters(widthM), decimeters(lengthM),
+                weightKg == null ? "_" : String.valueOf((long) Math.ceil(weightKg / 1000.0)));
+    }
+
+    private static String decimeters(Double meters) {
+        return meters == null ? "_" : String.valueOf((long) Math.ceil(meters * 10.0));
+    }
+
+    private static Double max(Double a, Double b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : Math.max(a, b);
+    }
+}
@@ -0,0 +1,31 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.common.model.GeoLocation;
+
+import java.util.List;
+
+/**
+ * Parametri di una richiesta di percorso.
+ *
+ * @param start       Coordinate di partenza.
+ * @param end         Coordinate di arrivo.
+ * @param constraints Profilo dimensionale e di peso del trasporto ({@link RouteConstraints#NONE} se assente).
+ * @param avoid       Posizioni delle chiusure stradali da evitare (eventi bloccanti attivi).
+ */
+public record RouteQuery(GeoLocation start, GeoLocation end, RouteConstraints constraints, List<GeoLocation> avoid) {
+
+    public RouteQuery {
+        if (constraints == null) {
+            constraints = RouteConstraints.NONE;
+        }
+        avoid = avoid == null ? List.of() : List.copyOf(avoid);
+    }
+
+    public RouteQuery(GeoLocation start, GeoLocation end, RouteConstraints constraints) {
+        this(start, end, constraints, List.of());
+    }
+
+    public RouteQuery(GeoLocation start, GeoLocation end) {
+        this(start, end, RouteConstraints.NONE, List.of());
+    }
+}
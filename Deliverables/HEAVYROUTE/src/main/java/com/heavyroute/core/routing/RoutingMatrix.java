@@ -0,0 +1,29 @@
+package com.heavyroute.core.routing;
+
+import java.util.Arrays;
+
+/**
+ * Matrice di durate e distanze stradali tra un insieme di origini e uno di destinazioni.
+ * <p>
+ * La cella {@code [i][j]} si riferisce al percorso dall'origine {@code i} alla destinazione
+ * {@code j}; il valore {@link Double#NaN} indica una coppia non collegata dalla rete stradale.
+ * </p>
+ *
+ * @param durationsMin Durate stimate in minuti.
+ * @param distancesKm  Distanze in chilometri.
+ */
+public record RoutingMatrix(double[][] durationsMin, double[][] distancesKm) {
+
+    /**
+     * Crea una matrice vuota delle dimensioni indicate, con tutte le celle a {@link Double#NaN}.
+     */
+    public static RoutingMatrix unreachable(int sources, int destinations) {
+        double[][] durations = new double[sources][destinations];
+        double[][] distances = new double[sources][destinations];
+        for (int i = 0; i < sources; i++) {
+            Arrays.fill(durations[i], Double.NaN);
+            Arrays.fill(distances[i], Double.NaN);
+        }
+        return new RoutingMatrix(durations, distances);
+    }
+}
@@ -0,0 +1,67 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.common.model.GeoLocation;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Motore di calcolo del percorso stradale tra due coordinate già geocodificate.
+ * <p>
+ * Astrae il provider di routing usato da {@link com.heavyroute.core.service.ExternalMapService}:
+ * l'implementazione attiva viene scelta tramite la proprietà {@code routing.provider}
+ * ({@code mapbox} di default, {@code offline} per il grafo stradale locale).
+ * </p>
+ */
+public interface RoutingProvider {
+
+    /**
+     * Identificativo del provider e del profilo di routing.
+     * <p>
+     * Entra nella chiave della cache di tratta: risultati di provider o profili diversi
+     * non devono essere confusi tra loro.
+     * </p>
+     */
+    String profile();
+
+    /**
+     * Calcola il percorso per la query indicata.
+     *
+     * @param query Coordinate di partenza e arrivo.
+     * @return Distanza, durata e geometria del percorso.
+     * @throws com.heavyroute.common.exception.BusinessRuleException se non esiste un percorso tra i due punti.
+     */
+    RoutingResult route(RouteQuery query);
+
+    /**
+     * Variante asincrona di {@link #route(RouteQuery)}.
+     * <p>
+     * I provider che interrogano servizi remoti la implementano senza tenere occupato un thread in
+     * attesa della risposta; per default il calcolo avviene sul thread chiamante.
+     * </p>
+     *
+     * @param query Coordinate di partenza e arrivo.
+     * @return Future completato con il percorso, oppure con l'errore di {@link #route(RouteQuery)}.
+     */
+    default CompletableFuture<RoutingResult> routeAsync(RouteQuery query) {
+        try {
+            return CompletableFuture.completedFuture(route(query));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Calcola in un'unica operazione la matrice di durate e distanze tra più origini e più destinazioni.
+     * <p>
+     * Non considera vincoli dimensionali né chiusure: serve a confrontare rapidamente le distanze
+     * (es. autisti liberi rispetto ai punti di ritiro), non a pianificare il percorso definitivo.
+     * </p>
+     *
+     * @param sources      Coordinate di origine (righe).
+     * @param destinations Coordinate di destinazione (colonne).
+     * @return La matrice, con {@link Double#NaN} nelle coppie non collegate.
+     * @throws com.heavyroute.common.exception.ServiceUnavailableException se il provider non è raggiungibile.
+     */
+    RoutingMatrix matrix(List<GeoLocation> sources, List<GeoLocation> destinations);
+}
@@ -0,0 +1,11 @@
+package com.heavyroute.core.routing;
+
+/**
+ * Risultato di un calcolo di percorso, indipendente dal provider.
+ *
+ * @param distanceKm  Distanza totale in chilometri.
+ * @param durationMin Durata stimata in minuti.
+ * @param polyline    Geometria in formato Encoded Polyline (precisione 5).
+ */
+public record RoutingResult(double distanceKm, double durationMin, String polyline) {
+}
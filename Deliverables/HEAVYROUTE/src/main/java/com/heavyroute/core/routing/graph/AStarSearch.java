@@ -0,0 +1,286 @@
+package com.heavyroute.core.routing.graph;
+
+import java.util.Arrays;
+
+/**
+ * Ricerca del percorso più veloce su un {@link RoadGraph} con l'algoritmo A*.
+ * <p>
+ * Il costo minimizzato è il tempo di percorrenza; l'euristica è il tempo necessario a coprire la
+ * distanza in linea d'aria alla velocità massima del grafo, quindi ammissibile (il percorso trovato
+ * è ottimo).
+ * </p>
+ * <p>
+ * <b>Non thread-safe:</b> l'istanza riusa i propri array di lavoro tra una ricerca e l'altra
+ * (azzerati in modo "lazy" tramite un contatore di generazione) e va quindi confinata a un thread.
+ * </p>
+ */
+public final class AStarSearch {
+
+    private final RoadGraph graph;
+
+    private final double[] cost;
+    private final double[] length;
+    private final int[] parent;
+    private final int[] seenGeneration;
+    private final int[] closedGeneration;
+    private final int[] avoidedGeneration;
+    private final int[] targetGeneration;
+    private int generation;
+
+    private int[] heapNodes = new int[64];
+    private double[] heapKeys = new double[64];
+    private int heapSize;
+
+    public AStarSearch(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.cost = new double[n];
+        this.length = new double[n];
+        this.parent = new int[n];
+        this.seenGeneration = new int[n];
+        this.closedGeneration = new int[n];
+        this.avoidedGeneration = new int[n];
+        this.targetGeneration = new int[n];
+    }
+
+    /**
+     * Calcola il percorso più veloce tra due nodi.
+     *
+     * @param source Nodo di partenza.
+     * @param target Nodo di arrivo.
+     * @return Il percorso, oppure {@code null} se il nodo di arrivo non è raggiungibile.
+     */
+    public Path search(int source, int target) {
+        return search(source, target, 0, 0, 0);
+    }
+
+    /**
+     * Calcola il percorso più veloce tra due nodi escludendo gli archi i cui limiti
+     * (vedi {@link EdgeLimits}) non sono compatibili con l'ingombro indicato.
+     *
+     * @param source   Nodo di partenza.
+     * @param target   Nodo di arrivo.
+     * @param heightDm Altezza del trasporto in decimetri (0 = non vincolante).
+     * @param widthDm  Larghezza del trasporto in decimetri (0 = non vincolante).
+     * @param weightT  Peso del trasporto in tonnellate (0 = non vincolante).
+     * @return Il percorso, oppure {@code null} se il nodo di arrivo non è raggiungibile con questi vincoli.
+     */
+    public Path search(int source, int target, int heightDm, int widthDm, int weightT) {
+        return search(source, target, heightDm, widthDm, weightT, null);
+    }
+
+    /**
+     * Come {@link #search(int, int, int, int, int)}, senza attraversare i nodi indicati
+     * (es. nodi in prossimità di una chiusura stradale). Partenza e arrivo non vengono mai esclusi:
+     * il mezzo deve comunque poter partire e arrivare.
+     *
+     * @param avoidNodes Nodi da non attraversare ({@code null} o vuoto = nessuno).
+     */
+    public Path search(int source, int target, int heightDm, int widthDm, int weightT, int[] avoidNodes) {
+        boolean constrained = graph.hasLimits() && (heightDm > 0 || widthDm > 0 || weightT > 0);
+        nextGeneration();
+        if (avoidNodes != null) {
+            for (int node : avoidNodes) {
+                avoidedGeneration[node] = generation;
+            }
+        }
+        avoidedGeneration[source] = 0;
+        avoidedGeneration[target] = 0;
+        heapSize = 0;
+
+        double invMaxSpeed = 1.0 / graph.maxSpeedMps();
+        double targetLat = graph.latitude(target);
+        double targetLon = graph.longitude(target);
+
+        open(source, 0.0, 0.0, -1);
+        push(source, heuristic(source, targetLat, targetLon, invMaxSpeed));
+
+        while (heapSize > 0) {
+            int node = pop();
+            if (closedGeneration[node] == generation) {
+                continue; // voce obsoleta (il nodo è stato reinserito con costo migliore)
+            }
+            closedGeneration[node] = generation;
+
+            if (node == target) {
+                return buildPath(source, target);
+            }
+
+            double nodeCost = cost[node];
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                int next = graph.edgeTarget(e);
+                if (closedGeneration[next] == generation || avoidedGeneration[next] == generation) {
+                    continue;
+                }
+                if (constrained && !graph.permits(e, heightDm, widthDm, weightT)) {
+                    continue;
+                }
+                double candidate = nodeCost + graph.edgeTimeS(e);
+                if (seenGeneration[next] != generation || candidate < cost[next]) {
+                    open(next, candidate, length[node] + graph.edgeLengthM(e), node);
+                    push(next, candidate + heuristic(next, targetLat, targetLon, invMaxSpeed));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calcola in una sola visita (Dijkstra) i tempi e le lunghezze dei percorsi più veloci da un nodo
+     * verso più destinazioni, fermandosi non appena tutte le destinazioni sono state raggiunte.
+     * <p>
+     * Costa quanto una singola ricerca verso la destinazione più lontana, invece di una ricerca
+     * A* per ogni coppia: è la base per le matrici distanza/durata.
+     * </p>
+     *
+     * @param source  Nodo di partenza.
+     * @param targets Nodi di arrivo (possono ripetersi).
+     * @return Tempi e lunghezze nell'ordine di {@code targets}; {@code NaN} per i nodi non raggiungibili.
+     */
+    public Reach oneToMany(int source, int[] targets) {
+        nextGeneration();
+        int pending = 0;
+        for (int target : targets) {
+            if (targetGeneration[target] != generation) {
+                targetGeneration[target] = generation;
+                pending++;
+            }
+        }
+        heapSize = 0;
+
+        open(source, 0.0, 0.0, -1);
+        push(source, 0.0);
+
+        while (heapSize > 0 && pending > 0) {
+            int node = pop();
+            if (closedGeneration[node] == generation) {
+                continue;
+            }
+            closedGeneration[node] = generation;
+            if (targetGeneration[node] == generation) {
+                pending--;
+            }
+
+            double nodeCost = cost[node];
+            for (int e = graph.firstEdge(node), end = graph.endEdge(node); e < end; e++) {
+                int next = graph.edgeTarget(e);
+                if (closedGeneration[next] == generation) {
+                    continue;
+                }
+                double candidate = nodeCost + graph.edgeTimeS(e);
+                if (seenGeneration[next] != generation || candidate < cost[next]) {
+                    open(next, candidate, length[node] + graph.edgeLengthM(e), node);
+                    push(next, candidate);
+                }
+            }
+        }
+
+        double[] timeS = new double[targets.length];
+        double[] lengthM = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            boolean reached = closedGeneration[targets[i]] == generation;
+            timeS[i] = reached ? cost[targets[i]] : Double.NaN;
+            lengthM[i] = reached ? length[targets[i]] : Double.NaN;
+        }
+        return new Reach(timeS, lengthM);
+    }
+
+    private double heuristic(int node, double targetLat, double targetLon, double invMaxSpeed) {
+        return RoadGraph.distanceMeters(graph.latitude(node), graph.longitude(node), targetLat, targetLon) * invMaxSpeed;
+    }
+
+    private void open(int node, double nodeCost, double nodeLength, int from) {
+        seenGeneration[node] = generation;
+        cost[node] = nodeCost;
+        length[node] = nodeLength;
+        parent[node] = from;
+    }
+
+    private Path buildPath(int source, int target) {
+        int count = 1;
+        for (int n = target; n != source; n = parent[n]) {
+            count++;
+        }
+        int[] nodes = new int[count];
+        for (int n = target, i = count - 1; i >= 0; n = parent[n], i--) {
+            nodes[i] = n;
+        }
+        return new Path(nodes, length[target], cost[target]);
+    }
+
+    private void nextGeneration() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(seenGeneration, 0);
+            Arrays.fill(closedGeneration, 0);
+            Arrays.fill(avoidedGeneration, 0);
+            Arrays.fill(targetGeneration, 0);
+            generation = 1;
+        }
+    }
+
+    // --- Min-heap binario su array paralleli (con inserimenti duplicati al posto del decrease-key) ---
+
+    private void push(int node, double key) {
+        if (heapSize == heapNodes.length) {
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heapKeys[p] <= key) {
+                break;
+            }
+            heapNodes[i] = heapNodes[p];
+            heapKeys[i] = heapKeys[p];
+            i = p;
+        }
+        heapNodes[i] = node;
+        heapKeys[i] = key;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        int lastNode = heapNodes[--heapSize];
+        double lastKey = heapKeys[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= lastKey) {
+                break;
+            }
+            heapNodes[i] = heapNodes[child];
+            heapKeys[i] = heapKeys[child];
+            i = child;
+        }
+        heapNodes[i] = lastNode;
+        heapKeys[i] = lastKey;
+        return top;
+    }
+
+    /**
+     * Percorso trovato dalla ricerca.
+     *
+     * @param nodes   Sequenza dei nodi attraversati (partenza e arrivo inclusi).
+     * @param lengthM Lunghezza complessiva in metri.
+     * @param timeS   Tempo di percorrenza complessivo in secondi.
+     */
+    public record Path(int[] nodes, double lengthM, double timeS) {
+    }
+
+    /**
+     * Risultato di una ricerca da un nodo verso più destinazioni.
+     *
+     * @param timeS   Tempi di percorrenza in secondi, nell'ordine delle destinazioni.
+     * @param lengthM Lunghezze in metri, nell'ordine delle destinazioni.
+     */
+    public record Reach(double[] timeS, double[] lengthM) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.heavyroute.core.routing.graph;
+
+/**
+ * Codifica compatta dei limiti di transito di un arco in un singolo {@code int}.
+ * <p>
+ * <ul>
+ * <li>bit 0-7: altezza massima in decimetri (0 = nessun limite, max 25,5 m);</li>
+ * <li>bit 8-15: larghezza massima in decimetri (0 = nessun limite, max 25,5 m);</li>
+ * <li>bit 16-31: peso massimo in tonnellate (0 = nessun limite).</li>
+ * </ul>
+ * Quattro byte per arco mantengono l'array dei limiti nella stessa scala di quelli
+ * di lunghezza e tempo, e la verifica durante la ricerca costa poche operazioni sui bit.
+ * </p>
+ */
+public final class EdgeLimits {
+
+    /** Arco senza limiti. */
+    public static final int NONE = 0;
+
+    private EdgeLimits() {
+    }
+
+    /**
+     * @param heightM Altezza massima in metri ({@code null} = nessun limite).
+     * @param widthM  Larghezza massima in metri ({@code null} = nessun limite).
+     * @param weightT Peso massimo in tonnellate ({@code null} = nessun limite).
+     */
+    public static int pack(Double heightM, Double widthM, Double weightT) {
+        int height = heightM == null ? 0 : clamp((int) Math.floor(heightM * 10.0), 0xff);
+        int width = widthM == null ? 0 : clamp((int) Math.floor(widthM * 10.0), 0xff);
+        int weight = weightT == null ? 0 : clamp((int) Math.floor(weightT), 0xffff);
+        return height | (width << 8) | (weight << 16);
+    }
+
+    static int heightDm(int limits) {
+        return limits & 0xff;
+    }
+
+    static int widthDm(int limits) {
+        return (limits >>> 8) & 0xff;
+    }
+
+    static int weightT(int limits) {
+        return limits >>> 16;
+    }
+
+    /**
+     * Converte un requisito in metri nell'unità dei limiti (decimetri, arrotondando per eccesso).
+     */
+    public static int requiredDm(Double meters) {
+        return meters == null ? 0 : (int) Math.min(Integer.MAX_VALUE, Math.ceil(meters * 10.0 - 1e-9));
+    }
+
+    /**
+     * Converte un requisito in tonnellate nell'unità dei limiti (arrotondando per eccesso).
+     */
+    public static int requiredTonnes(Double tonnes) {
+        return tonnes == null ? 0 : (int) Math.min(Integer.MAX_VALUE, Math.ceil(tonnes - 1e-9));
+    }
+
+    private static int clamp(int value, int max) {
+        // Un limite non nullo ma inferiore alla risoluzione resta comunque un limite (1 unità)
+        return Math.max(1, Math.min(value, max));
+    }
+}
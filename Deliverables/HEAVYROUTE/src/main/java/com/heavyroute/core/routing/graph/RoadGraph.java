@@ -0,0 +1,245 @@
+package com.heavyroute.core.routing.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Grafo stradale immutabile in formato compatto (CSR - <i>Compressed Sparse Row</i>).
+ * <p>
+ * Nodi e archi sono memorizzati in array di primitivi invece che in oggetti: per un estratto
+ * regionale (centinaia di migliaia di archi) l'occupazione di memoria resta di pochi MB e la
+ * visita degli archi uscenti di un nodo è una scansione sequenziale di un intervallo di array.
+ * </p>
+ * <ul>
+ * <li>Gli archi uscenti dal nodo {@code n} occupano gli indici {@code [firstEdge[n], firstEdge[n+1])}.</li>
+ * <li>Ogni arco ha nodo di arrivo, lunghezza (metri) e tempo di percorrenza (secondi).</li>
+ * <li>I limiti di transito (altezza, larghezza, peso) sono impacchettati in un solo {@code int} per arco;
+ * l'array non viene allocato se il grafo non contiene limiti.</li>
+ * </ul>
+ * <p>
+ * Un indice spaziale a griglia consente di agganciare una coordinata al nodo più vicino
+ * senza scandire l'intero grafo.
+ * </p>
+ */
+public final class RoadGraph {
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Lato della cella dell'indice spaziale, in gradi (circa 1 km di latitudine). */
+    private static final double CELL_DEGREES = 0.01;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final float[] edgeLengthM;
+    private final float[] edgeTimeS;
+    private final int[] edgeLimits;
+    private final double maxSpeedMps;
+    private final Map<Long, int[]> cells;
+
+    RoadGraph(double[] latitudes, double[] longitudes,
+              int[] firstEdge, int[] edgeTarget, float[] edgeLengthM, float[] edgeTimeS, int[] edgeLimits) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeLengthM = edgeLengthM;
+        this.edgeTimeS = edgeTimeS;
+        this.edgeLimits = edgeLimits;
+
+        double maxSpeed = 0.0;
+        for (int e = 0; e < edgeTarget.length; e++) {
+            if (edgeTimeS[e] > 0) {
+                maxSpeed = Math.max(maxSpeed, edgeLengthM[e] / edgeTimeS[e]);
+            }
+        }
+        this.maxSpeedMps = maxSpeed > 0 ? maxSpeed : 1.0;
+        this.cells = buildSpatialIndex(latitudes, longitudes);
+    }
+
+    public int nodeCount() {
+        return latitudes.length;
+    }
+
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    public double latitude(int node) {
+        return latitudes[node];
+    }
+
+    public double longitude(int node) {
+        return longitudes[node];
+    }
+
+    int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    int endEdge(int node) {
+        return firstEdge[node + 1];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    float edgeLengthM(int edge) {
+        return edgeLengthM[edge];
+    }
+
+    float edgeTimeS(int edge) {
+        return edgeTimeS[edge];
+    }
+
+    /**
+     * @return {@code true} se almeno un arco ha limiti di altezza, larghezza o peso.
+     */
+    public boolean hasLimits() {
+        return edgeLimits != null;
+    }
+
+    /**
+     * Verifica se un arco è percorribile dal profilo indicato.
+     *
+     * @param edge     Indice dell'arco.
+     * @param heightDm Altezza richiesta in decimetri (0 = non vincolante).
+     * @param widthDm  Larghezza richiesta in decimetri (0 = non vincolante).
+     * @param weightT  Peso richiesto in tonnellate (0 = non vincolante).
+     */
+    boolean permits(int edge, int heightDm, int widthDm, int weightT) {
+        int limits = edgeLimits[edge];
+        int maxHeight = EdgeLimits.heightDm(limits);
+        int maxWidth = EdgeLimits.widthDm(limits);
+        int maxWeight = EdgeLimits.weightT(limits);
+        return (maxHeight == 0 || heightDm <= maxHeight)
+                && (maxWidth == 0 || widthDm <= maxWidth)
+                && (maxWeight == 0 || weightT <= maxWeight);
+    }
+
+    /**
+     * Velocità massima presente nel grafo: rende ammissibile l'euristica di A* sul tempo.
+     */
+    double maxSpeedMps() {
+        return maxSpeedMps;
+    }
+
+    /**
+     * Cerca il nodo più vicino alla coordinata indicata entro un raggio massimo.
+     *
+     * @param lat            Latitudine in gradi.
+     * @param lon            Longitudine in gradi.
+     * @param maxDistanceM   Raggio massimo di ricerca in metri.
+     * @return Indice del nodo più vicino, oppure {@code -1} se nessun nodo è entro il raggio.
+     */
+    public int nearestNode(double lat, double lon, double maxDistanceM) {
+        long baseLat = cellOf(lat);
+        long baseLon = cellOf(lon);
+
+        // Lato minimo della cella in metri (la longitudine si restringe con la latitudine)
+        double cellMeters = CELL_DEGREES * METERS_PER_DEGREE * Math.max(0.1, Math.cos(Math.toRadians(Math.abs(lat))));
+        int maxRing = (int) Math.ceil(maxDistanceM / cellMeters) + 1;
+
+        int best = -1;
+        double bestDistance = maxDistanceM;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Le celle dell'anello "ring" distano almeno (ring - 1) lati di cella dal punto
+            if (best >= 0 && (ring - 1) * cellMeters > bestDistance) {
+                break;
+            }
+            for (long dLat = -ring; dLat <= ring; dLat++) {
+                for (long dLon = -ring; dLon <= ring; dLon++) {
+                    if (Math.max(Math.abs(dLat), Math.abs(dLon)) != ring) {
+                        continue;
+                    }
+                    int[] nodes = cells.get(cellKey(baseLat + dLat, baseLon + dLon));
+                    if (nodes == null) {
+                        continue;
+                    }
+                    for (int node : nodes) {
+                        double d = distanceMeters(lat, lon, latitudes[node], longitudes[node]);
+                        if (d <= bestDistance) {
+                            bestDistance = d;
+                            best = node;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Visita tutti i nodi entro il raggio indicato dalla coordinata.
+     *
+     * @param lat     Latitudine in gradi.
+     * @param lon     Longitudine in gradi.
+     * @param radiusM Raggio in metri.
+     * @param visitor Riceve l'indice di ogni nodo trovato.
+     */
+    public void forEachNodeWithin(double lat, double lon, double radiusM, IntConsumer visitor) {
+        long baseLat = cellOf(lat);
+        long baseLon = cellOf(lon);
+        double cellMeters = CELL_DEGREES * METERS_PER_DEGREE * Math.max(0.1, Math.cos(Math.toRadians(Math.abs(lat))));
+        int rings = (int) Math.ceil(radiusM / cellMeters) + 1;
+
+        for (long dLat = -rings; dLat <= rings; dLat++) {
+            for (long dLon = -rings; dLon <= rings; dLon++) {
+                int[] nodes = cells.get(cellKey(baseLat + dLat, baseLon + dLon));
+                if (nodes == null) {
+                    continue;
+                }
+                for (int node : nodes) {
+                    if (distanceMeters(lat, lon, latitudes[node], longitudes[node]) <= radiusM) {
+                        visitor.accept(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Distanza ortodromica (formula dell'emisenoverso) tra due coordinate, in metri.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static Map<Long, int[]> buildSpatialIndex(double[] latitudes, double[] longitudes) {
+        Map<Long, int[]> counts = new HashMap<>();
+        long[] keys = new long[latitudes.length];
+        for (int n = 0; n < latitudes.length; n++) {
+            keys[n] = cellKey(cellOf(latitudes[n]), cellOf(longitudes[n]));
+            counts.computeIfAbsent(keys[n], k -> new int[1])[0]++;
+        }
+
+        Map<Long, int[]> index = new HashMap<>(counts.size() * 2);
+        Map<Long, int[]> fill = new HashMap<>(counts.size() * 2);
+        counts.forEach((key, count) -> {
+            index.put(key, new int[count[0]]);
+            fill.put(key, new int[1]);
+        });
+        for (int n = 0; n < latitudes.length; n++) {
+            int[] position = fill.get(keys[n]);
+            index.get(keys[n])[position[0]++] = n;
+        }
+        return index;
+    }
+
+    private static long cellOf(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+}
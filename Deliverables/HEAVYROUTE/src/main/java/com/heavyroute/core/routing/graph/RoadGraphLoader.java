@@ -0,0 +1,172 @@
+package com.heavyroute.core.routing.graph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caricamento di un estratto della rete stradale da file di testo in un {@link RoadGraph}.
+ * <p>
+ * Formato (una voce per riga, campi separati da spazi, righe vuote e {@code #} ignorate):
+ * <pre>
+ * N &lt;id&gt; &lt;lat&gt; &lt;lon&gt;
+ * E &lt;idDa&gt; &lt;idA&gt; &lt;lunghezzaMetri&gt; &lt;velocitàKmh&gt; [oneway] [h=&lt;m&gt;] [w=&lt;m&gt;] [t=&lt;tonnellate&gt;]
+ * </pre>
+ * Gli archi sono bidirezionali salvo il suffisso {@code oneway}. I limiti opzionali {@code h}
+ * (altezza), {@code w} (larghezza) e {@code t} (peso) descrivono ponti, gallerie e strade a portata
+ * ridotta. Tutti i nodi devono essere dichiarati prima degli archi che li referenziano.
+ * </p>
+ */
+public final class RoadGraphLoader {
+
+    private RoadGraphLoader() {
+    }
+
+    /**
+     * Legge il grafo dallo stream indicato (che non viene chiuso).
+     *
+     * @throws IllegalArgumentException se il file non rispetta il formato.
+     * @throws IOException              in caso di errore di lettura.
+     */
+    public static RoadGraph load(InputStream input) throws IOException {
+        Map<Long, Integer> nodeIndex = new HashMap<>();
+        double[] lat = new double[1024];
+        double[] lon = new double[1024];
+        int nodes = 0;
+
+        int[] from = new int[4096];
+        int[] to = new int[4096];
+        float[] length = new float[4096];
+        float[] time = new float[4096];
+        int[] limits = new int[4096];
+        boolean anyLimit = false;
+        int edges = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] f = line.split("\\s+");
+            try {
+                switch (f[0]) {
+                    case "N" -> {
+                        if (nodes == lat.length) {
+                            lat = Arrays.copyOf(lat, nodes * 2);
+                            lon = Arrays.copyOf(lon, nodes * 2);
+                        }
+                        if (nodeIndex.putIfAbsent(Long.parseLong(f[1]), nodes) != null) {
+                            throw new IllegalArgumentException("nodo duplicato " + f[1]);
+                        }
+                        lat[nodes] = Double.parseDouble(f[2]);
+                        lon[nodes] = Double.parseDouble(f[3]);
+                        nodes++;
+                    }
+                    case "E" -> {
+                        int a = resolve(nodeIndex, f[1]);
+                        int b = resolve(nodeIndex, f[2]);
+                        float meters = Float.parseFloat(f[3]);
+                        float speedKmh = Float.parseFloat(f[4]);
+                        if (meters < 0 || speedKmh <= 0) {
+                            throw new IllegalArgumentException("lunghezza o velocità non valide");
+                        }
+                        float seconds = meters / (speedKmh / 3.6f);
+                        boolean oneway = false;
+                        Double maxHeight = null;
+                        Double maxWidth = null;
+                        Double maxWeight = null;
+                        for (int i = 5; i < f.length; i++) {
+                            String token = f[i];
+                            if ("oneway".equalsIgnoreCase(token)) {
+                                oneway = true;
+                            } else if (token.startsWith("h=")) {
+                                maxHeight = Double.parseDouble(token.substring(2));
+                            } else if (token.startsWith("w=")) {
+                                maxWidth = Double.parseDouble(token.substring(2));
+                            } else if (token.startsWith("t=")) {
+                                maxWeight = Double.parseDouble(token.substring(2));
+                            } else {
+                                throw new IllegalArgumentException("attributo di arco sconosciuto '" + token + "'");
+                            }
+                        }
+                        int edgeLimit = EdgeLimits.pack(maxHeight, maxWidth, maxWeight);
+                        anyLimit |= edgeLimit != EdgeLimits.NONE;
+
+                        int needed = edges + (oneway ? 1 : 2);
+                        if (needed > from.length) {
+                            int size = Math.max(needed, from.length * 2);
+                            from = Arrays.copyOf(from, size);
+                            to = Arrays.copyOf(to, size);
+                            length = Arrays.copyOf(length, size);
+                            time = Arrays.copyOf(time, size);
+                            limits = Arrays.copyOf(limits, size);
+                        }
+                        from[edges] = a; to[edges] = b; length[edges] = meters; time[edges] = seconds;
+                        limits[edges++] = edgeLimit;
+                        if (!oneway) {
+                            from[edges] = b; to[edges] = a; length[edges] = meters; time[edges] = seconds;
+                            limits[edges++] = edgeLimit;
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("tipo di riga sconosciuto '" + f[0] + "'");
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Riga " + lineNumber + " non valida: " + line, e);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Riga " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        return toCsr(Arrays.copyOf(lat, nodes), Arrays.copyOf(lon, nodes), from, to, length, time,
+                anyLimit ? limits : null, edges);
+    }
+
+    private static int resolve(Map<Long, Integer> nodeIndex, String id) {
+        Integer index = nodeIndex.get(Long.parseLong(id));
+        if (index == null) {
+            throw new IllegalArgumentException("nodo " + id + " non dichiarato");
+        }
+        return index;
+    }
+
+    /**
+     * Ordina gli archi per nodo di partenza (counting sort) e costruisce gli array CSR.
+     * L'array dei limiti viene creato solo se almeno un arco ne ha ({@code limits != null}).
+     */
+    private static RoadGraph toCsr(double[] lat, double[] lon, int[] from, int[] to,
+                                   float[] length, float[] time, int[] limits, int edges) {
+        int nodes = lat.length;
+        int[] firstEdge = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            firstEdge[from[e] + 1]++;
+        }
+        for (int n = 0; n < nodes; n++) {
+            firstEdge[n + 1] += firstEdge[n];
+        }
+
+        int[] cursor = Arrays.copyOf(firstEdge, nodes);
+        int[] target = new int[edges];
+        float[] lengthM = new float[edges];
+        float[] timeS = new float[edges];
+        int[] edgeLimits = limits == null ? null : new int[edges];
+        for (int e = 0; e < edges; e++) {
+            int slot = cursor[from[e]]++;
+            target[slot] = to[e];
+            lengthM[slot] = length[e];
+            timeS[slot] = time[e];
+            if (edgeLimits != null) {
+                edgeLimits[slot] = limits[e];
+            }
+        }
+        return new RoadGraph(lat, lon, firstEdge, target, lengthM, timeS, edgeLimits);
+    }
+}
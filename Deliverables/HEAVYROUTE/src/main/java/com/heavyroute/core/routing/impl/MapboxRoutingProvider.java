@@ -0,0 +1,295 @@
+package com.heavyroute.core.routing.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.routing.RouteQuery;
+import com.heavyroute.core.routing.RoutingMatrix;
+import com.heavyroute.core.routing.RoutingProvider;
+import com.heavyroute.core.routing.RoutingResult;
+import com.heavyroute.core.service.MapboxClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Provider di routing basato sulla Mapbox Directions API (default).
+ * <p>
+ * Il profilo {@link RouteConstraints} viene tradotto nei parametri {@code max_height},
+ * {@code max_width} e {@code max_weight}, limitati agli intervalli accettati dall'API.
+ * Le chiusure stradali da evitare vengono passate come esclusioni puntuali ({@code exclude=point(lon lat)}).
+ * </p>
+ * <p>
+ * Le matrici usano la Matrix API: origini e destinazioni vengono suddivise in blocchi che rispettano
+ * il limite di coordinate per richiesta, e i blocchi vengono richiesti in parallelo a gruppi di
+ * {@code mapbox.matrix.max-parallel-calls}.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "routing.provider", havingValue = "mapbox", matchIfMissing = true)
+public class MapboxRoutingProvider implements RoutingProvider {
+
+    @Value("${mapbox.api.key}")
+    private String mapboxKey;
+
+    @Value("${mapbox.directions.profile:driving}")
+    private String directionsProfile;
+
+    /** Indirizzo base delle API (sostituibile nei test con un server locale). */
+    @Value("${mapbox.api.base-url:https://api.mapbox.com}")
+    private String baseUrl;
+
+    /** Numero massimo di coordinate (origini + destinazioni) per singola richiesta alla Matrix API. */
+    @Value("${mapbox.matrix.max-coordinates:25}")
+    private int matrixMaxCoordinates;
+
+    /** Blocchi della matrice richiesti contemporaneamente. */
+    @Value("${mapbox.matrix.max-parallel-calls:4}")
+    private int matrixMaxParallelCalls;
+
+    /** Attesa massima del calcolo di una matrice, per tutti i blocchi. */
+    @Value("${mapbox.matrix.deadline-ms:30000}")
+    private long matrixDeadlineMs;
+
+    /**
+     * Limiti superiori accettati dalla Directions API (metri e tonnellate). Un ingombro oltre
+     * questi valori non può essere espresso come vincolo: la rotta non sarebbe verificata.
+     */
+    private static final double MAX_DIMENSION_M = 10.0;
+    private static final double MAX_WEIGHT_T = 100.0;
+
+    private final MapboxClient mapboxClient;
+
+    @Override
+    public String profile() {
+        return "mapbox/" + directionsProfile;
+    }
+
+    /**
+     * Variante bloccante di {@link #routeAsync(RouteQuery)}: l'attesa è limitata dal timeout
+     * delle richieste HTTP ({@code mapbox.http.request-timeout-ms}).
+     */
+    @Override
+    public RoutingResult route(RouteQuery query) {
+        try {
+            return routeAsync(query).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<RoutingResult> routeAsync(RouteQuery query) {
+        String directionsUrl;
+        try {
+            directionsUrl = directionsUrl(query);
+        } catch (BusinessRuleException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        System.out.println("📡 [MapService] API Call: " + directionsUrl);
+
+        CompletableFuture<JsonNode> call;
+        try {
+            call = mapboxClient.getJson(directionsUrl);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                System.err.println("❌ [MapService] Errore Directions API: " + cause.getMessage());
+                throw new ServiceUnavailableException("Errore calcolo rotta: " + cause.getMessage(), cause);
+            }
+            return parseRoute(response);
+        });
+    }
+
+    private String directionsUrl(RouteQuery query) {
+        GeoLocation start = query.start();
+        GeoLocation end = query.end();
+
+        UriComponentsBuilder builder = UriComponentsBuilder
+                .fromHttpUrl(baseUrl + "/directions/v5/mapbox/" + directionsProfile + "/"
+                        + start.getLongitude() + "," + start.getLatitude() + ";"
+                        + end.getLongitude() + "," + end.getLatitude())
+                .queryParam("geometries", "polyline") // Precisione 5
+                .queryParam("overview", "full")
+                .queryParam("steps", "false")
+                .queryParam("access_token", mapboxKey);
+
+        RouteConstraints constraints = query.constraints();
+        if (constraints.heightM() != null) {
+            builder.queryParam("max_height", withinLimit(constraints.heightM(), MAX_DIMENSION_M, "Altezza", "m"));
+        }
+        if (constraints.widthM() != null) {
+            builder.queryParam("max_width", withinLimit(constraints.widthM(), MAX_DIMENSION_M, "Larghezza", "m"));
+        }
+        if (constraints.weightTonnes() != null) {
+            builder.queryParam("max_weight", withinLimit(constraints.weightTonnes(), MAX_WEIGHT_T, "Peso", "t"));
+        }
+        if (!query.avoid().isEmpty()) {
+            builder.queryParam("exclude", query.avoid().stream()
+                    .map(p -> "point(" + p.getLongitude() + " " + p.getLatitude() + ")")
+                    .collect(Collectors.joining(",")));
+        }
+        return builder.toUriString();
+    }
+
+    private static RoutingResult parseRoute(JsonNode response) {
+        try {
+            if (response == null || !response.has("routes") || response.get("routes").isEmpty()) {
+                System.err.println("❌ [MapService] Nessuna rotta stradale trovata.");
+                throw new BusinessRuleException("Impossibile calcolare un percorso stradale tra questi due punti.");
+            }
+
+            JsonNode routeNode = response.get("routes").get(0);
+
+            double distanceKm = routeNode.get("distance").asDouble() / 1000.0;
+            double durationMin = routeNode.get("duration").asDouble() / 60.0;
+            String polyline = routeNode.get("geometry").asText();
+
+            System.out.println("✅ [MapService] Rotta OK: " + String.format("%.2f", distanceKm) + " km, " + String.format("%.0f", durationMin) + " min.");
+
+            return new RoutingResult(distanceKm, durationMin, polyline);
+
+        } catch (BusinessRuleException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("❌ [MapService] Errore Directions API: " + e.getMessage());
+            throw new ServiceUnavailableException("Errore calcolo rotta: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Calcola la matrice a blocchi. Le richieste di ogni gruppo partono insieme e il gruppo successivo
+     * viene concatenato al completamento del precedente: l'unica attesa è quella del chiamante, limitata
+     * da {@code mapbox.matrix.deadline-ms}.
+     */
+    @Override
+    public RoutingMatrix matrix(List<GeoLocation> sources, List<GeoLocation> destinations) {
+        RoutingMatrix matrix = RoutingMatrix.unreachable(sources.size(), destinations.size());
+        if (sources.isEmpty() || destinations.isEmpty()) {
+            return matrix;
+        }
+
+        // Blocchi bilanciati: se una delle due liste è corta lascia più spazio all'altra
+        int half = Math.max(1, matrixMaxCoordinates / 2);
+        int sourceBlock = destinations.size() > half
+                ? Math.min(sources.size(), half)
+                : Math.min(sources.size(), Math.max(1, matrixMaxCoordinates - destinations.size()));
+        int destinationBlock = Math.min(destinations.size(), Math.max(1, matrixMaxCoordinates - sourceBlock));
+
+        List<int[]> blocks = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i += sourceBlock) {
+            for (int j = 0; j < destinations.size(); j += destinationBlock) {
+                blocks.add(new int[]{i, Math.min(i + sourceBlock, sources.size()),
+                        j, Math.min(j + destinationBlock, destinations.size())});
+            }
+        }
+        System.out.println("📡 [MapService] Matrix API: " + sources.size() + "x" + destinations.size()
+                + " in " + blocks.size() + " blocchi");
+
+        // Ogni blocco scrive solo le proprie celle della matrice
+        CompletableFuture<Void> waves = CompletableFuture.completedFuture(null);
+        for (int b = 0; b < blocks.size(); b += matrixMaxParallelCalls) {
+            List<int[]> wave = blocks.subList(b, Math.min(b + matrixMaxParallelCalls, blocks.size()));
+            waves = waves.thenCompose(previous -> CompletableFuture.allOf(wave.stream()
+                    .map(block -> mapboxClient.getJson(matrixUrl(sources, destinations, block))
+                            .thenAccept(response -> fillBlock(matrix, block, response)))
+                    .toArray(CompletableFuture[]::new)));
+        }
+
+        try {
+            waves.get(matrixDeadlineMs, TimeUnit.MILLISECONDS);
+            return matrix;
+        } catch (TimeoutException e) {
+            waves.cancel(true);
+            System.err.println("❌ [MapService] Matrix API: tempo scaduto");
+            throw new ServiceUnavailableException("Il servizio cartografico non ha risposto in tempo. Riprovare più tardi.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Calcolo matrice distanze interrotto", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            System.err.println("❌ [MapService] Errore Matrix API: " + cause.getMessage());
+            throw new ServiceUnavailableException("Errore calcolo matrice distanze: " + cause.getMessage(), cause);
+        }
+    }
+
+    private String matrixUrl(List<GeoLocation> sources, List<GeoLocation> destinations, int[] block) {
+        List<GeoLocation> coordinates = new ArrayList<>(sources.subList(block[0], block[1]));
+        coordinates.addAll(destinations.subList(block[2], block[3]));
+        int sourceCount = block[1] - block[0];
+
+        return UriComponentsBuilder
+                .fromHttpUrl(baseUrl + "/directions-matrix/v1/mapbox/" + directionsProfile + "/"
+                        + coordinates.stream()
+                        .map(p -> p.getLongitude() + "," + p.getLatitude())
+                        .collect(Collectors.joining(";")))
+                .queryParam("sources", IntStream.range(0, sourceCount)
+                        .mapToObj(String::valueOf).collect(Collectors.joining(";")))
+                .queryParam("destinations", IntStream.range(sourceCount, coordinates.size())
+                        .mapToObj(String::valueOf).collect(Collectors.joining(";")))
+                .queryParam("annotations", "duration,distance")
+                .queryParam("access_token", mapboxKey)
+                .toUriString();
+    }
+
+    /**
+     * Copia nella matrice complessiva i valori di un blocco. Le celle {@code null}
+     * (coppia non collegata) restano {@link Double#NaN}.
+     */
+    private static void fillBlock(RoutingMatrix matrix, int[] block, JsonNode response) {
+        if (response == null || !"Ok".equals(response.path("code").asText())) {
+            throw new IllegalStateException("Risposta Matrix API non valida: "
+                    + (response == null ? "vuota" : response.path("code").asText()));
+        }
+        JsonNode durations = response.path("durations");
+        JsonNode distances = response.path("distances");
+        for (int i = block[0]; i < block[1]; i++) {
+            for (int j = block[2]; j < block[3]; j++) {
+                JsonNode duration = durations.path(i - block[0]).path(j - block[2]);
+                JsonNode distance = distances.path(i - block[0]).path(j - block[2]);
+                if (duration.isNumber()) {
+                    matrix.durationsMin()[i][j] = duration.asDouble() / 60.0;
+                }
+                if (distance.isNumber()) {
+                    matrix.distancesKm()[i][j] = distance.asDouble() / 1000.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifica che un vincolo rientri nei limiti del provider.
+     *
+     * @throws BusinessRuleException se il valore supera il limite: ridurlo al massimo produrrebbe
+     *         un percorso calcolato per un trasporto più piccolo di quello reale.
+     */
+    private static double withinLimit(double value, double max, String label, String unit) {
+        if (value > max) {
+            System.err.println("❌ [MapService] " + label + " " + value + " " + unit + " oltre il limite del provider (" + max + " " + unit + ")");
+            throw new BusinessRuleException(label + " del trasporto (" + value + " " + unit
+                    + ") oltre il limite verificabile dal servizio di routing (" + max + " " + unit + ").");
+        }
+        return value;
+    }
+}
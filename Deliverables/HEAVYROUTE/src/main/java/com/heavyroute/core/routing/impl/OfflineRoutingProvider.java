@@ -0,0 +1,208 @@
+package com.heavyroute.core.routing.impl;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.routing.RouteQuery;
+import com.heavyroute.core.routing.RoutingMatrix;
+import com.heavyroute.core.routing.RoutingProvider;
+import com.heavyroute.core.routing.RoutingResult;
+import com.heavyroute.core.routing.graph.AStarSearch;
+import com.heavyroute.core.routing.graph.EdgeLimits;
+import com.heavyroute.core.routing.graph.RoadGraph;
+import com.heavyroute.core.routing.graph.RoadGraphLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Provider di routing offline: calcola i percorsi in-process su un grafo stradale locale.
+ * <p>
+ * Il grafo viene caricato all'avvio dal file indicato in {@code routing.offline.graph-file}
+ * (formato descritto in {@link RoadGraphLoader}) e interrogato con A*. Non richiede rete né
+ * quote del provider esterno e restituisce risultati deterministici.
+ * </p>
+ * <p>
+ * Partenza e arrivo vengono agganciati al nodo più vicino entro {@code routing.offline.max-snap-meters};
+ * i tratti di accesso (coordinata → nodo) sono inclusi nella geometria e stimati a velocità ridotta.
+ * </p>
+ * <p>
+ * Se la richiesta contiene un profilo {@link RouteConstraints}, gli archi con limiti di altezza,
+ * larghezza o peso incompatibili vengono esclusi dalla ricerca. I nodi entro
+ * {@code routing.offline.avoid-radius-meters} da una chiusura stradale ({@link RouteQuery#avoid()})
+ * non vengono attraversati.
+ * </p>
+ * <p>
+ * Le matrici ({@link #matrix(List, List)}) eseguono una sola visita uno-a-molti per ogni origine.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "routing.provider", havingValue = "offline")
+public class OfflineRoutingProvider implements RoutingProvider {
+
+    private final RoadGraph graph;
+    private final double maxSnapMeters;
+    private final double accessSpeedMps;
+    private final double avoidRadiusMeters;
+    private final ThreadLocal<AStarSearch> searches;
+
+    @Autowired
+    public OfflineRoutingProvider(ResourceLoader resourceLoader,
+                                  @Value("${routing.offline.graph-file}") String graphFile,
+                                  @Value("${routing.offline.max-snap-meters:5000}") double maxSnapMeters,
+                                  @Value("${routing.offline.access-speed-kmh:30}") double accessSpeedKmh,
+                                  @Value("${routing.offline.avoid-radius-meters:300}") double avoidRadiusMeters) {
+        this(loadGraph(resourceLoader.getResource(graphFile)), maxSnapMeters, accessSpeedKmh, avoidRadiusMeters);
+        log.info("✅ Grafo stradale offline caricato da {}: {} nodi, {} archi",
+                graphFile, graph.nodeCount(), graph.edgeCount());
+    }
+
+    /**
+     * Costruttore diretto su un grafo già caricato (usato nei test).
+     */
+    public OfflineRoutingProvider(RoadGraph graph, double maxSnapMeters, double accessSpeedKmh, double avoidRadiusMeters) {
+        this.graph = graph;
+        this.maxSnapMeters = maxSnapMeters;
+        this.accessSpeedMps = accessSpeedKmh / 3.6;
+        this.avoidRadiusMeters = avoidRadiusMeters;
+        this.searches = ThreadLocal.withInitial(() -> new AStarSearch(graph));
+    }
+
+    @Override
+    public String profile() {
+        return "offline";
+    }
+
+    @Override
+    public RoutingResult route(RouteQuery query) {
+        GeoLocation start = query.start();
+        GeoLocation end = query.end();
+
+        int source = snap(start, "partenza");
+        int target = snap(end, "arrivo");
+
+        RouteConstraints constraints = query.constraints();
+        AStarSearch.Path path = searches.get().search(source, target,
+                EdgeLimits.requiredDm(constraints.heightM()),
+                EdgeLimits.requiredDm(constraints.widthM()),
+                EdgeLimits.requiredTonnes(constraints.weightTonnes()),
+                nodesNear(query.avoid()));
+        if (path == null) {
+            if (!query.avoid().isEmpty()) {
+                throw new BusinessRuleException(
+                        "Nessun percorso stradale disponibile che eviti le chiusure in corso.");
+            }
+            if (!constraints.isUnconstrained()) {
+                throw new BusinessRuleException(
+                        "Nessun percorso stradale compatibile con le dimensioni e il peso del trasporto.");
+            }
+            throw new BusinessRuleException("Impossibile calcolare un percorso stradale tra questi due punti.");
+        }
+
+        int[] nodes = path.nodes();
+        int[] scaled = new int[(nodes.length + 2) * 2];
+        int i = 0;
+        scaled[i++] = toScaled(start.getLatitude());
+        scaled[i++] = toScaled(start.getLongitude());
+        for (int node : nodes) {
+            scaled[i++] = toScaled(graph.latitude(node));
+            scaled[i++] = toScaled(graph.longitude(node));
+        }
+        scaled[i++] = toScaled(end.getLatitude());
+        scaled[i] = toScaled(end.getLongitude());
+
+        double accessMeters = RoadGraph.distanceMeters(start.getLatitude(), start.getLongitude(),
+                graph.latitude(source), graph.longitude(source))
+                + RoadGraph.distanceMeters(graph.latitude(target), graph.longitude(target),
+                end.getLatitude(), end.getLongitude());
+
+        double distanceKm = (path.lengthM() + accessMeters) / 1000.0;
+        double durationMin = (path.timeS() + accessMeters / accessSpeedMps) / 60.0;
+        return new RoutingResult(distanceKm, durationMin, PolylineCodec.encodeScaled(scaled));
+    }
+
+    @Override
+    public RoutingMatrix matrix(List<GeoLocation> sources, List<GeoLocation> destinations) {
+        RoutingMatrix matrix = RoutingMatrix.unreachable(sources.size(), destinations.size());
+
+        // Le destinazioni fuori dalla rete restano NaN e non entrano nella ricerca
+        int[] targets = new int[destinations.size()];
+        for (int j = 0; j < targets.length; j++) {
+            targets[j] = graph.nearestNode(destinations.get(j).getLatitude(), destinations.get(j).getLongitude(), maxSnapMeters);
+        }
+        int[] reachableTargets = Arrays.stream(targets).filter(t -> t >= 0).toArray();
+
+        AStarSearch search = searches.get();
+        for (int i = 0; i < sources.size(); i++) {
+            GeoLocation origin = sources.get(i);
+            int source = graph.nearestNode(origin.getLatitude(), origin.getLongitude(), maxSnapMeters);
+            if (source < 0 || reachableTargets.length == 0) {
+                continue;
+            }
+            AStarSearch.Reach reach = search.oneToMany(source, reachableTargets);
+            double originAccess = RoadGraph.distanceMeters(origin.getLatitude(), origin.getLongitude(),
+                    graph.latitude(source), graph.longitude(source));
+
+            for (int j = 0, k = 0; j < targets.length; j++) {
+                if (targets[j] < 0) {
+                    continue;
+                }
+                double timeS = reach.timeS()[k];
+                double lengthM = reach.lengthM()[k++];
+                if (Double.isNaN(timeS)) {
+                    continue;
+                }
+                GeoLocation destination = destinations.get(j);
+                double accessMeters = originAccess + RoadGraph.distanceMeters(graph.latitude(targets[j]),
+                        graph.longitude(targets[j]), destination.getLatitude(), destination.getLongitude());
+                matrix.distancesKm()[i][j] = (lengthM + accessMeters) / 1000.0;
+                matrix.durationsMin()[i][j] = (timeS + accessMeters / accessSpeedMps) / 60.0;
+            }
+        }
+        return matrix;
+    }
+
+    private int[] nodesNear(List<GeoLocation> closures) {
+        if (closures.isEmpty()) {
+            return null;
+        }
+        IntStream.Builder nodes = IntStream.builder();
+        for (GeoLocation closure : closures) {
+            graph.forEachNodeWithin(closure.getLatitude(), closure.getLongitude(), avoidRadiusMeters, nodes::add);
+        }
+        return nodes.build().toArray();
+    }
+
+    private int snap(GeoLocation location, String label) {
+        int node = graph.nearestNode(location.getLatitude(), location.getLongitude(), maxSnapMeters);
+        if (node < 0) {
+            throw new BusinessRuleException("Punto di " + label + " fuori dalla rete stradale disponibile offline.");
+        }
+        return node;
+    }
+
+    private static int toScaled(double degrees) {
+        return (int) Math.round(degrees * PolylineCodec.SCALE);
+    }
+
+    private static RoadGraph loadGraph(Resource resource) {
+        try (InputStream input = resource.getInputStream()) {
+            return RoadGraphLoader.load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossibile leggere il grafo stradale " + resource.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.AssignmentPlanDTO;
+import com.heavyroute.core.dto.AssignmentProposalDTO;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.LoadDetails;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.planning.AssignmentSolver;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.routing.graph.RoadGraph;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proposta automatica di autisti e veicoli per i viaggi in pianificazione.
+ * <p>
+ * Considera tutti i viaggi {@code IN_PLANNING}, gli autisti liberi con posizione nota e i veicoli
+ * disponibili, e risolve in memoria due problemi di assegnamento a costo minimo con
+ * l'{@link AssignmentSolver}:
+ * <ol>
+ * <li><b>Veicoli:</b> sono ammessi solo i mezzi con portata e dimensioni sufficienti per il carico;
+ * il costo è la quota di portata inutilizzata, così i mezzi più grandi restano liberi per i carichi
+ * che ne hanno bisogno.</li>
+ * <li><b>Autisti:</b> tra i viaggi che hanno ottenuto un veicolo, il costo è la distanza di
+ * avvicinamento dalla posizione dell'autista al punto di ritiro.</li>
+ * </ol>
+ * In entrambi i passi ogni giorno di distanza dalla data di ritiro aumenta il costo del viaggio:
+ * se le risorse non bastano per tutti, restano esclusi i viaggi con ritiro più lontano nel tempo.
+ * </p>
+ * <p>
+ * La distanza di avvicinamento è quella in linea d'aria: una matrice stradale per migliaia di
+ * autisti e viaggi richiederebbe milioni di celle al provider cartografico. Il piano restituito
+ * è solo una proposta; il pianificatore lo conferma con la pianificazione dei viaggi, che verifica
+ * di nuovo la disponibilità delle risorse.
+ * </p>
+ */
+@Slf4j
+@Service
+public class AssignmentPlanner {
+
+    private final TripRepository tripRepository;
+    private final DriverRepository driverRepository;
+    private final VehicleRepository vehicleRepository;
+    private final ExternalMapService mapService;
+    private final double dayPenaltyKm;
+
+    public AssignmentPlanner(TripRepository tripRepository,
+                             DriverRepository driverRepository,
+                             VehicleRepository vehicleRepository,
+                             ExternalMapService mapService,
+                             @Value("${planning.assignment.day-penalty-km:200}") double dayPenaltyKm) {
+        this.tripRepository = tripRepository;
+        this.driverRepository = driverRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.mapService = mapService;
+        this.dayPenaltyKm = dayPenaltyKm;
+    }
+
+    /**
+     * Calcola il piano di assegnazione per tutti i viaggi in pianificazione.
+     * <p>
+     * Il punto di ritiro è l'inizio della rotta calcolata; se la rotta non è ancora disponibile
+     * l'indirizzo di partenza viene geocodificato (con cache), in parallelo per tutti i viaggi. I
+     * viaggi non localizzabili, anche per un provider lento o non disponibile, finiscono tra quelli
+     * senza proposta.
+     * </p>
+     *
+     * @return Il piano proposto.
+     */
+    public AssignmentPlanDTO proposePlan() {
+        List<Trip> trips = tripRepository.findForListingByStatus(TripStatus.IN_PLANNING);
+        // Un solo lotto di geocoding, in parallelo, per i viaggi senza rotta calcolata
+        Map<String, GeoLocation> geocoded = mapService.geocodeAll(trips.stream()
+                .filter(trip -> !isKnown(routeStart(trip)))
+                .map(trip -> trip.getRequest().getOriginAddress())
+                .toList());
+
+        List<Trip> located = new ArrayList<>();
+        List<GeoLocation> pickups = new ArrayList<>();
+        List<Long> unlocated = new ArrayList<>();
+        for (Trip trip : trips) {
+            GeoLocation pickup = routeStart(trip);
+            if (!isKnown(pickup)) {
+                pickup = geocoded.get(trip.getRequest().getOriginAddress());
+            }
+            if (!isKnown(pickup)) {
+                log.warn("Viaggio {} escluso dalla pianificazione automatica: partenza non localizzabile", trip.getTripCode());
+                unlocated.add(trip.getId());
+                continue;
+            }
+            located.add(trip);
+            pickups.add(pickup);
+        }
+
+        List<Driver> drivers = driverRepository.findAvailableDrivers().stream()
+                .filter(d -> isKnown(d.getGeoLocation()))
+                .toList();
+        List<Vehicle> vehicles = vehicleRepository.findByStatus(VehicleStatus.AVAILABLE);
+
+        long start = System.nanoTime();
+        AssignmentPlanDTO plan = plan(located, pickups, drivers, vehicles, LocalDate.now());
+        plan.getUnassignedTripIds().addAll(unlocated);
+        log.info("✅ Pianificazione automatica: {} viaggi, {} autisti, {} veicoli -> {} proposte in {} ms",
+                trips.size(), drivers.size(), vehicles.size(), plan.getAssignments().size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return plan;
+    }
+
+    /**
+     * Calcolo del piano sui dati già caricati.
+     *
+     * @param trips    Viaggi da assegnare.
+     * @param pickups  Punto di ritiro di ogni viaggio, nello stesso ordine.
+     * @param drivers  Autisti liberi con posizione nota.
+     * @param vehicles Veicoli disponibili.
+     * @param today    Data di riferimento per la priorità dei ritiri.
+     */
+    AssignmentPlanDTO plan(List<Trip> trips, List<GeoLocation> pickups, List<Driver> drivers,
+                           List<Vehicle> vehicles, LocalDate today) {
+        double[] delayDays = new double[trips.size()];
+        for (int t = 0; t < trips.size(); t++) {
+            LocalDate pickupDate = trips.get(t).getRequest().getPickupDate();
+            delayDays[t] = pickupDate == null ? 0 : Math.max(0, ChronoUnit.DAYS.between(today, pickupDate));
+        }
+
+        // 1. VEICOLI: portata inutilizzata (0..1) + un'unità per giorno di attesa del ritiro
+        double[][] vehicleCost = new double[trips.size()][vehicles.size()];
+        for (int t = 0; t < trips.size(); t++) {
+            LoadDetails load = trips.get(t).getRequest().getLoad();
+            for (int v = 0; v < vehicles.size(); v++) {
+                Vehicle vehicle = vehicles.get(v);
+                vehicleCost[t][v] = load.fitsIn(vehicle)
+                        ? (vehicle.getMaxLoadCapacity() - value(load.getWeightKg())) / vehicle.getMaxLoadCapacity() + delayDays[t]
+                        : AssignmentSolver.FORBIDDEN;
+            }
+        }
+        int[] vehicleOf = AssignmentSolver.solve(vehicleCost);
+
+        // 2. AUTISTI: solo per i viaggi che hanno ottenuto un veicolo
+        List<Integer> equipped = new ArrayList<>();
+        for (int t = 0; t < trips.size(); t++) {
+            if (vehicleOf[t] != AssignmentSolver.UNASSIGNED) {
+                equipped.add(t);
+            }
+        }
+        double[][] deadheadKm = new double[equipped.size()][drivers.size()];
+        double[][] driverCost = new double[equipped.size()][drivers.size()];
+        for (int r = 0; r < equipped.size(); r++) {
+            int t = equipped.get(r);
+            GeoLocation pickup = pickups.get(t);
+            for (int d = 0; d < drivers.size(); d++) {
+                GeoLocation position = drivers.get(d).getGeoLocation();
+                deadheadKm[r][d] = RoadGraph.distanceMeters(position.getLatitude(), position.getLongitude(),
+                        pickup.getLatitude(), pickup.getLongitude()) / 1000.0;
+                driverCost[r][d] = deadheadKm[r][d] + dayPenaltyKm * delayDays[t];
+            }
+        }
+        int[] driverOf = AssignmentSolver.solve(driverCost);
+
+        // 3. PROPOSTE
+        Map<Long, AssignmentProposalDTO> byTrip = new HashMap<>();
+        for (int r = 0; r < equipped.size(); r++) {
+            if (driverOf[r] == AssignmentSolver.UNASSIGNED) {
+                continue;
+            }
+            Trip trip = trips.get(equipped.get(r));
+            Driver driver = drivers.get(driverOf[r]);
+            Vehicle vehicle = vehicles.get(vehicleOf[equipped.get(r)]);
+            byTrip.put(trip.getId(), new AssignmentProposalDTO(
+                    trip.getId(),
+                    trip.getTripCode(),
+                    driver.getId(),
+                    driver.getFirstName() + " " + driver.getLastName(),
+                    vehicle.getLicensePlate(),
+                    Math.round(deadheadKm[r][driverOf[r]] * 10) / 10.0,
+                    vehicle.getMaxLoadCapacity() - value(trip.getRequest().getLoad().getWeightKg()),
+                    trip.getRequest().getPickupDate()));
+        }
+
+        List<AssignmentProposalDTO> assignments = new ArrayList<>(byTrip.values());
+        assignments.sort(Comparator.comparing(AssignmentProposalDTO::getPickupDate,
+                Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(AssignmentProposalDTO::getTripId));
+        List<Long> unassigned = new ArrayList<>();
+        for (Trip trip : trips) {
+            if (!byTrip.containsKey(trip.getId())) {
+                unassigned.add(trip.getId());
+            }
+        }
+        return new AssignmentPlanDTO(assignments, unassigned);
+    }
+
+    private static double value(Double measure) {
+        return measure == null ? 0.0 : measure;
+    }
+
+    private static GeoLocation routeStart(Trip trip) {
+        return trip.getRoute() != null ? trip.getRoute().getStartLocation() : null;
+    }
+
+    private static boolean isKnown(GeoLocation location) {
+        return location != null && location.getLatitude() != null && location.getLongitude() != null;
+    }
+}
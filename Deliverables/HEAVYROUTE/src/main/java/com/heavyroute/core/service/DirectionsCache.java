@@ -0,0 +1,240 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.common.cache.SingleFlight;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.resources.event.RoadEventReportedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Cache dei risultati della Directions API a livello di "tratta" (lane).
+ * <p>
+ * Il traffico è dominato da poche decine di tratte ricorrenti origine/destinazione: la chiave
+ * viene quindi costruita agganciando le coordinate a una griglia configurabile, così che
+ * geocodifiche leggermente diverse dello stesso stabilimento condividano la stessa voce.
+ * Fa parte della chiave anche il profilo di routing (es. {@code driving}).
+ * </p>
+ * <p>
+ * <b>Invalidazione:</b> alla registrazione di un nuovo evento stradale vengono rimosse tutte le
+ * tratte il cui ingombro geografico (bounding box della polyline, più un margine) contiene l'evento,
+ * in modo che il successivo calcolo tenga conto della nuova viabilità.
+ * </p>
+ * <p>
+ * I calcoli concorrenti della stessa tratta non ancora in cache vengono deduplicati tramite
+ * {@link SingleFlight}, così da inviare una sola richiesta al provider.
+ * </p>
+ * <p>
+ * <b>Ultimo percorso noto:</b> ogni risultato viene conservato anche in un secondo livello con TTL
+ * più lungo, non soggetto all'invalidazione per evento stradale. Viene letto solo quando il provider
+ * non è disponibile, per restituire una rotta provvisoria più realistica di una stima in linea d'aria.
+ * </p>
+ */
+@Slf4j
+@Component
+public class DirectionsCache {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final LruTtlCache<LaneKey, CachedDirections> cache;
+    private final LruTtlCache<LaneKey, CachedDirections> lastKnown;
+    private final double gridDegrees;
+    private final double marginDegrees;
+    private final SingleFlight<LaneKey, CachedDirections> inFlight;
+
+    public DirectionsCache(@Value("${mapbox.directions.cache.max-entries:500}") int maxEntries,
+                           @Value("${mapbox.directions.cache.ttl-hours:24}") long ttlHours,
+                           @Value("${mapbox.directions.cache.grid-meters:250}") double gridMeters,
+                           @Value("${mapbox.directions.cache.invalidation-margin-km:5}") double marginKm,
+                           @Value("${mapbox.directions.inflight-timeout-ms:15000}") long inFlightTimeoutMs,
+                           @Value("${mapbox.directions.cache.stale-ttl-hours:168}") long staleTtlHours) {
+        this.cache = new LruTtlCache<>(maxEntries, Duration.ofHours(ttlHours));
+        this.lastKnown = new LruTtlCache<>(maxEntries, Duration.ofHours(Math.max(ttlHours, staleTtlHours)));
+        this.gridDegrees = gridMeters / METERS_PER_DEGREE;
+        this.marginDegrees = marginKm * 1000.0 / METERS_PER_DEGREE;
+        this.inFlight = new SingleFlight<>(Duration.ofMillis(inFlightTimeoutMs));
+    }
+
+    /**
+     * Costruisce la chiave di tratta agganciando le coordinate alla griglia.
+     *
+     * @param start   Coordinate di partenza.
+     * @param end     Coordinate di arrivo.
+     * @param profile Profilo di routing del provider.
+     * @return Chiave quantizzata.
+     */
+    public LaneKey keyFor(GeoLocation start, GeoLocation end, String profile) {
+        return keyFor(start, end, profile, RouteConstraints.NONE);
+    }
+
+    /**
+     * Come {@link #keyFor(GeoLocation, GeoLocation, String)}, distinguendo anche il profilo
+     * dimensionale del trasporto: la stessa tratta può avere percorsi diversi per carichi diversi.
+     *
+     * @param constraints Vincoli di altezza, larghezza e peso del trasporto.
+     */
+    public LaneKey keyFor(GeoLocation start, GeoLocation end, String profile, RouteConstraints constraints) {
+        return keyFor(start, end, profile, constraints, "");
+    }
+
+    /**
+     * Come {@link #keyFor(GeoLocation, GeoLocation, String, RouteConstraints)}, distinguendo anche le
+     * chiusure stradali attive nel corridoio: quando una chiusura entra in vigore o scade la chiave
+     * cambia e il percorso memorizzato non viene più restituito.
+     *
+     * @param closures Impronta delle chiusure attive ({@code RoadClosureLocator#fingerprint}).
+     */
+    public LaneKey keyFor(GeoLocation start, GeoLocation end, String profile, RouteConstraints constraints,
+                          String closures) {
+        return new LaneKey(
+                snap(start.getLatitude()), snap(start.getLongitude()),
+                snap(end.getLatitude()), snap(end.getLongitude()),
+                profile, constraints.cacheKey(), closures);
+    }
+
+    /**
+     * @return I dati di percorso memorizzati per la tratta, oppure {@code null}.
+     */
+    public CachedDirections get(LaneKey key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Ultimo percorso calcolato per la tratta, anche se scaduto o invalidato da un evento stradale.
+     * <p>
+     * Da usare solo come ripiego quando il provider non è raggiungibile.
+     * </p>
+     *
+     * @return I dati dell'ultimo calcolo, oppure {@code null} se la tratta non è mai stata calcolata.
+     */
+    public CachedDirections getStale(LaneKey key) {
+        return lastKnown.get(key);
+    }
+
+    /**
+     * Calcola una tratta non presente in cache, deduplicando le richieste concorrenti.
+     * <p>
+     * Il leader ricontrolla la cache prima di avviare il {@code loader}, che deve registrare
+     * il risultato tramite {@link #put}. Nessun thread resta bloccato in attesa del provider.
+     * </p>
+     *
+     * @param key    Chiave di tratta.
+     * @param loader Chiamata asincrona al provider esterno.
+     * @return Future completato con i dati di percorso della tratta.
+     */
+    public CompletableFuture<CachedDirections> loadOnceAsync(LaneKey key,
+                                                             Supplier<CompletableFuture<CachedDirections>> loader) {
+        return inFlight.executeAsync(key, () -> {
+            CachedDirections cached = cache.get(key);
+            return cached != null ? CompletableFuture.completedFuture(cached) : loader.get();
+        });
+    }
+
+    /**
+     * Memorizza il risultato della Directions API per la tratta indicata.
+     *
+     * @return La voce memorizzata.
+     */
+    public CachedDirections put(LaneKey key, double distanceKm, double durationMin, String polyline,
+                    GeoLocation start, GeoLocation end) {
+        double minLat = Math.min(start.getLatitude(), end.getLatitude());
+        double maxLat = Math.max(start.getLatitude(), end.getLatitude());
+        double minLon = Math.min(start.getLongitude(), end.getLongitude());
+        double maxLon = Math.max(start.getLongitude(), end.getLongitude());
+
+        try {
+            int[] scaled = PolylineCodec.decodeScaled(polyline);
+            for (int i = 0; i < scaled.length; i += 2) {
+                double lat = scaled[i] / PolylineCodec.SCALE;
+                double lon = scaled[i + 1] / PolylineCodec.SCALE;
+                minLat = Math.min(minLat, lat);
+                maxLat = Math.max(maxLat, lat);
+                minLon = Math.min(minLon, lon);
+                maxLon = Math.max(maxLon, lon);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Polyline non decodificabile per la tratta {}: uso il rettangolo origine/destinazione", key);
+        }
+
+        CachedDirections entry = new CachedDirections(distanceKm, durationMin, polyline,
+                minLat - marginDegrees, maxLat + marginDegrees,
+                minLon - marginDegrees, maxLon + marginDegrees);
+        cache.put(key, entry);
+        lastKnown.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Invalida le tratte che attraversano l'area di un nuovo evento stradale.
+     * <p>
+     * Eseguito dopo il commit della transazione che ha salvato l'evento, per non
+     * scartare voci valide se il salvataggio fallisce.
+     * </p>
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoadEventReported(RoadEventReportedEvent event) {
+        int removed = invalidateAround(event.location());
+        log.info("🧹 Directions cache: evento stradale #{} -> invalidate {} tratte", event.eventId(), removed);
+    }
+
+    /**
+     * Rimuove tutte le tratte il cui ingombro contiene il punto indicato.
+     *
+     * @param location Posizione dell'evento; se {@code null} la cache viene svuotata.
+     * @return Numero di tratte rimosse.
+     */
+    public int invalidateAround(GeoLocation location) {
+        if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+            int size = cache.size();
+            cache.invalidateAll();
+            return size;
+        }
+        double lat = location.getLatitude();
+        double lon = location.getLongitude();
+        return cache.invalidateIf((key, value) -> value.covers(lat, lon));
+    }
+
+    public LruTtlCache.Stats stats() {
+        return cache.stats();
+    }
+
+    public SingleFlight.Stats inFlightStats() {
+        return inFlight.stats();
+    }
+
+    private long snap(double coordinate) {
+        return Math.round(coordinate / gridDegrees);
+    }
+
+    /**
+     * Chiave di tratta: celle di griglia di origine e destinazione, profilo di routing,
+     * profilo dimensionale del trasporto e impronta delle chiusure attive (stringhe vuote se assenti).
+     */
+    public record LaneKey(long originLatCell, long originLonCell,
+                          long destinationLatCell, long destinationLonCell,
+                          String profile, String constraints, String closures) {
+    }
+
+    /**
+     * Risultato della Directions API memorizzato per una tratta.
+     * <p>
+     * Il bounding box (già espanso del margine di invalidazione) è precalcolato all'inserimento
+     * così che l'invalidazione per evento stradale non debba decodificare le polyline.
+     * </p>
+     */
+    public record CachedDirections(double distanceKm, double durationMin, String polyline,
+                                   double minLat, double maxLat, double minLon, double maxLon) {
+
+        boolean covers(double lat, double lon) {
+            return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.RoutingMatrix;
+import com.heavyroute.core.routing.RoutingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Matrice durata/distanza tra più origini e più destinazioni, con cache per fascia oraria.
+ * <p>
+ * Il calcolo è delegato al {@link RoutingProvider} attivo in un'unica operazione (Matrix API o
+ * ricerche uno-a-molti sul grafo offline), invece di una richiesta di percorso per ogni coppia.
+ * </p>
+ * <p>
+ * <b>Cache:</b> ogni cella è memorizzata con chiave (origine, destinazione, fascia oraria), con le
+ * coordinate agganciate a una griglia di {@code routing.matrix.grid-meters}. La fascia oraria
+ * ({@code routing.matrix.slice-minutes}) fa scadere i valori insieme alle condizioni di traffico
+ * in cui sono stati calcolati. A una nuova richiesta vengono ricalcolate solo le righe e le colonne
+ * che contengono almeno una cella mancante.
+ * </p>
+ */
+@Slf4j
+@Service
+public class DistanceMatrixService {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final RoutingProvider routingProvider;
+    private final LruTtlCache<CellKey, double[]> cells;
+    private final double gridDegrees;
+    private final long sliceMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public DistanceMatrixService(RoutingProvider routingProvider,
+                                 @Value("${routing.matrix.cache.max-entries:20000}") int maxEntries,
+                                 @Value("${routing.matrix.grid-meters:100}") double gridMeters,
+                                 @Value("${routing.matrix.slice-minutes:15}") long sliceMinutes) {
+        this(routingProvider, maxEntries, gridMeters, sliceMinutes, System::currentTimeMillis);
+    }
+
+    DistanceMatrixService(RoutingProvider routingProvider, int maxEntries, double gridMeters,
+                          long sliceMinutes, LongSupplier clock) {
+        this.routingProvider = routingProvider;
+        this.cells = new LruTtlCache<>(maxEntries, Duration.ofMinutes(sliceMinutes));
+        this.gridDegrees = gridMeters / METERS_PER_DEGREE;
+        this.sliceMillis = Duration.ofMinutes(sliceMinutes).toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Calcola la matrice tra origini e destinazioni, riusando le celle già note nella fascia oraria corrente.
+     *
+     * @param sources      Coordinate di origine (righe).
+     * @param destinations Coordinate di destinazione (colonne).
+     * @return La matrice, con {@link Double#NaN} nelle coppie non collegate.
+     */
+    public RoutingMatrix matrix(List<GeoLocation> sources, List<GeoLocation> destinations) {
+        RoutingMatrix result = RoutingMatrix.unreachable(sources.size(), destinations.size());
+        long slice = clock.getAsLong() / sliceMillis;
+        String profile = routingProvider.profile();
+
+        CellKey[][] keys = new CellKey[sources.size()][destinations.size()];
+        boolean[] missingRow = new boolean[sources.size()];
+        boolean[] missingColumn = new boolean[destinations.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            for (int j = 0; j < destinations.size(); j++) {
+                keys[i][j] = new CellKey(profile, slice,
+                        snap(sources.get(i).getLatitude()), snap(sources.get(i).getLongitude()),
+                        snap(destinations.get(j).getLatitude()), snap(destinations.get(j).getLongitude()));
+                double[] cached = cells.get(keys[i][j]);
+                if (cached == null) {
+                    missingRow[i] = true;
+                    missingColumn[j] = true;
+                } else {
+                    result.durationsMin()[i][j] = cached[0];
+                    result.distancesKm()[i][j] = cached[1];
+                }
+            }
+        }
+
+        int[] rows = indexesOf(missingRow);
+        int[] columns = indexesOf(missingColumn);
+        if (rows.length == 0) {
+            return result;
+        }
+
+        List<GeoLocation> rowSources = new ArrayList<>(rows.length);
+        for (int i : rows) {
+            rowSources.add(sources.get(i));
+        }
+        List<GeoLocation> columnDestinations = new ArrayList<>(columns.length);
+        for (int j : columns) {
+            columnDestinations.add(destinations.get(j));
+        }
+        log.info("📡 Matrice distanze: {} celle in cache, calcolo {}x{}",
+                sources.size() * destinations.size() - rows.length * columns.length, rows.length, columns.length);
+
+        RoutingMatrix computed = routingProvider.matrix(rowSources, columnDestinations);
+        for (int r = 0; r < rows.length; r++) {
+            for (int c = 0; c < columns.length; c++) {
+                int i = rows[r];
+                int j = columns[c];
+                double duration = computed.durationsMin()[r][c];
+                double distance = computed.distancesKm()[r][c];
+                result.durationsMin()[i][j] = duration;
+                result.distancesKm()[i][j] = distance;
+                cells.put(keys[i][j], new double[]{duration, distance});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Contatori della cache delle celle, a fini diagnostici.
+     */
+    public LruTtlCache.Stats stats() {
+        return cells.stats();
+    }
+
+    private long snap(double degrees) {
+        return Math.round(degrees / gridDegrees);
+    }
+
+    private static int[] indexesOf(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+        int[] indexes = new int[count];
+        for (int i = 0, k = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                indexes[k++] = i;
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Chiave di una cella: profilo di routing, fascia oraria e coordinate agganciate alla griglia.
+     */
+    record CellKey(String profile, long slice, long sourceLat, long sourceLon, long destinationLat, long destinationLon) {
+    }
+}
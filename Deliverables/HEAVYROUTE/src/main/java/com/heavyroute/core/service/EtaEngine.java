@@ -0,0 +1,164 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.geo.RouteProgressIndex;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.event.TripsClosedEvent;
+import com.heavyroute.core.model.Route;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Calcolo incrementale dell'orario di arrivo (ETA) dei viaggi in corso.
+ * <p>
+ * A ogni aggiornamento di posizione l'autista viene proiettato sulla geometria della rotta
+ * salvata tramite un {@link RouteProgressIndex}, costruito una sola volta per rotta e tenuto
+ * in cache. La ricerca riparte dal segmento dell'aggiornamento precedente, quindi il costo è
+ * indipendente dalla lunghezza del tracciato; nessun ricalcolo del percorso viene richiesto
+ * al provider cartografico.
+ * </p>
+ * <p>
+ * Distanza e tempo residui sono la frazione non ancora percorsa di distanza e durata della rotta.
+ * Una rotta ricalcolata ha un nuovo identificativo: lo stato del viaggio riparte da zero.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EtaEngine {
+
+    private final LruTtlCache<Long, RouteProgressIndex> indexes;
+    private final LruTtlCache<Long, TripProgress> progress;
+    private final int searchWindow;
+    private final double offRouteMeters;
+
+    public EtaEngine(@Value("${routing.eta.cache.max-entries:2000}") int maxEntries,
+                     @Value("${routing.eta.cache.ttl-hours:12}") long ttlHours,
+                     @Value("${routing.eta.search-window:50}") int searchWindow,
+                     @Value("${routing.eta.off-route-meters:150}") double offRouteMeters) {
+        this.indexes = new LruTtlCache<>(maxEntries, Duration.ofHours(ttlHours));
+        this.progress = new LruTtlCache<>(maxEntries, Duration.ofHours(ttlHours));
+        this.searchWindow = searchWindow;
+        this.offRouteMeters = offRouteMeters;
+    }
+
+    /**
+     * Aggiorna la stima di arrivo di un viaggio con una nuova posizione.
+     * <p>
+     * La geometria della rotta viene letta ({@link Route#getPolyline()}) solo alla prima
+     * posizione ricevuta per quella rotta: il chiamante deve trovarsi in una transazione attiva.
+     * </p>
+     *
+     * @param tripId ID del viaggio.
+     * @param route  Rotta corrente del viaggio.
+     * @param lat    Latitudine della posizione.
+     * @param lon    Longitudine della posizione.
+     * @return La stima aggiornata, oppure {@code null} se la rotta non ha una geometria utilizzabile.
+     */
+    public TripEtaDTO update(Long tripId, Route route, double lat, double lon) {
+        RouteProgressIndex index = indexFor(route);
+        if (index == null) {
+            return null;
+        }
+
+        TripProgress previous = progress.get(tripId);
+        boolean sameRoute = previous != null && previous.routeId() == route.getId();
+        int hint = sameRoute ? previous.segment() : -1;
+
+        RouteProgressIndex.Projection projection = index.project(lat, lon, hint, searchWindow, offRouteMeters);
+        boolean offRoute = projection == null || projection.offsetMeters() > offRouteMeters;
+
+        double along;
+        int segment;
+        if (offRoute && sameRoute) {
+            // Fuori tracciato: si conserva l'ultimo punto riconosciuto
+            along = previous.alongMeters();
+            segment = previous.segment();
+        } else if (projection != null) {
+            along = projection.alongMeters();
+            segment = projection.segment();
+        } else {
+            along = 0.0;
+            segment = -1;
+        }
+
+        double total = index.totalMeters();
+        double remainingFraction = total > 0 ? Math.max(0.0, (total - along) / total) : 0.0;
+        double remainingMinutes = route.getRouteDuration() * remainingFraction;
+        LocalDateTime now = LocalDateTime.now();
+
+        TripEtaDTO eta = new TripEtaDTO(
+                route.getRouteDistance() * remainingFraction,
+                remainingMinutes,
+                1.0 - remainingFraction,
+                now.plusSeconds(Math.round(remainingMinutes * 60)),
+                now,
+                offRoute);
+        progress.put(tripId, new TripProgress(route.getId(), segment, along, eta));
+        return eta;
+    }
+
+    /**
+     * Ultima stima calcolata per il viaggio, se riferita alla rotta indicata.
+     *
+     * @param tripId  ID del viaggio.
+     * @param routeId ID della rotta corrente (una stima su una rotta sostituita non è più valida).
+     */
+    public Optional<TripEtaDTO> current(Long tripId, Long routeId) {
+        TripProgress current = progress.get(tripId);
+        if (current == null || routeId == null || current.routeId() != routeId) {
+            return Optional.empty();
+        }
+        return Optional.of(current.eta());
+    }
+
+    /**
+     * Rimuove lo stato del viaggio (es. a consegna completata o viaggio annullato).
+     */
+    public void forget(Long tripId) {
+        progress.invalidate(tripId);
+    }
+
+    /**
+     * Rimuove lo stato dei viaggi conclusi, dopo il commit della transazione che li ha chiusi.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripsClosed(TripsClosedEvent event) {
+        event.tripIds().forEach(this::forget);
+    }
+
+    private RouteProgressIndex indexFor(Route route) {
+        if (route == null || route.getId() == null) {
+            return null;
+        }
+        RouteProgressIndex index = indexes.get(route.getId());
+        if (index != null) {
+            return index;
+        }
+        String polyline = route.getPolyline();
+        if (polyline == null || polyline.isBlank()) {
+            return null;
+        }
+        try {
+            index = RouteProgressIndex.of(PolylineCodec.decodeScaled(polyline));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            log.warn("Geometria della rotta {} non utilizzabile per l'ETA: {}", route.getId(), e.getMessage());
+            return null;
+        }
+        indexes.put(route.getId(), index);
+        log.info("✅ Indice ETA costruito per la rotta {}: {} segmenti", route.getId(), index.segmentCount());
+        return index;
+    }
+
+    /**
+     * Stato incrementale di un viaggio: rotta di riferimento, ultimo segmento riconosciuto e stima.
+     */
+    private record TripProgress(long routeId, int segment, double alongMeters, TripEtaDTO eta) {
+    }
+}
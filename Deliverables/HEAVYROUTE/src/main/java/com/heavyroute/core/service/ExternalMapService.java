@@ -2,18 +2,36 @@ package com.heavyroute.core.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.geo.PolylineGeometry;
 import com.heavyroute.common.model.GeoLocation;
 import com.heavyroute.core.model.Route;
+import com.heavyroute.core.routing.RoadClosureLocator;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.routing.RouteQuery;
+import com.heavyroute.core.routing.RoutingProvider;
+import com.heavyroute.core.routing.RoutingResult;
+import com.heavyroute.core.routing.graph.RoadGraph;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.util.UriUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,7 +40,35 @@ public class ExternalMapService {
     @Value("${mapbox.api.key}")
     private String mapboxKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /** Indirizzo base delle API (sostituibile nei test con un server locale). */
+    @Value("${mapbox.api.base-url:https://api.mapbox.com}")
+    private String mapboxBaseUrl;
+
+    /** Attesa massima complessiva (geocoding + directions) del calcolo rotta bloccante. */
+    @Value("${mapbox.route.deadline-ms:20000}")
+    private long routeDeadlineMs;
+
+    /** Rapporto medio tra distanza stradale e distanza in linea d'aria, per la stima degradata. */
+    @Value("${routing.degraded.road-factor:1.3}")
+    private double degradedRoadFactor;
+
+    /** Velocità media di un mezzo pesante, per la stima degradata della durata. */
+    @Value("${routing.degraded.average-speed-kmh:60}")
+    private double degradedSpeedKmh;
+
+    /** Distanza entro cui una chiusura attiva rende inutilizzabile l'ultimo percorso noto. */
+    @Value("${routing.degraded.closure-clearance-meters:500}")
+    private double closureClearanceMeters;
+
+    private final MapboxClient mapboxClient;
+
+    private final GeocodingCache geocodingCache;
+
+    private final DirectionsCache directionsCache;
+
+    private final RoutingProvider routingProvider;
+
+    private final RoadClosureLocator roadClosureLocator;
 
     // --- 1. DIZIONARIO LUOGHI NOTI ---
     // Questo garantisce che i dati di test siano sempre precisi al metro.
@@ -67,110 +113,348 @@ public class ExternalMapService {
     }
 
     /**
-     * Calcola la rotta completa tra due indirizzi.
+     * Calcola la rotta completa tra due indirizzi per un veicolo senza vincoli dimensionali.
      */
     public Route calculateFullRoute(String originAddress, String destinationAddress) {
+        return calculateFullRoute(originAddress, destinationAddress, RouteConstraints.NONE);
+    }
+
+    /**
+     * Calcola la rotta completa tra due indirizzi rispettando il profilo del trasporto.
+     * <p>
+     * Variante bloccante di {@link #calculateFullRouteAsync(String, String, RouteConstraints)}.
+     * L'attesa è limitata da {@code mapbox.route.deadline-ms}: il thread chiamante non resta mai
+     * bloccato oltre, anche se il provider cartografico è lento.
+     * </p>
+     *
+     * @throws ServiceUnavailableException se il calcolo non termina entro la scadenza o se il
+     *         geocoding non è possibile per indisponibilità del provider.
+     */
+    public Route calculateFullRoute(String originAddress, String destinationAddress, RouteConstraints constraints) {
+        return awaitWithinDeadline(calculateFullRouteAsync(originAddress, destinationAddress, constraints));
+    }
+
+    /**
+     * Calcola la rotta completa tra due indirizzi in modo asincrono.
+     * <p>
+     * Origine e destinazione vengono geocodificate in parallelo; la chiamata Directions parte
+     * non appena entrambe sono disponibili. La latenza complessiva è quindi circa
+     * {@code max(geocoding origine, geocoding destinazione) + directions}.
+     * </p>
+     * <p>
+     * Le fasi sono concatenate sui future delle chiamate HTTP: nessun worker cartografico resta
+     * bloccato in attesa di una risposta del provider.
+     * </p>
+     *
+     * @param constraints Profilo dimensionale e di peso: le strade incompatibili vengono escluse.
+     */
+    public CompletableFuture<Route> calculateFullRouteAsync(String originAddress, String destinationAddress,
+                                                            RouteConstraints constraints) {
+        RouteConstraints profile = constraints == null ? RouteConstraints.NONE : constraints;
         System.out.println("📡 [MapService] Inizio calcolo rotta: '" + originAddress + "' -> '" + destinationAddress + "'");
 
-        // 1. Risoluzione Geocoding (Dizionario -> API)
-        GeoLocation start = resolveLocation(originAddress);
-        GeoLocation end = resolveLocation(destinationAddress);
+        // 1. Risoluzione Geocoding (Dizionario -> Cache -> API), origine e destinazione in parallelo
+        CompletableFuture<GeoLocation> startFuture = resolveLocationAsync(originAddress);
+        CompletableFuture<GeoLocation> endFuture = resolveLocationAsync(destinationAddress);
+
+        return startFuture.thenCompose(start -> endFuture.thenCompose(
+                end -> buildRoute(originAddress, destinationAddress, start, end, profile)));
+    }
 
+    private CompletableFuture<Route> buildRoute(String originAddress, String destinationAddress,
+                                                GeoLocation start, GeoLocation end, RouteConstraints constraints) {
         System.out.println("✅ [MapService] Coordinate definitive:");
         System.out.println("   Start: " + start.getLatitude() + ", " + start.getLongitude());
         System.out.println("   End:   " + end.getLatitude() + ", " + end.getLongitude());
 
-        // 2. Chiamata Directions API
-        String directionsUrl = UriComponentsBuilder
-                .fromHttpUrl("https://api.mapbox.com/directions/v5/mapbox/driving/"
-                        + start.getLongitude() + "," + start.getLatitude() + ";"
-                        + end.getLongitude() + "," + end.getLatitude())
-                .queryParam("geometries", "polyline") // Precisione 5
-                .queryParam("overview", "full")
-                .queryParam("steps", "false")
-                .queryParam("access_token", mapboxKey)
-                .toUriString();
+        // 2. Cache di tratta (coordinate quantizzate + profilo + vincoli + chiusure attive), con deduplica delle chiamate concorrenti
+        List<GeoLocation> closures = roadClosureLocator.activeClosures(start, end);
+        String closuresKey = RoadClosureLocator.fingerprint(closures);
+        DirectionsCache.LaneKey laneKey = directionsCache.keyFor(start, end, routingProvider.profile(), constraints, closuresKey);
+        DirectionsCache.CachedDirections cached = directionsCache.get(laneKey);
+        if (cached != null) {
+            System.out.println("✅ [MapService] Rotta da cache di tratta: " + String.format("%.2f", cached.distanceKm()) + " km");
+            return CompletableFuture.completedFuture(
+                    toRoute(originAddress, destinationAddress, start, end, cached, false, closuresKey));
+        }
 
-        try {
-            System.out.println("📡 [MapService] API Call: " + directionsUrl);
+        return directionsCache.loadOnceAsync(laneKey,
+                        () -> fetchDirections(laneKey, new RouteQuery(start, end, constraints), closures))
+                .handle((directions, error) -> {
+                    if (error == null) {
+                        return toRoute(originAddress, destinationAddress, start, end, directions, false, closuresKey);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof BusinessRuleException || !(cause instanceof RuntimeException)) {
+                        // Nessun percorso possibile: non è un guasto del provider, la stima non avrebbe senso
+                        throw new CompletionException(cause);
+                    }
+                    System.err.println("❌ [MapService] Provider di routing non disponibile (" + cause.getMessage() + "): rotta provvisoria");
+                    return toRoute(originAddress, destinationAddress, start, end,
+                            degradedDirections(laneKey, start, end, closures), true, closuresKey);
+                });
+    }
 
-            JsonNode response = restTemplate.getForObject(directionsUrl, JsonNode.class);
+    private static Route toRoute(String originAddress, String destinationAddress, GeoLocation start, GeoLocation end,
+                                 DirectionsCache.CachedDirections directions, boolean provisional, String closuresKey) {
+        return Route.builder()
+                .description(originAddress + " -> " + destinationAddress)
+                .routeDistance(directions.distanceKm())
+                .routeDuration(directions.durationMin())
+                .polyline(directions.polyline())
+                .startLocation(start)
+                .endLocation(end)
+                .provisional(provisional)
+                .closuresKey(closuresKey)
+                .build();
+    }
 
-            if (response == null || !response.has("routes") || response.get("routes").isEmpty()) {
-                System.err.println("❌ [MapService] Nessuna rotta stradale trovata.");
-                throw new BusinessRuleException("Impossibile calcolare un percorso stradale tra questi due punti.");
-            }
+    /**
+     * Modalità degradata: ultimo percorso noto per la tratta oppure stima in linea d'aria.
+     * <p>
+     * L'ultimo percorso noto non è soggetto all'invalidazione per evento stradale: viene scartato se
+     * passa entro {@code routing.degraded.closure-clearance-meters} da una chiusura oggi attiva.
+     * La stima usa la distanza ortodromica moltiplicata per un fattore di tortuosità stradale e una
+     * velocità media da mezzo pesante; la geometria è il solo segmento origine-destinazione.
+     * Il risultato non viene memorizzato nella cache di tratta, così il primo calcolo utile
+     * dopo il ripristino del provider restituisce il percorso reale.
+     * </p>
+     */
+    private DirectionsCache.CachedDirections degradedDirections(DirectionsCache.LaneKey laneKey,
+                                                                GeoLocation start, GeoLocation end,
+                                                                List<GeoLocation> closures) {
+        DirectionsCache.CachedDirections stale = directionsCache.getStale(laneKey);
+        if (stale != null && !crossesClosure(stale.polyline(), closures)) {
+            System.out.println("✅ [MapService] Rotta provvisoria dall'ultimo percorso noto della tratta");
+            return stale;
+        }
 
-            JsonNode routeNode = response.get("routes").get(0);
+        double distanceKm = RoadGraph.distanceMeters(start.getLatitude(), start.getLongitude(),
+                end.getLatitude(), end.getLongitude()) / 1000.0 * degradedRoadFactor;
+        double durationMin = distanceKm / degradedSpeedKmh * 60.0;
+        String polyline = PolylineCodec.encode(List.of(
+                new double[]{start.getLatitude(), start.getLongitude()},
+                new double[]{end.getLatitude(), end.getLongitude()}));
+        System.out.println("✅ [MapService] Rotta provvisoria stimata: " + String.format("%.2f", distanceKm) + " km");
+        return new DirectionsCache.CachedDirections(distanceKm, durationMin, polyline,
+                Math.min(start.getLatitude(), end.getLatitude()), Math.max(start.getLatitude(), end.getLatitude()),
+                Math.min(start.getLongitude(), end.getLongitude()), Math.max(start.getLongitude(), end.getLongitude()));
+    }
 
-            double distanceKm = routeNode.get("distance").asDouble() / 1000.0;
-            double durationMin = routeNode.get("duration").asDouble() / 60.0;
-            String polyline = routeNode.get("geometry").asText();
+    private boolean crossesClosure(String polyline, List<GeoLocation> closures) {
+        if (closures.isEmpty()) {
+            return false;
+        }
+        try {
+            int[] scaled = PolylineCodec.decodeScaled(polyline);
+            for (GeoLocation closure : closures) {
+                if (PolylineGeometry.distanceMeters(scaled, closure.getLatitude(), closure.getLongitude()) <= closureClearanceMeters) {
+                    System.out.println("❌ [MapService] Ultimo percorso noto attraversa una chiusura attiva: stima in linea d'aria");
+                    return true;
+                }
+            }
+            return false;
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            // Geometria non interpretabile: nel dubbio non viene riusata
+            return true;
+        }
+    }
 
-            System.out.println("✅ [MapService] Rotta OK: " + String.format("%.2f", distanceKm) + " km, " + String.format("%.0f", durationMin) + " min.");
+    /**
+     * Calcola il percorso con il provider di routing configurato e lo registra nella cache di tratta.
+     * <p>
+     * Le chiusure stradali attive nel corridoio vengono passate al provider come punti da evitare.
+     * La loro impronta fa parte della chiave di tratta: una chiusura che entra in vigore o scade
+     * (anche senza una nuova segnalazione) porta a un nuovo calcolo.
+     * </p>
+     */
+    private CompletableFuture<DirectionsCache.CachedDirections> fetchDirections(DirectionsCache.LaneKey laneKey,
+                                                                                RouteQuery query,
+                                                                                List<GeoLocation> closures) {
+        RouteQuery request = query;
+        if (!closures.isEmpty()) {
+            System.out.println("📡 [MapService] Chiusure da evitare lungo il corridoio: " + closures.size());
+            request = new RouteQuery(query.start(), query.end(), query.constraints(), closures);
+        }
+        return routingProvider.routeAsync(request).thenApply((RoutingResult result) -> directionsCache.put(laneKey,
+                result.distanceKm(), result.durationMin(), result.polyline(), query.start(), query.end()));
+    }
 
-            return Route.builder()
-                    .description(originAddress + " -> " + destinationAddress)
-                    .routeDistance(distanceKm)
-                    .routeDuration(durationMin)
-                    .polyline(polyline)
-                    .startLocation(start)
-                    .endLocation(end)
-                    .build();
+    /**
+     * Restituisce le coordinate di un indirizzo, passando per hub noti e cache di geocoding.
+     *
+     * @param address Indirizzo testuale.
+     * @return Coordinate geografiche.
+     * @throws BusinessRuleException se l'indirizzo non viene trovato.
+     * @throws ServiceUnavailableException se il provider non risponde entro {@code mapbox.route.deadline-ms}.
+     */
+    public GeoLocation geocode(String address) {
+        return awaitWithinDeadline(resolveLocationAsync(address));
+    }
 
-        } catch (BusinessRuleException e) {
-            throw e;
-        } catch (Exception e) {
-            System.err.println("❌ [MapService] Errore Directions API: " + e.getMessage());
-            throw new RuntimeException("Errore calcolo rotta: " + e.getMessage());
+    /**
+     * Geocodifica un lotto di indirizzi, in parallelo per quelli che richiedono il provider.
+     * <p>
+     * Hub noti e cache vengono risolti subito sul thread chiamante; le richieste al provider per gli
+     * altri indirizzi partono insieme. Un indirizzo non trovato, rifiutato dal bulkhead o non risolto
+     * entro {@code mapbox.route.deadline-ms} viene omesso dal risultato senza far fallire il lotto.
+     * </p>
+     *
+     * @param addresses Indirizzi testuali (i duplicati vengono risolti una sola volta).
+     * @return Coordinate per indirizzo, solo per gli indirizzi risolti.
+     */
+    public Map<String, GeoLocation> geocodeAll(Collection<String> addresses) {
+        Map<String, GeoLocation> located = new HashMap<>();
+        Map<String, CompletableFuture<GeoLocation>> pending = new LinkedHashMap<>();
+        for (String address : new LinkedHashSet<>(addresses)) {
+            if (address == null || address.isBlank()) {
+                continue;
+            }
+            Optional<GeoLocation> known = knownLocation(address.trim());
+            if (known.isPresent()) {
+                located.put(address, known.get());
+            } else {
+                pending.put(address, resolveFromProvider(address.trim())
+                        .orTimeout(routeDeadlineMs, TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> {
+                            Throwable cause = unwrap(e);
+                            System.err.println("❌ [MapService] Geocoding non riuscito per '" + address + "': "
+                                    + (cause instanceof TimeoutException ? "tempo scaduto" : cause.getMessage()));
+                            return null;
+                        }));
+            }
         }
+        // Ogni future termina entro la scadenza e non fallisce: l'attesa è limitata
+        CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new)).join();
+        pending.forEach((address, future) -> {
+            GeoLocation location = future.join();
+            if (location != null) {
+                located.put(address, location);
+            }
+        });
+        return located;
+    }
+
+    /**
+     * Logica Ibrida: Controlla prima i luoghi noti, poi la cache di geocoding, infine chiama l'API.
+     * <p>
+     * La consultazione della cache (che può interrogare il database) avviene sul pool dei worker
+     * cartografici; la chiamata al provider non occupa alcun thread fino alla risposta.
+     * </p>
+     */
+    private CompletableFuture<GeoLocation> resolveLocationAsync(String address) {
+        // STEP 1-2: Luoghi noti e cache di geocoding
+        return mapboxClient.supplyAsync(() -> knownLocation(address.trim()))
+                .thenCompose(known -> known.map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> resolveFromProvider(address.trim())));
     }
 
     /**
-     * Logica Ibrida: Controlla prima i luoghi noti, poi chiama l'API.
+     * STEP 3: Fallback su API Mapbox (con logica Retry), deduplicando le richieste concorrenti.
      */
-    private GeoLocation resolveLocation(String address) {
-        String cleanAddr = address.trim();
+    private CompletableFuture<GeoLocation> resolveFromProvider(String cleanAddr) {
+        return geocodingCache.resolveOnceAsync(GeocodingCache.normalize(cleanAddr), () -> getGeoLocationFromApi(cleanAddr));
+    }
+
+    /**
+     * Attende il risultato di un calcolo asincrono per al massimo {@code mapbox.route.deadline-ms}.
+     * <p>
+     * È l'unico punto in cui un thread resta in attesa del provider: va usato solo dai metodi
+     * bloccanti esposti ai chiamanti esterni, mai all'interno delle fasi asincrone.
+     * </p>
+     */
+    private <T> T awaitWithinDeadline(CompletableFuture<T> future) {
+        try {
+            return future.get(routeDeadlineMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException("Il servizio cartografico non ha risposto in tempo. Riprovare più tardi.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Calcolo rotta interrotto", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
+    /**
+     * Coordinate già note senza interpellare il provider: hub statici, poi cache di geocoding (memoria -> DB).
+     */
+    private Optional<GeoLocation> knownLocation(String cleanAddr) {
         // STEP 1: Controllo Luoghi Noti (Database statico)
         if (KNOWN_HUBS.containsKey(cleanAddr)) {
             System.out.println("✅ [MapService] Trovato HUB noto: " + cleanAddr);
-            return KNOWN_HUBS.get(cleanAddr);
+            return Optional.of(KNOWN_HUBS.get(cleanAddr));
         }
 
-        // STEP 2: Fallback su API Mapbox (con logica Retry)
-        return getGeoLocationFromApi(cleanAddr);
+        // STEP 2: Cache di geocoding (memoria -> DB)
+        Optional<GeoLocation> cached = geocodingCache.get(GeocodingCache.normalize(cleanAddr));
+        if (cached.isPresent()) {
+            System.out.println("✅ [MapService] Geocoding da cache: " + cleanAddr);
+        }
+        return cached;
+    }
+
+    /**
+     * Espone i contatori delle cache (geocoding e tratte) a fini diagnostici.
+     *
+     * @return Mappa con le statistiche delle cache di geocoding e della cache di tratta.
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("geocodingMemory", geocodingCache.memoryStats());
+        stats.put("geocodingDbHits", geocodingCache.dbHits());
+        stats.put("geocodingDbMisses", geocodingCache.dbMisses());
+        stats.put("geocodingInFlight", geocodingCache.inFlightStats());
+        stats.put("directions", directionsCache.stats());
+        stats.put("directionsInFlight", directionsCache.inFlightStats());
+        stats.put("mapboxCircuit", mapboxClient.circuitStats());
+        stats.put("mapboxQueuedTasks", mapboxClient.queuedTasks());
+        return stats;
     }
 
     /**
      * Chiama l'API Mapbox con logica di fallback sulla città.
+     * <p>
+     * Il fallback scatta solo se l'indirizzo non viene trovato: in caso di indisponibilità del
+     * servizio ({@link ServiceUnavailableException}) un secondo tentativo non avrebbe esito diverso.
+     * </p>
      */
-    private GeoLocation getGeoLocationFromApi(String address) {
+    private CompletableFuture<GeoLocation> getGeoLocationFromApi(String address) {
         // Tentativo 1: Indirizzo completo
-        try {
-            return executeMapboxGeocoding(address);
-        } catch (BusinessRuleException e) {
+        return executeMapboxGeocoding(address).exceptionallyCompose(error -> {
+            Throwable cause = unwrap(error);
+            if (!(cause instanceof BusinessRuleException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
             System.out.println("❌ [MapService] Tentativo 1 fallito per: '" + address + "'. Provo solo con la città...");
 
             // Tentativo 2: Estrazione e ricerca solo Città (es. "Via xyz, Milano" -> "Milano")
-            if (address.contains(",")) {
-                String[] parts = address.split(",");
-                // Prende l'ultima parte significativa (es. Città)
-                String cityFallback = parts.length > 1 ? parts[1].trim() : parts[0].trim();
-
-                try {
-                    return executeMapboxGeocoding(cityFallback);
-                } catch (Exception ex) {
-                    System.err.println("❌ [MapService] Fallito anche il fallback città: " + cityFallback);
-                }
+            if (!address.contains(",")) {
+                return CompletableFuture.failedFuture(cause);
             }
-            throw e;
-        }
+            String[] parts = address.split(",");
+            // Prende l'ultima parte significativa (es. Città)
+            String cityFallback = parts.length > 1 ? parts[1].trim() : parts[0].trim();
+
+            return executeMapboxGeocoding(cityFallback).exceptionallyCompose(ex -> {
+                System.err.println("❌ [MapService] Fallito anche il fallback città: " + cityFallback);
+                return CompletableFuture.failedFuture(cause);
+            });
+        });
     }
 
-    private GeoLocation executeMapboxGeocoding(String queryAddress) {
+    private CompletableFuture<GeoLocation> executeMapboxGeocoding(String queryAddress) {
+        String cleanAddress = queryAddress.trim();
+        CompletableFuture<JsonNode> call;
         try {
-            String cleanAddress = queryAddress.trim();
             if (!cleanAddress.toLowerCase().contains("italia")) {
                 cleanAddress += ", Italia";
             }
@@ -178,7 +462,7 @@ public class ExternalMapService {
             String encodedAddress = UriUtils.encode(cleanAddress, StandardCharsets.UTF_8);
 
             String geocodingUrl = UriComponentsBuilder
-                    .fromHttpUrl("https://api.mapbox.com/geocoding/v5/mapbox.places/" + encodedAddress + ".json")
+                    .fromHttpUrl(mapboxBaseUrl + "/geocoding/v5/mapbox.places/" + encodedAddress + ".json")
                     .queryParam("limit", "1")
                     .queryParam("country", "it")
                     .queryParam("types", "address,place,poi,locality")
@@ -188,8 +472,27 @@ public class ExternalMapService {
 
             System.out.println("📡 [MapService] API Query: " + cleanAddress);
 
-            JsonNode response = restTemplate.getForObject(geocodingUrl, JsonNode.class);
+            call = mapboxClient.getJson(geocodingUrl);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(new BusinessRuleException("Errore geocoding: " + e.getMessage()));
+        }
+
+        String query = cleanAddress;
+        return call.handle((response, error) -> {
+            if (error != null) {
+                // Errore di rete, timeout o risposta HTTP di errore: il servizio non è utilizzabile
+                Throwable cause = unwrap(error);
+                if (cause instanceof ServiceUnavailableException unavailable) {
+                    throw unavailable;
+                }
+                throw new ServiceUnavailableException("Servizio di geocoding non disponibile: " + cause.getMessage(), cause);
+            }
+            return parseGeocoding(response, query);
+        });
+    }
 
+    private static GeoLocation parseGeocoding(JsonNode response, String cleanAddress) {
+        try {
             if (response == null || !response.has("features") || response.get("features").isEmpty()) {
                 throw new BusinessRuleException("Nessun risultato per: " + cleanAddress);
             }
@@ -201,6 +504,8 @@ public class ExternalMapService {
 
             return new GeoLocation(center.get(1).asDouble(), center.get(0).asDouble());
 
+        } catch (BusinessRuleException e) {
+            throw e;
         } catch (Exception e) {
             throw new BusinessRuleException("Errore geocoding: " + e.getMessage());
         }
@@ -0,0 +1,198 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.common.cache.SingleFlight;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.model.GeocodingCacheEntry;
+import com.heavyroute.core.repository.GeocodingCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache a due livelli per i risultati di geocoding.
+ * <p>
+ * <ul>
+ * <li><b>L1 (memoria):</b> {@link LruTtlCache} limitata, risponde in tempo costante senza toccare il DB.</li>
+ * <li><b>L2 (database):</b> tabella {@code geocoding_cache}, condivisa tra istanze e persistente ai riavvii.</li>
+ * </ul>
+ * Un hit su L2 viene promosso in L1. Entrambi i livelli applicano lo stesso TTL: scaduto il termine
+ * l'indirizzo viene risolto nuovamente dal provider e la voce sovrascritta.
+ * </p>
+ * <p>
+ * In caso di miss, le risoluzioni concorrenti dello stesso indirizzo normalizzato vengono
+ * deduplicate tramite {@link SingleFlight}: il provider viene interrogato una sola volta.
+ * </p>
+ */
+@Slf4j
+@Component
+public class GeocodingCache {
+
+    private final GeocodingCacheRepository repository;
+    private final LruTtlCache<String, GeoLocation> memory;
+    private final Duration ttl;
+    private final SingleFlight<String, GeoLocation> inFlight;
+
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong dbMisses = new AtomicLong();
+
+    public GeocodingCache(GeocodingCacheRepository repository,
+                          @Value("${mapbox.geocoding.cache.max-entries:1000}") int maxEntries,
+                          @Value("${mapbox.geocoding.cache.ttl-days:30}") long ttlDays,
+                          @Value("${mapbox.geocoding.inflight-timeout-ms:10000}") long inFlightTimeoutMs) {
+        this.repository = repository;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.memory = new LruTtlCache<>(maxEntries, ttl);
+        this.inFlight = new SingleFlight<>(Duration.ofMillis(inFlightTimeoutMs));
+    }
+
+    /**
+     * Normalizza un indirizzo per l'uso come chiave di cache.
+     * <p>
+     * Rende equivalenti varianti che il provider risolverebbe allo stesso punto:
+     * maiuscole/minuscole, spazi multipli, spaziatura attorno alle virgole e
+     * suffisso nazione ({@code ", Italia"}) aggiunto automaticamente in fase di query.
+     * </p>
+     *
+     * @param address Indirizzo grezzo inserito dal committente.
+     * @return Chiave normalizzata.
+     */
+    public static String normalize(String address) {
+        String key = address.trim()
+                .toLowerCase(Locale.ITALIAN)
+                .replace('’', '\'')
+                .replaceAll("\\s+", " ")
+                .replaceAll("\\s*,\\s*", ", ");
+        key = key.replaceAll(",\\s*(italia|italy)$", "");
+        return key.replaceAll("[,\\s]+$", "");
+    }
+
+    /**
+     * Cerca le coordinate di un indirizzo prima in memoria e poi su database.
+     *
+     * @param normalizedAddress Chiave prodotta da {@link #normalize(String)}.
+     * @return Le coordinate se presenti e non scadute.
+     */
+    public Optional<GeoLocation> get(String normalizedAddress) {
+        GeoLocation cached = memory.get(normalizedAddress);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<GeocodingCacheEntry> stored = repository.findByNormalizedAddress(normalizedAddress)
+                .filter(entry -> !entry.isExpired(LocalDateTime.now()));
+
+        if (stored.isPresent()) {
+            dbHits.incrementAndGet();
+            GeoLocation location = stored.get().getLocation();
+            memory.put(normalizedAddress, location);
+            return Optional.of(location);
+        }
+
+        dbMisses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Registra una risoluzione appena ottenuta dal provider su entrambi i livelli.
+     * <p>
+     * Se la voce esiste già su DB (es. scaduta) viene aggiornata; una violazione di unicità
+     * dovuta a un inserimento concorrente della stessa chiave è innocua e viene ignorata.
+     * </p>
+     */
+    public void put(String normalizedAddress, GeoLocation location) {
+        memory.put(normalizedAddress, location);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        try {
+            GeocodingCacheEntry entry = repository.findByNormalizedAddress(normalizedAddress)
+                    .orElseGet(() -> GeocodingCacheEntry.builder().normalizedAddress(normalizedAddress).build());
+            entry.setLocation(location);
+            entry.setExpiresAt(expiresAt);
+            repository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Voce geocoding '{}' già inserita da un'altra richiesta", normalizedAddress);
+        }
+    }
+
+    /**
+     * Risolve un indirizzo non presente in cache, deduplicando le richieste concorrenti.
+     * <p>
+     * Il primo chiamante avvia il {@code resolver} e registra il risultato; chi arriva mentre la
+     * risoluzione è in corso ne condivide l'esito. Il leader ricontrolla L1 prima di interrogare il
+     * provider, per coprire chi ha mancato la cache un istante prima che un'altra risoluzione terminasse.
+     * Nessun thread resta bloccato in attesa della risposta del provider.
+     * </p>
+     *
+     * @param normalizedAddress Chiave prodotta da {@link #normalize(String)}.
+     * @param resolver          Chiamata asincrona al provider esterno.
+     * @return Future completato con le coordinate risolte.
+     */
+    public CompletableFuture<GeoLocation> resolveOnceAsync(String normalizedAddress,
+                                                           Supplier<CompletableFuture<GeoLocation>> resolver) {
+        return inFlight.executeAsync(normalizedAddress, () -> {
+            GeoLocation cached = memory.get(normalizedAddress);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            return resolver.get().thenApply(resolved -> {
+                put(normalizedAddress, resolved);
+                return resolved;
+            });
+        });
+    }
+
+    /**
+     * Eviction periodica delle voci scadute dal livello persistente.
+     * <p>
+     * Il livello in memoria si auto-limita (LRU + TTL); su DB invece le righe scadute resterebbero
+     * fino alla successiva risoluzione dello stesso indirizzo, quindi vengono rimosse in blocco.
+     * </p>
+     */
+    @Scheduled(cron = "${mapbox.geocoding.cache.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int memoryRemoved = memory.purgeExpired();
+        int dbRemoved = repository.deleteExpired(LocalDateTime.now());
+        log.info("🧹 Geocoding cache: rimosse {} voci scadute in memoria e {} su DB", memoryRemoved, dbRemoved);
+    }
+
+    /**
+     * Contatori della cache in memoria (L1).
+     */
+    public LruTtlCache.Stats memoryStats() {
+        return memory.stats();
+    }
+
+    /**
+     * Contatori della deduplicazione delle risoluzioni concorrenti.
+     */
+    public SingleFlight.Stats inFlightStats() {
+        return inFlight.stats();
+    }
+
+    /**
+     * @return Numero di letture servite dal livello persistente (L2).
+     */
+    public long dbHits() {
+        return dbHits.get();
+    }
+
+    /**
+     * @return Numero di letture non servite da nessuno dei due livelli (richiedono il provider).
+     */
+    public long dbMisses() {
+        return dbMisses.get();
+    }
+}
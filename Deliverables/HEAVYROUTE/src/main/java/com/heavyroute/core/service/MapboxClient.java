@@ -0,0 +1,229 @@
+package com.heavyroute.core.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.resilience.CircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Client HTTP condiviso verso le API Mapbox.
+ * <p>
+ * Sostituisce il {@code RestTemplate} creato "a mano" (senza pool né timeout) con un unico
+ * {@link HttpClient} del JDK, che mantiene le connessioni persistenti (keep-alive) e le riusa
+ * tra le richieste. Ogni chiamata è asincrona e soggetta a timeout di connessione e di risposta.
+ * </p>
+ * <p>
+ * Espone inoltre un pool di worker dedicato per orchestrare in parallelo i passi del calcolo
+ * rotta (es. geocoding di origine e destinazione). Sullo stesso pool vengono completate anche le
+ * risposte HTTP: le continuazioni dei chiamanti ({@code thenApply}, {@code thenCompose}, ...), che
+ * accedono al database (chiusure attive, cache di geocoding), girano quindi su un numero limitato di
+ * thread. Il client del JDK completerebbe altrimenti le risposte sul pool predefinito dei
+ * {@code CompletableFuture}, che con pochi core crea un thread per ogni attività e non limita
+ * l'uso delle connessioni al DB.
+ * </p>
+ * <p>
+ * <b>Isolamento dai guasti del provider:</b>
+ * <ul>
+ * <li><b>Bulkhead:</b> il pool di worker ha una coda limitata e le richieste HTTP contemporanee sono
+ * limitate da un semaforo. Oltre questi limiti la chiamata fallisce subito con
+ * {@link ServiceUnavailableException} invece di accodarsi senza limiti.</li>
+ * <li><b>Circuit breaker:</b> errori di rete, timeout, HTTP 5xx e 429 contano come fallimenti; oltre
+ * la soglia le chiamate vengono rifiutate senza contattare Mapbox fino alla chiamata di prova.</li>
+ * </ul>
+ * In questo modo un rallentamento di Mapbox non trattiene i thread delle richieste HTTP dell'applicazione
+ * per tutta la durata dei timeout: i chiamanti ricevono un errore immediato e possono ripiegare su una stima.
+ * </p>
+ */
+@Component
+public class MapboxClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore callPermits;
+    private final CircuitBreaker circuitBreaker;
+
+    public MapboxClient(ObjectMapper objectMapper,
+                        @Value("${mapbox.http.connect-timeout-ms:3000}") long connectTimeoutMs,
+                        @Value("${mapbox.http.request-timeout-ms:8000}") long requestTimeoutMs,
+                        @Value("${mapbox.http.worker-threads:8}") int workerThreads,
+                        @Value("${mapbox.http.worker-queue-capacity:100}") int workerQueueCapacity,
+                        @Value("${mapbox.http.max-concurrent-calls:16}") int maxConcurrentCalls,
+                        @Value("${mapbox.circuit.window-size:20}") int circuitWindowSize,
+                        @Value("${mapbox.circuit.minimum-calls:10}") int circuitMinimumCalls,
+                        @Value("${mapbox.circuit.failure-rate-threshold:0.5}") double circuitFailureRate,
+                        @Value("${mapbox.circuit.open-duration-seconds:30}") long circuitOpenSeconds) {
+        this.objectMapper = objectMapper;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerQueueCapacity), namedDaemonThreads("mapbox-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.callPermits = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker("mapbox", circuitWindowSize, circuitMinimumCalls,
+                circuitFailureRate, Duration.ofSeconds(circuitOpenSeconds));
+    }
+
+    /**
+     * Esegue una GET asincrona e interpreta la risposta come JSON.
+     *
+     * @param url URL completo (già codificato) della risorsa.
+     * @return Future completato con il corpo JSON, oppure eccezionalmente in caso di
+     *         errore di rete, timeout o stato HTTP diverso da 2xx; con {@link ServiceUnavailableException}
+     *         se il circuito è aperto o il limite di chiamate contemporanee è raggiunto.
+     */
+    public CompletableFuture<JsonNode> getJson(String url) {
+        if (!callPermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Troppe richieste in corso verso il servizio cartografico"));
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            callPermits.release();
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Servizio cartografico temporaneamente sospeso dopo errori ripetuti"));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        CompletableFuture<HttpResponse<String>> response;
+        try {
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            callPermits.release();
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        response.whenComplete((r, error) -> {
+            callPermits.release();
+            if (error != null || isServerFailure(r.statusCode())) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            completeOnWorkers(result, r, error);
+        });
+        return result;
+    }
+
+    /**
+     * Completa il future del chiamante su un thread del pool di worker, così le sue continuazioni non
+     * girano sui thread del client HTTP. Non si usa {@code thenApplyAsync(..., workers)}: se il pool
+     * rifiuta l'attività il future dipendente non verrebbe mai completato.
+     */
+    private void completeOnWorkers(CompletableFuture<JsonNode> result, HttpResponse<String> response, Throwable error) {
+        try {
+            workers.execute(() -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                    return;
+                }
+                try {
+                    result.complete(parseBody(response));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(
+                    new ServiceUnavailableException("Servizio cartografico sovraccarico, riprovare più tardi", e));
+        }
+    }
+
+    /**
+     * Esegue un'attività sul pool di worker delle API cartografiche.
+     * <p>
+     * Se il pool e la sua coda sono saturi il future viene completato subito con
+     * {@link ServiceUnavailableException}.
+     * </p>
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, workers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new ServiceUnavailableException("Servizio cartografico sovraccarico, riprovare più tardi", e));
+        }
+    }
+
+    /**
+     * @return {@code true} se il circuito verso Mapbox è chiuso (servizio ritenuto disponibile).
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.state() == CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Stato del circuit breaker e occupazione del bulkhead, a fini diagnostici.
+     */
+    public CircuitBreaker.Stats circuitStats() {
+        return circuitBreaker.stats();
+    }
+
+    public int queuedTasks() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Errori che indicano un problema del servizio (e non della singola richiesta):
+     * contano come fallimenti per il circuit breaker.
+     */
+    private static boolean isServerFailure(int statusCode) {
+        return statusCode >= 500 || statusCode == 429;
+    }
+
+    private JsonNode parseBody(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Risposta Mapbox HTTP " + response.statusCode());
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Risposta Mapbox non valida", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
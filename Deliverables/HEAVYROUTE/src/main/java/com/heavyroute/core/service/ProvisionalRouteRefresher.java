@@ -0,0 +1,132 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.core.repository.TripRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Ricalcolo periodico delle rotte provvisorie.
+ * <p>
+ * Quando il provider cartografico non è disponibile le approvazioni proseguono con una rotta stimata
+ * ({@code provisional = true}). Questo task, appena il circuito verso Mapbox è di nuovo chiuso,
+ * sostituisce le stime con il percorso reale per i viaggi non ancora partiti tramite
+ * {@link TripService#refreshProvisionalRoute(Long)}, che rimette in validazione le rotte già approvate.
+ * </p>
+ * <p>
+ * Ogni esecuzione elabora al massimo {@code routing.provisional.batch-size} viaggi, riprendendo
+ * dall'ultimo ID elaborato e ricominciando dall'inizio a elenco esaurito. L'errore di un singolo
+ * viaggio non interrompe il blocco: il viaggio viene riprovato solo dopo un'attesa che raddoppia a
+ * ogni fallimento (a partire da {@code routing.provisional.failure-backoff-ms}). L'esecuzione si
+ * interrompe invece alla riapertura del circuito o se il provider restituisce ancora solo stime,
+ * per non aggravare un provider appena ripristinato.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ProvisionalRouteRefresher {
+
+    /** Massimo numero di raddoppi dell'attesa dopo fallimenti consecutivi. */
+    private static final int MAX_BACKOFF_DOUBLINGS = 6;
+
+    private final TripRepository tripRepository;
+    private final TripService tripService;
+    private final MapboxClient mapboxClient;
+    private final int batchSize;
+    private final long failureBackoffMs;
+    private final LruTtlCache<Long, Failure> failures = new LruTtlCache<>(10_000, Duration.ofDays(1));
+
+    /** Ultimo ID elaborato: l'esecuzione successiva riparte dal viaggio seguente. */
+    private long lastTripId;
+
+    public ProvisionalRouteRefresher(TripRepository tripRepository,
+                                     TripService tripService,
+                                     MapboxClient mapboxClient,
+                                     @Value("${routing.provisional.batch-size:20}") int batchSize,
+                                     @Value("${routing.provisional.failure-backoff-ms:600000}") long failureBackoffMs) {
+        this.tripRepository = tripRepository;
+        this.tripService = tripService;
+        this.mapboxClient = mapboxClient;
+        this.batchSize = batchSize;
+        this.failureBackoffMs = failureBackoffMs;
+    }
+
+    /**
+     * Elabora il blocco successivo di viaggi con rotta provvisoria.
+     *
+     * @return Numero di rotte sostituite.
+     */
+    @Scheduled(initialDelayString = "${routing.provisional.refresh-delay-ms:300000}",
+            fixedDelayString = "${routing.provisional.refresh-delay-ms:300000}")
+    public synchronized int refreshProvisionalRoutes() {
+        if (!mapboxClient.isAvailable()) {
+            return 0;
+        }
+        List<Long> tripIds = tripRepository.findIdsWithProvisionalRoute(
+                List.copyOf(TripStateMachine.beforeDeparture()), lastTripId, PageRequest.of(0, batchSize));
+        if (tripIds.isEmpty()) {
+            lastTripId = 0;
+            return 0;
+        }
+
+        int refreshed = 0;
+        int skipped = 0;
+        boolean interrupted = false;
+        for (Long tripId : tripIds) {
+            if (!mapboxClient.isAvailable()) {
+                interrupted = true;
+                break;
+            }
+            Failure failure = failures.get(tripId);
+            if (failure != null && failure.retryAt() > System.currentTimeMillis()) {
+                skipped++;
+                lastTripId = tripId;
+                continue;
+            }
+            try {
+                if (tripService.refreshProvisionalRoute(tripId)) {
+                    refreshed++;
+                }
+                failures.invalidate(tripId);
+            } catch (ServiceUnavailableException e) {
+                // Problema del provider, non del viaggio: il viaggio verrà ripreso alla prossima esecuzione
+                log.warn("❌ Ricalcolo rotte provvisorie sospeso al Viaggio #{}: {}", tripId, e.getMessage());
+                interrupted = true;
+                break;
+            } catch (RuntimeException e) {
+                Failure next = nextFailure(failure);
+                failures.put(tripId, next);
+                log.warn("❌ Ricalcolo rotta provvisoria fallito per Viaggio #{} (tentativo {}): {}",
+                        tripId, next.attempts(), e.getMessage());
+            }
+            lastTripId = tripId;
+        }
+        if (!interrupted && tripIds.size() < batchSize) {
+            lastTripId = 0;
+        }
+
+        if (refreshed > 0 || skipped > 0) {
+            log.info("✅ Rotte provvisorie ricalcolate: {}/{} ({} in attesa dopo errori)", refreshed, tripIds.size(), skipped);
+        }
+        return refreshed;
+    }
+
+    private Failure nextFailure(Failure previous) {
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        long delay = failureBackoffMs << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS);
+        return new Failure(attempts, System.currentTimeMillis() + delay);
+    }
+
+    /**
+     * Fallimenti consecutivi di un viaggio e istante dal quale può essere riprovato.
+     */
+    private record Failure(int attempts, long retryAt) {
+    }
+}
@@ -0,0 +1,260 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.geo.PolylineGeometry;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.PolylineDetail;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.LegacyRoutePolyline;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.RouteGeometry;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.RouteRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.notification.enums.NotificationType;
+import com.heavyroute.notification.service.NotificationService;
+import com.heavyroute.resources.enums.EventSeverity;
+import com.heavyroute.resources.event.RoadEventReportedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Ricalcolo automatico delle rotte dei viaggi colpiti da un evento stradale critico.
+ * <p>
+ * Alla registrazione di un evento {@code CRITICAL} (dopo il commit):
+ * <ol>
+ * <li>i candidati vengono cercati per uguaglianza sulle celle di griglia attorno all'evento
+ * (indice {@code idx_route_cells_cell}), limitati ai viaggi non conclusi;</li>
+ * <li>le geometrie dei candidati vengono caricate con una sola query e per ognuno si verifica che il
+ * tracciato passi davvero entro {@code routing.reroute.corridor-meters} dall'evento;</li>
+ * <li>le rotte dei viaggi non ancora partiti vengono ricalcolate in parallelo sul pool {@code reroutingExecutor}
+ * (concorrenza limitata) tramite {@link TripService#calculateRoute(Long)}, che evita già le chiusure attive
+ * e rimette in validazione le rotte già approvate;</li>
+ * <li>l'autista assegnato riceve una notifica con l'esito.</li>
+ * </ol>
+ * </p>
+ * <p>
+ * I viaggi già in corso non vengono ricalcolati: il percorso partirebbe dall'indirizzo di origine e
+ * non dalla posizione del mezzo. L'autista riceve un avviso urgente e la deviazione è concordata
+ * con il Traffic Coordinator.
+ * </p>
+ * <p>
+ * Il job è incrementale: vengono considerate solo le rotte calcolate prima della segnalazione, quindi
+ * eventi ravvicinati nella stessa zona non ricalcolano più volte percorsi già aggiornati.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RoadEventReroutingService {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    /** Viaggi la cui rotta è ancora rilevante (non conclusi né annullati). */
+    private static final List<TripStatus> ACTIVE_STATUSES = Stream.concat(
+            TripStateMachine.beforeDeparture().stream(), TripStateMachine.enRoute().stream()).toList();
+
+    private final TripRepository tripRepository;
+    private final RouteRepository routeRepository;
+    private final TripService tripService;
+    private final NotificationService notificationService;
+    private final DirectionsCache directionsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor reroutingExecutor;
+    private final double corridorMeters;
+
+    public RoadEventReroutingService(TripRepository tripRepository,
+                                     RouteRepository routeRepository,
+                                     TripService tripService,
+                                     NotificationService notificationService,
+                                     DirectionsCache directionsCache,
+                                     TransactionTemplate transactionTemplate,
+                                     @Qualifier("reroutingExecutor") Executor reroutingExecutor,
+                                     @Value("${routing.reroute.corridor-meters:500}") double corridorMeters) {
+        this.tripRepository = tripRepository;
+        this.routeRepository = routeRepository;
+        this.tripService = tripService;
+        this.notificationService = notificationService;
+        this.directionsCache = directionsCache;
+        this.transactionTemplate = transactionTemplate;
+        this.reroutingExecutor = reroutingExecutor;
+        this.corridorMeters = corridorMeters;
+    }
+
+    /**
+     * Avvia il ricalcolo per un evento appena registrato (solo eventi {@code CRITICAL}).
+     * <p>
+     * Eseguito sul pool dedicato {@code roadEventExecutor}: non attende dietro al pre-calcolo delle
+     * richieste e, a coda piena, non viene scartato (vedi {@link com.heavyroute.common.config.AsyncConfig}).
+     * </p>
+     */
+    @Async("roadEventExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRoadEventReported(RoadEventReportedEvent event) {
+        if (event.severity() != EventSeverity.CRITICAL || event.location() == null
+                || event.location().getLatitude() == null || event.location().getLongitude() == null) {
+            return;
+        }
+        rerouteAround(event.eventId(), event.location());
+    }
+
+    /**
+     * Ricalcola le rotte dei viaggi attivi che passano vicino alla posizione indicata.
+     *
+     * @param eventId  ID dell'evento stradale (per log e notifiche).
+     * @param location Posizione dell'evento.
+     * @return Esito aggregato del ricalcolo.
+     */
+    public RerouteSummary rerouteAround(Long eventId, GeoLocation location) {
+        LocalDateTime reportedAt = LocalDateTime.now();
+        // Il ricalcolo non deve trovare in cache di tratta un percorso che attraversa l'evento
+        directionsCache.invalidateAround(location);
+
+        List<AffectedTrip> affected = findAffectedTrips(location, reportedAt);
+        if (affected.isEmpty()) {
+            log.info("✅ Evento stradale #{}: nessun viaggio attivo da ricalcolare", eventId);
+            return new RerouteSummary(0, 0, 0, 0);
+        }
+        log.info("📡 Evento stradale #{}: ricalcolo di {} viaggi", eventId, affected.size());
+
+        List<CompletableFuture<Boolean>> tasks = new ArrayList<>(affected.size());
+        int enRoute = 0;
+        for (AffectedTrip trip : affected) {
+            if (trip.departed()) {
+                alertEnRoute(trip, eventId);
+                enRoute++;
+            } else {
+                tasks.add(CompletableFuture.supplyAsync(() -> reroute(trip, eventId), reroutingExecutor));
+            }
+        }
+        int rerouted = 0;
+        for (CompletableFuture<Boolean> task : tasks) {
+            if (task.join()) {
+                rerouted++;
+            }
+        }
+        int failed = tasks.size() - rerouted;
+        log.info("✅ Evento stradale #{}: {} rotte ricalcolate, {} non ricalcolabili, {} viaggi in corso avvisati",
+                eventId, rerouted, failed, enRoute);
+        return new RerouteSummary(affected.size(), rerouted, failed, enRoute);
+    }
+
+    private List<AffectedTrip> findAffectedTrips(GeoLocation location, LocalDateTime reportedAt) {
+        double lat = location.getLatitude();
+        double lon = location.getLongitude();
+        double dLat = corridorMeters / METERS_PER_DEGREE;
+        double dLon = dLat / Math.max(0.1, Math.cos(Math.toRadians(lat)));
+
+        return transactionTemplate.execute(status -> {
+            List<Trip> candidates = tripRepository.findWithRouteInCells(ACTIVE_STATUSES, reportedAt,
+                    PolylineGeometry.cellsInBox(lat - dLat, lat + dLat, lon - dLon, lon + dLon));
+            loadGeometries(candidates.stream().map(Trip::getRoute).toList());
+            List<AffectedTrip> result = new ArrayList<>();
+            for (Trip trip : candidates) {
+                if (crossesCorridor(trip.getRoute().getPolyline(), lat, lon)) {
+                    result.add(new AffectedTrip(trip.getId(), trip.getTripCode(),
+                            trip.getDriver() != null ? trip.getDriver().getId() : null,
+                            !TripStateMachine.isBeforeDeparture(trip.getStatus())));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Inizializza con una query per tipo le geometrie delle rotte candidate, invece che una per rotta.
+     */
+    private void loadGeometries(List<Route> routes) {
+        List<Long> geometryIds = routes.stream()
+                .map(route -> route.geometryFor(PolylineDetail.FULL))
+                .filter(Objects::nonNull)
+                .map(RouteGeometry::getId)
+                .toList();
+        if (!geometryIds.isEmpty()) {
+            routeRepository.findGeometriesByIdIn(geometryIds);
+        }
+        List<Long> legacyIds = routes.stream()
+                .map(route -> route.legacyPolylineFor(PolylineDetail.FULL))
+                .filter(Objects::nonNull)
+                .map(LegacyRoutePolyline::getId)
+                .toList();
+        if (!legacyIds.isEmpty()) {
+            routeRepository.findLegacyPolylinesByIdIn(legacyIds);
+        }
+    }
+
+    private boolean crossesCorridor(String polyline, double lat, double lon) {
+        if (polyline == null) {
+            return false;
+        }
+        try {
+            return PolylineGeometry.distanceMeters(PolylineCodec.decodeScaled(polyline), lat, lon) <= corridorMeters;
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            // Geometria non interpretabile: nel dubbio la rotta viene ricalcolata
+            return true;
+        }
+    }
+
+    private boolean reroute(AffectedTrip trip, Long eventId) {
+        try {
+            tripService.calculateRoute(trip.tripId());
+        } catch (RuntimeException e) {
+            log.warn("❌ Ricalcolo rotta fallito per Viaggio {} (evento #{}): {}", trip.tripCode(), eventId, e.getMessage());
+            notifyDriver(trip, "Evento critico sul percorso",
+                    "Un evento stradale critico interessa il percorso del viaggio " + trip.tripCode()
+                            + " e non è stato possibile calcolare un'alternativa. Contattare il pianificatore.",
+                    NotificationType.URGENT);
+            return false;
+        }
+        notifyDriver(trip, "Percorso aggiornato",
+                "Il percorso del viaggio " + trip.tripCode() + " è stato ricalcolato per evitare un evento stradale critico.",
+                NotificationType.ALERT);
+        return true;
+    }
+
+    private void alertEnRoute(AffectedTrip trip, Long eventId) {
+        log.warn("❌ Viaggio {} già in corso sul percorso dell'evento #{}: nessun ricalcolo automatico", trip.tripCode(), eventId);
+        notifyDriver(trip, "Evento critico sul percorso",
+                "Un evento stradale critico interessa il percorso del viaggio " + trip.tripCode()
+                        + ". Procedere con cautela e contattare il Traffic Coordinator per la deviazione.",
+                NotificationType.URGENT);
+    }
+
+    private void notifyDriver(AffectedTrip trip, String title, String message, NotificationType type) {
+        if (trip.driverId() == null) {
+            return;
+        }
+        try {
+            notificationService.send(trip.driverId(), title, message, type, trip.tripId());
+        } catch (RuntimeException e) {
+            log.warn("❌ Notifica non inviata all'autista #{}: {}", trip.driverId(), e.getMessage());
+        }
+    }
+
+    private record AffectedTrip(Long tripId, String tripCode, Long driverId, boolean departed) {
+    }
+
+    /**
+     * Esito del ricalcolo per un evento stradale.
+     *
+     * @param affected Viaggi il cui percorso attraversa l'area dell'evento.
+     * @param rerouted Rotte ricalcolate con successo.
+     * @param failed   Viaggi non partiti per cui non è stato possibile calcolare un'alternativa.
+     * @param enRoute  Viaggi già in corso, avvisati senza ricalcolo.
+     */
+    public record RerouteSummary(int affected, int rerouted, int failed, int enRoute) {
+    }
+}
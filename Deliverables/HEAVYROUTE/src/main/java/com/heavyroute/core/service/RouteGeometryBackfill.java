@@ -0,0 +1,85 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.core.enums.PolylineDetail;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.RouteGeometry;
+import com.heavyroute.core.repository.RouteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ricava all'avvio i dati derivati delle rotte salvate prima che esistessero.
+ * <p>
+ * Riguarda le rotte spostate da {@code db/migration/route_legacy_polylines.sql}, di cui lo script SQL
+ * sposta solo il testo della polyline, e quelle salvate prima dell'indicizzazione per celle.
+ * Geometria compressa, livelli semplificati, rettangolo di ingombro e celle della griglia richiedono la
+ * decodifica e vengono ricavati qui tramite {@link Route#rebuildDerivedGeometry()}. Senza celle una
+ * rotta non verrebbe trovata dalla ricerca dei percorsi vicini a un evento stradale.
+ * </p>
+ * <p>
+ * Le rotte vengono elaborate a blocchi di {@code routing.geometry-backfill.batch-size}, ognuno nella
+ * propria transazione. Su un database già aggiornato l'esecuzione si riduce a una query vuota.
+ * </p>
+ */
+@Slf4j
+@Component
+public class RouteGeometryBackfill implements CommandLineRunner {
+
+    private final RouteRepository routeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public RouteGeometryBackfill(RouteRepository routeRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${routing.geometry-backfill.batch-size:200}") int batchSize) {
+        this.routeRepository = routeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(String... args) {
+        int migrated = migrateAll();
+        if (migrated > 0) {
+            log.info("✅ Rotte precedenti aggiornate: {}", migrated);
+        }
+    }
+
+    /**
+     * Aggiorna tutte le rotte con dati derivati mancanti.
+     *
+     * @return Numero di rotte aggiornate.
+     */
+    public int migrateAll() {
+        int migrated = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            List<Route> batch = transactionTemplate.execute(status -> {
+                List<Route> routes = routeRepository.findRoutesToBackfill(afterId, PageRequest.of(0, batchSize));
+                List<Long> geometryIds = routes.stream()
+                        .map(route -> route.geometryFor(PolylineDetail.FULL))
+                        .filter(Objects::nonNull)
+                        .map(RouteGeometry::getId)
+                        .toList();
+                if (!geometryIds.isEmpty()) {
+                    routeRepository.findGeometriesByIdIn(geometryIds);
+                }
+                routes.forEach(Route::rebuildDerivedGeometry);
+                return routes;
+            });
+            if (batch == null || batch.isEmpty()) {
+                return migrated;
+            }
+            migrated += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import com.heavyroute.core.event.TransportRequestCreatedEvent;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.StagedRoute;
+import com.heavyroute.core.repository.StagedRouteRepository;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.routing.RoadClosureLocator;
+import com.heavyroute.core.routing.RouteConstraints;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pre-calcolo in background delle rotte per le nuove richieste di trasporto.
+ * <p>
+ * Alla creazione di una richiesta (dopo il commit) geocodifica origine e destinazione e calcola
+ * il percorso, salvandolo in un'area di staging ({@link StagedRoute}). In questo modo:
+ * <ul>
+ * <li>l'approvazione del Pianificatore diventa un'operazione puramente su database;</li>
+ * <li>gli indirizzi non risolvibili vengono segnalati sulla richiesta ({@code routeStatus = FAILED})
+ * prima ancora che il Pianificatore la apra.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * La chiamata al provider avviene fuori transazione; l'esito viene registrato in una transazione
+ * breve tramite UPDATE mirate, senza sovrascrivere le altre modifiche alla richiesta.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RoutePrecomputationService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ExternalMapService externalMapService;
+    private final StagedRouteRepository stagedRouteRepository;
+    private final TransportRequestRepository requestRepository;
+    private final RoadClosureLocator roadClosureLocator;
+    private final TransactionTemplate transactionTemplate;
+    /** Transazione propria per l'esito: dopo il commit della richiesta non c'è una transazione utilizzabile. */
+    private final TransactionTemplate statusUpdates;
+    private final Executor routingExecutor;
+
+    @Value("${routing.precompute.max-age-hours:24}")
+    private long maxAgeHours;
+
+    public RoutePrecomputationService(ExternalMapService externalMapService,
+                                      StagedRouteRepository stagedRouteRepository,
+                                      TransportRequestRepository requestRepository,
+                                      RoadClosureLocator roadClosureLocator,
+                                      TransactionTemplate transactionTemplate,
+                                      @Qualifier("routingExecutor") Executor routingExecutor) {
+        this.externalMapService = externalMapService;
+        this.stagedRouteRepository = stagedRouteRepository;
+        this.requestRepository = requestRepository;
+        this.roadClosureLocator = roadClosureLocator;
+        this.transactionTemplate = transactionTemplate;
+        this.statusUpdates = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.statusUpdates.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.routingExecutor = routingExecutor;
+    }
+
+    /**
+     * Avvia il pre-calcolo per una richiesta appena salvata.
+     * <p>
+     * Se il pool {@code routingExecutor} e la sua coda sono saturi il pre-calcolo non viene avviato:
+     * la richiesta viene segnata {@code FAILED} invece di restare {@code PENDING} per sempre, e la rotta
+     * verrà calcolata all'approvazione.
+     * </p>
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRequestCreated(TransportRequestCreatedEvent event) {
+        try {
+            routingExecutor.execute(() -> precompute(event.requestId(), event.originAddress(),
+                    event.destinationAddress(), event.constraints()));
+        } catch (RejectedExecutionException e) {
+            log.warn("❌ Pre-calcolo rotta non avviato per Richiesta #{}: coda piena", event.requestId());
+            markFailed(event.requestId(), "Pre-calcolo non avviato per sovraccarico: la rotta verrà calcolata all'approvazione");
+        }
+    }
+
+    /**
+     * Calcola e registra la rotta di staging per la richiesta indicata.
+     *
+     * @param requestId          ID della richiesta.
+     * @param originAddress      Indirizzo di partenza.
+     * @param destinationAddress Indirizzo di destinazione.
+     * @param constraints        Profilo dimensionale e di peso del carico.
+     */
+    public void precompute(Long requestId, String originAddress, String destinationAddress,
+                           RouteConstraints constraints) {
+        RouteConstraints profile = constraints == null ? RouteConstraints.NONE : constraints;
+        log.info("📡 Pre-calcolo rotta per Richiesta #{}", requestId);
+
+        Route route;
+        try {
+            route = externalMapService.calculateFullRoute(originAddress, destinationAddress, profile);
+        } catch (RuntimeException e) {
+            log.warn("❌ Pre-calcolo rotta fallito per Richiesta #{}: {}", requestId, e.getMessage());
+            markFailed(requestId, e.getMessage());
+            return;
+        }
+
+        if (route == null || route.getPolyline() == null) {
+            markFailed(requestId, "Il servizio cartografico non ha restituito alcun percorso");
+            return;
+        }
+        if (route.isProvisional()) {
+            // Una stima degradata non va riusata in approvazione: verrà ricalcolata con il provider disponibile
+            markFailed(requestId, "Servizio cartografico non disponibile: disponibile solo una stima provvisoria");
+            return;
+        }
+
+        StagedRoute staged = StagedRoute.builder()
+                .requestId(requestId)
+                .originAddress(originAddress)
+                .destinationAddress(destinationAddress)
+                .constraintsKey(profile.cacheKey())
+                .closuresKey(route.getClosuresKey())
+                .routeDistance(route.getRouteDistance())
+                .routeDuration(route.getRouteDuration())
+                .polyline(route.getPolyline())
+                .startLocation(route.getStartLocation())
+                .endLocation(route.getEndLocation())
+                .build();
+
+        Boolean stored = transactionTemplate.execute(status -> {
+            // Se nel frattempo la richiesta è già stata approvata (o annullata) la rotta non serve più
+            // e il suo stato di calcolo non va toccato
+            boolean stillPending = requestRepository.findById(requestId)
+                    .map(r -> r.getRequestStatus() == RequestStatus.PENDING)
+                    .orElse(false);
+            if (stillPending) {
+                stagedRouteRepository.deleteByRequestId(requestId);
+                stagedRouteRepository.save(staged);
+                requestRepository.updateRouteStatus(requestId, RoutePrecomputeStatus.READY, null);
+            }
+            return stillPending;
+        });
+        if (Boolean.TRUE.equals(stored)) {
+            log.info("✅ Rotta pre-calcolata per Richiesta #{}: {} km", requestId, route.getRouteDistance());
+        } else {
+            log.info("Rotta pre-calcolata per Richiesta #{} scartata: la richiesta non è più in attesa", requestId);
+        }
+    }
+
+    /**
+     * Recupera la rotta di staging utilizzabile per l'approvazione.
+     * <p>
+     * Vengono scartate le rotte calcolate su indirizzi o profili di carico diversi da quelli attuali o più vecchie
+     * di {@code routing.precompute.max-age-hours} (la viabilità potrebbe essere cambiata), oltre a quelle
+     * calcolate con chiusure stradali diverse da quelle oggi attive nel corridoio (chiusure entrate in vigore
+     * o scadute dopo il calcolo).
+     * Deve essere invocato all'interno di una transazione.
+     * </p>
+     *
+     * @return La rotta di staging valida, se presente.
+     */
+    public Optional<StagedRoute> findUsable(Long requestId, String originAddress, String destinationAddress,
+                                            RouteConstraints constraints) {
+        LocalDateTime oldestAccepted = LocalDateTime.now().minus(Duration.ofHours(maxAgeHours));
+        return stagedRouteRepository.findByRequestId(requestId)
+                .filter(staged -> staged.matches(originAddress, destinationAddress, constraints.cacheKey()))
+                .filter(staged -> staged.getCreatedAt() == null || staged.getCreatedAt().isAfter(oldestAccepted))
+                .filter(staged -> staged.avoidsSameClosures(RoadClosureLocator.fingerprint(
+                        roadClosureLocator.activeClosures(staged.getStartLocation(), staged.getEndLocation()))));
+    }
+
+    /**
+     * Elimina la rotta di staging di una richiesta (ad esempio perché già copiata nel viaggio).
+     * Deve essere invocato all'interno di una transazione.
+     */
+    public void discard(Long requestId) {
+        stagedRouteRepository.deleteByRequestId(requestId);
+    }
+
+    private void markFailed(Long requestId, String reason) {
+        String error = reason == null ? "Errore sconosciuto" : reason;
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        String finalError = error;
+        statusUpdates.executeWithoutResult(status ->
+                requestRepository.updateRouteStatus(requestId, RoutePrecomputeStatus.FAILED, finalError));
+    }
+}
@@ -0,0 +1,302 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.CrewScheduleDTO;
+import com.heavyroute.core.dto.ScheduledTripDTO;
+import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.WeeklyScheduleDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.planning.Schedule;
+import com.heavyroute.core.planning.ScheduleProblem;
+import com.heavyroute.core.planning.WeeklyScheduler;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.routing.graph.RoadGraph;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Programmazione proposta dei viaggi approvati su un orizzonte di più giorni.
+ * <p>
+ * A differenza dell'{@link AssignmentPlanner}, che abbina un viaggio per risorsa, qui ogni
+ * equipaggio (autista libero + veicolo disponibile) esegue più viaggi in sequenza: la data di
+ * ritiro della richiesta definisce la finestra in cui il viaggio deve iniziare (turno
+ * {@code planning.schedule.shift-start-hour} – {@code shift-end-hour} di quel giorno), e tra un
+ * viaggio e il successivo si considera il trasferimento a vuoto dalla destinazione precedente.
+ * Il calcolo è delegato al {@link WeeklyScheduler}, con le ripartenze eseguite in parallelo sul
+ * pool {@code schedulingExecutor}.
+ * </p>
+ * <p>
+ * Gli equipaggi si formano abbinando ogni autista al proprio veicolo, se disponibile, e i restanti
+ * autisti ai restanti veicoli in ordine di ID. Durate e trasferimenti sono stime: la durata della
+ * rotta calcolata (o la distanza in linea d'aria se manca) più il tempo di carico e scarico.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SchedulePlanner {
+
+    /** Seme fisso: a parità di dati la proposta non cambia tra una richiesta e l'altra. */
+    private static final long SEED = 1L;
+
+    private final TripRepository tripRepository;
+    private final DriverRepository driverRepository;
+    private final VehicleRepository vehicleRepository;
+    private final ExternalMapService mapService;
+    private final Executor schedulingExecutor;
+
+    @Value("${planning.schedule.horizon-days:7}")
+    private int horizonDays;
+
+    @Value("${planning.schedule.shift-start-hour:6}")
+    private int shiftStartHour;
+
+    @Value("${planning.schedule.shift-end-hour:20}")
+    private int shiftEndHour;
+
+    @Value("${planning.schedule.handling-minutes:60}")
+    private double handlingMinutes;
+
+    @Value("${planning.schedule.restarts:4}")
+    private int restarts;
+
+    @Value("${planning.schedule.max-iterations:20000}")
+    private int maxIterations;
+
+    @Value("${routing.degraded.road-factor:1.3}")
+    private double roadFactor;
+
+    @Value("${routing.degraded.average-speed-kmh:60}")
+    private double averageSpeedKmh;
+
+    public SchedulePlanner(TripRepository tripRepository,
+                           DriverRepository driverRepository,
+                           VehicleRepository vehicleRepository,
+                           ExternalMapService mapService,
+                           @Qualifier("schedulingExecutor") Executor schedulingExecutor) {
+        this.tripRepository = tripRepository;
+        this.driverRepository = driverRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.mapService = mapService;
+        this.schedulingExecutor = schedulingExecutor;
+    }
+
+    /**
+     * Calcola la programmazione proposta per i viaggi in pianificazione con richiesta approvata
+     * e data di ritiro entro l'orizzonte.
+     * <p>
+     * I viaggi con ritiro già scaduto vengono programmati a partire da oggi. Gli indirizzi dei viaggi
+     * senza rotta calcolata vengono geocodificati in parallelo: quelli di cui non è possibile
+     * localizzare partenza o destinazione, anche per un provider lento o non disponibile, finiscono
+     * tra i non programmati.
+     * </p>
+     *
+     * @return La programmazione proposta.
+     */
+    public WeeklyScheduleDTO proposeSchedule() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate lastDay = now.toLocalDate().plusDays(horizonDays - 1L);
+
+        List<Trip> candidates = tripRepository.findForListingByStatus(TripStatus.IN_PLANNING).stream()
+                .filter(trip -> trip.getRequest().getRequestStatus() == RequestStatus.APPROVED)
+                .filter(trip -> trip.getRequest().getPickupDate() == null || !trip.getRequest().getPickupDate().isAfter(lastDay))
+                .toList();
+        // Un solo lotto di geocoding, in parallelo, per partenze e destinazioni senza rotta calcolata
+        List<String> addresses = new ArrayList<>();
+        for (Trip trip : candidates) {
+            if (!isKnown(routeStart(trip))) {
+                addresses.add(trip.getRequest().getOriginAddress());
+            }
+            if (!isKnown(routeEnd(trip))) {
+                addresses.add(trip.getRequest().getDestinationAddress());
+            }
+        }
+        Map<String, GeoLocation> geocoded = mapService.geocodeAll(addresses);
+
+        List<Trip> trips = new ArrayList<>();
+        List<GeoLocation> origins = new ArrayList<>();
+        List<GeoLocation> destinations = new ArrayList<>();
+        List<Long> unlocated = new ArrayList<>();
+        for (Trip trip : candidates) {
+            GeoLocation origin = isKnown(routeStart(trip)) ? routeStart(trip) : geocoded.get(trip.getRequest().getOriginAddress());
+            GeoLocation destination = isKnown(routeEnd(trip)) ? routeEnd(trip) : geocoded.get(trip.getRequest().getDestinationAddress());
+            if (!isKnown(origin) || !isKnown(destination)) {
+                log.warn("Viaggio {} escluso dalla programmazione: {} non localizzabile",
+                        trip.getTripCode(), isKnown(origin) ? "destinazione" : "partenza");
+                unlocated.add(trip.getId());
+                continue;
+            }
+            trips.add(trip);
+            origins.add(origin);
+            destinations.add(destination);
+        }
+
+        List<Driver> drivers = driverRepository.findAvailableDrivers();
+        List<Vehicle> vehicles = vehicleRepository.findByStatus(VehicleStatus.AVAILABLE);
+
+        long start = System.nanoTime();
+        WeeklyScheduleDTO schedule = schedule(trips, origins, destinations, drivers, vehicles, now);
+        schedule.getUnscheduledTripIds().addAll(unlocated);
+        log.info("✅ Programmazione {} giorni: {} viaggi, {} equipaggi impegnati -> {} non programmati, {} km a vuoto in {} ms",
+                horizonDays, trips.size(), schedule.getCrews().size(), schedule.getUnscheduledTripIds().size(),
+                schedule.getTotalTransferKm(), (System.nanoTime() - start) / 1_000_000);
+        return schedule;
+    }
+
+    /**
+     * Calcolo della programmazione sui dati già caricati.
+     *
+     * @param trips        Viaggi da programmare.
+     * @param origins      Punto di ritiro di ogni viaggio, nello stesso ordine.
+     * @param destinations Punto di consegna di ogni viaggio, nello stesso ordine.
+     * @param drivers      Autisti liberi.
+     * @param vehicles     Veicoli disponibili.
+     * @param now          Istante da cui gli equipaggi sono disponibili.
+     */
+    WeeklyScheduleDTO schedule(List<Trip> trips, List<GeoLocation> origins, List<GeoLocation> destinations,
+                               List<Driver> drivers, List<Vehicle> vehicles, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        LocalDateTime horizonOrigin = today.atStartOfDay();
+
+        // 1. EQUIPAGGI
+        List<Crew> crews = formCrews(drivers, vehicles);
+        List<ScheduleProblem.Crew> crewModel = new ArrayList<>();
+        for (Crew crew : crews) {
+            GeoLocation position = crew.driver().getGeoLocation();
+            boolean known = isKnown(position);
+            crewModel.add(new ScheduleProblem.Crew(minutesBetween(horizonOrigin, now),
+                    known ? position.getLatitude() : null, known ? position.getLongitude() : null));
+        }
+
+        // 2. VIAGGI E FINESTRE DI RITIRO
+        List<ScheduleProblem.Job> jobs = new ArrayList<>();
+        boolean[][] compatible = new boolean[trips.size()][crews.size()];
+        for (int t = 0; t < trips.size(); t++) {
+            Trip trip = trips.get(t);
+            LocalDate pickupDate = trip.getRequest().getPickupDate();
+            long day = pickupDate == null ? 0 : Math.max(0, ChronoUnit.DAYS.between(today, pickupDate));
+            GeoLocation origin = origins.get(t);
+            GeoLocation destination = destinations.get(t);
+            jobs.add(new ScheduleProblem.Job(
+                    day * 1440.0 + shiftStartHour * 60.0,
+                    day * 1440.0 + shiftEndHour * 60.0,
+                    travelMinutes(trip, origin, destination) + handlingMinutes,
+                    origin.getLatitude(), origin.getLongitude(),
+                    destination.getLatitude(), destination.getLongitude()));
+            for (int c = 0; c < crews.size(); c++) {
+                compatible[t][c] = trip.getRequest().getLoad().fitsIn(crews.get(c).vehicle());
+            }
+        }
+
+        // 3. CALCOLO
+        ScheduleProblem problem = new ScheduleProblem(jobs, crewModel, compatible, roadFactor, averageSpeedKmh);
+        Schedule result = WeeklyScheduler.solve(problem, restarts, maxIterations, SEED, schedulingExecutor);
+
+        // 4. PROPOSTA
+        List<CrewScheduleDTO> crewSchedules = new ArrayList<>();
+        List<TripAssignmentDTO> nextAssignments = new ArrayList<>();
+        for (int c = 0; c < crews.size(); c++) {
+            int[] sequence = result.sequences().get(c);
+            if (sequence.length == 0) {
+                continue;
+            }
+            Driver driver = crews.get(c).driver();
+            Vehicle vehicle = crews.get(c).vehicle();
+            List<ScheduledTripDTO> legs = new ArrayList<>();
+            GeoLocation previous = driver.getGeoLocation();
+            for (int job : sequence) {
+                Trip trip = trips.get(job);
+                LocalDateTime plannedStart = horizonOrigin.plusSeconds(Math.round(result.startTimes()[job] * 60));
+                Double transferKm = isKnown(previous) ? roadKm(previous, origins.get(job)) : null;
+                legs.add(new ScheduledTripDTO(trip.getId(), trip.getTripCode(), trip.getRequest().getPickupDate(),
+                        plannedStart, plannedStart.plusSeconds(Math.round(problem.duration(job) * 60)), transferKm));
+                previous = destinations.get(job);
+            }
+            crewSchedules.add(new CrewScheduleDTO(driver.getId(), driver.getFirstName() + " " + driver.getLastName(),
+                    vehicle.getLicensePlate(), legs));
+            nextAssignments.add(new TripAssignmentDTO(legs.get(0).getTripId(), driver.getId(), vehicle.getLicensePlate()));
+        }
+
+        List<Long> unscheduled = new ArrayList<>();
+        for (int job : result.unassigned()) {
+            unscheduled.add(trips.get(job).getId());
+        }
+        return new WeeklyScheduleDTO(today, today.plusDays(horizonDays - 1L), crewSchedules, unscheduled,
+                nextAssignments, Math.round(result.transferKm() * 10) / 10.0);
+    }
+
+    /**
+     * Abbina ogni autista al proprio veicolo se disponibile, poi i restanti in ordine di ID.
+     */
+    private static List<Crew> formCrews(List<Driver> drivers, List<Vehicle> vehicles) {
+        List<Crew> crews = new ArrayList<>();
+        List<Vehicle> freeVehicles = new ArrayList<>(vehicles);
+        List<Driver> freeDrivers = new ArrayList<>();
+        for (Driver driver : drivers) {
+            Vehicle own = driver.getVehicle();
+            if (own != null && freeVehicles.removeIf(v -> v.getId() != null && v.getId().equals(own.getId()))) {
+                crews.add(new Crew(driver, own));
+            } else {
+                freeDrivers.add(driver);
+            }
+        }
+        freeDrivers.sort(Comparator.comparing(Driver::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        freeVehicles.sort(Comparator.comparing(Vehicle::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (int i = 0; i < Math.min(freeDrivers.size(), freeVehicles.size()); i++) {
+            crews.add(new Crew(freeDrivers.get(i), freeVehicles.get(i)));
+        }
+        return crews;
+    }
+
+    /**
+     * Durata della rotta calcolata, oppure stima dalla distanza in linea d'aria.
+     */
+    private double travelMinutes(Trip trip, GeoLocation origin, GeoLocation destination) {
+        if (trip.getRoute() != null && trip.getRoute().getRouteDuration() != null) {
+            return trip.getRoute().getRouteDuration();
+        }
+        return roadKm(origin, destination) / averageSpeedKmh * 60.0;
+    }
+
+    private double roadKm(GeoLocation from, GeoLocation to) {
+        return RoadGraph.distanceMeters(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude())
+                / 1000.0 * roadFactor;
+    }
+
+    private static double minutesBetween(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, Duration.between(from, to).getSeconds() / 60.0);
+    }
+
+    private static GeoLocation routeStart(Trip trip) {
+        return trip.getRoute() != null ? trip.getRoute().getStartLocation() : null;
+    }
+
+    private static GeoLocation routeEnd(Trip trip) {
+        return trip.getRoute() != null ? trip.getRoute().getEndLocation() : null;
+    }
+
+    private static boolean isKnown(GeoLocation location) {
+        return location != null && location.getLatitude() != null && location.getLongitude() != null;
+    }
+
+    private record Crew(Driver driver, Vehicle vehicle) {
+    }
+}
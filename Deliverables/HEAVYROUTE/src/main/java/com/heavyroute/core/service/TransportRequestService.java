@@ -3,6 +3,8 @@ package com.heavyroute.core.service;
 import com.heavyroute.core.dto.RequestCreationDTO;
 import com.heavyroute.core.dto.TransportRequestResponseDTO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -74,4 +76,15 @@ public interface TransportRequestService {
      * @return Una lista di {@link TransportRequestResponseDTO} rappresentante tutte le richieste.
      */
     List<TransportRequestResponseDTO> getAllRequests();
-}
\ No newline at end of file
+
+    /**
+     * Esporta tutte le richieste di trasporto in formato NDJSON (una richiesta per riga).
+     * <p>
+     * Le righe vengono lette e scritte a blocchi, senza costruire l'elenco completo in memoria.
+     * </p>
+     *
+     * @param out Stream di uscita (tipicamente il corpo della risposta HTTP).
+     * @throws IOException se la scrittura fallisce.
+     */
+    void exportRequests(OutputStream out) throws IOException;
+}
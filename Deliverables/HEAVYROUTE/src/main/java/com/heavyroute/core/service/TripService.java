@@ -1,9 +1,19 @@
 package com.heavyroute.core.service;
 
+import com.heavyroute.core.dto.PositionUpdateDTO;
 import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.dto.TripPageDTO;
+import com.heavyroute.core.dto.TripPlanResultDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.dto.TripStatusChangeDTO;
+import com.heavyroute.core.dto.TripStatusResultDTO;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.repository.TripFilter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -15,6 +25,9 @@ import java.util.List;
  */
 public interface TripService {
 
+    /** Dimensione massima di una pagina di {@link #searchTrips}. */
+    int MAX_PAGE_SIZE = 200;
+
     /**
      * Trasforma una "Richiesta di Trasporto" approvata in un "Viaggio" effettivo.
      *
@@ -31,6 +44,17 @@ public interface TripService {
      */
     void planTrip(Long tripId, TripAssignmentDTO dto);
 
+    /**
+     * Assegna le risorse a più viaggi in un'unica transazione.
+     * <p>
+     * Le assegnazioni non valide vengono scartate con il relativo motivo senza bloccare le altre.
+     * </p>
+     *
+     * @param assignments Assegnazioni viaggio → autista/veicolo ({@code tripId} obbligatorio).
+     * @return Esito di ogni assegnazione, nello stesso ordine.
+     */
+    List<TripPlanResultDTO> planTrips(List<TripAssignmentDTO> assignments);
+
     /**
      * Recupera i dettagli di un viaggio per la visualizzazione.
      *
@@ -43,9 +67,10 @@ public interface TripService {
      * Recupera una lista di viaggi filtrata per stato operativo.
      *
      * @param status Lo stato dei viaggi da ricercare (es. IN_PLANNING).
+     * @param detail Livello di dettaglio della geometria delle rotte.
      * @return Lista di DTO.
      */
-    List<TripResponseDTO> getTripsByStatus(TripStatus status);
+    List<TripResponseDTO> getTripsByStatus(TripStatus status, PolylineDetail detail);
 
     /**
      * Recupera tutti i viaggi assegnati a uno specifico autista.
@@ -53,9 +78,34 @@ public interface TripService {
      * <b>Nuovo metodo per App Autista.</b>
      * </p>
      * @param driverId ID dell'autista.
+     * @param detail Livello di dettaglio della geometria delle rotte.
      * @return Lista viaggi assegnati.
      */
-    List<TripResponseDTO> getTripsByDriver(Long driverId);
+    List<TripResponseDTO> getTripsByDriver(Long driverId, PolylineDetail detail);
+
+    /**
+     * Recupera una pagina dell'elenco dei viaggi, dal più recente, con paginazione a cursore.
+     *
+     * @param filter Criteri di ricerca (stati, autista, veicolo, committente, date di ritiro).
+     * @param cursor Cursore restituito dalla pagina precedente ({@code null} per la prima pagina).
+     * @param limit  Dimensione della pagina (limitata a {@value #MAX_PAGE_SIZE}).
+     * @param detail Livello di dettaglio della geometria delle rotte.
+     * @return La pagina con il cursore per la successiva.
+     * @throws com.heavyroute.common.exception.BusinessRuleException se il cursore non è valido.
+     */
+    TripPageDTO searchTrips(TripFilter filter, String cursor, int limit, PolylineDetail detail);
+
+    /**
+     * Esporta tutti i viaggi in formato NDJSON (un viaggio per riga), dal meno recente.
+     * <p>
+     * Le righe vengono lette e scritte a blocchi, senza costruire l'elenco completo in memoria.
+     * </p>
+     *
+     * @param out    Stream di uscita (tipicamente il corpo della risposta HTTP).
+     * @param detail Livello di dettaglio della geometria delle rotte.
+     * @throws IOException se la scrittura fallisce.
+     */
+    void exportTrips(OutputStream out, PolylineDetail detail) throws IOException;
 
     /**
      * Calcola e associa un percorso ottimale al viaggio.
@@ -64,10 +114,22 @@ public interface TripService {
      */
     void calculateRoute(Long tripId);
 
+    /**
+     * Sostituisce la rotta provvisoria del viaggio con il percorso reale.
+     *
+     * @param tripId L'ID del viaggio.
+     * @return {@code true} se la rotta è stata sostituita, {@code false} se il viaggio non ha più una rotta provvisoria.
+     * @throws com.heavyroute.common.exception.ServiceUnavailableException se il provider cartografico
+     *         restituisce ancora solo una stima.
+     */
+    boolean refreshProvisionalRoute(Long tripId);
+
     /**
      * Recupera tutti i viaggi del sistema.
+     *
+     * @param detail Livello di dettaglio della geometria delle rotte.
      */
-    List<TripResponseDTO> getAllTrips();
+    List<TripResponseDTO> getAllTrips(PolylineDetail detail);
 
     /**
      * Gestisce la validazione della rotta da parte del Coordinator.
@@ -75,9 +137,62 @@ public interface TripService {
     void validateRoute(Long tripId, boolean isApproved, String feedback);
 
     /**
-     * Aggiorna lo stato del viaggio (es. da IN_TRANSIT a DELIVERED).
+     * Aggiorna lo stato del viaggio (es. da IN_TRANSIT a DELIVERING).
+     * Sono ammesse solo le transizioni previste da {@link TripStateMachine}.
+     *
+     * @param driverUsername Username dell'autista che invia il cambio, oppure {@code null} se il chiamante
+     *                       è un Planner. Un autista può aggiornare solo i propri viaggi e non può annullarli.
+     * @throws org.springframework.security.access.AccessDeniedException se l'autista non può eseguire il cambio.
      */
-    void updateStatus(Long tripId, String newStatus);
+    void updateStatus(Long tripId, String newStatus, String driverUsername);
 
-    List<TripResponseDTO> getTripsByStatuses(List<TripStatus> statuses);
-}
\ No newline at end of file
+    /**
+     * Applica più cambi di stato in un'unica transazione.
+     * <p>
+     * Ogni cambio viene validato singolarmente rispetto a {@link TripStateMachine}: quelli non
+     * consentiti sono scartati con il relativo motivo, gli altri applicati con aggiornamenti a insiemi.
+     * </p>
+     *
+     * @param changes        Cambi di stato, valutati nell'ordine ricevuto.
+     * @param driverUsername Username dell'autista che invia il lotto, oppure {@code null} se il chiamante
+     *                       è un Planner. I cambi su viaggi di altri autisti o non consentiti all'autista
+     *                       vengono scartati.
+     * @return Un esito per ogni cambio, nello stesso ordine.
+     */
+    List<TripStatusResultDTO> updateStatuses(List<TripStatusChangeDTO> changes, String driverUsername);
+
+    List<TripResponseDTO> getTripsByStatuses(List<TripStatus> statuses, PolylineDetail detail);
+
+    /**
+     * Registra la posizione corrente del mezzo e aggiorna la stima di arrivo del viaggio.
+     *
+     * @param tripId         ID del viaggio in corso.
+     * @param driverUsername Username dell'autista autenticato: deve essere quello assegnato al viaggio.
+     * @param dto            Coordinate GPS inviate dall'app autista.
+     * @return La stima aggiornata, oppure {@code null} se la rotta non ha una geometria utilizzabile.
+     * @throws org.springframework.security.access.AccessDeniedException se il viaggio non è assegnato all'autista.
+     */
+    TripEtaDTO updatePosition(Long tripId, String driverUsername, PositionUpdateDTO dto);
+
+    /**
+     * Aggiorna la stima di arrivo del viaggio in corso dell'autista con la sua ultima posizione.
+     * <p>
+     * Usato dagli invii di posizione che non indicano il viaggio (posizione dell'autista e lotti
+     * accumulati offline). Se l'autista non ha un viaggio in corso non fa nulla.
+     * </p>
+     *
+     * @param driverId  ID dell'autista.
+     * @param latitude  Latitudine della posizione.
+     * @param longitude Longitudine della posizione.
+     */
+    void updateDriverEta(Long driverId, double latitude, double longitude);
+
+    /**
+     * Restituisce l'ultima stima di arrivo calcolata per un viaggio.
+     *
+     * @param tripId           ID del viaggio.
+     * @param customerUsername Se valorizzato, il viaggio deve appartenere a questo committente.
+     * @return La stima di arrivo.
+     */
+    TripEtaDTO getTripEta(Long tripId, String customerUsername);
+}
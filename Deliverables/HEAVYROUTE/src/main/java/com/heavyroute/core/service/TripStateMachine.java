@@ -0,0 +1,155 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabella delle transizioni di stato dei viaggi aggiornabili tramite l'endpoint di stato.
+ * <p>
+ * Copre la fase operativa (dalla conferma del Planner alla consegna) e l'annullamento; i passaggi
+ * della fase di pianificazione e validazione avvengono solo tramite i rispettivi endpoint, che
+ * prenotano le risorse e verificano la rotta. Per ogni stato di arrivo la tabella indica anche lo
+ * stato conseguente della richiesta di trasporto e se autista e veicolo vanno liberati.
+ * </p>
+ * <p>
+ * Le tabelle sono calcolate una sola volta: la verifica di una transizione è una lettura da
+ * {@link EnumMap}, senza eccezioni né espressioni regolari.
+ * </p>
+ */
+public final class TripStateMachine {
+
+    /** Stati precedenti alla partenza: il viaggio può ancora essere annullato e la rotta ricalcolata dall'origine. */
+    private static final Set<TripStatus> BEFORE_DEPARTURE = Collections.unmodifiableSet(EnumSet.of(
+            TripStatus.IN_PLANNING, TripStatus.WAITING_VALIDATION, TripStatus.VALIDATED,
+            TripStatus.MODIFICATION_REQUESTED, TripStatus.CONFIRMED, TripStatus.ACCEPTED));
+
+    /** Stati in cui il mezzo è in viaggio (autista e veicolo lontani dall'origine). */
+    private static final Set<TripStatus> EN_ROUTE = Collections.unmodifiableSet(EnumSet.of(
+            TripStatus.IN_TRANSIT, TripStatus.PAUSED, TripStatus.DELIVERING));
+
+    private static final Map<TripStatus, Set<TripStatus>> ALLOWED = new EnumMap<>(TripStatus.class);
+    private static final Map<TripStatus, RequestStatus> REQUEST_STATUS = new EnumMap<>(TripStatus.class);
+    private static final Set<TripStatus> RELEASES_RESOURCES = EnumSet.of(TripStatus.COMPLETED, TripStatus.CANCELLED);
+
+    /** Stati che l'autista può impostare dall'app: accettazione e avanzamento, non l'annullamento. */
+    private static final Set<TripStatus> DRIVER_TARGETS = EnumSet.of(
+            TripStatus.ACCEPTED, TripStatus.IN_TRANSIT, TripStatus.PAUSED, TripStatus.DELIVERING, TripStatus.COMPLETED);
+    private static final Map<String, TripStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (TripStatus status : TripStatus.values()) {
+            ALLOWED.put(status, EnumSet.noneOf(TripStatus.class));
+            BY_NAME.put(status.name(), status);
+        }
+        // Stesse transizioni proposte dall'app autista
+        ALLOWED.get(TripStatus.CONFIRMED).add(TripStatus.ACCEPTED);
+        ALLOWED.get(TripStatus.ACCEPTED).add(TripStatus.IN_TRANSIT);
+        ALLOWED.get(TripStatus.IN_TRANSIT).addAll(EnumSet.of(TripStatus.PAUSED, TripStatus.DELIVERING, TripStatus.COMPLETED));
+        ALLOWED.get(TripStatus.PAUSED).addAll(EnumSet.of(TripStatus.IN_TRANSIT, TripStatus.DELIVERING, TripStatus.COMPLETED));
+        ALLOWED.get(TripStatus.DELIVERING).addAll(EnumSet.of(TripStatus.IN_TRANSIT, TripStatus.COMPLETED));
+        for (TripStatus status : BEFORE_DEPARTURE) {
+            ALLOWED.get(status).add(TripStatus.CANCELLED);
+        }
+        ALLOWED.replaceAll((status, targets) -> Collections.unmodifiableSet(targets));
+
+        REQUEST_STATUS.put(TripStatus.IN_TRANSIT, RequestStatus.IN_PROGRESS);
+        REQUEST_STATUS.put(TripStatus.PAUSED, RequestStatus.IN_PROGRESS);
+        REQUEST_STATUS.put(TripStatus.DELIVERING, RequestStatus.IN_PROGRESS);
+        REQUEST_STATUS.put(TripStatus.COMPLETED, RequestStatus.COMPLETED);
+        REQUEST_STATUS.put(TripStatus.CANCELLED, RequestStatus.CANCELLED);
+
+        // Alias storico inviato dalle prime versioni dell'app
+        BY_NAME.put("ASSIGNED", TripStatus.ACCEPTED);
+    }
+
+    private TripStateMachine() {
+    }
+
+    /**
+     * Indica se il viaggio può passare da {@code from} a {@code to}.
+     */
+    public static boolean canTransition(TripStatus from, TripStatus to) {
+        return from != null && to != null && ALLOWED.get(from).contains(to);
+    }
+
+    /**
+     * Stati raggiungibili da {@code from} (insieme non modificabile, vuoto per gli stati finali).
+     */
+    public static Set<TripStatus> allowedTargets(TripStatus from) {
+        return ALLOWED.get(from);
+    }
+
+    /**
+     * Stato che assume la richiesta di trasporto quando il viaggio entra in {@code to}.
+     *
+     * @return Il nuovo stato della richiesta, oppure {@code null} se resta invariato.
+     */
+    public static RequestStatus requestStatusFor(TripStatus to) {
+        return REQUEST_STATUS.get(to);
+    }
+
+    /**
+     * Indica se entrando in {@code to} il viaggio libera autista e veicolo.
+     */
+    public static boolean releasesResources(TripStatus to) {
+        return RELEASES_RESOURCES.contains(to);
+    }
+
+    /**
+     * Indica se l'autista assegnato può portare il viaggio nello stato {@code to}.
+     */
+    public static boolean isDriverTarget(TripStatus to) {
+        return DRIVER_TARGETS.contains(to);
+    }
+
+    /**
+     * Indica se il viaggio non è ancora partito.
+     */
+    public static boolean isBeforeDeparture(TripStatus status) {
+        return BEFORE_DEPARTURE.contains(status);
+    }
+
+    /**
+     * Stati precedenti alla partenza (insieme non modificabile).
+     */
+    public static Set<TripStatus> beforeDeparture() {
+        return BEFORE_DEPARTURE;
+    }
+
+    /**
+     * Stati in cui il viaggio è in corso (insieme non modificabile).
+     */
+    public static Set<TripStatus> enRoute() {
+        return EN_ROUTE;
+    }
+
+    /**
+     * Interpreta lo stato inviato come testo da un client esterno.
+     * <p>
+     * Tollera input "sporchi" (virgolette, spazi, a capo del corpo JSON) considerando solo lettere
+     * maiuscole e underscore.
+     * </p>
+     *
+     * @return Lo stato corrispondente, oppure {@code null} se il testo non è uno stato valido.
+     */
+    public static TripStatus parse(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder clean = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || c == '_') {
+                clean.append(c);
+            }
+        }
+        return BY_NAME.get(clean.toString());
+    }
+}
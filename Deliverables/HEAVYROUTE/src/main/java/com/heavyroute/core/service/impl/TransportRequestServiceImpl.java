@@ -1,15 +1,22 @@
 package com.heavyroute.core.service.impl;
 
 import com.heavyroute.common.exception.ResourceNotFoundException;
+import com.heavyroute.common.export.NdjsonExporter;
 import com.heavyroute.core.dto.*;
 import com.heavyroute.core.model.*;
 import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import com.heavyroute.core.event.TransportRequestCreatedEvent;
+import com.heavyroute.core.routing.RouteConstraints;
 import com.heavyroute.core.repository.TransportRequestRepository;
 import com.heavyroute.core.service.TransportRequestService;
 import com.heavyroute.users.model.User;
 import com.heavyroute.users.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,14 +34,21 @@ public class TransportRequestServiceImpl implements TransportRequestService {
 
     private final TransportRequestRepository repository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NdjsonExporter ndjsonExporter;
 
     /**
      * Costruttore per l'iniezione del repository tramite Dependency Injection.
      * * @param repository Il repository per l'accesso ai dati delle richieste.
+     * @param eventPublisher Publisher degli eventi applicativi (es. avvio pre-calcolo rotta).
+     * @param ndjsonExporter Esportazione a blocchi in formato NDJSON.
      */
-    public TransportRequestServiceImpl(TransportRequestRepository repository, UserRepository userRepository) {
+    public TransportRequestServiceImpl(TransportRequestRepository repository, UserRepository userRepository,
+                                       ApplicationEventPublisher eventPublisher, NdjsonExporter ndjsonExporter) {
         this.repository = repository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.ndjsonExporter = ndjsonExporter;
     }
 
     /**
@@ -45,6 +59,7 @@ public class TransportRequestServiceImpl implements TransportRequestService {
      * <li>Mappa i dati dal DTO di creazione all'entità {@link TransportRequest}.</li>
      * <li>Imposta lo stato iniziale della richiesta a {@link RequestStatus#PENDING}.</li>
      * <li>Salva l'entità sul database tramite il repository.</li>
+     * <li>Pubblica {@link TransportRequestCreatedEvent}: dopo il commit la rotta viene pre-calcolata in background.</li>
      * <li>Restituisce il DTO di dettaglio per la conferma all'utente.</li>
      * </ol>
      * </p>
@@ -77,8 +92,12 @@ public class TransportRequestServiceImpl implements TransportRequestService {
         load.setQuantity(1);
 
         request.setLoad(load);
+        request.setRouteStatus(RoutePrecomputeStatus.PENDING);
 
         TransportRequest saved = repository.save(request);
+        eventPublisher.publishEvent(new TransportRequestCreatedEvent(
+                saved.getId(), saved.getOriginAddress(), saved.getDestinationAddress(),
+                RouteConstraints.of(saved.getLoad(), null)));
         return mapToDetailDTO(saved);
     }
 
@@ -129,6 +148,19 @@ public class TransportRequestServiceImpl implements TransportRequestService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Esporta tutte le richieste in formato NDJSON leggendole come cursore in avanti.
+     *
+     * @param out Stream di uscita.
+     * @throws IOException se la scrittura fallisce.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportRequests(OutputStream out) throws IOException {
+        ndjsonExporter.export(repository.streamAllForExport(),
+                chunk -> chunk.stream().map(this::mapToDetailDTO).toList(), out);
+    }
+
     /**
      * Metodo helper privato per il mapping manuale da Entità a DTO.
      * <p>
@@ -146,6 +178,8 @@ public class TransportRequestServiceImpl implements TransportRequestService {
         dto.setDestinationAddress(entity.getDestinationAddress());
         dto.setPickupDate(entity.getPickupDate());
         dto.setRequestStatus(entity.getRequestStatus());
+        dto.setRouteStatus(entity.getRouteStatus());
+        dto.setRouteError(entity.getRouteError());
 
         // Mapping dei dettagli del carico dall'oggetto embedded
         if (entity.getLoad() != null) {
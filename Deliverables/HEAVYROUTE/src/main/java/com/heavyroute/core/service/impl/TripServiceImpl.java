@@ -2,18 +2,36 @@ package com.heavyroute.core.service.impl;
 
 import com.heavyroute.common.exception.BusinessRuleException;
 import com.heavyroute.common.exception.ResourceNotFoundException;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.export.NdjsonExporter;
+import com.heavyroute.core.dto.PositionUpdateDTO;
 import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.dto.TripPageDTO;
+import com.heavyroute.core.dto.TripPlanResultDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.dto.TripStatusChangeDTO;
+import com.heavyroute.core.dto.TripStatusResultDTO;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.enums.RequestStatus;
 import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.event.TripsClosedEvent;
+import com.heavyroute.core.model.LegacyRoutePolyline;
 import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.RouteGeometry;
+import com.heavyroute.core.model.StagedRoute;
 import com.heavyroute.core.model.TransportRequest;
 import com.heavyroute.core.model.Trip;
 import com.heavyroute.core.repository.RouteRepository;
 import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripFilter;
 import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.routing.RouteConstraints;
 import com.heavyroute.core.mapper.TripMapper;
+import com.heavyroute.core.service.EtaEngine;
 import com.heavyroute.core.service.ExternalMapService;
+import com.heavyroute.core.service.RoutePrecomputationService;
+import com.heavyroute.core.service.TripStateMachine;
 import com.heavyroute.core.service.TripService;
 import com.heavyroute.notification.enums.NotificationType;
 import com.heavyroute.notification.service.NotificationService;
@@ -23,14 +41,34 @@ import com.heavyroute.resources.repository.VehicleRepository;
 import com.heavyroute.users.enums.DriverStatus;
 import com.heavyroute.users.model.Driver;
 import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.service.DriverPositionStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +89,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TripServiceImpl implements TripService {
 
+    /** Stati in cui a un viaggio possono essere assegnate (o cambiate) le risorse. */
+    private static final Set<TripStatus> PLANNABLE_STATUSES =
+            EnumSet.of(TripStatus.IN_PLANNING, TripStatus.WAITING_VALIDATION, TripStatus.CONFIRMED);
+
+    /** Stati in cui la rotta corrente è già stata approvata dal Traffic Coordinator. */
+    private static final Set<TripStatus> ROUTE_APPROVED_STATUSES =
+            EnumSet.of(TripStatus.VALIDATED, TripStatus.CONFIRMED, TripStatus.ACCEPTED);
+
     private final TripRepository tripRepository;
     private final TransportRequestRepository requestRepository;
     private final DriverRepository driverRepository;
@@ -59,13 +105,30 @@ public class TripServiceImpl implements TripService {
     private final TripMapper tripMapper;
     private final NotificationService notificationService;
     private final ExternalMapService externalMapService;
+    private final TransactionTemplate transactionTemplate;
+    private final RoutePrecomputationService routePrecomputation;
+    private final EtaEngine etaEngine;
+    private final NdjsonExporter ndjsonExporter;
+    private final DriverPositionStore driverPositionStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Approva una richiesta di trasporto e genera il relativo viaggio.
      * <p>
      * Verifica l'idempotenza (se il viaggio esiste già, lo restituisce).
      * Calcola la rotta ottimale tramite il servizio cartografico e salva il nuovo viaggio
-     * in stato {@code WAITING_VALIDATION}.
+     * in stato {@code IN_PLANNING}.
+     * </p>
+     * <p>
+     * <b>Gestione transazionale in due fasi:</b> la chiamata al provider cartografico (potenzialmente
+     * lenta) avviene <i>fuori</i> da qualsiasi transazione, così da non trattenere una connessione
+     * JDBC del pool per tutta la durata della chiamata HTTP. La persistenza avviene poi in una
+     * transazione breve che ricontrolla l'idempotenza: se nel frattempo un'altra approvazione ha già
+     * creato il viaggio, la rotta calcolata viene scartata e si restituisce quello esistente.
+     * </p>
+     * <p>
+     * Se la rotta è già stata pre-calcolata in background alla creazione della richiesta
+     * (vedi {@link RoutePrecomputationService}), il provider non viene interpellato affatto.
      * </p>
      *
      * @param requestId ID della {@link TransportRequest} da approvare.
@@ -73,27 +136,66 @@ public class TripServiceImpl implements TripService {
      * @throws ResourceNotFoundException se la richiesta non viene trovata.
      */
     @Override
-    @Transactional
     public TripResponseDTO approveRequest(Long requestId) {
-        // 1. CHECK IDEMPOTENZA
+        // 1. LETTURA (transazione breve): check idempotenza e indirizzi della richiesta
+        RoutingSnapshot snapshot = transactionTemplate.execute(status -> {
+            Optional<Trip> existingTrip = tripRepository.findByRequestId(requestId);
+            if (existingTrip.isPresent()) {
+                return RoutingSnapshot.existing(mapToDTOWithDriverInfo(existingTrip.get()));
+            }
+            TransportRequest request = requestRepository.findById(requestId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Richiesta non trovata con ID: " + requestId));
+            // In approvazione il veicolo non è ancora assegnato: vincolano solo le dimensioni del carico
+            RouteConstraints constraints = RouteConstraints.of(request.getLoad(), null);
+            Route precomputed = routePrecomputation
+                    .findUsable(requestId, request.getOriginAddress(), request.getDestinationAddress(), constraints)
+                    .map(StagedRoute::toRoute)
+                    .orElse(null);
+            return new RoutingSnapshot(null, request.getOriginAddress(), request.getDestinationAddress(),
+                    constraints, precomputed);
+        });
+
+        if (snapshot.existingTrip() != null) {
+            log.info("✅ Viaggio già esistente per Request ID {}. Restituisco esistente.", requestId);
+            return snapshot.existingTrip();
+        }
+
+        log.info("📡 Creazione nuovo viaggio per Richiesta #{}", requestId);
+
+        // 2. Calcolo Rotta: pre-calcolata in background oppure calcolata ora
+        //    (nessuna transazione / connessione aperta durante la chiamata HTTP)
+        Route realRoute;
+        if (snapshot.precomputedRoute() != null) {
+            log.info("✅ Utilizzo rotta pre-calcolata per Richiesta #{}", requestId);
+            realRoute = snapshot.precomputedRoute();
+        } else {
+            realRoute = externalMapService.calculateFullRoute(
+                    snapshot.originAddress(), snapshot.destinationAddress(), snapshot.constraints());
+        }
+
+        // 3. SCRITTURA (transazione breve) con ricontrollo dell'idempotenza
+        try {
+            return transactionTemplate.execute(status -> persistApprovedTrip(requestId, realRoute));
+        } catch (DataIntegrityViolationException e) {
+            // Un'approvazione concorrente ha inserito il viaggio tra il ricontrollo e il commit
+            log.info("✅ Viaggio creato in parallelo per Request ID {}. Restituisco esistente.", requestId);
+            return transactionTemplate.execute(status -> tripRepository.findByRequestId(requestId)
+                    .map(this::mapToDTOWithDriverInfo)
+                    .orElseThrow(() -> e));
+        }
+    }
+
+    private TripResponseDTO persistApprovedTrip(Long requestId, Route realRoute) {
         Optional<Trip> existingTrip = tripRepository.findByRequestId(requestId);
         if (existingTrip.isPresent()) {
-            log.info("✅ Viaggio già esistente per Request ID {}. Restituisco esistente.", requestId);
+            log.info("✅ Viaggio creato in parallelo per Request ID {}. Scarto la rotta calcolata.", requestId);
             return mapToDTOWithDriverInfo(existingTrip.get());
         }
 
         TransportRequest request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("Richiesta non trovata con ID: " + requestId));
 
-        log.info("📡 Creazione nuovo viaggio per Richiesta #{}", requestId);
-
-        // 2. Calcolo Rotta
-        Route realRoute = externalMapService.calculateFullRoute(
-                request.getOriginAddress(),
-                request.getDestinationAddress()
-        );
-
-        // 3. Creazione Entità Trip
+        // Creazione Entità Trip
         Trip trip = new Trip();
         trip.setRequest(request);
 
@@ -105,10 +207,13 @@ public class TripServiceImpl implements TripService {
         trip.getRequest().setRequestStatus(RequestStatus.APPROVED);
         trip.setTripCode("T-" + LocalDateTime.now().getYear() + "-" + String.format("%04d", requestId));
 
-        // 4. Salvataggio a cascata (Trip -> Route)
+        // Salvataggio a cascata (Trip -> Route)
         routeRepository.save(realRoute);
         Trip savedTrip = tripRepository.save(trip);
 
+        // La rotta di staging (se presente) è ora copiata nel viaggio
+        routePrecomputation.discard(requestId);
+
         log.info("✅ Viaggio creato: {}", savedTrip.getTripCode());
         return mapToDTOWithDriverInfo(savedTrip);
     }
@@ -120,6 +225,12 @@ public class TripServiceImpl implements TripService {
      * e sulla capacità di carico del veicolo. Gestisce inoltre il rilascio di risorse
      * precedentemente assegnate in caso di ri-pianificazione.
      * </p>
+     * <p>
+     * Disponibilità e prenotazione delle risorse sono verificate con UPDATE condizionali
+     * ({@code driver_status = FREE}, {@code status = AVAILABLE}): due pianificatori non possono
+     * assegnare la stessa risorsa nemmeno in concorrenza. Il campo {@code @Version} del viaggio
+     * impedisce che due pianificazioni dello stesso viaggio si sovrascrivano.
+     * </p>
      *
      * @param tripId ID del viaggio da pianificare.
      * @param dto DTO contenente gli ID delle risorse da assegnare.
@@ -132,63 +243,63 @@ public class TripServiceImpl implements TripService {
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato con ID: " + tripId));
 
-        if (trip.getStatus() != TripStatus.IN_PLANNING &&
-                trip.getStatus() != TripStatus.WAITING_VALIDATION &&
-                trip.getStatus() != TripStatus.CONFIRMED) {
-
+        if (!PLANNABLE_STATUSES.contains(trip.getStatus())) {
             throw new BusinessRuleException("Stato non valido per pianificazione: " + trip.getStatus());
         }
 
         // 2. GESTIONE RISORSE PRECEDENTI
+        // Lette solo come ID (proxy non inizializzati): lo stato viene cambiato con UPDATE condizionali
         if (trip.getDriver() != null) {
-            log.info("✅ Rilascio autista precedente: {}", trip.getDriver().getUsername());
-            trip.getDriver().setDriverStatus(DriverStatus.FREE);
-            driverRepository.save(trip.getDriver());
+            Long previousDriverId = trip.getDriver().getId();
+            if (driverRepository.compareAndSetStatus(previousDriverId, DriverStatus.ASSIGNED, DriverStatus.FREE)) {
+                log.info("✅ Rilascio autista precedente: {}", previousDriverId);
+            }
         }
         if (trip.getVehicle() != null) {
-            log.info("✅ Rilascio veicolo precedente: {}", trip.getVehicle().getLicensePlate());
-            trip.getVehicle().setStatus(VehicleStatus.AVAILABLE);
-            vehicleRepository.save(trip.getVehicle());
+            Long previousVehicleId = trip.getVehicle().getId();
+            if (vehicleRepository.compareAndSetStatus(previousVehicleId, VehicleStatus.IN_USE, VehicleStatus.AVAILABLE) == 1) {
+                log.info("✅ Rilascio veicolo precedente: {}", previousVehicleId);
+            }
         }
 
-        // 3. RECUPERO E VALIDAZIONE NUOVE RISORSE
-        Driver driver = driverRepository.findById(dto.getDriverId())
-                .orElseThrow(() -> new ResourceNotFoundException("Autista non trovato"));
+        // 3. PRENOTAZIONE ATOMICA DELLE NUOVE RISORSE (compare-and-set, nessun lock esplicito)
+        // Solo una tra più pianificazioni concorrenti ottiene la risorsa; se una delle due prenotazioni
+        // fallisce la transazione viene annullata e anche l'altra torna libera.
+        if (!driverRepository.compareAndSetStatus(dto.getDriverId(), DriverStatus.FREE, DriverStatus.ASSIGNED)) {
+            Driver busy = driverRepository.findById(dto.getDriverId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Autista non trovato"));
+            throw new BusinessRuleException("L'autista " + busy.getLastName() + " è occupato.");
+        }
 
-        if (driver.getDriverStatus() != DriverStatus.FREE) {
-            throw new BusinessRuleException("L'autista " + driver.getLastName() + " è occupato.");
+        Double pesoRichiesto = trip.getRequest().getLoad().getWeightKg();
+        if (vehicleRepository.acquireIfAvailable(dto.getVehiclePlate(), pesoRichiesto) == 0) {
+            Vehicle rejected = vehicleRepository.findByLicensePlate(dto.getVehiclePlate())
+                    .orElseThrow(() -> new ResourceNotFoundException("Veicolo non trovato"));
+            if (rejected.getStatus() != VehicleStatus.AVAILABLE) {
+                throw new BusinessRuleException("Il veicolo " + rejected.getLicensePlate() + " non è disponibile.");
+            }
+            throw new BusinessRuleException("Portata veicolo insufficiente (" + rejected.getMaxLoadCapacity() + "kg < " + pesoRichiesto + "kg)");
         }
 
+        // Gli UPDATE condizionali non passano dal contesto di persistenza: se l'autista era già caricato
+        // (es. ri-pianificazione con lo stesso autista) qui torna l'istanza con stato e versione precedenti.
+        // Le entità servono solo come riferimento per l'associazione e non vanno salvate.
+        Driver driver = driverRepository.findById(dto.getDriverId())
+                .orElseThrow(() -> new ResourceNotFoundException("Autista non trovato"));
         Vehicle vehicle = vehicleRepository.findByLicensePlate(dto.getVehiclePlate())
                 .orElseThrow(() -> new ResourceNotFoundException("Veicolo non trovato"));
 
-        if (vehicle.getStatus() != VehicleStatus.AVAILABLE) {
-            throw new BusinessRuleException("Il veicolo " + vehicle.getLicensePlate() + " non è disponibile.");
-        }
-
-        // Check Capacità di Carico
-        Double pesoRichiesto = trip.getRequest().getLoad().getWeightKg();
-        if (vehicle.getMaxLoadCapacity() < pesoRichiesto) {
-            throw new BusinessRuleException("Portata veicolo insufficiente (" + vehicle.getMaxLoadCapacity() + "kg < " + pesoRichiesto + "kg)");
-        }
-
         // 4. ASSEGNAZIONE
         trip.setDriver(driver);
         trip.setVehicle(vehicle);
         trip.setStatus(TripStatus.WAITING_VALIDATION); // Torna in validazione dopo cambio risorse
 
-        // Blocca le risorse
-        driver.setDriverStatus(DriverStatus.ASSIGNED);
-        vehicle.setStatus(VehicleStatus.IN_USE);
-
         if (trip.getRequest().getRequestStatus() == RequestStatus.PENDING) {
             trip.getRequest().setRequestStatus(RequestStatus.APPROVED);
             requestRepository.save(trip.getRequest());
         }
 
-        // Persistenza
-        driverRepository.save(driver);
-        vehicleRepository.save(vehicle);
+        // Persistenza (con controllo di versione sul viaggio)
         tripRepository.save(trip);
 
         log.info("✅ Risorse assegnate al viaggio {}: Autista {}, Veicolo {}", tripId, driver.getLastName(), vehicle.getLicensePlate());
@@ -203,30 +314,247 @@ public class TripServiceImpl implements TripService {
         );
     }
 
+    /**
+     * Pianifica più viaggi in un'unica transazione.
+     * <p>
+     * Procedura a insiemi invece di una {@link #planTrip} per elemento:
+     * <ol>
+     * <li>Viaggi, autisti e veicoli coinvolti vengono letti con una query per tipo.</li>
+     * <li>Le assegnazioni sono validate in memoria nell'ordine del lotto, tenendo conto delle risorse
+     * già prese o rilasciate dagli elementi precedenti; quelle non valide vengono scartate con il motivo.</li>
+     * <li>Rilascio e prenotazione delle risorse avvengono con un UPDATE condizionale per tabella.
+     * Se un'altra operazione ha occupato nel frattempo una delle risorse, l'intero lotto viene annullato.</li>
+     * <li>Viaggi e richieste modificati vengono scritti al commit con aggiornamenti JDBC a lotti.</li>
+     * </ol>
+     * </p>
+     *
+     * @param assignments Assegnazioni da applicare ({@code tripId} obbligatorio).
+     * @return L'esito di ogni assegnazione, nello stesso ordine.
+     * @throws BusinessRuleException se le risorse validate sono state occupate da un'operazione concorrente.
+     */
+    @Override
+    @Transactional
+    public List<TripPlanResultDTO> planTrips(List<TripAssignmentDTO> assignments) {
+        // 1. CARICAMENTO A INSIEMI
+        Map<Long, Trip> trips = tripRepository.findAllById(assignments.stream()
+                        .map(TripAssignmentDTO::getTripId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Trip::getId, Function.identity()));
+        Map<Long, Driver> drivers = driverRepository.findAllById(assignments.stream()
+                        .map(TripAssignmentDTO::getDriverId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Driver::getId, Function.identity()));
+        Map<String, Vehicle> vehicles = vehicleRepository.findByLicensePlateIn(assignments.stream()
+                        .map(TripAssignmentDTO::getVehiclePlate).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Vehicle::getLicensePlate, Function.identity()));
+
+        // 2. VALIDAZIONE IN MEMORIA
+        Set<Long> seenTrips = new HashSet<>();
+        Set<Long> releasedDrivers = new HashSet<>();
+        Set<Long> takenDrivers = new HashSet<>();
+        Set<Long> releasedVehicles = new HashSet<>();
+        Set<Long> takenVehicles = new HashSet<>();
+        List<Trip> planned = new ArrayList<>();
+        List<TripPlanResultDTO> results = new ArrayList<>();
+
+        for (TripAssignmentDTO assignment : assignments) {
+            Trip trip = assignment.getTripId() != null ? trips.get(assignment.getTripId()) : null;
+            Driver driver = drivers.get(assignment.getDriverId());
+            Vehicle vehicle = vehicles.get(assignment.getVehiclePlate());
+            // Proxy non inizializzati: basta l'ID
+            Long previousDriverId = trip != null && trip.getDriver() != null ? trip.getDriver().getId() : null;
+            Long previousVehicleId = trip != null && trip.getVehicle() != null ? trip.getVehicle().getId() : null;
+
+            String error = null;
+            if (trip == null) {
+                error = "Viaggio non trovato";
+            } else if (!seenTrips.add(trip.getId())) {
+                error = "Viaggio presente più volte nel lotto";
+            } else if (!PLANNABLE_STATUSES.contains(trip.getStatus())) {
+                error = "Stato non valido per pianificazione: " + trip.getStatus();
+            } else if (driver == null) {
+                error = "Autista non trovato";
+            } else if (!isAvailableInBatch(driver.getId(), driver.getDriverStatus() == DriverStatus.FREE,
+                    driver.getDriverStatus() == DriverStatus.ASSIGNED, previousDriverId, releasedDrivers, takenDrivers)) {
+                error = "L'autista " + driver.getLastName() + " è occupato.";
+            } else if (vehicle == null) {
+                error = "Veicolo non trovato";
+            } else if (!isAvailableInBatch(vehicle.getId(), vehicle.getStatus() == VehicleStatus.AVAILABLE,
+                    vehicle.getStatus() == VehicleStatus.IN_USE, previousVehicleId, releasedVehicles, takenVehicles)) {
+                error = "Il veicolo " + vehicle.getLicensePlate() + " non è disponibile.";
+            } else if (vehicle.getMaxLoadCapacity() < trip.getRequest().getLoad().getWeightKg()) {
+                error = "Portata veicolo insufficiente (" + vehicle.getMaxLoadCapacity() + "kg < "
+                        + trip.getRequest().getLoad().getWeightKg() + "kg)";
+            }
+
+            if (error != null) {
+                results.add(new TripPlanResultDTO(assignment.getTripId(), false, error));
+                continue;
+            }
+
+            if (previousDriverId != null) {
+                releasedDrivers.add(previousDriverId);
+            }
+            if (previousVehicleId != null) {
+                releasedVehicles.add(previousVehicleId);
+            }
+            takenDrivers.add(driver.getId());
+            takenVehicles.add(vehicle.getId());
+
+            trip.setDriver(driver);
+            trip.setVehicle(vehicle);
+            trip.setStatus(TripStatus.WAITING_VALIDATION);
+            if (trip.getRequest().getRequestStatus() == RequestStatus.PENDING) {
+                trip.getRequest().setRequestStatus(RequestStatus.APPROVED);
+            }
+            planned.add(trip);
+            results.add(new TripPlanResultDTO(trip.getId(), true, null));
+        }
+
+        if (planned.isEmpty()) {
+            return results;
+        }
+
+        // 3. CAMBI DI STATO A INSIEMI (compare-and-set): prima i rilasci, poi le prenotazioni
+        if (!releasedDrivers.isEmpty()) {
+            driverRepository.compareAndSetStatuses(releasedDrivers, DriverStatus.ASSIGNED, DriverStatus.FREE);
+        }
+        if (!releasedVehicles.isEmpty()) {
+            vehicleRepository.compareAndSetStatuses(releasedVehicles, VehicleStatus.IN_USE, VehicleStatus.AVAILABLE);
+        }
+        if (driverRepository.compareAndSetStatuses(takenDrivers, DriverStatus.FREE, DriverStatus.ASSIGNED) != takenDrivers.size()
+                || vehicleRepository.compareAndSetStatuses(takenVehicles, VehicleStatus.AVAILABLE, VehicleStatus.IN_USE) != takenVehicles.size()) {
+            throw new BusinessRuleException("Alcune risorse sono state assegnate da un'altra operazione durante la pianificazione. "
+                    + "Nessuna modifica applicata: ripetere la pianificazione.");
+        }
+
+        log.info("✅ Pianificazione a lotti: {} viaggi assegnati, {} scartati", planned.size(), results.size() - planned.size());
+
+        // 4. NOTIFICHE
+        for (Trip trip : planned) {
+            notificationService.send(
+                    trip.getDriver().getId(),
+                    "Nuovo Incarico",
+                    "Assegnato viaggio " + trip.getTripCode() + " per " + trip.getRequest().getDestinationAddress(),
+                    NotificationType.ASSIGNMENT,
+                    trip.getId()
+            );
+        }
+        return results;
+    }
+
+    /**
+     * Disponibilità di una risorsa durante la validazione di un lotto.
+     * <p>
+     * La risorsa è disponibile se non è già stata presa da un elemento precedente e se è libera,
+     * oppure se è impegnata ma viene rilasciata nel lotto (da un elemento precedente o dal viaggio stesso).
+     * </p>
+     */
+    private static boolean isAvailableInBatch(Long id, boolean free, boolean busy, Long releasedByTrip,
+                                              Set<Long> released, Set<Long> taken) {
+        if (taken.contains(id)) {
+            return false;
+        }
+        return free || (busy && (released.contains(id) || id.equals(releasedByTrip)));
+    }
+
     /**
      * Ricalcola la rotta per un viaggio esistente.
      * <p>
      * Utile in caso di modifiche agli indirizzi o aggiornamenti del percorso.
+     * Come per {@link #approveRequest(Long)}, il calcolo avviene fuori transazione e la
+     * persistenza in una transazione breve; se gli indirizzi della richiesta sono cambiati
+     * durante il calcolo la rotta ottenuta non viene salvata.
+     * </p>
+     * <p>
+     * La rotta è calcolata dall'indirizzo di partenza, quindi solo per viaggi non ancora partiti.
+     * Una rotta già approvata dal Traffic Coordinator non resta valida dopo la sostituzione:
+     * il viaggio torna in {@code WAITING_VALIDATION}.
+     * </p>
+     *
+     * <p>
+     * La rotta sostituita viene eliminata insieme alle sue geometrie.
      * </p>
      *
      * @param tripId ID del viaggio.
      * @throws ResourceNotFoundException se il viaggio non viene trovato.
+     * @throws BusinessRuleException se il viaggio è già partito o gli indirizzi sono stati modificati durante il calcolo.
      */
     @Override
-    @Transactional
     public void calculateRoute(Long tripId) {
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato con ID: " + tripId));
+        replaceRoute(tripId, false);
+    }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stesse fasi di {@link #calculateRoute(Long)}; la rotta viene sostituita solo se quella salvata è
+     * ancora provvisoria e quella calcolata non lo è.
+     * </p>
+     */
+    @Override
+    public boolean refreshProvisionalRoute(Long tripId) {
+        return replaceRoute(tripId, true);
+    }
+
+    private boolean replaceRoute(Long tripId, boolean onlyProvisional) {
+        // 1. LETTURA (transazione breve)
+        RoutingSnapshot snapshot = transactionTemplate.execute(status -> {
+            Trip trip = tripRepository.findById(tripId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato con ID: " + tripId));
+            requireNotDeparted(trip);
+            if (onlyProvisional && !hasProvisionalRoute(trip)) {
+                return null;
+            }
+            return RoutingSnapshot.toCreate(trip.getRequest().getOriginAddress(), trip.getRequest().getDestinationAddress(),
+                    RouteConstraints.of(trip.getRequest().getLoad(), trip.getVehicle()));
+        });
+        if (snapshot == null) {
+            return false;
+        }
+
+        // 2. Calcolo Rotta (fuori transazione)
         Route newRoute = externalMapService.calculateFullRoute(
-                trip.getRequest().getOriginAddress(),
-                trip.getRequest().getDestinationAddress()
-        );
-        newRoute.setTrip(trip);
+                snapshot.originAddress(), snapshot.destinationAddress(), snapshot.constraints());
+        if (onlyProvisional && newRoute.isProvisional()) {
+            throw new ServiceUnavailableException("Servizio cartografico ancora in modalità degradata");
+        }
 
-        trip.setRoute(newRoute);
-        routeRepository.save(newRoute);
-        tripRepository.save(trip);
+        // 3. SCRITTURA (transazione breve)
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Trip trip = tripRepository.findById(tripId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato con ID: " + tripId));
+
+            if (!Objects.equals(trip.getRequest().getOriginAddress(), snapshot.originAddress())
+                    || !Objects.equals(trip.getRequest().getDestinationAddress(), snapshot.destinationAddress())) {
+                throw new BusinessRuleException("Gli indirizzi del viaggio sono stati modificati durante il calcolo della rotta. Riprovare.");
+            }
+            requireNotDeparted(trip);
+            if (onlyProvisional && !hasProvisionalRoute(trip)) {
+                // Sostituita nel frattempo (es. ricalcolo per evento stradale)
+                return false;
+            }
+            if (ROUTE_APPROVED_STATUSES.contains(trip.getStatus())) {
+                log.info("📡 Rotta del viaggio {} sostituita: torna in validazione (era {})", trip.getTripCode(), trip.getStatus());
+                trip.setStatus(TripStatus.WAITING_VALIDATION);
+            }
+
+            // La rotta precedente è eliminata come orfana (orphanRemoval su Trip.route)
+            newRoute.setTrip(trip);
+            trip.setRoute(newRoute);
+            routeRepository.save(newRoute);
+            tripRepository.save(trip);
+            return true;
+        }));
+    }
+
+    private static boolean hasProvisionalRoute(Trip trip) {
+        return trip.getRoute() != null && trip.getRoute().isProvisional();
+    }
+
+    private void requireNotDeparted(Trip trip) {
+        if (!TripStateMachine.isBeforeDeparture(trip.getStatus())) {
+            throw new BusinessRuleException("Il viaggio " + trip.getTripCode() + " è in stato " + trip.getStatus()
+                    + ": la rotta non può più essere ricalcolata dalla partenza.");
+        }
     }
 
     // --- METODI DI LETTURA ---
@@ -249,35 +577,31 @@ public class TripServiceImpl implements TripService {
      * Recupera la lista dei viaggi filtrata per stato.
      *
      * @param status Stato dei viaggi da recuperare.
+     * @param detail Livello di dettaglio della geometria delle rotte.
      * @return Lista di DTO.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<TripResponseDTO> getTripsByStatus(TripStatus status) {
-        return tripRepository.findByStatus(status).stream()
-                .map(this::mapToDTOWithDriverInfo)
-                .collect(Collectors.toList());
+    public List<TripResponseDTO> getTripsByStatus(TripStatus status, PolylineDetail detail) {
+        return toListingDTOs(tripRepository.findForListingByStatus(status), detail);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<TripResponseDTO> getTripsByStatuses(List<TripStatus> statuses) {
-        return tripRepository.findByStatusIn(statuses).stream()
-                .map(this::mapToDTOWithDriverInfo)
-                .collect(Collectors.toList());
+    public List<TripResponseDTO> getTripsByStatuses(List<TripStatus> statuses, PolylineDetail detail) {
+        return toListingDTOs(tripRepository.findForListingByStatusIn(statuses), detail);
     }
 
     /**
      * Recupera tutti i viaggi presenti nel sistema.
      *
+     * @param detail Livello di dettaglio della geometria delle rotte.
      * @return Lista completa di DTO.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<TripResponseDTO> getAllTrips() {
-        return tripRepository.findAll().stream()
-                .map(this::mapToDTOWithDriverInfo)
-                .collect(Collectors.toList());
+    public List<TripResponseDTO> getAllTrips(PolylineDetail detail) {
+        return toListingDTOs(tripRepository.findAllForListing(), detail);
     }
 
     /**
@@ -287,89 +611,342 @@ public class TripServiceImpl implements TripService {
      * </p>
      *
      * @param driverId ID dell'autista.
+     * @param detail Livello di dettaglio della geometria delle rotte.
      * @return Lista di viaggi ordinati per data di creazione decrescente.
      */
     @Override
     @Transactional(readOnly = true)
-    public List<TripResponseDTO> getTripsByDriver(Long driverId) {
-        return tripRepository.findByDriverIdOrderByCreatedAtDesc(driverId)
-                .stream()
-                .map(this::mapToDTOWithDriverInfo)
+    public List<TripResponseDTO> getTripsByDriver(Long driverId, PolylineDetail detail) {
+        return toListingDTOs(tripRepository.findForListingByDriverIdOrderByCreatedAtDesc(driverId), detail);
+    }
+
+    /**
+     * Recupera una pagina dell'elenco dei viaggi.
+     * <p>
+     * Il cursore codifica {@code createdAt} e {@code id} dell'ultimo viaggio restituito; si legge un
+     * viaggio in più del limite per sapere se esiste una pagina successiva.
+     * </p>
+     *
+     * @param filter Criteri di ricerca.
+     * @param cursor Cursore della pagina precedente, oppure {@code null}.
+     * @param limit  Dimensione della pagina.
+     * @param detail Livello di dettaglio della geometria delle rotte.
+     * @return La pagina richiesta.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TripPageDTO searchTrips(TripFilter filter, String cursor, int limit, PolylineDetail detail) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_", 2);
+                afterCreatedAt = LocalDateTime.parse(key[0]);
+                afterId = Long.parseLong(key[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new BusinessRuleException("Cursore di paginazione non valido");
+            }
+        }
+
+        List<Trip> trips = tripRepository.findPageForListing(filter, afterCreatedAt, afterId, size + 1);
+        String nextCursor = null;
+        if (trips.size() > size) {
+            trips = trips.subList(0, size);
+            Trip last = trips.get(size - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getCreatedAt() + "_" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new TripPageDTO(toListingDTOs(trips, detail), nextCursor);
+    }
+
+    /**
+     * Esporta tutti i viaggi in formato NDJSON.
+     * <p>
+     * I viaggi sono letti come cursore in avanti con le associazioni dell'elenco già caricate.
+     * Finché il cursore è aperto la sua connessione non può eseguire altre query (con MySQL un
+     * result set in streaming blocca la connessione): le geometrie di ogni blocco vengono quindi
+     * lette in una transazione separata, su un'altra connessione del pool.
+     * </p>
+     *
+     * @param out    Stream di uscita.
+     * @param detail Livello di dettaglio della geometria delle rotte.
+     * @throws IOException se la scrittura fallisce.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTrips(OutputStream out, PolylineDetail detail) throws IOException {
+        TransactionTemplate geometryReads = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        geometryReads.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        geometryReads.setReadOnly(true);
+        long rows = ndjsonExporter.export(tripRepository.streamAllForExport(),
+                chunk -> toExportDTOs(chunk, detail, geometryReads), out);
+        log.info("📡 Esportazione NDJSON viaggi completata: {} righe", rows);
+    }
+
+    /**
+     * Converte un blocco dell'esportazione senza inizializzare le geometrie lazy sulla connessione del cursore.
+     */
+    private List<TripResponseDTO> toExportDTOs(List<Trip> trips, PolylineDetail detail, TransactionTemplate geometryReads) {
+        List<Long> geometryIds = trips.stream()
+                .map(Trip::getRoute)
+                .filter(Objects::nonNull)
+                .map(route -> route.geometryFor(detail))
+                .filter(Objects::nonNull)
+                .map(RouteGeometry::getId)
+                .toList();
+        List<Long> legacyIds = legacyPolylineIds(trips, detail);
+        Map<Long, String> polylines = geometryIds.isEmpty() ? Map.of() : geometryReads.execute(status ->
+                routeRepository.findGeometriesByIdIn(geometryIds).stream()
+                        .collect(Collectors.toMap(RouteGeometry::getId, RouteGeometry::toPolyline)));
+        Map<Long, String> legacyPolylines = legacyIds.isEmpty() ? Map.of() : geometryReads.execute(status ->
+                routeRepository.findLegacyPolylinesByIdIn(legacyIds).stream()
+                        .collect(Collectors.toMap(LegacyRoutePolyline::getId, LegacyRoutePolyline::getPolyline)));
+
+        return trips.stream()
+                .map(trip -> {
+                    TripResponseDTO dto = mapToDTOWithDriverInfo(trip, PolylineDetail.NONE);
+                    Route route = trip.getRoute();
+                    if (route != null) {
+                        // Senza geometria da leggere il livello è già disponibile nelle colonne della rotta
+                        RouteGeometry geometry = route.geometryFor(detail);
+                        LegacyRoutePolyline legacy = route.legacyPolylineFor(detail);
+                        dto.getRoute().setPolyline(geometry != null ? polylines.get(geometry.getId())
+                                : legacy != null ? legacyPolylines.get(legacy.getId())
+                                : route.getPolyline(detail));
+                        dto.getRoute().setPolylineDetail(detail);
+                    }
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
     /**
      * Aggiorna lo stato operativo di un viaggio.
      * <p>
-     * Questo metodo include una logica di sanitizzazione dell'input per gestire stringhe "sporche"
-     * (es. con virgolette o spazi) provenienti da client esterni.
-     * Gestisce inoltre il rilascio automatico delle risorse (Autista = FREE, Veicolo = AVAILABLE)
-     * quando lo stato diventa {@code COMPLETED}.
+     * Lo stato inviato come testo da client esterni viene interpretato da {@link TripStateMachine#parse},
+     * che tollera stringhe "sporche" (es. con virgolette o spazi). La transizione deve essere prevista
+     * da {@link TripStateMachine}; al completamento o all'annullamento autista e veicolo vengono liberati.
      * </p>
      *
      * @param tripId ID del viaggio da aggiornare.
      * @param newStatus Nuovo stato sotto forma di stringa (corrispondente a {@link TripStatus}).
+     * @param driverUsername Autista che invia il cambio, {@code null} per il Planner.
      * @throws ResourceNotFoundException se il viaggio non esiste.
-     * @throws BusinessRuleException se la stringa di stato non è valida.
+     * @throws BusinessRuleException se la stringa di stato non è valida o la transizione non è consentita.
+     * @throws AccessDeniedException se il viaggio non è dell'autista o lo stato non è consentito all'autista.
      */
     @Override
     @Transactional
-    public void updateStatus(Long tripId, String newStatus) {
-        log.info("🔍 DEBUG UPDATE - ID: {}, Raw Input: [{}]", tripId, newStatus);
+    public void updateStatus(Long tripId, String newStatus, String driverUsername) {
+        TripStatus status = TripStateMachine.parse(newStatus);
+        if (status == null) {
+            throw new BusinessRuleException("Stato non valido: '" + newStatus + "'");
+        }
 
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato"));
+        Map<Long, TripRepository.StatusSnapshot> snapshots = loadStatusSnapshots(List.of(tripId));
+        if (snapshots.isEmpty()) {
+            throw new ResourceNotFoundException("Viaggio non trovato");
+        }
+        String denied = driverRestriction(snapshots.get(tripId), status, driverUsername);
+        if (denied != null) {
+            throw new AccessDeniedException(denied);
+        }
 
-        try {
-            if (newStatus == null) throw new IllegalArgumentException("Stato nullo");
-
-            String cleanStatus = newStatus.replaceAll("[^A-Z_]", "");
-            if (cleanStatus.equals("ASSIGNED")) cleanStatus = "ACCEPTED";
-
-            TripStatus statusEnum = TripStatus.valueOf(cleanStatus);
-            trip.setStatus(statusEnum); // Aggiorna il Viaggio (per Autista e Coordinator)
-
-            // 2. SINCRONIZZAZIONE STATO CLIENTE (RequestStatus)
-            switch (statusEnum) {
-                case IN_TRANSIT:
-                case DELIVERING:
-                case PAUSED:
-                    trip.getRequest().setRequestStatus(RequestStatus.IN_PROGRESS);
-                    break;
-
-                case COMPLETED:
-                    trip.getRequest().setRequestStatus(RequestStatus.COMPLETED);
-                    _releaseResources(trip); // Metodo helper per liberare autista/veicolo
-                    break;
-
-                case CANCELLED:
-                    trip.getRequest().setRequestStatus(RequestStatus.CANCELLED);
-                    _releaseResources(trip);
-                    break;
-
-                default:
-                    break;
+        TripStatusResultDTO result = applyTransitions(List.of(new TripStatusChangeDTO(tripId, status)), snapshots, driverUsername).get(0);
+        if (!result.isApplied()) {
+            throw new BusinessRuleException(result.getMessage());
+        }
+        log.info("✅ Stato aggiornato: Trip {} -> {}", tripId, status);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Gli stati attuali sono letti con una sola query di proiezione; i cambi validi sono raggruppati
+     * per transizione e applicati con un UPDATE condizionale per gruppo, seguito dagli UPDATE a insiemi
+     * di richieste, autisti e veicoli. Se un viaggio cambia stato nel frattempo l'intero lotto viene annullato.
+     * </p>
+     */
+    @Override
+    @Transactional
+    public List<TripStatusResultDTO> updateStatuses(List<TripStatusChangeDTO> changes, String driverUsername) {
+        List<TripStatusResultDTO> results = applyTransitions(changes, loadStatusSnapshots(changes.stream()
+                .map(TripStatusChangeDTO::getTripId).filter(Objects::nonNull).collect(Collectors.toSet())), driverUsername);
+
+        long applied = results.stream().filter(TripStatusResultDTO::isApplied).count();
+        log.info("✅ Aggiornamento stati a lotti: {} applicati, {} scartati", applied, results.size() - applied);
+        return results;
+    }
+
+    private Map<Long, TripRepository.StatusSnapshot> loadStatusSnapshots(Collection<Long> tripIds) {
+        if (tripIds.isEmpty()) {
+            return Map.of();
+        }
+        return tripRepository.findStatusSnapshots(tripIds).stream()
+                .collect(Collectors.toMap(TripRepository.StatusSnapshot::getId, Function.identity()));
+    }
+
+    /**
+     * Motivo per cui l'autista non può eseguire il cambio, oppure {@code null} se è consentito
+     * (o se il chiamante non è un autista).
+     */
+    private String driverRestriction(TripRepository.StatusSnapshot trip, TripStatus target, String driverUsername) {
+        if (driverUsername == null) {
+            return null;
+        }
+        if (!driverUsername.equals(trip.getDriverUsername())) {
+            return "Viaggio non assegnato all'autista";
+        }
+        if (target != null && trip.getStatus() != target && !TripStateMachine.isDriverTarget(target)) {
+            return "Stato non impostabile dall'autista: " + target;
+        }
+        return null;
+    }
+
+    /**
+     * Valida i cambi di stato in memoria e applica quelli consentiti con aggiornamenti a insiemi.
+     * <p>
+     * Richiedere lo stato in cui il viaggio si trova già è un'operazione idempotente (l'app può
+     * ritrasmettere un aggiornamento di cui non ha ricevuto risposta). La memoria delle stime di
+     * arrivo dei viaggi conclusi viene liberata solo dopo il commit.
+     * </p>
+     */
+    private List<TripStatusResultDTO> applyTransitions(List<TripStatusChangeDTO> changes,
+                                                       Map<Long, TripRepository.StatusSnapshot> snapshots,
+                                                       String driverUsername) {
+        // 1. VALIDAZIONE IN MEMORIA
+        Map<TripStatus, Map<TripStatus, List<Long>>> tripUpdates = new EnumMap<>(TripStatus.class);
+        Map<RequestStatus, List<Long>> requestUpdates = new EnumMap<>(RequestStatus.class);
+        Set<Long> releasedDrivers = new HashSet<>();
+        Set<Long> releasedVehicles = new HashSet<>();
+        List<Long> closedTrips = new ArrayList<>();
+        Set<Long> seenTrips = new HashSet<>();
+        List<TripStatusResultDTO> results = new ArrayList<>(changes.size());
+
+        for (TripStatusChangeDTO change : changes) {
+            TripRepository.StatusSnapshot trip = change.getTripId() != null ? snapshots.get(change.getTripId()) : null;
+            TripStatus target = change.getStatus();
+
+            String denied = trip != null ? driverRestriction(trip, target, driverUsername) : null;
+            if (denied != null) {
+                // Nessuna informazione sullo stato dei viaggi altrui
+                results.add(new TripStatusResultDTO(change.getTripId(), false, null, denied));
+                continue;
             }
 
-            requestRepository.save(trip.getRequest());
-            tripRepository.save(trip);
+            String error = null;
+            if (trip == null) {
+                error = "Viaggio non trovato";
+            } else if (!seenTrips.add(trip.getId())) {
+                error = "Viaggio presente più volte nel lotto";
+            } else if (target == null) {
+                error = "Stato non valido";
+            } else if (trip.getStatus() != target && !TripStateMachine.canTransition(trip.getStatus(), target)) {
+                error = "Transizione non consentita: " + trip.getStatus() + " → " + target;
+            }
 
-            log.info("✅ Stato aggiornato: Trip={}, Request={}", statusEnum, trip.getRequest().getRequestStatus());
+            if (error != null) {
+                results.add(new TripStatusResultDTO(change.getTripId(), false, trip != null ? trip.getStatus() : null, error));
+                continue;
+            }
+            results.add(new TripStatusResultDTO(trip.getId(), true, target, null));
+            if (trip.getStatus() == target) {
+                continue;
+            }
 
-        } catch (IllegalArgumentException e) {
-            throw new BusinessRuleException("Stato non valido: '" + newStatus + "'");
+            tripUpdates.computeIfAbsent(trip.getStatus(), from -> new EnumMap<>(TripStatus.class))
+                    .computeIfAbsent(target, to -> new ArrayList<>()).add(trip.getId());
+            RequestStatus requestStatus = TripStateMachine.requestStatusFor(target);
+            if (requestStatus != null) {
+                requestUpdates.computeIfAbsent(requestStatus, status -> new ArrayList<>()).add(trip.getRequestId());
+            }
+            if (TripStateMachine.releasesResources(target)) {
+                closedTrips.add(trip.getId());
+                if (trip.getDriverId() != null) {
+                    releasedDrivers.add(trip.getDriverId());
+                }
+                if (trip.getVehicleId() != null) {
+                    releasedVehicles.add(trip.getVehicleId());
+                }
+            }
         }
+
+        // 2. AGGIORNAMENTI A INSIEMI: un UPDATE condizionale per ogni coppia (stato attuale, nuovo stato)
+        for (Map.Entry<TripStatus, Map<TripStatus, List<Long>>> byFrom : tripUpdates.entrySet()) {
+            for (Map.Entry<TripStatus, List<Long>> byTo : byFrom.getValue().entrySet()) {
+                List<Long> ids = byTo.getValue();
+                if (tripRepository.compareAndSetStatuses(ids, byFrom.getKey(), byTo.getKey()) != ids.size()) {
+                    throw new BusinessRuleException("Alcuni viaggi sono stati aggiornati da un'altra operazione. "
+                            + "Nessuna modifica applicata: ripetere l'invio.");
+                }
+            }
+        }
+        requestUpdates.forEach((status, ids) -> requestRepository.updateRequestStatuses(ids, status));
+        if (!releasedDrivers.isEmpty()) {
+            driverRepository.compareAndSetStatuses(releasedDrivers, DriverStatus.ASSIGNED, DriverStatus.FREE);
+        }
+        if (!releasedVehicles.isEmpty()) {
+            vehicleRepository.compareAndSetStatuses(releasedVehicles, VehicleStatus.IN_USE, VehicleStatus.AVAILABLE);
+        }
+        if (!closedTrips.isEmpty()) {
+            eventPublisher.publishEvent(new TripsClosedEvent(closedTrips));
+        }
+
+        return results;
     }
 
-    private void _releaseResources(Trip trip) {
-        if (trip.getDriver() != null) {
-            trip.getDriver().setDriverStatus(DriverStatus.FREE);
-            driverRepository.save(trip.getDriver());
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La posizione dell'autista assegnato passa dal {@link DriverPositionStore} (salvataggio differito
+     * a lotti); la stima di arrivo è calcolata dall'{@link EtaEngine} senza ricalcolare il percorso.
+     * </p>
+     */
+    @Override
+    @Transactional
+    public TripEtaDTO updatePosition(Long tripId, String driverUsername, PositionUpdateDTO dto) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato"));
+
+        if (trip.getDriver() == null || !trip.getDriver().getUsername().equals(driverUsername)) {
+            throw new AccessDeniedException("La posizione può essere inviata solo dall'autista assegnato al viaggio");
         }
-        if (trip.getVehicle() != null) {
-            trip.getVehicle().setStatus(VehicleStatus.AVAILABLE);
-            vehicleRepository.save(trip.getVehicle());
+
+        if (!TripStateMachine.enRoute().contains(trip.getStatus())) {
+            throw new BusinessRuleException("La posizione può essere inviata solo per un viaggio in corso. Stato attuale: " + trip.getStatus());
+        }
+
+        // Nessun UPDATE sull'entità: la posizione passa dall'archivio con scrittura differita
+        driverPositionStore.record(trip.getDriver().getId(), dto.getLatitude(), dto.getLongitude());
+        return etaEngine.update(tripId, trip.getRoute(), dto.getLatitude(), dto.getLongitude());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void updateDriverEta(Long driverId, double latitude, double longitude) {
+        tripRepository.findFirstByDriverIdAndStatusIn(driverId, TripStateMachine.enRoute())
+                .filter(trip -> trip.getRoute() != null)
+                .ifPresent(trip -> etaEngine.update(trip.getId(), trip.getRoute(), latitude, longitude));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Per un committente il viaggio di un altro cliente risulta inesistente.
+     * </p>
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TripEtaDTO getTripEta(Long tripId, String customerUsername) {
+        Trip trip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Viaggio non trovato"));
+        if (customerUsername != null && !customerUsername.equals(trip.getRequest().getClient().getUsername())) {
+            throw new ResourceNotFoundException("Viaggio non trovato");
         }
+        Long routeId = trip.getRoute() != null ? trip.getRoute().getId() : null;
+        return etaEngine.current(tripId, routeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Nessuna stima di arrivo disponibile per il viaggio " + tripId));
     }
 
     /**
@@ -400,6 +977,46 @@ public class TripServiceImpl implements TripService {
 
     // --- MAPPER HELPER ---
 
+    /**
+     * Converte un elenco di viaggi caricato con il fetch plan del repository.
+     * <p>
+     * Le geometrie necessarie al livello di dettaglio richiesto vengono caricate con una sola
+     * query prima della conversione, invece che una per rotta.
+     * </p>
+     */
+    private List<TripResponseDTO> toListingDTOs(List<Trip> trips, PolylineDetail detail) {
+        List<Long> geometryIds = trips.stream()
+                .map(Trip::getRoute)
+                .filter(Objects::nonNull)
+                .map(route -> route.geometryFor(detail))
+                .filter(Objects::nonNull)
+                .map(RouteGeometry::getId)
+                .toList();
+        if (!geometryIds.isEmpty()) {
+            routeRepository.findGeometriesByIdIn(geometryIds);
+        }
+        List<Long> legacyIds = legacyPolylineIds(trips, detail);
+        if (!legacyIds.isEmpty()) {
+            routeRepository.findLegacyPolylinesByIdIn(legacyIds);
+        }
+        return trips.stream()
+                .map(trip -> mapToDTOWithDriverInfo(trip, detail))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * ID delle polyline testuali (rotte precedenti a {@link RouteGeometry}) lette al livello indicato.
+     */
+    private static List<Long> legacyPolylineIds(List<Trip> trips, PolylineDetail detail) {
+        return trips.stream()
+                .map(Trip::getRoute)
+                .filter(Objects::nonNull)
+                .map(route -> route.legacyPolylineFor(detail))
+                .filter(Objects::nonNull)
+                .map(LegacyRoutePolyline::getId)
+                .toList();
+    }
+
     /**
      * Metodo di utilità per convertire un'entità Trip in DTO.
      * <p>
@@ -411,7 +1028,14 @@ public class TripServiceImpl implements TripService {
      * @return DTO completo pronto per la risposta API.
      */
     private TripResponseDTO mapToDTOWithDriverInfo(Trip trip) {
-        TripResponseDTO tripDTO = tripMapper.toDTO(trip);
+        return mapToDTOWithDriverInfo(trip, PolylineDetail.FULL);
+    }
+
+    /**
+     * Come {@link #mapToDTOWithDriverInfo(Trip)}, con la geometria della rotta al livello indicato.
+     */
+    private TripResponseDTO mapToDTOWithDriverInfo(Trip trip, PolylineDetail detail) {
+        TripResponseDTO tripDTO = tripMapper.toDTO(trip, detail);
 
         // Arricchimento dati Autista
         if (trip.getDriver() != null) {
@@ -426,27 +1050,32 @@ public class TripServiceImpl implements TripService {
             tripDTO.setVehicleModel(trip.getVehicle().getModel());
         }
 
-        // Arricchimento dati Rotta
+        // Arricchimento dati Rotta: il DTO (con la geometria già decodificata) viene dal mapper
         if (trip.getRoute() != null) {
-            Route r = trip.getRoute();
-            com.heavyroute.core.dto.RouteResponseDTO routeDTO = new com.heavyroute.core.dto.RouteResponseDTO();
-            routeDTO.setId(r.getId());
-            routeDTO.setRouteDescription(r.getDescription());
-            routeDTO.setDistance(r.getRouteDistance());
-            routeDTO.setDuration(r.getRouteDuration());
-            routeDTO.setPolyline(r.getPolyline());
-
-            if (r.getStartLocation() != null) {
-                routeDTO.setStartLat(r.getStartLocation().getLatitude());
-                routeDTO.setStartLon(r.getStartLocation().getLongitude());
-            }
-            if (r.getEndLocation() != null) {
-                routeDTO.setEndLat(r.getEndLocation().getLatitude());
-                routeDTO.setEndLon(r.getEndLocation().getLongitude());
-            }
-            tripDTO.setRoute(routeDTO);
+            etaEngine.current(trip.getId(), trip.getRoute().getId()).ifPresent(tripDTO::setEta);
         }
 
         return tripDTO;
     }
+
+    /**
+     * Dati letti nella prima fase dei metodi a due fasi (lettura -> calcolo rotta -> scrittura).
+     *
+     * @param existingTrip       Viaggio già esistente (solo per l'approvazione idempotente), altrimenti {@code null}.
+     * @param originAddress      Indirizzo di partenza da passare al servizio cartografico.
+     * @param destinationAddress Indirizzo di arrivo da passare al servizio cartografico.
+     * @param constraints        Profilo dimensionale e di peso del trasporto (carico ed eventuale veicolo).
+     * @param precomputedRoute   Rotta pre-calcolata in background, se disponibile.
+     */
+    private record RoutingSnapshot(TripResponseDTO existingTrip, String originAddress, String destinationAddress,
+                                   RouteConstraints constraints, Route precomputedRoute) {
+
+        static RoutingSnapshot existing(TripResponseDTO trip) {
+            return new RoutingSnapshot(trip, null, null, null, null);
+        }
+
+        static RoutingSnapshot toCreate(String originAddress, String destinationAddress, RouteConstraints constraints) {
+            return new RoutingSnapshot(null, originAddress, destinationAddress, constraints, null);
+        }
+    }
 }
\ No newline at end of file
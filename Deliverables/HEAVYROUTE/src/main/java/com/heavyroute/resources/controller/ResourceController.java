@@ -89,6 +89,20 @@ public class ResourceController {
         return ResponseEntity.ok(driverService.findAvailableDrivers());
     }
 
+    /**
+     * Matrice dei tempi di avvicinamento tra autisti liberi e punti di ritiro delle richieste in attesa.
+     * <p>
+     * Endpoint: GET /api/resources/drivers/matrix
+     * </p>
+     * @return Autisti, richieste e matrice durata/distanza.
+     */
+    @GetMapping("/drivers/matrix")
+    @PreAuthorize("hasRole('LOGISTIC_PLANNER')")
+    public ResponseEntity<DriverRequestMatrixDTO> getDriverRequestMatrix() {
+        log.info("Richiesta matrice autisti/richieste ricevuta");
+        return ResponseEntity.ok(resourceService.getDriverRequestMatrix());
+    }
+
     // ================= EVENTI & ALTRO =================
 
     /**
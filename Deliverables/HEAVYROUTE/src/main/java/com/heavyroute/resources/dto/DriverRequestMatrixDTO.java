@@ -0,0 +1,53 @@
+package com.heavyroute.resources.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) con la matrice dei tempi di avvicinamento tra gli autisti liberi
+ * e i punti di ritiro delle richieste in attesa.
+ * <p>
+ * La cella {@code [i][j]} si riferisce all'autista {@code driverIds[i]} e alla richiesta
+ * {@code requestIds[j]}. Un valore {@code null} indica che il punto di ritiro non è raggiungibile
+ * dalla posizione dell'autista.
+ * </p>
+ * * @author Heavy Route Team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverRequestMatrixDTO {
+
+    /**
+     * Identificativi degli autisti liberi con posizione nota (righe della matrice).
+     */
+    private List<Long> driverIds;
+
+    /**
+     * Nome e cognome degli autisti, nello stesso ordine di {@link #driverIds}.
+     */
+    private List<String> driverNames;
+
+    /**
+     * Identificativi delle richieste in attesa con indirizzo di ritiro geocodificato (colonne della matrice).
+     */
+    private List<Long> requestIds;
+
+    /**
+     * Indirizzi di ritiro, nello stesso ordine di {@link #requestIds}.
+     */
+    private List<String> originAddresses;
+
+    /**
+     * Tempo stimato di avvicinamento in minuti.
+     */
+    private Double[][] durationsMin;
+
+    /**
+     * Distanza stradale di avvicinamento in chilometri.
+     */
+    private Double[][] distancesKm;
+}
@@ -0,0 +1,18 @@
+package com.heavyroute.resources.event;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.resources.enums.EventSeverity;
+
+/**
+ * Evento applicativo pubblicato quando viene registrata una nuova segnalazione stradale.
+ * <p>
+ * Permette ai moduli interessati (es. cache dei percorsi, ricalcolo rotte) di reagire
+ * alle variazioni della viabilità senza accoppiarsi al servizio delle risorse.
+ * </p>
+ *
+ * @param eventId  ID del {@link com.heavyroute.resources.model.RoadEvent} salvato.
+ * @param location Posizione geografica dell'evento.
+ * @param severity Livello di gravità dell'evento.
+ */
+public record RoadEventReportedEvent(Long eventId, GeoLocation location, EventSeverity severity) {
+}
@@ -18,7 +18,10 @@ import java.time.LocalDateTime;
  * </p>
  */
 @Entity
-@Table(name = "road_events")
+@Table(name = "road_events", indexes = {
+        // Ricerca spaziale degli eventi bloccanti lungo un corridoio di percorso
+        @Index(name = "idx_road_events_severity_position", columnList = "severity, event_lat, event_lon")
+})
 @Getter @Setter
 @NoArgsConstructor
 @SuperBuilder
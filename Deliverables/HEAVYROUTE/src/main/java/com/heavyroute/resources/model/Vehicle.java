@@ -50,6 +50,14 @@ public class Vehicle extends BaseEntity {
     @Builder.Default
     private VehicleStatus status = VehicleStatus.AVAILABLE;
 
+    /**
+     * Versione per il controllo di concorrenza ottimistico.
+     * Incrementata anche dagli aggiornamenti condizionali di stato ({@code VehicleRepository}).
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Riferimento inverso all'autista assegnato.
      * <p>
@@ -1,5 +1,6 @@
 package com.heavyroute.resources.repository;
 
+import com.heavyroute.common.model.GeoLocation;
 import com.heavyroute.resources.enums.EventSeverity;
 import com.heavyroute.resources.model.RoadEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -67,4 +68,29 @@ public interface RoadEventRepository extends JpaRepository<RoadEvent, Long> {
             @Param("maxLat") Double maxLat,
             @Param("minLon") Double minLon,
             @Param("maxLon") Double maxLon);
+
+    /**
+     * Recupera le sole posizioni degli eventi attivi di una data gravità in un'area rettangolare.
+     * <p>
+     * Variante mirata di {@link #findEventsInArea} per il Routing Engine: filtra gravità e finestra
+     * temporale nel database (sfruttando l'indice su gravità e coordinate) e proietta direttamente
+     * le coordinate, senza materializzare le entità.
+     * </p>
+     *
+     * @param severity      Il livello di gravità da filtrare (es. CRITICAL).
+     * @param referenceTime L'istante temporale da verificare.
+     * @return Posizioni degli eventi che soddisfano i criteri.
+     */
+    @Query("SELECT new com.heavyroute.common.model.GeoLocation(r.location.latitude, r.location.longitude) " +
+            "FROM RoadEvent r WHERE r.severity = :severity " +
+            "AND r.location.latitude BETWEEN :minLat AND :maxLat " +
+            "AND r.location.longitude BETWEEN :minLon AND :maxLon " +
+            "AND r.validFrom <= :referenceTime AND (r.validTo IS NULL OR r.validTo >= :referenceTime)")
+    List<GeoLocation> findActiveLocationsInArea(
+            @Param("severity") EventSeverity severity,
+            @Param("referenceTime") LocalDateTime referenceTime,
+            @Param("minLat") Double minLat,
+            @Param("maxLat") Double maxLat,
+            @Param("minLon") Double minLon,
+            @Param("maxLon") Double maxLon);
 }
\ No newline at end of file
@@ -3,10 +3,12 @@ package com.heavyroute.resources.repository;
 import com.heavyroute.resources.model.Vehicle;
 import com.heavyroute.resources.enums.VehicleStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +33,8 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
      */
     Optional<Vehicle> findByLicensePlate(String licensePlate);
 
+    List<Vehicle> findByLicensePlateIn(Collection<String> licensePlates);
+
     /**
      * Verifica se esiste già un veicolo registrato con la targa fornita.
      * <p>
@@ -83,4 +87,44 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
      * @param status Solitamente VehicleStatus.AVAILABLE
      */
     List<Vehicle> findAllByStatus(VehicleStatus status);
-}
\ No newline at end of file
+
+    /**
+     * Occupa il veicolo solo se è ancora disponibile e ha portata sufficiente (compare-and-set).
+     * <p>
+     * Verifica e cambio di stato avvengono in un unico UPDATE: tra due pianificazioni concorrenti
+     * dello stesso veicolo una sola ottiene una riga aggiornata. Incrementa la versione dell'entità.
+     * </p>
+     *
+     * @param licensePlate Targa del veicolo.
+     * @param weightKg     Peso del carico da trasportare.
+     * @return 1 se il veicolo è stato occupato, 0 se non esiste, non è disponibile o la portata è insufficiente.
+     */
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.status = com.heavyroute.resources.enums.VehicleStatus.IN_USE, v.version = v.version + 1 " +
+            "WHERE v.licensePlate = :plate AND v.status = com.heavyroute.resources.enums.VehicleStatus.AVAILABLE " +
+            "AND v.maxLoadCapacity >= :weight")
+    int acquireIfAvailable(@Param("plate") String licensePlate, @Param("weight") double weightKg);
+
+    /**
+     * Cambia lo stato del veicolo solo se è ancora quello atteso (compare-and-set).
+     *
+     * @return 1 se lo stato è stato aggiornato, 0 altrimenti.
+     */
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.status = :to, v.version = v.version + 1 WHERE v.id = :id AND v.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") VehicleStatus expected,
+                            @Param("to") VehicleStatus to);
+
+    /**
+     * Variante insiemistica di {@link #compareAndSetStatus}: un solo UPDATE per tutti i veicoli indicati.
+     *
+     * @param ids Veicoli da aggiornare (non vuoto).
+     * @return Numero di veicoli effettivamente aggiornati (quelli che erano nello stato atteso).
+     */
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.status = :to, v.version = v.version + 1 WHERE v.id IN :ids AND v.status = :expected")
+    int compareAndSetStatuses(@Param("ids") Collection<Long> ids,
+                              @Param("expected") VehicleStatus expected,
+                              @Param("to") VehicleStatus to);
+}
@@ -1,5 +1,6 @@
 package com.heavyroute.resources.service;
 
+import com.heavyroute.resources.dto.DriverRequestMatrixDTO;
 import com.heavyroute.resources.dto.RoadEventCreationDTO;
 import com.heavyroute.resources.dto.RoadEventResponseDTO;
 import com.heavyroute.resources.dto.VehicleCreationDTO;
@@ -64,4 +65,11 @@ public interface ResourceService {
      * @return Lista di {@link RoadEventResponseDTO}.
      */
     List<RoadEventResponseDTO> getActiveEvents();
-}
\ No newline at end of file
+
+    /**
+     * Calcola la matrice dei tempi di avvicinamento tra gli autisti liberi (posizione corrente)
+     * e i punti di ritiro delle richieste in attesa di approvazione.
+     * @return {@link DriverRequestMatrixDTO} Autisti, richieste e matrice durata/distanza.
+     */
+    DriverRequestMatrixDTO getDriverRequestMatrix();
+}
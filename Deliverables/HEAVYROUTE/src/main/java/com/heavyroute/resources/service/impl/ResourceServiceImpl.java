@@ -1,7 +1,15 @@
 package com.heavyroute.resources.service.impl;
 
 import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.routing.RoutingMatrix;
+import com.heavyroute.core.service.DistanceMatrixService;
+import com.heavyroute.core.service.ExternalMapService;
 import com.heavyroute.resources.dto.*;
+import com.heavyroute.resources.event.RoadEventReportedEvent;
 import com.heavyroute.resources.enums.VehicleStatus;
 import com.heavyroute.resources.mapper.RoadEventMapper;
 import com.heavyroute.resources.mapper.VehicleMapper;
@@ -10,16 +18,23 @@ import com.heavyroute.resources.model.Vehicle;
 import com.heavyroute.resources.repository.RoadEventRepository;
 import com.heavyroute.resources.repository.VehicleRepository;
 import com.heavyroute.resources.service.ResourceService;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Implementazione del servizio per la gestione delle risorse.
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ResourceServiceImpl implements ResourceService {
@@ -28,6 +43,11 @@ public class ResourceServiceImpl implements ResourceService {
     private final RoadEventRepository eventRepository;
     private final VehicleMapper vehicleMapper;
     private final RoadEventMapper eventMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DriverRepository driverRepository;
+    private final TransportRequestRepository requestRepository;
+    private final ExternalMapService mapService;
+    private final DistanceMatrixService distanceMatrixService;
 
     /**
      * {@inheritDoc}
@@ -93,13 +113,15 @@ public class ResourceServiceImpl implements ResourceService {
 
     /**
      * {@inheritDoc}
-     * Salva una nuova segnalazione stradale geolocalizzata.
+     * Salva una nuova segnalazione stradale geolocalizzata e notifica la variazione
+     * di viabilità tramite {@link RoadEventReportedEvent} (consegnato dopo il commit).
      */
     @Override
     @Transactional
     public RoadEventResponseDTO createRoadEvent(RoadEventCreationDTO dto) {
         RoadEvent event = eventMapper.toEntity(dto);
         RoadEvent saved = eventRepository.save(event);
+        eventPublisher.publishEvent(new RoadEventReportedEvent(saved.getId(), saved.getLocation(), saved.getSeverity()));
         return eventMapper.toResponseDTO(saved);
     }
 
@@ -111,4 +133,64 @@ public class ResourceServiceImpl implements ResourceService {
                 .map(eventMapper::toResponseDTO)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * <b>Logica di Business:</b> Gli autisti senza posizione nota e le richieste il cui indirizzo
+     * di ritiro non è geocodificabile vengono esclusi. Gli indirizzi sono geocodificati in parallelo
+     * con una scadenza complessiva: un provider lento o non disponibile esclude solo le richieste
+     * non ancora in cache, senza far fallire la matrice. La matrice è calcolata in un'unica operazione
+     * dal {@link DistanceMatrixService}, che riusa le celle già calcolate nella stessa fascia oraria.
+     * </p>
+     */
+    @Override
+    public DriverRequestMatrixDTO getDriverRequestMatrix() {
+        List<Long> driverIds = new ArrayList<>();
+        List<String> driverNames = new ArrayList<>();
+        List<GeoLocation> positions = new ArrayList<>();
+        for (Driver driver : driverRepository.findAvailableDrivers()) {
+            GeoLocation position = driver.getGeoLocation();
+            if (position == null || position.getLatitude() == null || position.getLongitude() == null) {
+                continue;
+            }
+            driverIds.add(driver.getId());
+            driverNames.add(driver.getFirstName() + " " + driver.getLastName());
+            positions.add(position);
+        }
+
+        List<TransportRequest> pending = requestRepository.findByRequestStatus(RequestStatus.PENDING);
+        // Geocoding in parallelo: un indirizzo non risolto (o il provider non disponibile) esclude solo la sua colonna
+        Map<String, GeoLocation> located = mapService.geocodeAll(
+                pending.stream().map(TransportRequest::getOriginAddress).toList());
+
+        List<Long> requestIds = new ArrayList<>();
+        List<String> originAddresses = new ArrayList<>();
+        List<GeoLocation> origins = new ArrayList<>();
+        for (TransportRequest request : pending) {
+            GeoLocation origin = located.get(request.getOriginAddress());
+            if (origin == null) {
+                log.warn("Richiesta {} esclusa dalla matrice: indirizzo di ritiro non geocodificato", request.getId());
+                continue;
+            }
+            origins.add(origin);
+            requestIds.add(request.getId());
+            originAddresses.add(request.getOriginAddress());
+        }
+
+        RoutingMatrix matrix = distanceMatrixService.matrix(positions, origins);
+        return new DriverRequestMatrixDTO(driverIds, driverNames, requestIds, originAddresses,
+                boxed(matrix.durationsMin()), boxed(matrix.distancesKm()));
+    }
+
+    private static Double[][] boxed(double[][] values) {
+        Double[][] result = new Double[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = new Double[values[i].length];
+            for (int j = 0; j < values[i].length; j++) {
+                result[i][j] = Double.isNaN(values[i][j]) ? null : values[i][j];
+            }
+        }
+        return result;
+    }
+}
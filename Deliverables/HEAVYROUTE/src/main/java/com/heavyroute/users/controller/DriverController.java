@@ -1,11 +1,19 @@
 package com.heavyroute.users.controller;
 
+import com.heavyroute.core.dto.PositionUpdateDTO;
+import com.heavyroute.users.dto.DriverPositionBatchDTO;
 import com.heavyroute.users.dto.UserResponseDTO;
 import com.heavyroute.users.service.DriverService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,4 +35,38 @@ public class DriverController {
     public ResponseEntity<List<UserResponseDTO>> getAvailableDrivers() {
         return ResponseEntity.ok(driverService.findAvailableDrivers());
     }
-}
\ No newline at end of file
+
+    /**
+     * Riceve la posizione GPS corrente dell'autista.
+     * <p>
+     * <b>Endpoint Mobile:</b> invocato periodicamente dall'app autista, anche fuori da un viaggio.
+     * La posizione viene salvata in differita: la risposta non attende il database.
+     * </p>
+     *
+     * @param driverId ID dell'autista: deve essere l'autista autenticato.
+     * @param dto      Coordinate della posizione corrente.
+     * @return 202 Accepted, 403 se {@code driverId} è un altro autista.
+     */
+    @PutMapping("/{driverId}/position")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<Void> updatePosition(@PathVariable Long driverId, @Valid @RequestBody PositionUpdateDTO dto) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        driverService.recordPosition(username, driverId, dto.getLatitude(), dto.getLongitude());
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Riceve più posizioni GPS dell'autista autenticato in una sola richiesta
+     * (es. invio differito dopo un periodo offline).
+     *
+     * @param request Posizioni con istante del rilevamento.
+     * @return 202 Accepted.
+     */
+    @PostMapping("/positions")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<Void> updatePositions(@Valid @RequestBody DriverPositionBatchDTO request) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        driverService.recordPositions(username, request.getPositions());
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.heavyroute.users.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) per l'invio di più posizioni GPS in una sola richiesta
+ * (es. posizioni accumulate dall'app durante un periodo senza copertura).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverPositionBatchDTO {
+
+    /**
+     * Le posizioni da registrare, in qualsiasi ordine.
+     */
+    @NotEmpty(message = "Indicare almeno una posizione")
+    @Size(max = 1000, message = "Al massimo 1000 posizioni per richiesta")
+    private List<@Valid DriverPositionDTO> positions;
+}
@@ -0,0 +1,38 @@
+package com.heavyroute.users.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Data Transfer Object (DTO) per una posizione GPS inviata in un lotto dall'app dell'autista autenticato.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverPositionDTO {
+
+    @NotNull(message = "La latitudine è obbligatoria")
+    @DecimalMin(value = "-90.0", message = "La latitudine deve essere compresa tra -90 e 90")
+    @DecimalMax(value = "90.0", message = "La latitudine deve essere compresa tra -90 e 90")
+    private Double latitude;
+
+    @NotNull(message = "La longitudine è obbligatoria")
+    @DecimalMin(value = "-180.0", message = "La longitudine deve essere compresa tra -180 e 180")
+    @DecimalMax(value = "180.0", message = "La longitudine deve essere compresa tra -180 e 180")
+    private Double longitude;
+
+    /**
+     * Istante del rilevamento sul dispositivo, con fuso orario (opzionale).
+     * <p>
+     * Serve solo a ordinare le posizioni dello stesso lotto: non viene confrontato con l'orologio del
+     * server. Le posizioni senza istante valgono nell'ordine in cui compaiono nel lotto.
+     * </p>
+     */
+    private OffsetDateTime recordedAt;
+}
@@ -31,6 +31,7 @@ public class Driver extends InternalUser {
     @Embedded
     private GeoLocation geoLocation;
 
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private DriverStatus driverStatus;
 
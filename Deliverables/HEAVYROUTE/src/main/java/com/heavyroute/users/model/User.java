@@ -47,6 +47,17 @@ public abstract class User extends BaseEntity {
     @Column(nullable=false)
     protected boolean active=false;
 
+    /**
+     * Versione per il controllo di concorrenza ottimistico.
+     * <p>
+     * Dichiarata sulla radice della gerarchia (richiesto da JPA), protegge in particolare lo stato
+     * operativo di {@link Driver}; gli aggiornamenti condizionali di {@code DriverRepository} la incrementano.
+     * </p>
+     */
+    @Version
+    @Column(nullable = false)
+    protected Long version;
+
     // Metodo di utilità per il login
     public boolean hasRole(UserRole r) {
         return this.getRole() == r;
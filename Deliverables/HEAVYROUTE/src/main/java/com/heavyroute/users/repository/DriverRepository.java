@@ -3,12 +3,14 @@ package com.heavyroute.users.repository;
 import com.heavyroute.users.model.Driver;
 import com.heavyroute.users.enums.DriverStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Interfaccia di persistenza per la gestione dell'entità {@link Driver}.
@@ -79,4 +81,77 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
             @Param("maxLon") Double maxLon);
 
     List<Driver> findByDriverStatus(DriverStatus status);
-}
\ No newline at end of file
+
+    /**
+     * ID dell'autista con lo username indicato (es. l'utente autenticato), senza caricare l'entità.
+     */
+    @Query("SELECT d.id FROM Driver d WHERE d.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    /**
+     * Cambia lo stato operativo dell'autista solo se è ancora quello atteso (compare-and-set).
+     * <p>
+     * Verifica e cambio di stato avvengono in un unico UPDATE sulla tabella {@code drivers}: tra due
+     * assegnazioni concorrenti dello stesso autista una sola ottiene una riga aggiornata. In caso di
+     * successo incrementa la versione dell'utente, così le copie dell'entità lette in precedenza non
+     * possono sovrascrivere il nuovo stato. Va invocato all'interno di una transazione.
+     * </p>
+     *
+     * @return {@code true} se lo stato è stato aggiornato.
+     */
+    default boolean compareAndSetStatus(Long id, DriverStatus expected, DriverStatus to) {
+        if (updateStatusIfCurrent(id, expected.name(), to.name()) == 0) {
+            return false;
+        }
+        incrementVersion(id);
+        return true;
+    }
+
+    /**
+     * Variante insiemistica di {@link #compareAndSetStatus}: un solo UPDATE per tutti gli autisti indicati.
+     *
+     * @param ids Autisti da aggiornare (non vuoto).
+     * @return Numero di autisti effettivamente aggiornati (quelli che erano nello stato atteso).
+     */
+    default int compareAndSetStatuses(Collection<Long> ids, DriverStatus expected, DriverStatus to) {
+        int updated = updateStatusesIfCurrent(ids, expected.name(), to.name());
+        if (updated > 0) {
+            // Incrementare anche la versione di un autista rimasto invariato è innocuo
+            incrementVersions(ids);
+        }
+        return updated;
+    }
+
+    /**
+     * UPDATE condizionale di {@link #compareAndSetStatus}.
+     * <p>
+     * Query nativa: un UPDATE JPQL su {@link Driver} (gerarchia JOINED) verrebbe eseguito da Hibernate
+     * in più istruzioni tramite tabelle temporanee, perdendo l'atomicità del confronto. Lo stato è
+     * legato per nome, come lo persiste {@code @Enumerated(EnumType.STRING)} su {@link Driver}.
+     * </p>
+     */
+    @Modifying
+    @Query(value = "UPDATE drivers SET driver_status = :to WHERE id = :id AND driver_status = :expected", nativeQuery = true)
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("expected") String expected, @Param("to") String to);
+
+    /**
+     * UPDATE condizionale di {@link #compareAndSetStatuses}.
+     */
+    @Modifying
+    @Query(value = "UPDATE drivers SET driver_status = :to WHERE id IN (:ids) AND driver_status = :expected", nativeQuery = true)
+    int updateStatusesIfCurrent(@Param("ids") Collection<Long> ids, @Param("expected") String expected, @Param("to") String to);
+
+    /**
+     * Incrementa la versione degli utenti indicati.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Incrementa la versione dell'utente dopo un aggiornamento condizionale di stato.
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET version = version + 1 WHERE id = :id", nativeQuery = true)
+    int incrementVersion(@Param("id") Long id);
+}
@@ -0,0 +1,163 @@
+package com.heavyroute.users.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archivio in memoria dell'ultima posizione GPS di ogni autista, con scrittura differita sul database.
+ * <p>
+ * Le app inviano la posizione ogni pochi secondi: salvare l'entità {@code Driver} a ogni invio
+ * significherebbe un UPDATE (e un incremento di versione) per ogni posizione. Qui ogni invio aggiorna
+ * solo una mappa concorrente; un task periodico scrive su {@code drivers} l'ultima posizione degli
+ * autisti modificati dall'ultimo salvataggio, con un unico batch JDBC. Più posizioni dello stesso
+ * autista ricevute nell'intervallo producono quindi una sola riga.
+ * </p>
+ * <p>
+ * Vale l'ultima posizione ricevuta: gli istanti di rilevamento del dispositivo non vengono confrontati
+ * con l'orologio del server (un dispositivo con l'ora avanti o su un altro fuso bloccherebbe la
+ * posizione). L'ordinamento delle posizioni accumulate offline avviene all'interno del lotto inviato.
+ * </p>
+ * <p>
+ * La colonna viene aggiornata senza passare dall'entità né incrementarne la versione: la posizione è
+ * un dato di telemetria e non deve far fallire le modifiche concorrenti dell'anagrafica. Il database
+ * resta indietro al massimo di {@code tracking.positions.flush-interval-ms}; chi ha bisogno della
+ * posizione più recente può leggerla da {@link #latest(Long)}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class DriverPositionStore {
+
+    private static final String UPDATE_SQL = "UPDATE drivers SET latitude = ?, longitude = ? WHERE id = ?";
+
+    /**
+     * Posizione ricevuta per un autista.
+     */
+    private record Fix(double latitude, double longitude) {
+    }
+
+    private final Map<Long, Fix> latest = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public DriverPositionStore(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${tracking.positions.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Registra la posizione dell'autista, che diventa l'ultima nota.
+     */
+    public void record(Long driverId, double latitude, double longitude) {
+        latest.put(driverId, new Fix(latitude, longitude));
+        dirty.add(driverId);
+    }
+
+    /**
+     * Ultima posizione ricevuta per l'autista, anche se non ancora salvata sul database.
+     */
+    public Optional<GeoLocation> latest(Long driverId) {
+        Fix fix = latest.get(driverId);
+        return fix == null ? Optional.empty() : Optional.of(new GeoLocation(fix.latitude(), fix.longitude()));
+    }
+
+    /**
+     * Numero di autisti con una posizione non ancora salvata.
+     */
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Salva sul database l'ultima posizione degli autisti modificati, in un'unica transazione.
+     * <p>
+     * Gli autisti vengono tolti dall'insieme dei modificati prima di leggere la posizione: una
+     * posizione che arriva durante il salvataggio li reinserisce e verrà scritta al giro successivo.
+     * In caso di errore gli autisti restano da salvare.
+     * </p>
+     *
+     * @return Numero di righe inviate al database.
+     */
+    @Scheduled(initialDelayString = "${tracking.positions.flush-interval-ms:2000}",
+            fixedDelayString = "${tracking.positions.flush-interval-ms:2000}")
+    public int flush() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Long, Fix>> rows = new ArrayList<>();
+        for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+            Long driverId = it.next();
+            it.remove();
+            Fix fix = latest.get(driverId);
+            if (fix != null) {
+                rows.add(Map.entry(driverId, fix));
+            }
+        }
+
+        int[][] counts;
+        try {
+            counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, rows, batchSize, (ps, row) -> {
+                ps.setDouble(1, row.getValue().latitude());
+                ps.setDouble(2, row.getValue().longitude());
+                ps.setLong(3, row.getKey());
+            }));
+        } catch (RuntimeException e) {
+            rows.forEach(row -> dirty.add(row.getKey()));
+            log.warn("❌ Salvataggio posizioni autisti fallito ({} in attesa): {}", rows.size(), e.getMessage());
+            return 0;
+        }
+
+        forgetUnknownDrivers(rows, counts);
+        log.debug("📡 Posizioni autisti salvate: {}", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Salva le posizioni ancora in memoria alla chiusura dell'applicazione.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        int saved = flush();
+        if (saved > 0) {
+            log.info("✅ Posizioni autisti salvate alla chiusura: {}", saved);
+        }
+    }
+
+    /**
+     * Toglie dalla memoria gli ID che non corrispondono ad alcun autista (nessuna riga aggiornata),
+     * così invii con ID errati non occupano memoria indefinitamente.
+     * I driver JDBC che non riportano il conteggio per riga ({@link Statement#SUCCESS_NO_INFO}) non
+     * permettono la verifica.
+     */
+    private void forgetUnknownDrivers(List<Map.Entry<Long, Fix>> rows, int[][] counts) {
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    latest.remove(rows.get(row).getKey(), rows.get(row).getValue());
+                }
+                row++;
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.heavyroute.users.service;
 
+import com.heavyroute.users.dto.DriverPositionDTO;
 import com.heavyroute.users.dto.UserResponseDTO;
 import com.heavyroute.users.enums.DriverStatus;
 import com.heavyroute.users.model.Driver;
+import org.springframework.security.access.AccessDeniedException;
 
 import java.util.List;
 
@@ -22,4 +24,25 @@ public interface DriverService {
      * Recupera gli autisti in base al loro stato operativo (FREE, BUSY, etc.)
      */
     List<Driver> findByDriverStatus(DriverStatus status);
-}
\ No newline at end of file
+
+    /**
+     * Registra la posizione corrente dell'autista.
+     * <p>
+     * La posizione è subito disponibile in memoria e viene salvata sul database a intervalli
+     * regolari insieme a quelle degli altri autisti.
+     * </p>
+     *
+     * @param username Utente autenticato: deve essere l'autista indicato.
+     * @throws AccessDeniedException se {@code driverId} non è l'autista autenticato.
+     */
+    void recordPosition(String username, Long driverId, double latitude, double longitude);
+
+    /**
+     * Registra un lotto di posizioni dell'autista autenticato: diventa l'ultima nota quella con
+     * l'istante di rilevamento più recente all'interno del lotto.
+     *
+     * @param username Utente autenticato.
+     * @throws AccessDeniedException se l'utente autenticato non è un autista.
+     */
+    void recordPositions(String username, List<DriverPositionDTO> positions);
+}
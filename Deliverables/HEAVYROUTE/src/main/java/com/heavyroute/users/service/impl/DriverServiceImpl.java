@@ -1,15 +1,21 @@
 package com.heavyroute.users.service.impl;
 
+import com.heavyroute.common.cache.LruTtlCache;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.users.dto.DriverPositionDTO;
 import com.heavyroute.users.dto.UserResponseDTO;
 import com.heavyroute.users.enums.DriverStatus;
 import com.heavyroute.users.model.Driver;
 import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.service.DriverPositionStore;
 import com.heavyroute.users.service.DriverService;
 import com.heavyroute.users.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,6 +33,11 @@ public class DriverServiceImpl implements DriverService {
 
     private final DriverRepository driverRepository;
     private final UserMapper userMapper;
+    private final DriverPositionStore positionStore;
+    private final TripService tripService;
+    private final LruTtlCache<String, Long> driverIds = new LruTtlCache<>(10_000, Duration.ofMinutes(30));
+    /** Autisti la cui stima di arrivo è stata aggiornata di recente (al massimo una volta ogni 10 secondi). */
+    private final LruTtlCache<Long, Boolean> recentEtaUpdates = new LruTtlCache<>(10_000, Duration.ofSeconds(10));
 
     /**
      * Recupera la lista di tutti gli autisti attualmente disponibili per l'assegnazione.
@@ -60,4 +71,71 @@ public class DriverServiceImpl implements DriverService {
     public List<Driver> findByDriverStatus(DriverStatus status) {
         return List.of();
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * La posizione aggiorna anche la stima di arrivo del viaggio in corso, come l'invio legato al viaggio.
+     * </p>
+     */
+    @Override
+    public void recordPosition(String username, Long driverId, double latitude, double longitude) {
+        if (!driverId.equals(ownDriverId(username))) {
+            throw new AccessDeniedException("Un autista può inviare solo la propria posizione");
+        }
+        positionStore.record(driverId, latitude, longitude);
+        updateEta(driverId, latitude, longitude);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Del lotto viene registrata solo la posizione più recente, che aggiorna anche la stima di arrivo
+     * del viaggio in corso.
+     * </p>
+     */
+    @Override
+    public void recordPositions(String username, List<DriverPositionDTO> positions) {
+        Long driverId = ownDriverId(username);
+        DriverPositionDTO newest = null;
+        for (DriverPositionDTO position : positions) {
+            if (newest == null || position.getRecordedAt() == null || newest.getRecordedAt() == null
+                    || !position.getRecordedAt().isBefore(newest.getRecordedAt())) {
+                newest = position;
+            }
+        }
+        if (newest != null) {
+            positionStore.record(driverId, newest.getLatitude(), newest.getLongitude());
+            updateEta(driverId, newest.getLatitude(), newest.getLongitude());
+        }
+    }
+
+    /**
+     * Passa la posizione alla stima di arrivo del viaggio in corso. La ricerca del viaggio richiede una
+     * query: le app inviano la posizione ogni pochi secondi, quindi viene eseguita al massimo una volta
+     * ogni 10 secondi per autista e le altre posizioni restano solo in memoria.
+     */
+    private void updateEta(Long driverId, double latitude, double longitude) {
+        if (recentEtaUpdates.get(driverId) != null) {
+            return;
+        }
+        recentEtaUpdates.put(driverId, Boolean.TRUE);
+        tripService.updateDriverEta(driverId, latitude, longitude);
+    }
+
+    /**
+     * ID dell'autista autenticato. Lo username non cambia durante la sessione: la corrispondenza viene
+     * tenuta in cache per non aggiungere una query a ogni posizione ricevuta.
+     *
+     * @throws AccessDeniedException se l'utente non è un autista.
+     */
+    private Long ownDriverId(String username) {
+        Long driverId = driverIds.get(username);
+        if (driverId == null) {
+            driverId = driverRepository.findIdByUsername(username)
+                    .orElseThrow(() -> new AccessDeniedException("L'utente " + username + " non è un autista"));
+            driverIds.put(username, driverId);
+        }
+        return driverId;
+    }
+}
@@ -0,0 +1,21 @@
+-- Converte drivers.driver_status da ordinale a nome dell'enum DriverStatus.
+--
+-- Driver.driverStatus era mappato senza @Enumerated, quindi persistito come ordinale: gli UPDATE
+-- condizionali nativi dovevano confrontare gli ordinali e un riordino dell'enum avrebbe cambiato
+-- silenziosamente il significato dei dati. Ora è @Enumerated(EnumType.STRING), come gli altri stati.
+--
+-- Da eseguire una sola volta (MySQL) sui database creati prima di questa modifica, prima di avviare
+-- la nuova versione: spring.jpa.hibernate.ddl-auto=update non modifica il tipo di una colonna esistente.
+-- Se Hibernate ha generato un vincolo CHECK sugli ordinali (es. "driver_status between 0 and 3"),
+-- va rimosso prima della conversione.
+
+ALTER TABLE drivers MODIFY driver_status VARCHAR(20) NOT NULL;
+
+UPDATE drivers
+SET driver_status = CASE driver_status
+    WHEN '0' THEN 'FREE'
+    WHEN '1' THEN 'ASSIGNED'
+    WHEN '2' THEN 'ON_THE_ROAD'
+    WHEN '3' THEN 'RESTING'
+    ELSE driver_status
+END;
@@ -0,0 +1,35 @@
+-- Sposta la polyline testuale delle rotte precedenti a route_geometries in una tabella dedicata.
+--
+-- La colonna routes.polyline era mappata come @Basic(fetch = LAZY), ignorato da Hibernate senza
+-- bytecode enhancement: il testo veniva letto a ogni caricamento di una rotta. Ora è l'entità
+-- LegacyRoutePolyline, associata con una @OneToOne lazy tramite routes.legacy_polyline_id.
+--
+-- Da eseguire una sola volta (MySQL) sui database creati prima di questa modifica, prima di avviare
+-- la nuova versione: spring.jpa.hibernate.ddl-auto=update crea tabelle e colonne ma non sposta i dati,
+-- e finché routes.polyline (NOT NULL) esiste ogni nuova rotta fallirebbe in inserimento.
+-- Nessuna rotta del vecchio schema ha una geometria compressa: vengono spostate tutte.
+--
+-- Geometria compressa, livelli semplificati e rettangolo di ingombro non si calcolano in SQL: li
+-- ricostruisce RouteGeometryBackfill all'avvio dell'applicazione, a blocchi, per ogni rotta spostata qui.
+
+CREATE TABLE IF NOT EXISTS route_legacy_polylines (
+    id       BIGINT   NOT NULL,
+    polyline LONGTEXT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO route_legacy_polylines (id, polyline)
+SELECT r.id, r.polyline
+FROM routes r
+WHERE r.polyline IS NOT NULL;
+
+ALTER TABLE routes ADD COLUMN legacy_polyline_id BIGINT NULL;
+
+UPDATE routes r
+JOIN route_legacy_polylines l ON l.id = r.id
+SET r.legacy_polyline_id = l.id;
+
+ALTER TABLE routes
+    ADD CONSTRAINT fk_routes_legacy_polyline FOREIGN KEY (legacy_polyline_id) REFERENCES route_legacy_polylines (id);
+
+ALTER TABLE routes DROP COLUMN polyline;
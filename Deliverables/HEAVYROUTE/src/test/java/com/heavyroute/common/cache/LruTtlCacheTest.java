@@ -0,0 +1,47 @@
+package com.heavyroute.common.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-CACHE-01: Suite Test - Cache LRU con TTL")
+class LruTtlCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("Eviction della voce usata meno di recente al superamento della capacità")
+    void put_ShouldEvictLeastRecentlyUsed_WhenFull() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(2, Duration.ofMinutes(1), clock::get);
+        cache.put("napoli", 1);
+        cache.put("pistoia", 2);
+        cache.get("napoli");       // "pistoia" diventa la meno recente
+        cache.put("genova", 3);
+
+        assertEquals(1, cache.get("napoli"));
+        assertNull(cache.get("pistoia"));
+        assertEquals(3, cache.get("genova"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Una voce scaduta viene considerata assente e conteggiata come miss")
+    void get_ShouldReturnNull_WhenExpired() {
+        LruTtlCache<String, Integer> cache = new LruTtlCache<>(10, Duration.ofSeconds(30), clock::get);
+        cache.put("napoli", 1);
+        assertEquals(1, cache.get("napoli"));
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertNull(cache.get("napoli"));
+        LruTtlCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.expirations());
+        assertEquals(0, stats.size());
+    }
+}
@@ -0,0 +1,139 @@
+package com.heavyroute.common.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-CACHE-03: Suite Test - Deduplica richieste concorrenti")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Richieste concorrenti sulla stessa chiave eseguono un solo caricamento")
+    void execute_ShouldCoalesceConcurrentCallers() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.execute("via argine 425, napoli", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+
+            // Il leader resta bloccato finché tutti gli altri chiamanti non si sono agganciati
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.stats().coalesced() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        SingleFlight.Stats stats = flight.stats();
+        assertEquals(1, stats.executions());
+        assertEquals(CALLERS - 1, stats.coalesced());
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    @DisplayName("Chi attende oltre il timeout riceve un errore senza bloccare il leader")
+    void execute_ShouldTimeoutFollower_WhenLeaderIsSlow() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = pool.submit(() -> flight.execute("genova", () -> {
+                started.countDown();
+                await(release);
+                return 7;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(IllegalStateException.class, () -> flight.execute("genova", () -> 0));
+
+            release.countDown();
+            assertEquals(7, leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, flight.stats().timeouts());
+    }
+
+    @Test
+    @DisplayName("La variante asincrona condivide il caricamento in corso senza bloccare i chiamanti")
+    void executeAsync_ShouldShareLoadWithoutBlocking() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<Integer> leader = flight.executeAsync("salerno", () -> {
+            loads.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<Integer> follower = flight.executeAsync("salerno", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(0);
+        });
+
+        assertFalse(leader.isDone());
+        assertFalse(follower.isDone());
+        response.complete(11);
+        assertEquals(11, leader.join());
+        assertEquals(11, follower.join());
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.stats().inFlight());
+    }
+
+    @Test
+    @DisplayName("Nella variante asincrona chi attende oltre il timeout riceve un errore, il leader prosegue")
+    void executeAsync_ShouldTimeoutFollower_WhenLeaderIsSlow() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofMillis(50));
+        CompletableFuture<Integer> response = new CompletableFuture<>();
+
+        CompletableFuture<Integer> leader = flight.executeAsync("genova", () -> response);
+        CompletableFuture<Integer> follower = flight.executeAsync("genova", () -> CompletableFuture.completedFuture(0));
+
+        CompletionException error = assertThrows(CompletionException.class, follower::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        response.complete(7);
+        assertEquals(7, leader.join());
+        assertEquals(1, flight.stats().timeouts());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
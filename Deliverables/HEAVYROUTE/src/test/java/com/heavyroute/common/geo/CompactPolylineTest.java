@@ -0,0 +1,49 @@
+package com.heavyroute.common.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-GEO-01: Suite Test - Memorizzazione compatta delle polyline")
+class CompactPolylineTest {
+
+    @Test
+    @DisplayName("Una polyline valida viene ricostruita identica ed occupa meno del testo")
+    void pack_ShouldRoundTripAndShrink_ValidPolyline() {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Tracciato Napoli -> Fisciano con piccole oscillazioni, come una geometria stradale reale
+            points.add(new double[]{40.8576 - i * 0.00004 + Math.sin(i / 7.0) * 0.0002, 14.3056 + i * 0.00024});
+        }
+        String polyline = PolylineCodec.encode(points);
+
+        byte[] packed = CompactPolyline.pack(polyline);
+
+        assertEquals(CompactPolyline.FORMAT_DELTA, packed[0]);
+        assertEquals(polyline, CompactPolyline.unpack(packed));
+        assertTrue(packed.length < polyline.getBytes(StandardCharsets.UTF_8).length / 2,
+                "atteso almeno il 50% di riduzione, ottenuti " + packed.length + " byte");
+    }
+
+    @Test
+    @DisplayName("Una stringa non ricostruibile come polyline viene conservata testualmente")
+    void pack_ShouldFallBackToRaw_WhenNotAPolyline() {
+        String notAPolyline = "geometria non valida ~ àèì";
+
+        byte[] packed = CompactPolyline.pack(notAPolyline);
+
+        assertEquals(CompactPolyline.FORMAT_RAW, packed[0]);
+        assertEquals(notAPolyline, CompactPolyline.unpack(packed));
+    }
+
+    @Test
+    @DisplayName("Errore esplicito per dati in formato sconosciuto")
+    void unpack_ShouldReject_UnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> CompactPolyline.unpack(new byte[]{42, 1, 2}));
+    }
+}
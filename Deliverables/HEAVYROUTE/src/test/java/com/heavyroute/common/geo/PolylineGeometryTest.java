@@ -0,0 +1,40 @@
+package com.heavyroute.common.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-GEO-04: Suite Test - Celle di griglia attraversate dai tracciati")
+class PolylineGeometryTest {
+
+    @Test
+    @DisplayName("Ogni punto del tracciato, anche a metà di un segmento lungo, cade in una cella indicizzata")
+    void cells_ShouldCoverEveryPointOfLongSegments() {
+        // Stima in linea d'aria Napoli -> Milano: un solo segmento di circa 650 km
+        double[] from = {40.8518, 14.2681};
+        double[] to = {45.4642, 9.1900};
+        Set<Long> cells = PolylineGeometry.cells(PolylineCodec.decodeScaled(PolylineCodec.encode(List.of(from, to))));
+
+        for (int i = 0; i <= 1000; i++) {
+            double lat = from[0] + (to[0] - from[0]) * i / 1000.0;
+            double lon = from[1] + (to[1] - from[1]) * i / 1000.0;
+            assertTrue(cells.containsAll(PolylineGeometry.cellsInBox(lat, lat, lon, lon)), "Punto scoperto: " + lat + ", " + lon);
+        }
+        // Proporzionale alla lunghezza, non al rettangolo di ingombro (circa 92 x 102 celle)
+        assertTrue(cells.size() < 1000, "Celle: " + cells.size());
+    }
+
+    @Test
+    @DisplayName("Un'area lontana dal tracciato non condivide celle con esso")
+    void cellsInBox_ShouldNotMatchDistantRoutes() {
+        Set<Long> route = PolylineGeometry.cells(PolylineCodec.decodeScaled(PolylineCodec.encode(List.of(
+                new double[]{40.6786, 14.7594}, new double[]{40.9146, 14.7906}))));
+
+        assertFalse(route.stream().anyMatch(PolylineGeometry.cellsInBox(41.10, 41.11, 14.75, 14.76)::contains));
+        assertTrue(route.stream().anyMatch(PolylineGeometry.cellsInBox(40.80, 40.81, 14.77, 14.78)::contains));
+    }
+}
@@ -0,0 +1,46 @@
+package com.heavyroute.common.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-GEO-02: Suite Test - Semplificazione Douglas-Peucker delle geometrie")
+class PolylineSimplifierTest {
+
+    @Test
+    @DisplayName("Un tracciato rettilineo si riduce agli estremi")
+    void simplify_ShouldCollapseStraightLine() {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new double[]{40.80 + i * 0.001, 14.30 + i * 0.001});
+        }
+        int[] scaled = PolylineCodec.decodeScaled(PolylineCodec.encode(points));
+
+        int[] simplified = PolylineSimplifier.simplifyScaled(scaled, 25);
+
+        assertArrayEquals(new int[]{scaled[0], scaled[1], scaled[scaled.length - 2], scaled[scaled.length - 1]}, simplified);
+    }
+
+    @Test
+    @DisplayName("Le deviazioni oltre la tolleranza vengono mantenute, quelle entro la tolleranza scartate")
+    void simplify_ShouldKeepOnlyDeviationsAboveTolerance() {
+        // Tracciato est-ovest con una piccola oscillazione (~11 m) e una deviazione netta (~1,1 km)
+        int[] scaled = {
+                4080000, 1430000,
+                4080010, 1430500,   // +11 m: entro la tolleranza
+                4080000, 1431000,
+                4081000, 1431500,   // +1,1 km: deviazione reale
+                4080000, 1432000
+        };
+
+        int[] simplified = PolylineSimplifier.simplifyScaled(scaled, 25);
+
+        assertArrayEquals(new int[]{4080000, 1430000, 4080000, 1431000, 4081000, 1431500, 4080000, 1432000}, simplified);
+        assertEquals(5, PolylineSimplifier.simplifyScaled(scaled, 5).length / 2,
+                "con tolleranza 5 m anche l'oscillazione deve restare");
+    }
+}
@@ -0,0 +1,41 @@
+package com.heavyroute.common.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-GEO-03: Suite Test - Avanzamento sul tracciato")
+class RouteProgressIndexTest {
+
+    /** Tracciato rettilineo verso est di circa 42 km, un vertice ogni ~420 m. */
+    private static String straightRoute() {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new double[]{40.8000, 14.3000 + i * 0.005});
+        }
+        return PolylineCodec.encode(points);
+    }
+
+    @Test
+    @DisplayName("La proiezione segue il suggerimento e ricade sulla griglia quando il mezzo è lontano")
+    void project_ShouldUseHintWindow_AndFallBackToGrid() {
+        RouteProgressIndex index = RouteProgressIndex.of(PolylineCodec.decodeScaled(straightRoute()));
+        assertEquals(100, index.segmentCount());
+
+        RouteProgressIndex.Projection start = index.project(40.8001, 14.3120, -1, 10, 150);
+        assertEquals(2, start.segment());
+        assertEquals(0.0120 * 111_320 * Math.cos(Math.toRadians(40.8)), start.alongMeters(), 5.0);
+        assertEquals(11.1, start.offsetMeters(), 0.5);
+
+        // Salto oltre la finestra del suggerimento: la griglia trova comunque il segmento
+        RouteProgressIndex.Projection jump = index.project(40.8000, 14.6020, start.segment(), 10, 150);
+        assertEquals(60, jump.segment());
+
+        assertNull(index.project(41.5000, 15.5000, -1, 10, 150));
+        assertTrue(index.project(41.5000, 15.5000, jump.segment(), 10, 150).offsetMeters() > 150);
+    }
+}
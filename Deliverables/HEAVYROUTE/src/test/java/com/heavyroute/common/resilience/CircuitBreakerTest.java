@@ -0,0 +1,78 @@
+package com.heavyroute.common.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-RESILIENCE-01: Suite Test - Circuit breaker verso servizi esterni")
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("mapbox", 4, 4, 0.5, Duration.ofSeconds(30), clock::get);
+
+    @Test
+    @DisplayName("Il circuito si apre solo raggiunto il minimo di chiamate e la soglia di fallimenti")
+    void onFailure_ShouldOpen_WhenFailureRateReachesThreshold() {
+        record(false);
+        record(true);
+        record(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state()); // solo 3 chiamate nella finestra
+
+        record(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state()); // la soglia si valuta sui fallimenti
+
+        record(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state()); // 3 fallimenti sulle ultime 4
+
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.stats().rejectedCalls());
+    }
+
+    @Test
+    @DisplayName("I fallimenti vecchi escono dalla finestra scorrevole")
+    void onSuccess_ShouldSlideWindow() {
+        record(true);
+        for (int i = 0; i < 4; i++) {
+            record(false);
+        }
+        record(true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state()); // 1/4 nelle ultime quattro
+    }
+
+    @Test
+    @DisplayName("Half-open: una sola chiamata di prova, che richiude o riapre il circuito")
+    void tryAcquirePermission_ShouldAllowSingleProbe_AfterOpenDuration() {
+        for (int i = 0; i < 4; i++) {
+            record(true);
+        }
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission()); // prova già in corso
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(2, breaker.stats().openings());
+        assertEquals(0, breaker.stats().bufferedCalls());
+    }
+
+    private void record(boolean failure) {
+        assertTrue(breaker.tryAcquirePermission());
+        if (failure) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
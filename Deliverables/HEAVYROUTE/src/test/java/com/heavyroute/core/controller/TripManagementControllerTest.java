@@ -4,9 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.heavyroute.auth.security.JwtUtils;
 import com.heavyroute.auth.security.SecurityConfig;
 import com.heavyroute.auth.service.impl.UserDetailsServiceImpl;
+import com.heavyroute.common.exception.ResourceNotFoundException;
+import com.heavyroute.core.dto.PositionUpdateDTO;
 import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripEtaDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
 import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.service.AssignmentPlanner;
+import com.heavyroute.core.service.SchedulePlanner;
 import com.heavyroute.core.service.TripService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,14 +20,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -38,6 +51,12 @@ class TripManagementControllerTest {
     @MockitoBean
     private TripService tripService;
 
+    @MockitoBean
+    private AssignmentPlanner assignmentPlanner;
+
+    @MockitoBean
+    private SchedulePlanner schedulePlanner;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -83,4 +102,90 @@ class TripManagementControllerTest {
                         .content(objectMapper.writeValueAsString(invalidDto)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "driver_rossi", roles = "DRIVER")
+    @DisplayName("TC-CORE-09: API Posizione - Stima aggiornata per l'autista del viaggio (Status 200)")
+    void updatePosition_ShouldPassAuthenticatedDriver() throws Exception {
+        when(tripService.updatePosition(eq(100L), eq("driver_rossi"), any())).thenReturn(
+                new TripEtaDTO(21.0, 20.0, 0.5, LocalDateTime.now().plusMinutes(20), LocalDateTime.now(), false));
+
+        mockMvc.perform(put("/api/trips/{id}/position", 100L).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PositionUpdateDTO(40.8, 14.55))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.remainingMinutes").value(20.0));
+
+        verify(tripService).updatePosition(eq(100L), eq("driver_rossi"), any());
+    }
+
+    @Test
+    @WithMockUser(username = "driver_bianchi", roles = "DRIVER")
+    @DisplayName("TC-CORE-10: API Posizione - Blocco Autista non Assegnato al Viaggio (Status 403)")
+    void updatePosition_ShouldReturn403_WhenTripBelongsToAnotherDriver() throws Exception {
+        when(tripService.updatePosition(eq(100L), eq("driver_bianchi"), any()))
+                .thenThrow(new AccessDeniedException("La posizione può essere inviata solo dall'autista assegnato al viaggio"));
+
+        mockMvc.perform(put("/api/trips/{id}/position", 100L).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new PositionUpdateDTO(40.8, 14.55))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente_verdi", roles = "CUSTOMER")
+    @DisplayName("TC-CORE-11: API Stima di Arrivo - Il Committente vede solo i propri viaggi (Status 404)")
+    void getTripEta_ShouldScopeCustomerToOwnTrips() throws Exception {
+        when(tripService.getTripEta(100L, "cliente_verdi")).thenThrow(new ResourceNotFoundException("Viaggio non trovato"));
+
+        mockMvc.perform(get("/api/trips/{id}/eta", 100L))
+                .andExpect(status().isNotFound());
+
+        verify(tripService).getTripEta(100L, "cliente_verdi");
+    }
+
+    @Test
+    @WithMockUser(username = "planner", roles = "LOGISTIC_PLANNER")
+    @DisplayName("TC-CORE-12: API Stima di Arrivo - Il Planner consulta qualsiasi viaggio (Status 200)")
+    void getTripEta_ShouldNotScopePlanner() throws Exception {
+        when(tripService.getTripEta(100L, null)).thenReturn(
+                new TripEtaDTO(21.0, 20.0, 0.5, LocalDateTime.now().plusMinutes(20), LocalDateTime.now(), false));
+
+        mockMvc.perform(get("/api/trips/{id}/eta", 100L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.progress").value(0.5));
+    }
+
+    @Test
+    @WithMockUser(username = "driver_rossi", roles = "DRIVER")
+    @DisplayName("TC-CORE-14: API Stato - L'autista aggiorna con le proprie credenziali, il Planner senza restrizioni")
+    void updateTripStatus_ShouldScopeDriverOnly() throws Exception {
+        mockMvc.perform(patch("/api/trips/{id}/status", 100L).with(csrf())
+                        .contentType(MediaType.TEXT_PLAIN).content("IN_TRANSIT"))
+                .andExpect(status().isOk());
+        verify(tripService).updateStatus(100L, "IN_TRANSIT", "driver_rossi");
+
+        doThrow(new AccessDeniedException("Stato non impostabile dall'autista: CANCELLED"))
+                .when(tripService).updateStatus(100L, "CANCELLED", "driver_rossi");
+        mockMvc.perform(patch("/api/trips/{id}/status", 100L).with(csrf())
+                        .contentType(MediaType.TEXT_PLAIN).content("CANCELLED"))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(patch("/api/trips/status").with(csrf())
+                        .with(user("planner").roles("LOGISTIC_PLANNER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"changes\": [{\"tripId\": 100, \"status\": \"CANCELLED\"}]}"))
+                .andExpect(status().isOk());
+        verify(tripService).updateStatuses(any(), isNull());
+    }
+
+    @Test
+    @WithMockUser(roles = "TRAFFIC_COORDINATOR")
+    @DisplayName("TC-CORE-15: API Stato a lotti - Blocco Traffic Coordinator (Status 403)")
+    void updateTripStatuses_ShouldReturn403_ForTrafficCoordinator() throws Exception {
+        mockMvc.perform(patch("/api/trips/status").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"changes\": [{\"tripId\": 100, \"status\": \"COMPLETED\"}]}"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,106 @@
+package com.heavyroute.core.planning;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@DisplayName("TC-PLANNING-01: Suite Test - Assegnamento a costo minimo")
+class AssignmentSolverTest {
+
+    private static final double F = AssignmentSolver.FORBIDDEN;
+
+    @Test
+    @DisplayName("Il costo totale coincide con l'ottimo per enumerazione, anche su matrici rettangolari")
+    void solve_ShouldMatchBruteForceOptimum() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    cost[i][j] = random.nextInt(5) == 0 ? F : random.nextInt(100);
+                }
+            }
+
+            int[] result = AssignmentSolver.solve(cost);
+
+            boolean[] usedColumns = new boolean[columns];
+            int pairs = 0;
+            double total = 0;
+            for (int i = 0; i < rows; i++) {
+                if (result[i] != AssignmentSolver.UNASSIGNED) {
+                    assertFalse(usedColumns[result[i]], "Colonna assegnata due volte");
+                    assertNotEquals(F, cost[i][result[i]], "Coppia non ammessa nel risultato");
+                    usedColumns[result[i]] = true;
+                    pairs++;
+                    total += cost[i][result[i]];
+                }
+            }
+            double[] best = bruteForce(cost, 0, new boolean[columns]);
+            assertEquals(best[0], pairs, "Numero di coppie non massimo");
+            assertEquals(best[1], total, 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Con più righe che colonne restano escluse le righe più costose")
+    void solve_ShouldLeaveMostExpensiveRowsUnassigned() {
+        double[][] cost = {
+                {10, 10},
+                {1, 2},
+                {50, 50},
+                {2, 1}
+        };
+
+        assertArrayEquals(new int[]{AssignmentSolver.UNASSIGNED, 0, AssignmentSolver.UNASSIGNED, 1},
+                AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    @DisplayName("Risolve 2000 x 2000 in pochi secondi")
+    void solve_ShouldHandleThousandsOfRows() {
+        int size = 2000;
+        Random random = new Random(7);
+        double[][] cost = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                cost[i][j] = random.nextInt(10) == 0 ? F : random.nextDouble() * 500;
+            }
+        }
+
+        long start = System.nanoTime();
+        int[] result = AssignmentSolver.solve(cost);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("📡 Assegnamento {}x{} risolto in {} ms", size, size, elapsedMs);
+
+        long assigned = java.util.Arrays.stream(result).filter(j -> j != AssignmentSolver.UNASSIGNED).count();
+        assertEquals(size, assigned);
+    }
+
+    /** @return {massimo numero di coppie ammesse, costo minimo con quel numero di coppie}. */
+    private static double[] bruteForce(double[][] cost, int row, boolean[] used) {
+        if (row == cost.length) {
+            return new double[]{0, 0};
+        }
+        double[] best = bruteForce(cost, row + 1, used);
+        for (int j = 0; j < used.length; j++) {
+            if (used[j] || cost[row][j] == F) {
+                continue;
+            }
+            used[j] = true;
+            double[] rest = bruteForce(cost, row + 1, used);
+            used[j] = false;
+            double[] candidate = {rest[0] + 1, rest[1] + cost[row][j]};
+            if (candidate[0] > best[0] || (candidate[0] == best[0] && candidate[1] < best[1])) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
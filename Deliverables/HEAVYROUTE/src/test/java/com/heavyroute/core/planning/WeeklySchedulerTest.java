@@ -0,0 +1,164 @@
+package com.heavyroute.core.planning;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@DisplayName("TC-PLANNING-03: Suite Test - Programmazione su più giorni con finestre di ritiro")
+class WeeklySchedulerTest {
+
+    private static final double DAY = 1440;
+    private static final double ROAD_FACTOR = 1.3;
+    private static final double SPEED_KMH = 60;
+
+    @Test
+    @DisplayName("Un solo equipaggio esegue in sequenza i viaggi di giorni diversi")
+    void solve_ShouldChainTripsAcrossDays() {
+        // Salerno -> Avellino il giorno 0, Avellino -> Salerno il giorno 1, Salerno -> Avellino il giorno 2
+        List<ScheduleProblem.Job> jobs = List.of(
+                job(2, 40.6824, 14.7681, 40.9146, 14.7906),
+                job(0, 40.6824, 14.7681, 40.9146, 14.7906),
+                job(1, 40.9146, 14.7906, 40.6824, 14.7681));
+        List<ScheduleProblem.Crew> crews = List.of(new ScheduleProblem.Crew(0, 40.6824, 14.7681));
+        ScheduleProblem problem = new ScheduleProblem(jobs, crews, allCompatible(3, 1), ROAD_FACTOR, SPEED_KMH);
+
+        Schedule schedule = WeeklyScheduler.solve(problem, 2, 1000, 1L, Runnable::run);
+
+        assertTrue(schedule.unassigned().isEmpty());
+        assertArrayEquals(new int[]{1, 2, 0}, schedule.sequences().get(0));
+        assertEquals(0.0, schedule.transferKm(), 1e-9);
+        assertFeasible(problem, schedule);
+    }
+
+    @Test
+    @DisplayName("Un viaggio senza veicolo compatibile o non raggiungibile nella finestra resta escluso")
+    void solve_ShouldLeaveIncompatibleAndLateTripsUnassigned() {
+        List<ScheduleProblem.Job> jobs = List.of(
+                job(0, 40.6824, 14.7681, 40.9146, 14.7906),
+                job(0, 45.4642, 9.1900, 45.0703, 7.6869),   // Milano: irraggiungibile entro la finestra
+                job(1, 40.6824, 14.7681, 40.9146, 14.7906)); // nessun veicolo compatibile
+        List<ScheduleProblem.Crew> crews = List.of(new ScheduleProblem.Crew(6 * 60, 40.6824, 14.7681));
+        boolean[][] compatible = allCompatible(3, 1);
+        compatible[2][0] = false;
+        ScheduleProblem problem = new ScheduleProblem(jobs, crews, compatible, ROAD_FACTOR, SPEED_KMH);
+
+        Schedule schedule = WeeklyScheduler.solve(problem, 1, 1000, 1L, Runnable::run);
+
+        assertEquals(List.of(1, 2), schedule.unassigned());
+        assertArrayEquals(new int[]{0}, schedule.sequences().get(0));
+    }
+
+    @Test
+    @DisplayName("Il risultato non dipende dal numero di thread")
+    void solve_ShouldBeDeterministicAcrossThreadCounts() {
+        ScheduleProblem problem = syntheticFleet(new Random(11), 20, 120);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Schedule sequential = WeeklyScheduler.solve(problem, 4, 5000, 7L, Runnable::run);
+            Schedule parallel = WeeklyScheduler.solve(problem, 4, 5000, 7L, pool);
+
+            assertEquals(sequential.unassigned(), parallel.unassigned());
+            assertEquals(sequential.transferKm(), parallel.transferKm(), 1e-9);
+            assertFeasible(problem, parallel);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Scalabilità su flotte sintetiche: soluzioni ammissibili in pochi secondi")
+    void solve_ShouldScaleOnSyntheticFleets() {
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (int crews : new int[]{50, 100, 200}) {
+                ScheduleProblem problem = syntheticFleet(new Random(crews), crews, crews * 10);
+
+                long start = System.nanoTime();
+                Schedule schedule = WeeklyScheduler.solve(problem, 4, 20000, 1L, pool);
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                log.info("📡 Programmazione: {} equipaggi, {} viaggi -> {} programmati, {} km a vuoto in {} ms",
+                        crews, problem.jobCount(), schedule.assignedCount(), Math.round(schedule.transferKm()), elapsedMs);
+
+                assertFeasible(problem, schedule);
+                assertTrue(schedule.assignedCount() > problem.jobCount() / 2);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Verifica indipendente dei vincoli: ogni viaggio al massimo una volta, solo su equipaggi
+     * compatibili, inizio nella finestra e dopo la fine del viaggio precedente più il trasferimento.
+     */
+    private static void assertFeasible(ScheduleProblem problem, Schedule schedule) {
+        boolean[] seen = new boolean[problem.jobCount()];
+        int assigned = 0;
+        for (int c = 0; c < problem.crewCount(); c++) {
+            double time = problem.availableFrom[c];
+            int previous = -1;
+            for (int job : schedule.sequences().get(c)) {
+                assertFalse(seen[job], "Viaggio programmato due volte: " + job);
+                seen[job] = true;
+                assigned++;
+                assertTrue(problem.compatible[job][c], "Veicolo non compatibile per il viaggio " + job);
+                double transfer = previous < 0 ? problem.startKm[c][job] : problem.transferKm[previous][job];
+                double start = schedule.startTimes()[job];
+                assertTrue(start >= time + transfer * problem.minutesPerKm - 1e-6, "Inizio anticipato: " + job);
+                assertTrue(start >= problem.windowStart[job] - 1e-6 && start <= problem.windowEnd[job] + 1e-6,
+                        "Inizio fuori finestra: " + job);
+                time = start + problem.duration(job);
+                previous = job;
+            }
+        }
+        assertEquals(problem.jobCount() - schedule.unassigned().size(), assigned);
+        for (int job : schedule.unassigned()) {
+            assertFalse(seen[job]);
+        }
+    }
+
+    /** Viaggi di 1-6 ore in Campania su una settimana, veicoli compatibili con ~70% dei carichi. */
+    private static ScheduleProblem syntheticFleet(Random random, int crewCount, int jobCount) {
+        List<ScheduleProblem.Job> jobs = new ArrayList<>();
+        for (int j = 0; j < jobCount; j++) {
+            double day = random.nextInt(7);
+            jobs.add(new ScheduleProblem.Job(day * DAY + 6 * 60, day * DAY + 20 * 60, 60 + random.nextInt(300),
+                    40.5 + random.nextDouble(), 14.0 + random.nextDouble() * 1.5,
+                    40.5 + random.nextDouble(), 14.0 + random.nextDouble() * 1.5));
+        }
+        List<ScheduleProblem.Crew> crews = new ArrayList<>();
+        for (int c = 0; c < crewCount; c++) {
+            crews.add(new ScheduleProblem.Crew(6 * 60, 40.5 + random.nextDouble(), 14.0 + random.nextDouble() * 1.5));
+        }
+        boolean[][] compatible = new boolean[jobCount][crewCount];
+        for (boolean[] row : compatible) {
+            for (int c = 0; c < crewCount; c++) {
+                row[c] = random.nextInt(10) < 7;
+            }
+        }
+        return new ScheduleProblem(jobs, crews, compatible, ROAD_FACTOR, SPEED_KMH);
+    }
+
+    private static ScheduleProblem.Job job(int day, double originLat, double originLon, double destinationLat, double destinationLon) {
+        return new ScheduleProblem.Job(day * DAY + 6 * 60, day * DAY + 20 * 60, 120,
+                originLat, originLon, destinationLat, destinationLon);
+    }
+
+    private static boolean[][] allCompatible(int jobs, int crews) {
+        boolean[][] compatible = new boolean[jobs][crews];
+        for (boolean[] row : compatible) {
+            Arrays.fill(row, true);
+        }
+        return compatible;
+    }
+}
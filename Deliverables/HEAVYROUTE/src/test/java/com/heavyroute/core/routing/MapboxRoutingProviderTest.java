@@ -0,0 +1,94 @@
+package com.heavyroute.core.routing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.impl.MapboxRoutingProvider;
+import com.heavyroute.core.service.MapboxClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-ROUTING-03: Suite Test - Provider di routing Mapbox")
+class MapboxRoutingProviderTest {
+
+    private static final GeoLocation NAPOLI = new GeoLocation(40.8518, 14.2681);
+    private static final GeoLocation SALERNO = new GeoLocation(40.6824, 14.7681);
+    private static final GeoLocation FISCIANO = new GeoLocation(40.7750, 14.7890);
+
+    @Mock private MapboxClient mapboxClient;
+
+    private MapboxRoutingProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new MapboxRoutingProvider(mapboxClient);
+        ReflectionTestUtils.setField(provider, "mapboxKey", "test-key");
+        ReflectionTestUtils.setField(provider, "directionsProfile", "driving");
+        ReflectionTestUtils.setField(provider, "baseUrl", "http://localhost");
+        ReflectionTestUtils.setField(provider, "matrixMaxCoordinates", 2);
+        ReflectionTestUtils.setField(provider, "matrixMaxParallelCalls", 1);
+        ReflectionTestUtils.setField(provider, "matrixDeadlineMs", 200L);
+    }
+
+    @Test
+    @DisplayName("La matrice a blocchi concatena i gruppi di richieste e riempie ogni cella")
+    void matrix_ShouldChainBlocks() throws Exception {
+        JsonNode block = new ObjectMapper().readTree("{\"code\":\"Ok\",\"durations\":[[1200]],\"distances\":[[30000]]}");
+        when(mapboxClient.getJson(anyString())).thenReturn(CompletableFuture.completedFuture(block));
+
+        RoutingMatrix matrix = provider.matrix(List.of(NAPOLI, SALERNO), List.of(FISCIANO));
+
+        verify(mapboxClient, times(2)).getJson(anyString());
+        assertEquals(20.0, matrix.durationsMin()[0][0]);
+        assertEquals(30.0, matrix.distancesKm()[1][0]);
+    }
+
+    @Test
+    @DisplayName("Una matrice che non termina entro la scadenza viene rifiutata senza attendere oltre")
+    void matrix_ShouldGiveUp_AfterDeadline() {
+        when(mapboxClient.getJson(anyString())).thenReturn(new CompletableFuture<>());
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> provider.matrix(List.of(NAPOLI, SALERNO), List.of(FISCIANO)));
+    }
+
+    @Test
+    @DisplayName("I vincoli entro i limiti del provider vengono inoltrati invariati")
+    void route_ShouldForwardConstraints_WithinProviderLimits() throws Exception {
+        JsonNode response = new ObjectMapper().readTree(
+                "{\"routes\":[{\"distance\":55000,\"duration\":3000,\"geometry\":\"_p~iF~ps|U\"}]}");
+        when(mapboxClient.getJson(anyString())).thenReturn(CompletableFuture.completedFuture(response));
+
+        RoutingResult result = provider.route(new RouteQuery(NAPOLI, FISCIANO, new RouteConstraints(4.5, 3.0, 20.0, 40000.0)));
+
+        assertEquals(55.0, result.distanceKm());
+        verify(mapboxClient).getJson(contains("max_height=4.5"));
+    }
+
+    @Test
+    @DisplayName("Un trasporto oltre i limiti del provider viene rifiutato invece di calcolare una rotta non verificata")
+    void route_ShouldReject_WhenLoadExceedsProviderLimits() {
+        RouteQuery oversized = new RouteQuery(NAPOLI, FISCIANO, new RouteConstraints(4.5, 12.0, 30.0, 40000.0));
+        RouteQuery overweight = new RouteQuery(NAPOLI, FISCIANO, new RouteConstraints(null, null, null, 150000.0));
+
+        assertThrows(BusinessRuleException.class, () -> provider.route(oversized));
+        assertTrue(provider.routeAsync(overweight).isCompletedExceptionally());
+        verifyNoInteractions(mapboxClient);
+    }
+}
@@ -0,0 +1,138 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.graph.RoadGraph;
+import com.heavyroute.core.routing.graph.RoadGraphLoader;
+import com.heavyroute.core.routing.impl.OfflineRoutingProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-ROUTING-01: Suite Test - Routing offline su grafo locale")
+class OfflineRoutingProviderTest {
+
+    private static final GeoLocation NAPOLI = new GeoLocation(40.8576, 14.3056);
+    private static final GeoLocation FISCIANO = new GeoLocation(40.7750, 14.7890);
+
+    private static RoadGraph graph;
+    private static OfflineRoutingProvider provider;
+
+    @BeforeAll
+    static void loadGraph() throws Exception {
+        try (InputStream input = OfflineRoutingProviderTest.class.getResourceAsStream("/routing/sample-graph.txt")) {
+            graph = RoadGraphLoader.load(input);
+        }
+        provider = new OfflineRoutingProvider(graph, 5000, 30, 300);
+    }
+
+    @Test
+    @DisplayName("Caricamento in formato compatto: archi bidirezionali duplicati, oneway no")
+    void load_ShouldBuildCompactGraph() {
+        assertEquals(7, graph.nodeCount());
+        assertEquals(13, graph.edgeCount());
+    }
+
+    @Test
+    @DisplayName("Il percorso più veloce usa il raccordo a senso unico nella direzione consentita")
+    void route_ShouldUseOnewayShortcut_InAllowedDirection() {
+        RoutingResult result = provider.route(new RouteQuery(NAPOLI, FISCIANO));
+
+        List<double[]> points = PolylineCodec.decode(result.polyline());
+        assertEquals(4, points.size()); // partenza, nodo 1, nodo 4, arrivo
+        assertEquals(30.0, result.distanceKm(), 0.01);
+        assertEquals(30000 / (130 / 3.6) / 60.0, result.durationMin(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Nel verso opposto preferisce l'autostrada più lunga ma più veloce")
+    void route_ShouldPreferFasterHighway_WhenOnewayNotAllowed() {
+        RoutingResult result = provider.route(new RouteQuery(FISCIANO, NAPOLI));
+
+        List<double[]> points = PolylineCodec.decode(result.polyline());
+        assertEquals(6, points.size()); // partenza, 4, 6, 5, 1, arrivo
+        assertEquals(48.0, result.distanceKm(), 0.01);
+        assertEquals(40.90, points.get(3)[0], 1e-5);
+    }
+
+    @Test
+    @DisplayName("Errore di business se l'arrivo non è raggiungibile o fuori dalla rete")
+    void route_ShouldThrow_WhenUnreachableOrOffNetwork() {
+        GeoLocation isolated = new GeoLocation(41.5000, 15.5000);
+        GeoLocation milano = new GeoLocation(45.4642, 9.1900);
+
+        assertThrows(BusinessRuleException.class, () -> provider.route(new RouteQuery(NAPOLI, isolated)));
+        assertThrows(BusinessRuleException.class, () -> provider.route(new RouteQuery(NAPOLI, milano)));
+    }
+
+    @Test
+    @DisplayName("Un carico alto esattamente quanto il limite della galleria può ancora attraversarla")
+    void route_ShouldAllowEdge_WhenDimensionEqualsLimit() {
+        RouteConstraints constraints = new RouteConstraints(4.0, 2.55, 13.6, 30_000.0);
+
+        RoutingResult result = provider.route(new RouteQuery(NAPOLI, FISCIANO, constraints));
+
+        assertEquals(30.0, result.distanceKm(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Gli archi con limiti incompatibili con il carico vengono esclusi")
+    void route_ShouldAvoidRestrictedEdges_ForOversizedLoad() {
+        RouteConstraints tall = new RouteConstraints(4.5, 2.55, 13.6, 30_000.0);
+        assertEquals(48.0, provider.route(new RouteQuery(NAPOLI, FISCIANO, tall)).distanceKm(), 0.01);
+
+        RouteConstraints tallAndHeavy = new RouteConstraints(4.5, 2.55, 13.6, 60_000.0);
+        RoutingResult result = provider.route(new RouteQuery(NAPOLI, FISCIANO, tallAndHeavy));
+        assertEquals(43.5, result.distanceKm(), 0.01); // statale lenta 1 -> 2 -> 3 -> 4
+        assertEquals(6, PolylineCodec.decode(result.polyline()).size());
+    }
+
+    @Test
+    @DisplayName("Errore di business se nessun percorso è compatibile con il profilo del carico")
+    void route_ShouldThrow_WhenNoCompatiblePathExists() {
+        RouteConstraints wideAndHeavy = new RouteConstraints(4.5, 4.0, 20.0, 60_000.0);
+
+        BusinessRuleException ex = assertThrows(BusinessRuleException.class,
+                () -> provider.route(new RouteQuery(NAPOLI, FISCIANO, wideAndHeavy)));
+        assertTrue(ex.getMessage().contains("compatibile"));
+    }
+
+    @Test
+    @DisplayName("I nodi vicini a una chiusura stradale non vengono attraversati")
+    void route_ShouldAvoidActiveClosures() {
+        GeoLocation closedViaduct = new GeoLocation(40.8801, 14.7002); // nodo 6 dell'autostrada
+        GeoLocation closedBridge = new GeoLocation(40.8100, 14.6000);  // nodo 3 della statale
+
+        RoutingResult detour = provider.route(new RouteQuery(FISCIANO, NAPOLI, RouteConstraints.NONE, List.of(closedViaduct)));
+        assertEquals(43.5, detour.distanceKm(), 0.01); // statale 4 -> 3 -> 2 -> 1
+
+        BusinessRuleException ex = assertThrows(BusinessRuleException.class, () -> provider.route(
+                new RouteQuery(FISCIANO, NAPOLI, RouteConstraints.NONE, List.of(closedViaduct, closedBridge))));
+        assertTrue(ex.getMessage().contains("chiusure"));
+    }
+
+    @Test
+    @DisplayName("La matrice uno-a-molti coincide con i singoli percorsi e marca NaN le coppie non collegate")
+    void matrix_ShouldMatchPairwiseRoutes() {
+        GeoLocation isolated = new GeoLocation(41.5000, 15.5000);
+        GeoLocation milano = new GeoLocation(45.4642, 9.1900);
+
+        RoutingMatrix matrix = provider.matrix(List.of(NAPOLI, FISCIANO), List.of(FISCIANO, NAPOLI, isolated, milano));
+
+        RoutingResult forward = provider.route(new RouteQuery(NAPOLI, FISCIANO));
+        RoutingResult backward = provider.route(new RouteQuery(FISCIANO, NAPOLI));
+        assertEquals(forward.distanceKm(), matrix.distancesKm()[0][0], 1e-6);
+        assertEquals(forward.durationMin(), matrix.durationsMin()[0][0], 1e-6);
+        assertEquals(backward.distanceKm(), matrix.distancesKm()[1][1], 1e-6);
+        assertEquals(backward.durationMin(), matrix.durationsMin()[1][1], 1e-6);
+        assertEquals(0.0, matrix.distancesKm()[0][1], 1e-6);
+        assertTrue(Double.isNaN(matrix.durationsMin()[0][2]));
+        assertTrue(Double.isNaN(matrix.durationsMin()[1][3]));
+    }
+}
@@ -0,0 +1,56 @@
+package com.heavyroute.core.routing;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.resources.enums.EventSeverity;
+import com.heavyroute.resources.repository.RoadEventRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-ROUTING-02: Suite Test - Chiusure stradali lungo il corridoio")
+class RoadClosureLocatorTest {
+
+    private static final GeoLocation NAPOLI = new GeoLocation(40.8576, 14.3056);
+    private static final GeoLocation FISCIANO = new GeoLocation(40.7750, 14.7890);
+
+    @Mock private RoadEventRepository roadEventRepository;
+
+    @Test
+    @DisplayName("Oltre il limite vengono mantenute le chiusure più vicine all'asse del corridoio")
+    void activeClosures_ShouldKeepNearestClosures_WhenOverLimit() {
+        GeoLocation farNorth = new GeoLocation(40.98, 14.55);
+        GeoLocation onAxis = new GeoLocation(40.8163, 14.5473);
+        GeoLocation farSouth = new GeoLocation(40.65, 14.55);
+        GeoLocation nearAxis = new GeoLocation(40.83, 14.45);
+        when(roadEventRepository.findActiveLocationsInArea(eq(EventSeverity.CRITICAL), any(),
+                anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(new ArrayList<>(List.of(farNorth, onAxis, farSouth, nearAxis)));
+
+        RoadClosureLocator locator = new RoadClosureLocator(roadEventRepository, 20, 2);
+
+        assertEquals(List.of(onAxis, nearAxis), locator.activeClosures(NAPOLI, FISCIANO));
+    }
+
+    @Test
+    @DisplayName("L'impronta dipende dall'insieme delle chiusure, non dal loro ordine")
+    void fingerprint_ShouldIdentifyClosureSet() {
+        GeoLocation first = new GeoLocation(40.80, 14.50);
+        GeoLocation second = new GeoLocation(40.82, 14.60);
+
+        assertEquals("", RoadClosureLocator.fingerprint(List.of()));
+        assertEquals(RoadClosureLocator.fingerprint(List.of(first, second)),
+                RoadClosureLocator.fingerprint(List.of(second, first)));
+        assertNotEquals(RoadClosureLocator.fingerprint(List.of(first)),
+                RoadClosureLocator.fingerprint(List.of(first, second)));
+    }
+}
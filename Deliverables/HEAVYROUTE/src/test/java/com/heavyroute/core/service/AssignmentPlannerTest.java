@@ -0,0 +1,186 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.AssignmentPlanDTO;
+import com.heavyroute.core.dto.AssignmentProposalDTO;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.LoadDetails;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Slf4j
+@DisplayName("TC-PLANNING-02: Suite Test - Proposta automatica di autisti e veicoli")
+class AssignmentPlannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 2);
+    private static final GeoLocation SALERNO = new GeoLocation(40.6824, 14.7681);
+    private static final GeoLocation NAPOLI = new GeoLocation(40.8518, 14.2681);
+
+    private final AssignmentPlanner planner = new AssignmentPlanner(null, null, null, null, 200);
+
+    @Test
+    @DisplayName("Abbina l'autista più vicino e il veicolo più piccolo compatibile con il carico")
+    void plan_ShouldMinimizeDeadheadAndSpareCapacity() {
+        List<Trip> trips = List.of(trip(1L, 30000.0, TODAY), trip(2L, 10000.0, TODAY));
+        List<GeoLocation> pickups = List.of(SALERNO, NAPOLI);
+        List<Driver> drivers = List.of(driver(10L, NAPOLI), driver(11L, SALERNO));
+        List<Vehicle> vehicles = List.of(vehicle("SMALL", 12000.0), vehicle("BIG", 40000.0));
+
+        AssignmentPlanDTO plan = planner.plan(trips, pickups, drivers, vehicles, TODAY);
+
+        assertTrue(plan.getUnassignedTripIds().isEmpty());
+        AssignmentProposalDTO first = proposalFor(plan, 1L);
+        AssignmentProposalDTO second = proposalFor(plan, 2L);
+        assertEquals(11L, first.getDriverId());
+        assertEquals("BIG", first.getVehiclePlate());
+        assertEquals(0.0, first.getDeadheadKm());
+        assertEquals(10L, second.getDriverId());
+        assertEquals("SMALL", second.getVehiclePlate());
+        assertEquals(2000.0, second.getSpareCapacityKg());
+    }
+
+    @Test
+    @DisplayName("Con risorse insufficienti restano esclusi i ritiri più lontani nel tempo e i carichi non trasportabili")
+    void plan_ShouldPrioritizeEarlierPickups() {
+        List<Trip> trips = List.of(
+                trip(1L, 10000.0, TODAY.plusDays(5)),
+                trip(2L, 10000.0, TODAY.plusDays(1)),
+                trip(3L, 90000.0, TODAY));
+        List<GeoLocation> pickups = List.of(SALERNO, NAPOLI, SALERNO);
+        // L'autista è a Salerno: senza priorità per data prenderebbe il viaggio 1
+        List<Driver> drivers = List.of(driver(10L, SALERNO));
+        List<Vehicle> vehicles = List.of(vehicle("V1", 40000.0), vehicle("V2", 40000.0));
+
+        AssignmentPlanDTO plan = planner.plan(trips, pickups, drivers, vehicles, TODAY);
+
+        assertEquals(List.of(2L), plan.getAssignments().stream().map(AssignmentProposalDTO::getTripId).toList());
+        assertEquals(Set.of(1L, 3L), new HashSet<>(plan.getUnassignedTripIds()));
+    }
+
+    @Test
+    @DisplayName("Pianifica migliaia di viaggi in pochi secondi senza risorse ripetute")
+    void plan_ShouldHandleThousandsOfTrips() {
+        Random random = new Random(3);
+        List<Trip> trips = new ArrayList<>();
+        List<GeoLocation> pickups = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            trips.add(trip((long) i, 5000.0 + random.nextInt(40000), TODAY.plusDays(random.nextInt(10))));
+            pickups.add(randomPosition(random));
+        }
+        List<Driver> drivers = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            drivers.add(driver((long) i, randomPosition(random)));
+            vehicles.add(vehicle("BN" + i, 20000.0 + random.nextInt(30000)));
+        }
+
+        long start = System.nanoTime();
+        AssignmentPlanDTO plan = planner.plan(trips, pickups, drivers, vehicles, TODAY);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("📡 Pianificazione automatica: {} viaggi, {} autisti, {} veicoli -> {} proposte in {} ms",
+                trips.size(), drivers.size(), vehicles.size(), plan.getAssignments().size(), elapsedMs);
+
+        assertEquals(trips.size(), plan.getAssignments().size() + plan.getUnassignedTripIds().size());
+        assertEquals(plan.getAssignments().size(),
+                plan.getAssignments().stream().map(AssignmentProposalDTO::getDriverId).distinct().count());
+        assertEquals(plan.getAssignments().size(),
+                plan.getAssignments().stream().map(AssignmentProposalDTO::getVehiclePlate).distinct().count());
+        assertTrue(plan.getAssignments().stream().allMatch(p -> p.getSpareCapacityKg() >= 0));
+    }
+
+    @Test
+    @DisplayName("Geocodifica in un solo lotto le partenze senza rotta ed esclude solo i viaggi non localizzati")
+    void proposePlan_ShouldExcludeOnlyUnlocatedTrips() {
+        TripRepository tripRepository = mock(TripRepository.class);
+        DriverRepository driverRepository = mock(DriverRepository.class);
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        ExternalMapService mapService = mock(ExternalMapService.class);
+        Trip routed = trip(1L, 10000.0, TODAY);
+        routed.setRoute(Route.builder().startLocation(SALERNO).build());
+        Trip geocoded = trip(2L, 10000.0, TODAY);
+        geocoded.getRequest().setOriginAddress("Napoli");
+        Trip unlocated = trip(3L, 10000.0, TODAY);
+        unlocated.getRequest().setOriginAddress("Via Inesistente 1, Salerno");
+        when(tripRepository.findForListingByStatus(TripStatus.IN_PLANNING)).thenReturn(List.of(routed, geocoded, unlocated));
+        // L'indirizzo non risolto (non trovato, provider lento o non disponibile) manca dal risultato
+        when(mapService.geocodeAll(List.of("Napoli", "Via Inesistente 1, Salerno"))).thenReturn(Map.of("Napoli", NAPOLI));
+        when(driverRepository.findAvailableDrivers()).thenReturn(List.of(driver(10L, SALERNO), driver(11L, NAPOLI)));
+        when(vehicleRepository.findByStatus(VehicleStatus.AVAILABLE))
+                .thenReturn(List.of(vehicle("V1", 40000.0), vehicle("V2", 40000.0), vehicle("V3", 40000.0)));
+
+        AssignmentPlanDTO plan = new AssignmentPlanner(tripRepository, driverRepository, vehicleRepository, mapService, 200)
+                .proposePlan();
+
+        assertEquals(10L, proposalFor(plan, 1L).getDriverId());
+        assertEquals(11L, proposalFor(plan, 2L).getDriverId());
+        assertEquals(List.of(3L), plan.getUnassignedTripIds());
+        verify(mapService, never()).geocode(any());
+    }
+
+    private static AssignmentProposalDTO proposalFor(AssignmentPlanDTO plan, Long tripId) {
+        return plan.getAssignments().stream()
+                .filter(p -> p.getTripId().equals(tripId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static GeoLocation randomPosition(Random random) {
+        return new GeoLocation(40.0 + random.nextDouble() * 2, 14.0 + random.nextDouble() * 2);
+    }
+
+    private static Trip trip(Long id, double weightKg, LocalDate pickupDate) {
+        LoadDetails load = new LoadDetails();
+        load.setWeightKg(weightKg);
+        load.setHeight(3.0);
+        load.setWidth(2.5);
+        load.setLength(12.0);
+        TransportRequest request = new TransportRequest();
+        request.setPickupDate(pickupDate);
+        request.setLoad(load);
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setTripCode("T-2026-" + id);
+        trip.setRequest(request);
+        return trip;
+    }
+
+    private static Driver driver(Long id, GeoLocation position) {
+        Driver driver = Driver.builder()
+                .firstName("Autista").lastName(String.valueOf(id))
+                .geoLocation(position).driverStatus(DriverStatus.FREE)
+                .build();
+        driver.setId(id);
+        return driver;
+    }
+
+    private static Vehicle vehicle(String plate, double maxLoadKg) {
+        return Vehicle.builder()
+                .licensePlate(plate)
+                .maxLoadCapacity(maxLoadKg).maxHeight(4.5).maxWidth(3.0).maxLength(20.0)
+                .status(VehicleStatus.AVAILABLE)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.resources.event.RoadEventReportedEvent;
+import com.heavyroute.resources.enums.EventSeverity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-CACHE-02: Suite Test - Cache di tratta Directions")
+class DirectionsCacheTest {
+
+    private final DirectionsCache cache = new DirectionsCache(100, 24, 250, 5, 1000, 168);
+
+    private final GeoLocation napoli = new GeoLocation(40.8576, 14.3056);
+    private final GeoLocation fisciano = new GeoLocation(40.7750, 14.7890);
+
+    @Test
+    @DisplayName("Coordinate vicine (stessa cella di griglia) condividono la stessa voce")
+    void get_ShouldHit_WhenCoordinatesFallInSameCell() {
+        String polyline = PolylineCodec.encode(List.of(
+                new double[]{napoli.getLatitude(), napoli.getLongitude()},
+                new double[]{fisciano.getLatitude(), fisciano.getLongitude()}));
+        cache.put(cache.keyFor(napoli, fisciano, "driving"), 55.0, 45.0, polyline, napoli, fisciano);
+
+        GeoLocation napoliShifted = new GeoLocation(40.8577, 14.3057);
+        DirectionsCache.CachedDirections hit = cache.get(cache.keyFor(napoliShifted, fisciano, "driving"));
+
+        assertNotNull(hit);
+        assertEquals(55.0, hit.distanceKm());
+        assertNull(cache.get(cache.keyFor(napoli, fisciano, "driving-traffic")));
+    }
+
+    @Test
+    @DisplayName("Un evento stradale invalida solo le tratte che ne attraversano l'area")
+    void onRoadEventReported_ShouldInvalidateOnlyCrossingLanes() {
+        GeoLocation genova = new GeoLocation(44.4141, 8.9137);
+        GeoLocation milano = new GeoLocation(45.4626, 9.1866);
+        cache.put(cache.keyFor(napoli, fisciano, "driving"), 55.0, 45.0, "invalid!", napoli, fisciano);
+        cache.put(cache.keyFor(genova, milano, "driving"), 150.0, 110.0, "invalid!", genova, milano);
+
+        cache.onRoadEventReported(new RoadEventReportedEvent(1L, new GeoLocation(40.80, 14.50), EventSeverity.CRITICAL));
+
+        assertNull(cache.get(cache.keyFor(napoli, fisciano, "driving")));
+        assertNotNull(cache.get(cache.keyFor(genova, milano, "driving")));
+        // L'ultimo percorso noto resta disponibile come ripiego se il provider non risponde
+        assertNotNull(cache.getStale(cache.keyFor(napoli, fisciano, "driving")));
+    }
+}
@@ -0,0 +1,73 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.routing.RouteQuery;
+import com.heavyroute.core.routing.RoutingMatrix;
+import com.heavyroute.core.routing.RoutingProvider;
+import com.heavyroute.core.routing.RoutingResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-MATRIX-01: Suite Test - Matrice distanze con cache per fascia oraria")
+class DistanceMatrixServiceTest {
+
+    private static final GeoLocation A = new GeoLocation(40.8576, 14.3056);
+    private static final GeoLocation B = new GeoLocation(40.7750, 14.7890);
+    private static final GeoLocation C = new GeoLocation(40.9146, 14.7906);
+
+    /** Provider fittizio: durata = latitudine origine + longitudine destinazione; registra le dimensioni richieste. */
+    private static class RecordingProvider implements RoutingProvider {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public String profile() {
+            return "test";
+        }
+
+        @Override
+        public RoutingResult route(RouteQuery query) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public RoutingMatrix matrix(List<GeoLocation> sources, List<GeoLocation> destinations) {
+            calls.add(sources.size() + "x" + destinations.size());
+            RoutingMatrix matrix = RoutingMatrix.unreachable(sources.size(), destinations.size());
+            for (int i = 0; i < sources.size(); i++) {
+                for (int j = 0; j < destinations.size(); j++) {
+                    matrix.durationsMin()[i][j] = sources.get(i).getLatitude() + destinations.get(j).getLongitude();
+                    matrix.distancesKm()[i][j] = 1.0;
+                }
+            }
+            return matrix;
+        }
+    }
+
+    @Test
+    @DisplayName("Ricalcola solo righe e colonne mancanti, e tutto al cambio di fascia oraria")
+    void matrix_ShouldReuseCachedCells_WithinSlice() {
+        RecordingProvider provider = new RecordingProvider();
+        AtomicLong now = new AtomicLong(0);
+        DistanceMatrixService service = new DistanceMatrixService(provider, 1000, 100, 15, now::get);
+
+        service.matrix(List.of(A, B), List.of(C));
+        RoutingMatrix second = service.matrix(List.of(A, B), List.of(C, A));
+
+        assertEquals(List.of("2x1", "2x1"), provider.calls); // solo la nuova colonna
+        assertEquals(A.getLatitude() + C.getLongitude(), second.durationsMin()[0][0], 1e-9);
+        assertEquals(B.getLatitude() + A.getLongitude(), second.durationsMin()[1][1], 1e-9);
+
+        service.matrix(List.of(A, B), List.of(C, A));
+        assertEquals(2, provider.calls.size(), "Nessun ricalcolo a cache piena");
+
+        now.set(15 * 60_000L);
+        service.matrix(List.of(A, B), List.of(C, A));
+        assertEquals(List.of("2x1", "2x1", "2x2"), provider.calls);
+    }
+}
@@ -0,0 +1,66 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.model.Route;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-ETA-01: Suite Test - Stima di arrivo dei viaggi in corso")
+class EtaEngineTest {
+
+    private final EtaEngine engine = new EtaEngine(100, 1, 10, 150);
+
+    /** Rotta rettilinea verso est di circa 42 km, un vertice ogni ~420 m. */
+    private static Route straightRoute(long id) {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new double[]{40.8000, 14.3000 + i * 0.005});
+        }
+        Route route = Route.builder().routeDistance(42.0).routeDuration(40.0).build();
+        route.setId(id);
+        route.setPolyline(PolylineCodec.encode(points));
+        return route;
+    }
+
+    @Test
+    @DisplayName("L'ETA decresce con l'avanzamento e resta ferma se il mezzo esce dal tracciato")
+    void update_ShouldReduceRemaining_AndKeepLastProgressWhenOffRoute() {
+        Route route = straightRoute(7L);
+
+        TripEtaDTO first = engine.update(1L, route, 40.8000, 14.3500);
+        TripEtaDTO second = engine.update(1L, route, 40.8000, 14.5500);
+        assertEquals(0.10, first.getProgress(), 0.01);
+        assertEquals(0.50, second.getProgress(), 0.01);
+        assertEquals(20.0, second.getRemainingMinutes(), 0.5);
+        assertFalse(second.isOffRoute());
+
+        TripEtaDTO detour = engine.update(1L, route, 40.8100, 14.5600);
+        assertTrue(detour.isOffRoute());
+        assertEquals(second.getRemainingKm(), detour.getRemainingKm(), 1e-9);
+
+        assertTrue(engine.current(1L, 7L).isPresent());
+        assertTrue(engine.current(1L, 8L).isEmpty(), "Una rotta ricalcolata invalida la stima");
+    }
+
+    @Test
+    @DisplayName("Un viaggio concluso non conserva la stima; una rotta senza geometria non ne produce")
+    void forget_ShouldDropProgress_AndUpdateShouldSkipRoutesWithoutGeometry() {
+        Route route = straightRoute(1_000L);
+        engine.update(2L, route, 40.8000, 14.3500);
+        assertTrue(engine.current(2L, 1_000L).isPresent(), "Il confronto sulla rotta non dipende dall'identità del Long");
+
+        engine.forget(2L);
+        assertTrue(engine.current(2L, 1_000L).isEmpty());
+
+        Route empty = Route.builder().routeDistance(42.0).routeDuration(40.0).build();
+        empty.setId(9L);
+        assertNull(engine.update(3L, empty, 40.8000, 14.3500));
+        assertTrue(engine.current(3L, 9L).isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.routing.RoadClosureLocator;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.routing.RoutingProvider;
+import com.heavyroute.core.routing.RoutingResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-RESILIENCE-02: Suite Test - Calcolo rotta e geocoding con provider non disponibile")
+class ExternalMapServiceTest {
+
+    private static final String NAPOLI = "Napoli";
+    private static final String FISCIANO = "Campus Fisciano";
+    private static final GeoLocation NAPOLI_HUB = new GeoLocation(40.8518, 14.2681);
+    private static final GeoLocation FISCIANO_HUB = new GeoLocation(40.7750, 14.7890);
+    private static final String UNKNOWN = "Via Inesistente 1, Salerno";
+    private static final String OUTAGE = "Via Roma 1, Avellino";
+    private static final GeoLocation VIA_POINT = new GeoLocation(40.8000, 14.5000);
+
+    @Mock private MapboxClient mapboxClient;
+    @Mock private GeocodingCache geocodingCache;
+    @Mock private RoutingProvider routingProvider;
+    @Mock private RoadClosureLocator roadClosureLocator;
+
+    private final DirectionsCache directionsCache = new DirectionsCache(100, 24, 250, 5, 1000, 168);
+
+    private ExternalMapService mapService;
+
+    @BeforeEach
+    void setUp() {
+        mapService = new ExternalMapService(mapboxClient, geocodingCache, directionsCache, routingProvider, roadClosureLocator);
+        ReflectionTestUtils.setField(mapService, "routeDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(mapService, "degradedRoadFactor", 1.3);
+        ReflectionTestUtils.setField(mapService, "degradedSpeedKmh", 60.0);
+        ReflectionTestUtils.setField(mapService, "closureClearanceMeters", 500.0);
+
+        // I passi asincroni vengono eseguiti sul thread del test
+        lenient().when(mapboxClient.supplyAsync(any())).thenAnswer(inv ->
+                CompletableFuture.supplyAsync((Supplier<?>) inv.getArgument(0), Runnable::run));
+        lenient().when(routingProvider.profile()).thenReturn("driving");
+    }
+
+    @Test
+    @DisplayName("Senza percorsi noti la rotta è una stima in linea d'aria marcata come provvisoria")
+    void calculateFullRoute_ShouldEstimate_WhenNoStaleRoute() {
+        providerDown();
+
+        Route route = mapService.calculateFullRoute(NAPOLI, FISCIANO);
+
+        assertTrue(route.isProvisional());
+        assertEquals(2, PolylineCodec.decode(route.getPolyline()).size());
+        // Distanza in linea d'aria (~45 km) maggiorata del fattore stradale
+        assertTrue(route.getRouteDistance() > 50 && route.getRouteDistance() < 65, "Distanza: " + route.getRouteDistance());
+        assertEquals(route.getRouteDistance(), route.getRouteDuration(), 0.01, "A 60 km/h i minuti coincidono con i km");
+    }
+
+    @Test
+    @DisplayName("L'ultimo percorso noto viene riusato se non attraversa chiusure attive")
+    void calculateFullRoute_ShouldReuseStaleRoute_WhenNoClosureOnPath() {
+        providerDown();
+        String stalePolyline = cacheStaleRoute(List.of());
+
+        Route route = mapService.calculateFullRoute(NAPOLI, FISCIANO);
+
+        assertTrue(route.isProvisional());
+        assertEquals(stalePolyline, route.getPolyline());
+        assertEquals(55.0, route.getRouteDistance());
+    }
+
+    @Test
+    @DisplayName("L'ultimo percorso noto viene scartato se passa da una chiusura attiva")
+    void calculateFullRoute_ShouldDiscardStaleRoute_WhenClosureOnPath() {
+        providerDown();
+        // Percorso memorizzato con la stessa chiusura attiva, ma che ci passa comunque accanto
+        cacheStaleRoute(List.of(VIA_POINT));
+        when(roadClosureLocator.activeClosures(any(), any())).thenReturn(List.of(VIA_POINT));
+
+        Route route = mapService.calculateFullRoute(NAPOLI, FISCIANO);
+
+        assertTrue(route.isProvisional());
+        assertEquals(2, PolylineCodec.decode(route.getPolyline()).size(), "Stima in linea d'aria al posto del percorso noto");
+    }
+
+    @Test
+    @DisplayName("Una chiusura entrata in vigore dopo il calcolo rende non valido il percorso in cache")
+    void calculateFullRoute_ShouldRecompute_WhenActiveClosuresChange() {
+        when(routingProvider.routeAsync(any())).thenReturn(CompletableFuture.completedFuture(directRoute()));
+
+        mapService.calculateFullRoute(NAPOLI, FISCIANO);
+        mapService.calculateFullRoute(NAPOLI, FISCIANO);
+        when(roadClosureLocator.activeClosures(any(), any())).thenReturn(List.of(VIA_POINT));
+        Route rerouted = mapService.calculateFullRoute(NAPOLI, FISCIANO);
+
+        verify(routingProvider, times(2)).routeAsync(any());
+        assertEquals(RoadClosureLocator.fingerprint(List.of(VIA_POINT)), rerouted.getClosuresKey());
+    }
+
+    @Test
+    @DisplayName("Il calcolo asincrono non tiene occupato un thread in attesa del provider")
+    void calculateFullRouteAsync_ShouldNotBlock_WhileProviderResponds() {
+        CompletableFuture<RoutingResult> response = new CompletableFuture<>();
+        when(routingProvider.routeAsync(any())).thenReturn(response);
+
+        // I passi sul pool dei worker girano sul thread del test: un'attesa bloccante non restituirebbe il controllo
+        CompletableFuture<Route> route = mapService.calculateFullRouteAsync(NAPOLI, FISCIANO, RouteConstraints.NONE);
+
+        assertFalse(route.isDone());
+        response.complete(directRoute());
+        assertEquals(55.0, route.join().getRouteDistance());
+        assertFalse(route.join().isProvisional());
+    }
+
+    @Test
+    @DisplayName("Il geocoding a lotti omette solo gli indirizzi non risolti")
+    void geocodeAll_ShouldSkipUnresolvedAddresses() {
+        when(geocodingCache.resolveOnceAsync(eq(GeocodingCache.normalize(UNKNOWN)), any()))
+                .thenReturn(CompletableFuture.failedFuture(new BusinessRuleException("Nessun risultato per: " + UNKNOWN)));
+        when(geocodingCache.resolveOnceAsync(eq(GeocodingCache.normalize(OUTAGE)), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Servizio di geocoding non disponibile")));
+
+        Map<String, GeoLocation> located = mapService.geocodeAll(List.of(NAPOLI, UNKNOWN, OUTAGE, NAPOLI));
+
+        assertEquals(Map.of(NAPOLI, NAPOLI_HUB), located);
+    }
+
+    @Test
+    @DisplayName("Il geocoding a lotti non attende oltre la scadenza un provider che non risponde")
+    void geocodeAll_ShouldGiveUp_AfterDeadline() {
+        ReflectionTestUtils.setField(mapService, "routeDeadlineMs", 100L);
+        when(geocodingCache.resolveOnceAsync(any(), any())).thenReturn(new CompletableFuture<>());
+
+        long start = System.nanoTime();
+        Map<String, GeoLocation> located = mapService.geocodeAll(List.of(FISCIANO, UNKNOWN, OUTAGE));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Map.of(FISCIANO, FISCIANO_HUB), located);
+        assertTrue(elapsedMs < 5_000, "Attesa: " + elapsedMs + " ms");
+    }
+
+    private void providerDown() {
+        when(routingProvider.routeAsync(any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Mapbox non raggiungibile")));
+    }
+
+    private static RoutingResult directRoute() {
+        return new RoutingResult(55.0, 50.0, PolylineCodec.encode(List.of(
+                new double[]{NAPOLI_HUB.getLatitude(), NAPOLI_HUB.getLongitude()},
+                new double[]{FISCIANO_HUB.getLatitude(), FISCIANO_HUB.getLongitude()})));
+    }
+
+    /**
+     * Registra un percorso per la tratta e lo rimuove dalla cache principale, lasciandolo solo come ultimo noto.
+     *
+     * @param closures Chiusure attive al momento del calcolo del percorso.
+     */
+    private String cacheStaleRoute(List<GeoLocation> closures) {
+        String polyline = PolylineCodec.encode(List.of(
+                new double[]{NAPOLI_HUB.getLatitude(), NAPOLI_HUB.getLongitude()},
+                new double[]{VIA_POINT.getLatitude(), VIA_POINT.getLongitude()},
+                new double[]{FISCIANO_HUB.getLatitude(), FISCIANO_HUB.getLongitude()}));
+        DirectionsCache.LaneKey key = directionsCache.keyFor(NAPOLI_HUB, FISCIANO_HUB, "driving", RouteConstraints.NONE,
+                RoadClosureLocator.fingerprint(closures));
+        directionsCache.put(key, 55.0, 50.0, polyline, NAPOLI_HUB, FISCIANO_HUB);
+        directionsCache.invalidateAround(VIA_POINT);
+        return polyline;
+    }
+}
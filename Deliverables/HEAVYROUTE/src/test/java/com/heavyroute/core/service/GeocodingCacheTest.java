@@ -0,0 +1,25 @@
+package com.heavyroute.core.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-CACHE-04: Suite Test - Normalizzazione chiavi di geocoding")
+class GeocodingCacheTest {
+
+    @Test
+    @DisplayName("Il suffisso nazione viene rimosso con qualsiasi spaziatura attorno alla virgola")
+    void normalize_ShouldStripCountrySuffix() {
+        assertEquals("via roma 1, salerno", GeocodingCache.normalize("Via Roma 1, Salerno, Italia"));
+        assertEquals("via roma 1, salerno", GeocodingCache.normalize("Via  Roma 1,Salerno ,  ITALY "));
+        assertEquals("via roma 1, salerno", GeocodingCache.normalize("via roma 1, salerno"));
+    }
+
+    @Test
+    @DisplayName("Un toponimo che termina per Italia senza virgola resta parte dell'indirizzo")
+    void normalize_ShouldKeepStreetNamedItalia() {
+        assertEquals("corso italia", GeocodingCache.normalize("Corso Italia"));
+        assertEquals("salerno, corso italia", GeocodingCache.normalize("Salerno, Corso Italia, Italia"));
+    }
+}
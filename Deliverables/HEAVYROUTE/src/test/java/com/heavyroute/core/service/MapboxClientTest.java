@@ -0,0 +1,97 @@
+package com.heavyroute.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TC-RESILIENCE-04: Suite Test - Bulkhead del client Mapbox")
+class MapboxClientTest {
+
+    /** Un worker, coda di un elemento, una sola chiamata HTTP contemporanea. */
+    private final MapboxClient client = new MapboxClient(new ObjectMapper(), 1000, 2000, 1, 1, 1, 20, 10, 0.5, 30);
+
+    @Test
+    @DisplayName("Con worker e coda saturi l'attività fallisce subito invece di accodarsi")
+    void supplyAsync_ShouldFailFast_WhenWorkersSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = client.supplyAsync(() -> awaitQuietly(release));
+            CompletableFuture<Boolean> queued = client.supplyAsync(() -> awaitQuietly(release));
+            CompletableFuture<Boolean> rejected = client.supplyAsync(() -> true);
+
+            assertTrue(rejected.isCompletedExceptionally());
+            CompletionException error = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(ServiceUnavailableException.class, error.getCause());
+
+            release.countDown();
+            assertTrue(running.get());
+            assertTrue(queued.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Oltre il limite di chiamate contemporanee la richiesta viene rifiutata senza contattare il provider")
+    void getJson_ShouldFailFast_WhenNoCallPermitLeft() throws Exception {
+        // Il server accetta la connessione ma non risponde: la prima chiamata resta in attesa
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            String url = "http://localhost:" + silentServer.getLocalPort() + "/directions";
+            CompletableFuture<?> pending = client.getJson(url);
+            CompletableFuture<?> rejected = client.getJson(url);
+
+            assertFalse(pending.isDone());
+            assertTrue(rejected.isCompletedExceptionally());
+            CompletionException error = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(ServiceUnavailableException.class, error.getCause());
+            pending.cancel(true);
+        }
+    }
+
+    @Test
+    @DisplayName("Le continuazioni delle risposte girano sul pool limitato dei worker")
+    void getJson_ShouldCompleteOnWorkerThreads() throws Exception {
+        CountDownLatch respond = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/directions", exchange -> {
+            awaitQuietly(respond);
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            CompletableFuture<String> thread = client.getJson("http://127.0.0.1:" + server.getAddress().getPort() + "/directions")
+                    .thenApply(json -> Thread.currentThread().getName());
+            respond.countDown();
+
+            assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("mapbox-worker-"), thread.get());
+        } finally {
+            respond.countDown();
+            server.stop(0);
+        }
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
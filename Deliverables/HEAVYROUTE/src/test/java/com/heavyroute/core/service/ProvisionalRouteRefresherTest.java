@@ -0,0 +1,88 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.core.repository.TripRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-RESILIENCE-03: Suite Test - Ricalcolo periodico delle rotte provvisorie")
+class ProvisionalRouteRefresherTest {
+
+    @Mock private TripRepository tripRepository;
+    @Mock private TripService tripService;
+    @Mock private MapboxClient mapboxClient;
+
+    @Test
+    @DisplayName("Un viaggio in errore non blocca i successivi e viene riprovato solo dopo l'attesa")
+    void refresh_ShouldContinueAfterFailure_AndBackOffPoisonedTrip() {
+        ProvisionalRouteRefresher refresher = new ProvisionalRouteRefresher(tripRepository, tripService, mapboxClient, 5, 60_000);
+        when(mapboxClient.isAvailable()).thenReturn(true);
+        when(tripRepository.findIdsWithProvisionalRoute(anyList(), anyLong(), any())).thenReturn(List.of(1L, 2L, 3L));
+        when(tripService.refreshProvisionalRoute(1L)).thenThrow(new IllegalStateException("Dati del viaggio incoerenti"));
+        when(tripService.refreshProvisionalRoute(2L)).thenReturn(true);
+        when(tripService.refreshProvisionalRoute(3L)).thenReturn(true);
+
+        assertEquals(2, refresher.refreshProvisionalRoutes());
+        refresher.refreshProvisionalRoutes();
+
+        verify(tripService, times(1)).refreshProvisionalRoute(1L);
+        verify(tripService, times(2)).refreshProvisionalRoute(3L);
+        // Elenco esaurito in un solo blocco: l'esecuzione successiva riparte dall'inizio
+        verify(tripRepository, times(2)).findIdsWithProvisionalRoute(anyList(), eq(0L), any());
+    }
+
+    @Test
+    @DisplayName("Blocchi successivi riprendono dall'ultimo viaggio elaborato")
+    void refresh_ShouldResumeFromLastProcessedTrip() {
+        ProvisionalRouteRefresher refresher = new ProvisionalRouteRefresher(tripRepository, tripService, mapboxClient, 2, 60_000);
+        when(mapboxClient.isAvailable()).thenReturn(true);
+        when(tripRepository.findIdsWithProvisionalRoute(anyList(), eq(0L), any())).thenReturn(List.of(1L, 2L));
+        when(tripRepository.findIdsWithProvisionalRoute(anyList(), eq(2L), any())).thenReturn(List.of(5L));
+        when(tripService.refreshProvisionalRoute(anyLong())).thenReturn(true);
+
+        assertEquals(2, refresher.refreshProvisionalRoutes());
+        assertEquals(1, refresher.refreshProvisionalRoutes());
+        refresher.refreshProvisionalRoutes();
+
+        verify(tripRepository, times(2)).findIdsWithProvisionalRoute(anyList(), eq(0L), any());
+        verify(tripService).refreshProvisionalRoute(5L);
+    }
+
+    @Test
+    @DisplayName("Un provider ancora in difficoltà interrompe il blocco senza penalizzare il viaggio")
+    void refresh_ShouldStop_WhenProviderStillDegraded() {
+        ProvisionalRouteRefresher refresher = new ProvisionalRouteRefresher(tripRepository, tripService, mapboxClient, 5, 60_000);
+        when(mapboxClient.isAvailable()).thenReturn(true);
+        when(tripRepository.findIdsWithProvisionalRoute(anyList(), anyLong(), any())).thenReturn(List.of(1L, 2L));
+        when(tripService.refreshProvisionalRoute(1L))
+                .thenThrow(new ServiceUnavailableException("Servizio cartografico ancora in modalità degradata"))
+                .thenReturn(true);
+        when(tripService.refreshProvisionalRoute(2L)).thenReturn(true);
+
+        assertEquals(0, refresher.refreshProvisionalRoutes());
+        verify(tripService, never()).refreshProvisionalRoute(2L);
+
+        assertEquals(2, refresher.refreshProvisionalRoutes());
+        verify(tripService, times(2)).refreshProvisionalRoute(1L);
+    }
+
+    @Test
+    @DisplayName("Con il circuito aperto non viene letto né ricalcolato nulla")
+    void refresh_ShouldSkip_WhenCircuitOpen() {
+        ProvisionalRouteRefresher refresher = new ProvisionalRouteRefresher(tripRepository, tripService, mapboxClient, 5, 60_000);
+        when(mapboxClient.isAvailable()).thenReturn(false);
+
+        assertEquals(0, refresher.refreshProvisionalRoutes());
+        verifyNoInteractions(tripRepository, tripService);
+    }
+}
@@ -0,0 +1,75 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import com.heavyroute.core.event.TransportRequestCreatedEvent;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.repository.StagedRouteRepository;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.routing.RoadClosureLocator;
+import com.heavyroute.core.routing.RouteConstraints;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-RESILIENCE-05: Suite Test - Pre-calcolo rotte con pool saturo")
+class RoutePrecomputationServiceTest {
+
+    @Mock private ExternalMapService externalMapService;
+    @Mock private StagedRouteRepository stagedRouteRepository;
+    @Mock private TransportRequestRepository requestRepository;
+    @Mock private RoadClosureLocator roadClosureLocator;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Un pre-calcolo rifiutato dal pool segna la richiesta come fallita invece di lasciarla in attesa")
+    void onRequestCreated_ShouldMarkFailed_WhenExecutorRejects() {
+        RoutePrecomputationService service = new RoutePrecomputationService(externalMapService, stagedRouteRepository,
+                requestRepository, roadClosureLocator, new TransactionTemplate(transactionManager), task -> {
+                    throw new TaskRejectedException("Coda del pre-calcolo piena");
+                });
+
+        service.onRequestCreated(new TransportRequestCreatedEvent(42L, "Napoli", "Campus Fisciano", RouteConstraints.NONE));
+
+        verify(requestRepository).updateRouteStatus(eq(42L), eq(RoutePrecomputeStatus.FAILED), contains("sovraccarico"));
+        verify(transactionManager).commit(any());
+        verifyNoInteractions(externalMapService);
+    }
+
+    @Test
+    @DisplayName("Una rotta calcolata dopo l'approvazione della richiesta non ne modifica lo stato di calcolo")
+    void precompute_ShouldLeaveRouteStatus_WhenRequestNoLongerPending() {
+        RoutePrecomputationService service = new RoutePrecomputationService(externalMapService, stagedRouteRepository,
+                requestRepository, roadClosureLocator, new TransactionTemplate(transactionManager), Runnable::run);
+        when(externalMapService.calculateFullRoute("Napoli", "Campus Fisciano", RouteConstraints.NONE)).thenReturn(
+                Route.builder()
+                        .routeDistance(60.0)
+                        .routeDuration(55.0)
+                        .polyline("_p~iF~ps|U_ulLnnqC")
+                        .startLocation(new GeoLocation(40.85, 14.27))
+                        .endLocation(new GeoLocation(40.77, 14.79))
+                        .build());
+        when(requestRepository.findById(42L)).thenReturn(Optional.of(
+                TransportRequest.builder().requestStatus(RequestStatus.APPROVED).build()));
+
+        service.precompute(42L, "Napoli", "Campus Fisciano", RouteConstraints.NONE);
+
+        verify(requestRepository, never()).updateRouteStatus(any(), any(), any());
+        verifyNoInteractions(stagedRouteRepository);
+    }
+}
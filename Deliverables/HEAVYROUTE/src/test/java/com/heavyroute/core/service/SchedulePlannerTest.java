@@ -0,0 +1,107 @@
+package com.heavyroute.core.service;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.ScheduledTripDTO;
+import com.heavyroute.core.dto.WeeklyScheduleDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.LoadDetails;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TC-PLANNING-04: Suite Test - Localizzazione dei viaggi per la programmazione su più giorni")
+class SchedulePlannerTest {
+
+    private static final GeoLocation SALERNO = new GeoLocation(40.6824, 14.7681);
+    private static final GeoLocation AVELLINO = new GeoLocation(40.9146, 14.7906);
+
+    @Mock private TripRepository tripRepository;
+    @Mock private DriverRepository driverRepository;
+    @Mock private VehicleRepository vehicleRepository;
+    @Mock private ExternalMapService mapService;
+
+    private SchedulePlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        planner = new SchedulePlanner(tripRepository, driverRepository, vehicleRepository, mapService, Runnable::run);
+        ReflectionTestUtils.setField(planner, "horizonDays", 7);
+        ReflectionTestUtils.setField(planner, "shiftStartHour", 6);
+        ReflectionTestUtils.setField(planner, "shiftEndHour", 20);
+        ReflectionTestUtils.setField(planner, "handlingMinutes", 60.0);
+        ReflectionTestUtils.setField(planner, "restarts", 1);
+        ReflectionTestUtils.setField(planner, "maxIterations", 1000);
+        ReflectionTestUtils.setField(planner, "roadFactor", 1.3);
+        ReflectionTestUtils.setField(planner, "averageSpeedKmh", 60.0);
+    }
+
+    @Test
+    @DisplayName("Geocodifica partenze e destinazioni in un solo lotto ed esclude solo i viaggi non localizzati")
+    void proposeSchedule_ShouldExcludeOnlyUnlocatedTrips() {
+        Trip located = trip(1L, "Salerno", "Avellino");
+        Trip unlocated = trip(2L, "Salerno", "Via Inesistente 1, Avellino");
+        when(tripRepository.findForListingByStatus(TripStatus.IN_PLANNING)).thenReturn(List.of(located, unlocated));
+        // La destinazione non risolta (non trovata, provider lento o non disponibile) manca dal risultato
+        when(mapService.geocodeAll(List.of("Salerno", "Avellino", "Salerno", "Via Inesistente 1, Avellino")))
+                .thenReturn(Map.of("Salerno", SALERNO, "Avellino", AVELLINO));
+        Driver driver = Driver.builder()
+                .firstName("Paolo").lastName("Greco")
+                .geoLocation(SALERNO).driverStatus(DriverStatus.FREE)
+                .build();
+        driver.setId(10L);
+        when(driverRepository.findAvailableDrivers()).thenReturn(List.of(driver));
+        when(vehicleRepository.findByStatus(VehicleStatus.AVAILABLE)).thenReturn(List.of(Vehicle.builder()
+                .licensePlate("SA123BC")
+                .maxLoadCapacity(40000.0).maxHeight(4.5).maxWidth(3.0).maxLength(20.0)
+                .status(VehicleStatus.AVAILABLE)
+                .build()));
+
+        WeeklyScheduleDTO schedule = planner.proposeSchedule();
+
+        assertEquals(List.of(1L), schedule.getCrews().get(0).getTrips().stream().map(ScheduledTripDTO::getTripId).toList());
+        assertEquals(List.of(2L), schedule.getUnscheduledTripIds());
+        verify(mapService, never()).geocode(any());
+    }
+
+    private static Trip trip(Long id, String origin, String destination) {
+        LoadDetails load = new LoadDetails();
+        load.setWeightKg(10000.0);
+        load.setHeight(3.0);
+        load.setWidth(2.5);
+        load.setLength(12.0);
+        TransportRequest request = new TransportRequest();
+        request.setRequestStatus(RequestStatus.APPROVED);
+        request.setPickupDate(LocalDate.now().plusDays(1));
+        request.setOriginAddress(origin);
+        request.setDestinationAddress(destination);
+        request.setLoad(load);
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setTripCode("T-2026-" + id);
+        trip.setRequest(request);
+        return trip;
+    }
+}
@@ -1,10 +1,16 @@
 package com.heavyroute.core.service;
 
 import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.core.dto.PositionUpdateDTO;
+import com.heavyroute.core.dto.RouteResponseDTO;
 import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripEtaDTO;
 import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.enums.PolylineDetail;
 import com.heavyroute.core.enums.RequestStatus;
 import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.mapper.RouteMapper;
 import com.heavyroute.core.mapper.TripMapper;
 import com.heavyroute.core.model.Route;
 import com.heavyroute.core.model.TransportRequest;
@@ -21,6 +27,8 @@ import com.heavyroute.resources.repository.VehicleRepository;
 import com.heavyroute.users.enums.DriverStatus;
 import com.heavyroute.users.model.Driver;
 import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.service.DriverPositionStore;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,8 +36,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,10 +61,25 @@ class TripServiceTest {
     @Mock private NotificationService notificationService;
     @Mock private ExternalMapService externalMapService;
     @Mock private TripMapper tripMapper;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private RoutePrecomputationService routePrecomputation;
+    @Mock private EtaEngine etaEngine;
+    @Mock private DriverPositionStore driverPositionStore;
 
     @InjectMocks
     private TripServiceImpl tripService;
 
+    @BeforeEach
+    void setUp() {
+        // Le fasi transazionali vengono eseguite direttamente, senza un vero transaction manager
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(i ->
+                i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(i -> {
+            i.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
     @Test
     @DisplayName("TC-CORE-03: Approvazione Richiesta - Creazione Proposta Viaggio")
     void approveRequest_ShouldCreateTrip() {
@@ -63,7 +92,7 @@ class TripServiceTest {
         req.setDestinationAddress("Roma");
 
         when(requestRepository.findById(reqId)).thenReturn(Optional.of(req));
-        when(externalMapService.calculateFullRoute(anyString(), anyString())).thenReturn(new Route());
+        when(externalMapService.calculateFullRoute(anyString(), anyString(), any())).thenReturn(new Route());
         when(routeRepository.save(any(Route.class))).thenAnswer(i -> i.getArgument(0));
 
         // Mock del save che restituisce l'oggetto passato
@@ -72,7 +101,7 @@ class TripServiceTest {
             t.setId(100L);
             return t;
         });
-        when(tripMapper.toDTO(any(Trip.class))).thenReturn(new TripResponseDTO());
+        when(tripMapper.toDTO(any(Trip.class), any())).thenReturn(new TripResponseDTO());
 
         // ACT
         tripService.approveRequest(reqId);
@@ -102,18 +131,24 @@ class TripServiceTest {
         Vehicle vehicle = createMockVehicle(plate, 5000.0, VehicleStatus.AVAILABLE);
 
         when(tripRepository.findById(tripId)).thenReturn(Optional.of(trip));
+        when(driverRepository.compareAndSetStatus(driverId, DriverStatus.FREE, DriverStatus.ASSIGNED)).thenReturn(true);
+        when(vehicleRepository.acquireIfAvailable(plate, 1500.0)).thenReturn(1);
         when(driverRepository.findById(driverId)).thenReturn(Optional.of(driver));
         when(vehicleRepository.findByLicensePlate(plate)).thenReturn(Optional.of(vehicle));
 
         // ACT
         tripService.planTrip(tripId, new TripAssignmentDTO(tripId, driverId, plate));
 
-        // ASSERT
-        assertEquals(DriverStatus.ASSIGNED, driver.getDriverStatus());
-        assertEquals(VehicleStatus.IN_USE, vehicle.getStatus());
+        // ASSERT: le risorse sono prenotate con UPDATE condizionali, non salvando le entità lette
+        verify(driverRepository).compareAndSetStatus(driverId, DriverStatus.FREE, DriverStatus.ASSIGNED);
+        verify(vehicleRepository).acquireIfAvailable(plate, 1500.0);
+        verify(driverRepository, never()).save(any());
+        verify(vehicleRepository, never()).save(any());
 
         // CHECK COERENZA con riga 174 del tuo Impl: trip.setStatus(TripStatus.WAITING_VALIDATION);
         assertEquals(TripStatus.WAITING_VALIDATION, trip.getStatus());
+        assertEquals(driver, trip.getDriver());
+        assertEquals(vehicle, trip.getVehicle());
 
         verify(tripRepository).save(trip);
     }
@@ -176,11 +211,11 @@ class TripServiceTest {
         String plate = "VE-SMALL";
 
         Trip trip = createMockTrip(tripId, 15000.0, TripStatus.IN_PLANNING);
-        Driver driver = createMockDriver(driverId, DriverStatus.FREE);
         Vehicle vehicle = createMockVehicle(plate, 10000.0, VehicleStatus.AVAILABLE);
 
         when(tripRepository.findById(tripId)).thenReturn(Optional.of(trip));
-        when(driverRepository.findById(driverId)).thenReturn(Optional.of(driver));
+        when(driverRepository.compareAndSetStatus(driverId, DriverStatus.FREE, DriverStatus.ASSIGNED)).thenReturn(true);
+        when(vehicleRepository.acquireIfAvailable(plate, 15000.0)).thenReturn(0);
         when(vehicleRepository.findByLicensePlate(plate)).thenReturn(Optional.of(vehicle));
 
         assertThrows(BusinessRuleException.class, () ->
@@ -189,6 +224,51 @@ class TripServiceTest {
         verify(tripRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("TC-CORE-13: Posizione GPS - Accettata solo dall'autista assegnato al viaggio")
+    void updatePosition_ShouldRejectDriverNotAssignedToTrip() {
+        Trip trip = createMockTrip(1L, 15000.0, TripStatus.IN_TRANSIT);
+        Driver assigned = createMockDriver(10L, DriverStatus.ASSIGNED);
+        assigned.setUsername("driver_rossi");
+        trip.setDriver(assigned);
+        when(tripRepository.findById(1L)).thenReturn(Optional.of(trip));
+        PositionUpdateDTO position = new PositionUpdateDTO(40.8, 14.55);
+
+        assertThrows(AccessDeniedException.class, () -> tripService.updatePosition(1L, "driver_bianchi", position));
+        verifyNoInteractions(driverPositionStore, etaEngine);
+
+        tripService.updatePosition(1L, "driver_rossi", position);
+        verify(driverPositionStore).record(10L, 40.8, 14.55);
+        verify(etaEngine).update(1L, trip.getRoute(), 40.8, 14.55);
+    }
+
+    @Test
+    @DisplayName("TC-CORE-16: Elenco Viaggi - Geometria al livello richiesto decodificata una sola volta")
+    void getTripsByStatus_ShouldDecodeRequestedDetailOnce() {
+        Route route = Route.builder().provisional(true).build();
+        route.setId(7L);
+        route.setPolyline(PolylineCodec.encode(List.of(
+                new double[]{40.8518, 14.2681}, new double[]{40.8100, 14.5000}, new double[]{40.7750, 14.7890})));
+        route = spy(route);
+        Trip trip = createMockTrip(1L, 10000.0, TripStatus.IN_PLANNING);
+        trip.setRoute(route);
+        TripEtaDTO eta = new TripEtaDTO();
+        eta.setRemainingKm(12.0);
+        when(tripRepository.findForListingByStatus(TripStatus.IN_PLANNING)).thenReturn(List.of(trip));
+        TripMapper realMapper = new TripMapper(new RouteMapper());
+        when(tripMapper.toDTO(any(Trip.class), any())).thenAnswer(i -> realMapper.toDTO(i.getArgument(0), i.getArgument(1)));
+        when(etaEngine.current(1L, 7L)).thenReturn(Optional.of(eta));
+
+        List<TripResponseDTO> trips = tripService.getTripsByStatus(TripStatus.IN_PLANNING, PolylineDetail.SIMPLIFIED);
+
+        RouteResponseDTO routeDTO = trips.get(0).getRoute();
+        assertEquals(PolylineDetail.SIMPLIFIED, routeDTO.getPolylineDetail());
+        assertNotNull(routeDTO.getPolyline());
+        assertTrue(routeDTO.isProvisional());
+        assertEquals(eta, trips.get(0).getEta());
+        verify(route, times(1)).getPolyline(PolylineDetail.SIMPLIFIED);
+    }
+
     // --- HELPER METHODS ---
     private Trip createMockTrip(Long id, Double weight, TripStatus status) {
         Trip trip = new Trip();
@@ -0,0 +1,129 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.dto.TripPlanResultDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-09: Pianificazione a lotti dei viaggi")
+class BatchPlanningIntegrationTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private VehicleRepository vehicleRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private static int sequence;
+
+    @Test
+    @DisplayName("Le assegnazioni valide vengono applicate, quelle non valide riportate con il motivo")
+    void planTrips_ShouldReportEachAssignment() {
+        Long tripA = trip(25000.0);
+        Long tripB = trip(25000.0);
+        Long tripC = trip(50000.0);
+        Long driver1 = driver();
+        Long driver2 = driver();
+        String plate1 = vehicle();
+        String plate2 = vehicle();
+
+        List<TripPlanResultDTO> results = tripService.planTrips(List.of(
+                new TripAssignmentDTO(tripA, driver1, plate1),
+                new TripAssignmentDTO(tripB, driver1, plate2),   // autista già preso dal primo elemento
+                new TripAssignmentDTO(-1L, driver2, plate2),     // viaggio inesistente
+                new TripAssignmentDTO(tripC, driver2, plate2)    // carico oltre la portata
+        ));
+
+        assertEquals(List.of(true, false, false, false), results.stream().map(TripPlanResultDTO::isPlanned).toList());
+        assertTrue(results.get(1).getMessage().contains("occupato"));
+        assertEquals("Viaggio non trovato", results.get(2).getMessage());
+        assertTrue(results.get(3).getMessage().contains("Portata"));
+
+        assertEquals(DriverStatus.ASSIGNED, driverRepository.findById(driver1).orElseThrow().getDriverStatus());
+        assertEquals(DriverStatus.FREE, driverRepository.findById(driver2).orElseThrow().getDriverStatus());
+        assertEquals(VehicleStatus.IN_USE, vehicleRepository.findByLicensePlate(plate1).orElseThrow().getStatus());
+        assertEquals(VehicleStatus.AVAILABLE, vehicleRepository.findByLicensePlate(plate2).orElseThrow().getStatus());
+        transactionTemplate.executeWithoutResult(status -> {
+            Trip planned = tripRepository.findById(tripA).orElseThrow();
+            assertEquals(TripStatus.WAITING_VALIDATION, planned.getStatus());
+            assertEquals(driver1, planned.getDriver().getId());
+            assertEquals(TripStatus.IN_PLANNING, tripRepository.findById(tripB).orElseThrow().getStatus());
+        });
+    }
+
+    @Test
+    @DisplayName("Le risorse rilasciate da un viaggio ripianificato sono riutilizzabili nello stesso lotto")
+    void planTrips_ShouldReuseResourcesReleasedInSameBatch() {
+        Long tripA = trip(25000.0);
+        Long tripB = trip(25000.0);
+        Long driver1 = driver();
+        Long driver2 = driver();
+        String plate1 = vehicle();
+        String plate2 = vehicle();
+        tripService.planTrips(List.of(new TripAssignmentDTO(tripA, driver1, plate1)));
+
+        List<TripPlanResultDTO> results = tripService.planTrips(List.of(
+                new TripAssignmentDTO(tripA, driver2, plate2),
+                new TripAssignmentDTO(tripB, driver1, plate1)
+        ));
+
+        assertTrue(results.stream().allMatch(TripPlanResultDTO::isPlanned), () -> results.toString());
+        assertEquals(DriverStatus.ASSIGNED, driverRepository.findById(driver1).orElseThrow().getDriverStatus());
+        assertEquals(DriverStatus.ASSIGNED, driverRepository.findById(driver2).orElseThrow().getDriverStatus());
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(driver2, tripRepository.findById(tripA).orElseThrow().getDriver().getId());
+            assertEquals(driver1, tripRepository.findById(tripB).orElseThrow().getDriver().getId());
+        });
+    }
+
+    private Long driver() {
+        return driverRepository.save(TestFixtures.driver("batch_driver", DriverStatus.FREE).build()).getId();
+    }
+
+    private String vehicle() {
+        return vehicleRepository.save(TestFixtures.vehicle(VehicleStatus.AVAILABLE)).getLicensePlate();
+    }
+
+    private Long trip(double weightKg) {
+        return transactionTemplate.execute(status -> {
+            TransportRequest request = requestRepository.save(TransportRequest.builder()
+                    .client(userRepository.save(TestFixtures.customer()))
+                    .originAddress("Via Roma 1, Salerno")
+                    .destinationAddress("Corso Vittorio Emanuele 1, Avellino")
+                    .pickupDate(LocalDate.now().plusDays(3))
+                    .requestStatus(RequestStatus.APPROVED)
+                    .load(TestFixtures.load("Trasformatore", weightKg, 3.5, 2.8, 12.0))
+                    .build());
+
+            Trip trip = new Trip();
+            trip.setTripCode("T-BATCH-" + sequence++);
+            trip.setStatus(TripStatus.IN_PLANNING);
+            trip.setRequest(request);
+            return tripRepository.save(trip).getId();
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.TripEtaDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.dto.DriverPositionDTO;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import com.heavyroute.users.service.DriverPositionStore;
+import com.heavyroute.users.service.DriverService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Il salvataggio periodico è disattivato (intervallo di un'ora): i test invocano {@code flush()} esplicitamente.
+ */
+@Slf4j
+@SpringBootTest(properties = "tracking.positions.flush-interval-ms=3600000")
+@DisplayName("TC-INTEGRATION-11: Ricezione delle posizioni GPS con salvataggio differito")
+class DriverPositionIngestionIntegrationTest {
+
+    @Autowired private DriverService driverService;
+    @Autowired private DriverPositionStore positionStore;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+
+
+    @BeforeEach
+    void drainPendingPositions() {
+        positionStore.flush();
+    }
+
+    @Test
+    @DisplayName("Più posizioni dello stesso autista producono una sola riga con la più recente")
+    void flush_ShouldCoalescePositionsPerDriver() {
+        Driver driver = driver();
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        driverService.recordPositions(driver.getUsername(), List.of(
+                new DriverPositionDTO(40.68, 14.76, now.minusSeconds(20)),
+                // Stesso istante di "now" espresso su un altro fuso: è la più recente del lotto
+                new DriverPositionDTO(40.70, 14.78, now.plusSeconds(1).withOffsetSameInstant(ZoneOffset.ofHours(2))),
+                new DriverPositionDTO(40.69, 14.77, now.minusSeconds(10)) // arrivata fuori ordine
+        ));
+        positionStore.record(-1L, 41.0, 15.0);                            // autista inesistente
+
+        assertEquals(40.70, positionStore.latest(driver.getId()).orElseThrow().getLatitude());
+        assertNull(storedLatitude(driver.getId()), "Nessuna scrittura prima del salvataggio");
+
+        assertEquals(2, positionStore.flush());
+        assertEquals(40.70, storedLatitude(driver.getId()));
+        assertTrue(positionStore.latest(-1L).isEmpty(), "Gli ID inesistenti non restano in memoria");
+        assertEquals(0, positionStore.flush());
+    }
+
+    @Test
+    @DisplayName("La posizione più recente del lotto aggiorna la stima di arrivo del viaggio in corso")
+    void recordPositions_ShouldUpdateEtaOfTripInProgress() {
+        Driver driver = driver();
+        Long tripId = tripInTransit(driver);
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        driverService.recordPositions(driver.getUsername(), List.of(
+                new DriverPositionDTO(40.75, 14.00, now),
+                new DriverPositionDTO(40.50, 14.00, now.minusSeconds(30))));
+
+        TripEtaDTO eta = tripService.getTripEta(tripId, null);
+        assertEquals(0.5, eta.getProgress(), 0.01);
+        assertFalse(eta.isOffRoute());
+    }
+
+    @Test
+    @DisplayName("Un dispositivo con l'orologio avanti non blocca le posizioni successive")
+    void recordPosition_ShouldIgnoreDeviceClockSkew() {
+        Driver driver = driver();
+
+        driverService.recordPositions(driver.getUsername(), List.of(
+                new DriverPositionDTO(40.68, 14.76, OffsetDateTime.now().plusDays(1))));
+        driverService.recordPosition(driver.getUsername(), driver.getId(), 40.75, 14.80);
+
+        assertEquals(40.75, positionStore.latest(driver.getId()).orElseThrow().getLatitude());
+    }
+
+    @Test
+    @DisplayName("Un autista non può inviare la posizione di un altro autista")
+    void recordPosition_ShouldRejectOtherDrivers() {
+        Driver caller = driver();
+        Driver other = driver();
+
+        assertThrows(AccessDeniedException.class,
+                () -> driverService.recordPosition(caller.getUsername(), other.getId(), 40.7, 14.8));
+        assertThrows(AccessDeniedException.class,
+                () -> driverService.recordPositions("utente_inesistente", List.of(new DriverPositionDTO(40.7, 14.8, null))));
+        assertTrue(positionStore.latest(other.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Centinaia di migliaia di posizioni da più thread, salvate con una sola riga per autista")
+    void recordPositions_ShouldSustainHighRate() throws Exception {
+        List<Driver> drivers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            drivers.add(driver());
+        }
+        int threads = 4;
+        int fixesPerThread = 50_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> senders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                senders.add(pool.submit(() -> {
+                    for (int i = 0; i < fixesPerThread; i++) {
+                        Driver driver = drivers.get((i + offset) % drivers.size());
+                        driverService.recordPosition(driver.getUsername(), driver.getId(),
+                                40.0 + (i % 1000) / 1000.0, 14.0 + offset / 10.0);
+                    }
+                }));
+            }
+            for (Future<?> sender : senders) {
+                sender.get();
+            }
+            long ingestMs = (System.nanoTime() - start) / 1_000_000;
+
+            long flushStart = System.nanoTime();
+            int rows = positionStore.flush();
+            long flushMs = (System.nanoTime() - flushStart) / 1_000_000;
+            log.info("📡 Posizioni: {} ricevute in {} ms, {} righe salvate in {} ms",
+                    threads * fixesPerThread, ingestMs, rows, flushMs);
+
+            assertEquals(drivers.size(), rows);
+            assertNotNull(storedLatitude(drivers.get(0).getId()));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Double storedLatitude(Long driverId) {
+        return jdbcTemplate.queryForObject("SELECT latitude FROM drivers WHERE id = ?", Double.class, driverId);
+    }
+
+    /**
+     * Viaggio in corso dell'autista su una rotta rettilinea da 40.5 a 41.0 di latitudine.
+     */
+    private Long tripInTransit(Driver driver) {
+        TransportRequest request = requestRepository.save(TransportRequest.builder()
+                .client(userRepository.save(TestFixtures.customer()))
+                .originAddress("Origine di prova")
+                .destinationAddress("Destinazione di prova")
+                .pickupDate(LocalDate.now())
+                .requestStatus(RequestStatus.IN_PROGRESS)
+                .load(TestFixtures.load("Trasformatore", 20000.0, 3.0, 2.5, 8.0))
+                .build());
+        Trip trip = new Trip();
+        trip.setRequest(request);
+        trip.setDriver(driver);
+        trip.setStatus(TripStatus.IN_TRANSIT);
+        trip.setRoute(Route.builder()
+                .routeDistance(55.0)
+                .routeDuration(60.0)
+                .polyline(PolylineCodec.encode(List.of(new double[]{40.5, 14.0}, new double[]{41.0, 14.0})))
+                .startLocation(new GeoLocation(40.5, 14.0))
+                .endLocation(new GeoLocation(41.0, 14.0))
+                .build());
+        return tripRepository.save(trip).getId();
+    }
+
+    private Driver driver() {
+        return driverRepository.save(TestFixtures.driver("gps_driver", DriverStatus.FREE).build());
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -106,7 +107,7 @@ public class FullWorkflowIntegrationTest {
                 .endLocation(new GeoLocation(41.9028, 12.4964))   // Roma
                 .build();
 
-        when(externalMapService.calculateFullRoute(anyString(), anyString()))
+        when(externalMapService.calculateFullRoute(anyString(), anyString(), any()))
                 .thenReturn(mockRoute);
 
         // Chiamata all'endpoint
@@ -0,0 +1,161 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.routing.graph.RoadGraph;
+import com.heavyroute.core.service.ExternalMapService;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.support.MapboxStubServer;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.model.Customer;
+import com.heavyroute.users.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pipeline completa di approvazione e calcolo rotta contro il server Mapbox locale,
+ * senza mock di {@link ExternalMapService}.
+ */
+// Database dedicato: alla chiusura del contesto lo schema viene eliminato (create-drop)
+// e non deve sparire sotto i contesti delle altre classi di test ancora in cache
+@SpringBootTest(properties = {
+        "mapbox.http.request-timeout-ms=1000",
+        "spring.datasource.url=jdbc:h2:mem:heavyroute_mapbox_stub;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@DirtiesContext // il circuit breaker conserva lo stato degli errori iniettati
+@DisplayName("TC-INTEGRATION-04: Calcolo rotta con provider cartografico simulato")
+class MapboxStubIntegrationTest {
+
+    private static final String SALERNO = "Via Roma 1, Salerno";
+    private static final String AVELLINO = "Corso Vittorio Emanuele 50, Avellino";
+    private static final String RECORDED_POLYLINE = "g`hwFguayA_g@obAwyEg|@wvIgw@gfFc[olFkHwrFzJ__DrN";
+
+    private final MapboxStubServer mapbox = MapboxStubServer.shared();
+
+    @Autowired private TripService tripService;
+    @Autowired private ExternalMapService externalMapService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+
+    @AfterEach
+    void resetStub() {
+        mapbox.reset();
+    }
+
+    @Test
+    @DisplayName("Approvazione con risposte registrate; la seconda richiesta sulla stessa tratta usa la cache")
+    void approveRequest_ShouldUseRecordedResponses_AndLaneCache() {
+        long directionsBefore = mapbox.directionsRequests();
+
+        TripResponseDTO first = tripService.approveRequest(createPendingRequest(SALERNO, AVELLINO));
+
+        assertEquals(38.45, first.getRoute().getDistance(), 0.01);
+        assertEquals(RECORDED_POLYLINE, first.getRoute().getPolyline());
+        assertFalse(first.getRoute().isProvisional());
+        assertEquals(directionsBefore + 1, mapbox.directionsRequests());
+
+        TripResponseDTO second = tripService.approveRequest(createPendingRequest(SALERNO, AVELLINO));
+
+        assertEquals(38.45, second.getRoute().getDistance(), 0.01);
+        assertEquals(directionsBefore + 1, mapbox.directionsRequests());
+    }
+
+    @Test
+    @DisplayName("Calcoli concorrenti della stessa tratta con provider lento: una sola chiamata Directions")
+    void calculateFullRoute_ShouldCoalesceConcurrentCalls_WhenProviderIsSlow() throws Exception {
+        // Profilo dedicato: tratta mai calcolata negli altri test
+        RouteConstraints profile = new RouteConstraints(4.2, 2.6, 14.0, 32_000.0);
+        externalMapService.calculateFullRoute(SALERNO, AVELLINO, RouteConstraints.NONE); // geocoding in cache
+        mapbox.setLatency(Duration.ofMillis(300));
+        long directionsBefore = mapbox.directionsRequests();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Route>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(CompletableFuture.supplyAsync(
+                        () -> externalMapService.calculateFullRoute(SALERNO, AVELLINO, profile), pool));
+            }
+            for (CompletableFuture<Route> call : calls) {
+                assertEquals(38.45, call.get().getRouteDistance(), 0.01);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(directionsBefore + 1, mapbox.directionsRequests());
+    }
+
+    @Test
+    @DisplayName("Provider in errore: l'approvazione prosegue con una stima provvisoria in linea d'aria")
+    void approveRequest_ShouldReturnProvisionalRoute_WhenProviderFails() {
+        mapbox.failNext(1, 503);
+
+        // Indirizzi del dizionario dei luoghi noti: nessun geocoding, fallisce solo Directions
+        TripResponseDTO trip = tripService.approveRequest(createPendingRequest("Napoli", "Campus Fisciano"));
+
+        double expectedKm = RoadGraph.distanceMeters(40.8518, 14.2681, 40.7750, 14.7890) / 1000.0 * 1.3;
+        assertTrue(trip.getRoute().isProvisional());
+        assertEquals(expectedKm, trip.getRoute().getDistance(), 0.01);
+
+        // La stima non viene memorizzata: a provider ripristinato la risposta reale ("NoRoute") prevale
+        mapbox.reset();
+        assertThrows(BusinessRuleException.class,
+                () -> externalMapService.calculateFullRoute("Napoli", "Campus Fisciano", RouteConstraints.NONE));
+    }
+
+    @Test
+    @DisplayName("Provider più lento del timeout: rotta provvisoria senza attendere la risposta")
+    void calculateFullRoute_ShouldDegrade_WhenProviderExceedsTimeout() {
+        // Latenza molto superiore al timeout del client (1 s): l'esito non dipende dal carico della macchina
+        Duration latency = Duration.ofSeconds(30);
+        mapbox.setLatency(latency);
+        long directionsBefore = mapbox.directionsRequests();
+
+        long start = System.nanoTime();
+        Route route = externalMapService.calculateFullRoute("Roma", "Torino", RouteConstraints.NONE);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(directionsBefore + 1, mapbox.directionsRequests(), "Il provider deve essere stato interrogato");
+        assertTrue(route.isProvisional());
+        assertEquals(new GeoLocation(45.0703, 7.6869).getLatitude(), route.getEndLocation().getLatitude());
+        assertTrue(elapsed.compareTo(latency) < 0, "Risposta del provider attesa invece del timeout: " + elapsed.toMillis() + " ms");
+    }
+
+    private Long createPendingRequest(String origin, String destination) {
+        Customer customer = userRepository.findByUsername("stub_customer")
+                .map(Customer.class::cast)
+                .orElseGet(() -> userRepository.save(TestFixtures.customer("stub_customer")));
+
+        TransportRequest request = TransportRequest.builder()
+                .client(customer)
+                .originAddress(origin)
+                .destinationAddress(destination)
+                .pickupDate(LocalDate.now().plusDays(20))
+                .requestStatus(RequestStatus.PENDING)
+                .routeStatus(RoutePrecomputeStatus.PENDING)
+                .load(TestFixtures.load("Trasformatore", 24000.0, 3.9, 3.0, 9.5))
+                .build();
+        return requestRepository.save(request).getId();
+    }
+}
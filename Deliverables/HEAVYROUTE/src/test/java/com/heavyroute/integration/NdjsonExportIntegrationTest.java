@@ -0,0 +1,167 @@
+package com.heavyroute.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heavyroute.common.export.NdjsonExporter;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.core.enums.PolylineDetail;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.TransportRequestService;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-07: Esportazione NDJSON di viaggi e richieste")
+class NdjsonExportIntegrationTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private TransportRequestService requestService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EntityManager entityManager;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Ogni viaggio e ogni richiesta compaiono una volta, un oggetto JSON per riga")
+    void export_ShouldWriteOneJsonObjectPerRow() throws Exception {
+        persistRequests(3);
+
+        ByteArrayOutputStream trips = new ByteArrayOutputStream();
+        tripService.exportTrips(trips, PolylineDetail.NONE);
+        assertEquals(tripRepository.count(), distinctIds(trips));
+
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        requestService.exportRequests(requests);
+        assertEquals(requestRepository.count(), distinctIds(requests));
+    }
+
+    @Test
+    @DisplayName("Il contesto di persistenza resta limitato al blocco corrente qualunque sia il numero di righe")
+    void export_ShouldDetachEntitiesChunkByChunk() {
+        persistRequests(30);
+        int chunkSize = 5;
+        NdjsonExporter exporter = new NdjsonExporter(objectMapper, entityManager, chunkSize);
+        AtomicInteger maxManagedEntities = new AtomicInteger();
+
+        long rows = transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            try {
+                return exporter.export(requestRepository.streamAllForExport(), chunk -> {
+                    maxManagedEntities.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+                    return chunk.stream().map(r -> r.getClient().getUsername()).toList();
+                }, new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(requestRepository.count(), rows);
+        // Al massimo una richiesta e un committente per riga del blocco
+        assertTrue(maxManagedEntities.get() <= 2 * chunkSize,
+                "Entità gestite durante l'esportazione: " + maxManagedEntities.get());
+    }
+
+    @Test
+    @DisplayName("Le geometrie vengono esportate al livello di dettaglio richiesto")
+    void exportTrips_ShouldIncludeGeometryAtRequestedDetail() throws Exception {
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i <= 200; i++) {
+            // Tracciato rettilineo con scostamenti di pochi metri: la versione semplificata ha meno punti
+            points.add(new double[]{40.70 + i * 0.001, 14.50 + (i % 2) * 0.00002});
+        }
+        String polyline = PolylineCodec.encode(points);
+        Long tripId = persistTripWithRoute(polyline);
+
+        assertEquals(polyline, exportedPolyline(tripId, PolylineDetail.FULL));
+        String simplified = exportedPolyline(tripId, PolylineDetail.SIMPLIFIED);
+        assertNotNull(simplified);
+        assertTrue(PolylineCodec.decode(simplified).size() < points.size());
+        assertNull(exportedPolyline(tripId, PolylineDetail.NONE));
+    }
+
+    private String exportedPolyline(Long tripId, PolylineDetail detail) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tripService.exportTrips(out, detail);
+        for (String line : out.toString(StandardCharsets.UTF_8).lines().toList()) {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.get("id").asLong() == tripId) {
+                JsonNode value = node.path("route").path("polyline");
+                return value.isTextual() ? value.asText() : null;
+            }
+        }
+        throw new AssertionError("Viaggio #" + tripId + " non esportato");
+    }
+
+    private Long persistTripWithRoute(String polyline) {
+        persistRequests(1);
+        return transactionTemplate.execute(status -> {
+            TransportRequest request = requestRepository.findAll().stream()
+                    .filter(r -> r.getRequestStatus() == RequestStatus.PENDING)
+                    .reduce((first, second) -> second)
+                    .orElseThrow();
+            request.setRequestStatus(RequestStatus.APPROVED);
+            Trip trip = new Trip();
+            trip.setRequest(request);
+            trip.setStatus(TripStatus.IN_PLANNING);
+            trip.setRoute(Route.builder()
+                    .description("Export")
+                    .routeDistance(22.0)
+                    .routeDuration(30.0)
+                    .polyline(polyline)
+                    .build());
+            return tripRepository.save(trip).getId();
+        });
+    }
+
+    private long distinctIds(ByteArrayOutputStream ndjson) throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (String line : ndjson.toString(StandardCharsets.UTF_8).lines().toList()) {
+            JsonNode node = objectMapper.readTree(line);
+            assertTrue(ids.add(node.get("id").asLong()), "Riga duplicata: " + line);
+        }
+        return ids.size();
+    }
+
+    private void persistRequests(int count) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                requestRepository.save(TransportRequest.builder()
+                        .client(userRepository.save(TestFixtures.customer()))
+                        .originAddress("Via Roma 1, Salerno")
+                        .destinationAddress("Corso Vittorio Emanuele 1, Avellino")
+                        .pickupDate(LocalDate.now().plusDays(5))
+                        .requestStatus(RequestStatus.PENDING)
+                        .load(TestFixtures.load("Trasformatore", 30000.0, 3.8, 2.9, 12.0))
+                        .build());
+            }
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.core.dto.TripAssignmentDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-08: Assegnazione concorrente delle risorse senza doppie prenotazioni")
+class ResourceAssignmentContentionTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private VehicleRepository vehicleRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private static int sequence;
+
+    @Test
+    @DisplayName("Più pianificatori in concorrenza su poche risorse: nessun autista o veicolo assegnato due volte")
+    void planTrip_ShouldNeverDoubleBook_UnderContention() throws Exception {
+        List<Long> drivers = drivers(4);
+        List<String> plates = vehicles(4);
+        List<Long> trips = trips(40);
+
+        AtomicInteger assigned = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Runnable> attempts = new ArrayList<>();
+        for (int i = 0; i < trips.size(); i++) {
+            TripAssignmentDTO dto = new TripAssignmentDTO(trips.get(i), drivers.get(i % drivers.size()),
+                    plates.get((i / drivers.size()) % plates.size()));
+            attempts.add(() -> {
+                try {
+                    tripService.planTrip(dto.getTripId(), dto);
+                    assigned.incrementAndGet();
+                } catch (BusinessRuleException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+
+        long elapsedNanos = runConcurrently(attempts);
+        log.info("📡 Pianificazioni concorrenti: {} assegnate, {} rifiutate, {} tentativi/s",
+                assigned.get(), rejected.get(), Math.round(attempts.size() / (elapsedNanos / 1e9)));
+
+        assertEquals(trips.size(), assigned.get() + rejected.get());
+        assertTrue(assigned.get() > 0);
+
+        Map<Long, Integer> tripsPerDriver = new HashMap<>();
+        Map<Long, Integer> tripsPerVehicle = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Trip trip : tripRepository.findAllById(trips)) {
+                if (trip.getDriver() != null) {
+                    tripsPerDriver.merge(trip.getDriver().getId(), 1, Integer::sum);
+                    tripsPerVehicle.merge(trip.getVehicle().getId(), 1, Integer::sum);
+                }
+            }
+        });
+        assertEquals(assigned.get(), tripsPerDriver.values().stream().mapToInt(Integer::intValue).sum());
+        tripsPerDriver.forEach((driver, count) -> assertEquals(1, count, "Autista prenotato più volte: " + driver));
+        tripsPerVehicle.forEach((vehicle, count) -> assertEquals(1, count, "Veicolo prenotato più volte: " + vehicle));
+
+        long busyDrivers = driverRepository.findAllById(drivers).stream()
+                .filter(d -> d.getDriverStatus() == DriverStatus.ASSIGNED).count();
+        long busyVehicles = plates.stream()
+                .map(p -> vehicleRepository.findByLicensePlate(p).orElseThrow())
+                .filter(v -> v.getStatus() == VehicleStatus.IN_USE).count();
+        assertEquals(assigned.get(), busyDrivers);
+        assertEquals(assigned.get(), busyVehicles);
+    }
+
+    @Test
+    @DisplayName("Ripianificazioni concorrenti dello stesso viaggio lasciano occupato un solo autista")
+    void planTrip_ShouldKeepSingleAssignment_WhenSameTripIsPlannedConcurrently() throws Exception {
+        List<Long> drivers = drivers(THREADS);
+        List<String> plates = vehicles(THREADS);
+        Long tripId = trips(1).get(0);
+
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Runnable> attempts = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            TripAssignmentDTO dto = new TripAssignmentDTO(tripId, drivers.get(i), plates.get(i));
+            attempts.add(() -> {
+                try {
+                    tripService.planTrip(tripId, dto);
+                } catch (OptimisticLockingFailureException | BusinessRuleException e) {
+                    conflicts.incrementAndGet();
+                }
+            });
+        }
+        runConcurrently(attempts);
+        assertTrue(conflicts.get() < THREADS, "Almeno una pianificazione deve riuscire");
+
+        Long plannedDriver = transactionTemplate.execute(status ->
+                tripRepository.findById(tripId).orElseThrow().getDriver().getId());
+        List<Long> busyDrivers = driverRepository.findAllById(drivers).stream()
+                .filter(d -> d.getDriverStatus() == DriverStatus.ASSIGNED)
+                .map(Driver::getId)
+                .toList();
+        long busyVehicles = plates.stream()
+                .map(p -> vehicleRepository.findByLicensePlate(p).orElseThrow())
+                .filter(v -> v.getStatus() == VehicleStatus.IN_USE).count();
+
+        assertEquals(List.of(plannedDriver), busyDrivers);
+        assertEquals(1, busyVehicles);
+    }
+
+    /**
+     * Esegue i tentativi su {@value #THREADS} thread partendo tutti insieme.
+     *
+     * @return Durata complessiva in nanosecondi.
+     */
+    private long runConcurrently(List<Runnable> attempts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable attempt : attempts) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    attempt.run();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Long> drivers(int count) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ids.add(driverRepository.save(TestFixtures.driver("cas_driver", DriverStatus.FREE).build()).getId());
+            }
+            return ids;
+        });
+    }
+
+    private List<String> vehicles(int count) {
+        return transactionTemplate.execute(status -> {
+            List<String> plates = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                plates.add(vehicleRepository.save(TestFixtures.vehicle(VehicleStatus.AVAILABLE)).getLicensePlate());
+            }
+            return plates;
+        });
+    }
+
+    private List<Long> trips(int count) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                TransportRequest request = requestRepository.save(TransportRequest.builder()
+                        .client(userRepository.save(TestFixtures.customer()))
+                        .originAddress("Via Roma 1, Salerno")
+                        .destinationAddress("Corso Vittorio Emanuele 1, Avellino")
+                        .pickupDate(LocalDate.now().plusDays(4))
+                        .requestStatus(RequestStatus.APPROVED)
+                        .load(TestFixtures.load("Pala eolica", 25000.0, 3.5, 2.8, 18.0))
+                        .build());
+
+                Trip trip = new Trip();
+                trip.setTripCode("T-CAS-" + sequence++);
+                trip.setStatus(TripStatus.IN_PLANNING);
+                trip.setRequest(request);
+                ids.add(Objects.requireNonNull(tripRepository.save(trip).getId()));
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.ExternalMapService;
+import com.heavyroute.core.service.RoadEventReroutingService;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.notification.enums.NotificationType;
+import com.heavyroute.notification.service.NotificationService;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Customer;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-05: Ricalcolo rotte per evento stradale critico")
+class RoadEventReroutingIntegrationTest {
+
+    private static final String CAGLIARI = "Porto Canale, Cagliari";
+    private static final String ORISTANO = "Zona Industriale, Oristano";
+    private static final String SASSARI = "Predda Niedda, Sassari";
+    private static final String OLBIA = "Porto Isola Bianca, Olbia";
+
+    private static final String NUORO = "Pratosardo, Nuoro";
+    private static final String ARBATAX = "Porto, Arbatax";
+
+    private static final GeoLocation CLOSURE = new GeoLocation(39.5000, 8.9000);
+    private static final GeoLocation EAST_CLOSURE = new GeoLocation(40.1000, 9.5000);
+
+    @Autowired private RoadEventReroutingService reroutingService;
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+
+    @MockitoBean private ExternalMapService externalMapService;
+    @MockitoBean private NotificationService notificationService;
+
+    @Test
+    @DisplayName("Solo i viaggi attivi il cui percorso passa dall'evento vengono ricalcolati e notificati")
+    void rerouteAround_ShouldRecomputeOnlyCrossingTrips_AndNotifyDriver() {
+        when(externalMapService.calculateFullRoute(eq(CAGLIARI), eq(ORISTANO), any())).thenReturn(
+                route(new double[]{39.2238, 9.1217}, new double[]{39.5000, 8.9000}, new double[]{39.9036, 8.5918}));
+        when(externalMapService.calculateFullRoute(eq(SASSARI), eq(OLBIA), any())).thenReturn(
+                route(new double[]{40.7259, 8.5557}, new double[]{40.9230, 9.4990}));
+
+        Long crossingTripId = tripService.approveRequest(createPendingRequest(CAGLIARI, ORISTANO)).getId();
+        tripService.approveRequest(createPendingRequest(SASSARI, OLBIA));
+        Driver driver = assignDriver(crossingTripId, "reroute_driver");
+
+        // Il ricalcolo restituisce un percorso che aggira la chiusura
+        when(externalMapService.calculateFullRoute(eq(CAGLIARI), eq(ORISTANO), any())).thenReturn(
+                route(new double[]{39.2238, 9.1217}, new double[]{39.4500, 8.6000}, new double[]{39.9036, 8.5918}));
+
+        RoadEventReroutingService.RerouteSummary summary = reroutingService.rerouteAround(99L, CLOSURE);
+
+        assertEquals(1, summary.affected());
+        assertEquals(1, summary.rerouted());
+        verify(externalMapService, times(2)).calculateFullRoute(eq(CAGLIARI), eq(ORISTANO), any());
+        verify(externalMapService, times(1)).calculateFullRoute(eq(SASSARI), eq(OLBIA), any());
+        verify(notificationService).send(eq(driver.getId()), anyString(), anyString(),
+                eq(NotificationType.ALERT), eq(crossingTripId));
+
+        // Il nuovo percorso non attraversa più l'area: una nuova segnalazione non produce altri ricalcoli
+        assertEquals(0, reroutingService.rerouteAround(100L, CLOSURE).affected());
+    }
+
+    @Test
+    @DisplayName("Le rotte approvate tornano in validazione; i viaggi in corso ricevono solo un avviso")
+    void rerouteAround_ShouldResetValidation_AndNotRerouteDepartedTrips() {
+        when(externalMapService.calculateFullRoute(eq(NUORO), eq(ARBATAX), any())).thenAnswer(inv ->
+                route(new double[]{40.3210, 9.3300}, new double[]{40.1000, 9.5000}, new double[]{39.9400, 9.7000}));
+
+        Long confirmedTripId = tripService.approveRequest(createPendingRequest(NUORO, ARBATAX)).getId();
+        Long inTransitTripId = tripService.approveRequest(createPendingRequest(NUORO, ARBATAX)).getId();
+        Driver confirmedDriver = assignDriver(confirmedTripId, "reroute_confirmed_driver");
+        Driver inTransitDriver = assignDriver(inTransitTripId, "reroute_transit_driver");
+        setStatus(confirmedTripId, TripStatus.CONFIRMED);
+        setStatus(inTransitTripId, TripStatus.IN_TRANSIT);
+
+        when(externalMapService.calculateFullRoute(eq(NUORO), eq(ARBATAX), any())).thenReturn(
+                route(new double[]{40.3210, 9.3300}, new double[]{40.0500, 9.2000}, new double[]{39.9400, 9.7000}));
+
+        RoadEventReroutingService.RerouteSummary summary = reroutingService.rerouteAround(101L, EAST_CLOSURE);
+
+        assertEquals(2, summary.affected());
+        assertEquals(1, summary.rerouted());
+        assertEquals(1, summary.enRoute());
+        // Due calcoli in approvazione, uno solo nel ricalcolo: il viaggio in corso non riparte dall'origine
+        verify(externalMapService, times(3)).calculateFullRoute(eq(NUORO), eq(ARBATAX), any());
+        assertEquals(TripStatus.WAITING_VALIDATION, tripRepository.findById(confirmedTripId).orElseThrow().getStatus());
+        assertEquals(TripStatus.IN_TRANSIT, tripRepository.findById(inTransitTripId).orElseThrow().getStatus());
+        verify(notificationService).send(eq(confirmedDriver.getId()), anyString(), anyString(),
+                eq(NotificationType.ALERT), eq(confirmedTripId));
+        verify(notificationService).send(eq(inTransitDriver.getId()), anyString(), anyString(),
+                eq(NotificationType.URGENT), eq(inTransitTripId));
+    }
+
+    private void setStatus(Long tripId, TripStatus status) {
+        Trip trip = tripRepository.findById(tripId).orElseThrow();
+        trip.setStatus(status);
+        tripRepository.save(trip);
+    }
+
+    private Route route(double[]... points) {
+        return Route.builder()
+                .routeDistance(90.0)
+                .routeDuration(80.0)
+                .polyline(PolylineCodec.encode(List.of(points)))
+                .startLocation(new GeoLocation(points[0][0], points[0][1]))
+                .endLocation(new GeoLocation(points[points.length - 1][0], points[points.length - 1][1]))
+                .build();
+    }
+
+    private Driver assignDriver(Long tripId, String usernamePrefix) {
+        Driver driver = driverRepository.save(TestFixtures.driver(usernamePrefix, DriverStatus.ASSIGNED).build());
+        Trip trip = tripRepository.findById(tripId).orElseThrow();
+        trip.setDriver(driver);
+        tripRepository.save(trip);
+        return driver;
+    }
+
+    private Long createPendingRequest(String origin, String destination) {
+        Customer customer = userRepository.findByUsername("reroute_customer")
+                .map(Customer.class::cast)
+                .orElseGet(() -> userRepository.save(TestFixtures.customer("reroute_customer")));
+
+        TransportRequest request = TransportRequest.builder()
+                .client(customer)
+                .originAddress(origin)
+                .destinationAddress(destination)
+                .pickupDate(LocalDate.now().plusDays(12))
+                .requestStatus(RequestStatus.PENDING)
+                .load(TestFixtures.load("Pala eolica", 18000.0, 4.0, 3.5, 40.0))
+                .build();
+        return requestRepository.save(request).getId();
+    }
+}
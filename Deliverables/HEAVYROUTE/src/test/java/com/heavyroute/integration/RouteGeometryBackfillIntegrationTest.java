@@ -0,0 +1,78 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.core.enums.PolylineDetail;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.repository.RouteRepository;
+import com.heavyroute.core.service.RouteGeometryBackfill;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-12: Dati derivati delle rotte precedenti ricavati all'avvio")
+class RouteGeometryBackfillIntegrationTest {
+
+    @Autowired private RouteGeometryBackfill backfill;
+    @Autowired private RouteRepository routeRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final String polyline = PolylineCodec.encode(List.of(
+            new double[]{40.6786, 14.7594}, new double[]{40.6800, 14.7600}, new double[]{40.6815, 14.7606},
+            new double[]{40.7500, 14.7700}, new double[]{40.9146, 14.7906}));
+
+    @Test
+    @DisplayName("Le rotte spostate dallo script SQL ricevono geometria, livelli semplificati e rettangolo di ingombro")
+    void migrateAll_ShouldRebuildGeometryAndBounds() {
+        Long routeId = saveRoute();
+        // Stato dopo route_legacy_polylines.sql: solo la polyline testuale
+        jdbcTemplate.update("INSERT INTO route_legacy_polylines (id, polyline) VALUES (?, ?)", routeId, polyline);
+        jdbcTemplate.update("UPDATE routes SET legacy_polyline_id = id, geometry_id = NULL, simplified_geometry_id = NULL, "
+                + "overview_polyline = NULL, bbox_min_lat = NULL, bbox_max_lat = NULL, bbox_min_lon = NULL, "
+                + "bbox_max_lon = NULL WHERE id = ?", routeId);
+
+        assertTrue(backfill.migrateAll() >= 1);
+        assertEquals(0, backfill.migrateAll(), "Una seconda esecuzione non trova altre rotte");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Route route = routeRepository.findById(routeId).orElseThrow();
+            assertEquals(40.6786, route.getBboxMinLat(), 1e-5);
+            assertEquals(14.7906, route.getBboxMaxLon(), 1e-5);
+            assertNotNull(route.geometryFor(PolylineDetail.FULL));
+            assertTrue(PolylineCodec.decode(route.getPolyline(PolylineDetail.SIMPLIFIED)).size() < 5);
+            assertEquals(polyline, route.getPolyline());
+        });
+        assertRouteIndexed(routeId);
+    }
+
+    @Test
+    @DisplayName("Le rotte salvate prima dell'indicizzazione per celle vengono indicizzate")
+    void migrateAll_ShouldIndexRoutesWithoutCells() {
+        Long routeId = saveRoute();
+        jdbcTemplate.update("DELETE FROM route_cells WHERE route_id = ?", routeId);
+
+        assertTrue(backfill.migrateAll() >= 1);
+
+        assertRouteIndexed(routeId);
+    }
+
+    private Long saveRoute() {
+        return routeRepository.save(Route.builder()
+                .routeDistance(38.4).routeDuration(42.0).polyline(polyline)
+                .build()).getId();
+    }
+
+    private void assertRouteIndexed(Long routeId) {
+        // Il tracciato va da Salerno ad Avellino: almeno 5 celle da 0,05 gradi in latitudine
+        Integer cells = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM route_cells WHERE route_id = ?", Integer.class, routeId);
+        assertTrue(cells >= 5, "Celle: " + cells);
+    }
+}
@@ -0,0 +1,106 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.RoutePrecomputeStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.repository.StagedRouteRepository;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.routing.RouteConstraints;
+import com.heavyroute.core.service.ExternalMapService;
+import com.heavyroute.core.service.RoutePrecomputationService;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.model.Customer;
+import com.heavyroute.users.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-03: Pre-calcolo rotta alla creazione della richiesta")
+class RoutePrecomputationIntegrationTest {
+
+    private static final String ORIGIN = "Interporto Bologna";
+    private static final String DESTINATION = "Piazzale Traghetti, Genova";
+
+    @Autowired private RoutePrecomputationService precomputationService;
+    @Autowired private TripService tripService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private StagedRouteRepository stagedRouteRepository;
+
+    @MockitoBean
+    private ExternalMapService externalMapService;
+
+    @Test
+    @DisplayName("La rotta pre-calcolata viene usata in approvazione senza interpellare il provider")
+    void approveRequest_ShouldUseStagedRoute_WhenPrecomputed() {
+        Long requestId = createPendingRequest(ORIGIN, DESTINATION);
+        when(externalMapService.calculateFullRoute(eq(ORIGIN), eq(DESTINATION), any())).thenReturn(Route.builder()
+                .routeDistance(290.0)
+                .routeDuration(190.0)
+                .polyline("encoded_polyline_test")
+                .startLocation(new GeoLocation(44.6567, 11.4285))
+                .endLocation(new GeoLocation(44.4141, 8.9137))
+                .build());
+
+        RouteConstraints loadProfile = RouteConstraints.of(requestRepository.findById(requestId).orElseThrow().getLoad(), null);
+        precomputationService.precompute(requestId, ORIGIN, DESTINATION, loadProfile);
+
+        assertEquals(RoutePrecomputeStatus.READY, requestRepository.findById(requestId).orElseThrow().getRouteStatus());
+        assertTrue(stagedRouteRepository.findByRequestId(requestId).isPresent());
+
+        var trip = tripService.approveRequest(requestId);
+
+        assertEquals(290.0, trip.getRoute().getDistance());
+        verify(externalMapService, times(1)).calculateFullRoute(eq(ORIGIN), eq(DESTINATION), any());
+        assertTrue(stagedRouteRepository.findByRequestId(requestId).isEmpty());
+
+        // Rilettura dal database: la geometria compressa viene ricostruita identica
+        assertEquals("encoded_polyline_test", tripService.getTripById(trip.getId()).getRoute().getPolyline());
+    }
+
+    @Test
+    @DisplayName("Un indirizzo non risolvibile viene segnalato sulla richiesta")
+    void precompute_ShouldFlagRequest_WhenAddressIsInvalid() {
+        Long requestId = createPendingRequest("Via Inesistente 999, Atlantide", DESTINATION);
+        when(externalMapService.calculateFullRoute(eq("Via Inesistente 999, Atlantide"), eq(DESTINATION), any()))
+                .thenThrow(new BusinessRuleException("Errore geocoding: Nessun risultato per: Via Inesistente 999, Atlantide"));
+
+        precomputationService.precompute(requestId, "Via Inesistente 999, Atlantide", DESTINATION, RouteConstraints.NONE);
+
+        TransportRequest request = requestRepository.findById(requestId).orElseThrow();
+        assertEquals(RoutePrecomputeStatus.FAILED, request.getRouteStatus());
+        assertTrue(request.getRouteError().contains("Nessun risultato"));
+        assertEquals(RequestStatus.PENDING, request.getRequestStatus());
+    }
+
+    private Long createPendingRequest(String origin, String destination) {
+        Customer customer = userRepository.findByUsername("precompute_customer")
+                .map(Customer.class::cast)
+                .orElseGet(() -> userRepository.save(TestFixtures.customer("precompute_customer")));
+
+        TransportRequest request = TransportRequest.builder()
+                .client(customer)
+                .originAddress(origin)
+                .destinationAddress(destination)
+                .pickupDate(LocalDate.now().plusDays(15))
+                .requestStatus(RequestStatus.PENDING)
+                .routeStatus(RoutePrecomputeStatus.PENDING)
+                .load(TestFixtures.load("Carpenteria metallica", 8000.0, 2.8, 2.5, 10.0))
+                .build();
+        return requestRepository.save(request).getId();
+    }
+}
@@ -0,0 +1,99 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.service.ExternalMapService;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.model.Customer;
+import com.heavyroute.users.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica che il calcolo della rotta (chiamata HTTP verso il provider) avvenga senza
+ * transazioni attive e senza connessioni JDBC trattenute dal pool.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("TC-INTEGRATION-02: Calcolo rotta fuori transazione")
+class RoutingTransactionBoundaryTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private DataSource dataSource;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+
+    @MockitoBean
+    private ExternalMapService externalMapService;
+
+    @Test
+    @WithMockUser(roles = "LOGISTIC_PLANNER")
+    @DisplayName("Approvazione: nessuna connessione JDBC in uso durante la chiamata al provider")
+    void approveRequest_ShouldNotHoldConnection_DuringRouting() throws Exception {
+        Long requestId = createPendingRequest();
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+
+        AtomicBoolean transactionActive = new AtomicBoolean(true);
+        AtomicInteger activeConnections = new AtomicInteger(-1);
+
+        when(externalMapService.calculateFullRoute(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            transactionActive.set(TransactionSynchronizationManager.isActualTransactionActive());
+            activeConnections.set(pool.getHikariPoolMXBean().getActiveConnections());
+            return Route.builder()
+                    .routeDistance(55.0)
+                    .routeDuration(45.0)
+                    .polyline("encoded_polyline_test")
+                    .startLocation(new GeoLocation(40.8576, 14.3056))
+                    .endLocation(new GeoLocation(40.7750, 14.7890))
+                    .build();
+        });
+
+        mockMvc.perform(post("/api/trips/" + requestId + "/approve").with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("IN_PLANNING"));
+
+        assertFalse(transactionActive.get(), "La chiamata al provider non deve avvenire in transazione");
+        assertEquals(0, activeConnections.get(), "Nessuna connessione del pool deve essere trattenuta");
+    }
+
+    private Long createPendingRequest() {
+        Customer customer = userRepository.findByUsername("boundary_customer")
+                .map(Customer.class::cast)
+                .orElseGet(() -> userRepository.save(TestFixtures.customer("boundary_customer")));
+
+        TransportRequest request = TransportRequest.builder()
+                .client(customer)
+                .originAddress("Via Argine 425, Napoli")
+                .destinationAddress("Campus Fisciano")
+                .pickupDate(LocalDate.now().plusDays(10))
+                .requestStatus(RequestStatus.PENDING)
+                .load(TestFixtures.load("Trasformatore", 12000.0, 3.0, 2.5, 6.0))
+                .build();
+        return requestRepository.save(request).getId();
+    }
+}
@@ -0,0 +1,229 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.model.GeoLocation;
+import com.heavyroute.core.dto.TripPageDTO;
+import com.heavyroute.core.dto.TripResponseDTO;
+import com.heavyroute.core.enums.PolylineDetail;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripFilter;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-06: Numero di query costante negli elenchi dei viaggi")
+class TripListingQueryCountTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private VehicleRepository vehicleRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private static int sequence;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Gli elenchi per stato, per autista e completo non eseguono query aggiuntive per viaggio")
+    void listings_ShouldIssueConstantStatementCount_AsTripsGrow() {
+        Driver listedDriver = driver();
+
+        persistTrips(listedDriver, 2);
+        long[] small = measureListings(listedDriver.getId());
+
+        persistTrips(listedDriver, 60);
+        long[] large = measureListings(listedDriver.getId());
+
+        assertArrayEquals(small, large, "Il numero di statement non deve dipendere dal numero di viaggi");
+    }
+
+    @Test
+    @DisplayName("La paginazione a cursore restituisce ogni viaggio una sola volta, con lo stesso numero di query per pagina")
+    void searchTrips_ShouldWalkAllPages_WithConstantStatements() {
+        Driver listedDriver = driver();
+        persistTrips(listedDriver, 25);
+        TripFilter filter = new TripFilter(List.of(TripStatus.IN_TRANSIT), listedDriver.getId(), null, null, null, null);
+
+        Set<Long> seen = new HashSet<>();
+        Set<Long> statementsPerPage = new HashSet<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            TripPageDTO page = tripService.searchTrips(filter, cursor, 5, PolylineDetail.FULL);
+            statementsPerPage.add(statistics.getPrepareStatementCount());
+            pageSizes.add(page.getItems().size());
+            for (TripResponseDTO trip : page.getItems()) {
+                assertEquals(listedDriver.getId(), trip.getDriverId());
+                assertTrue(seen.add(trip.getId()), "Viaggio ripetuto tra le pagine: " + trip.getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(13, seen.size());
+        assertEquals(List.of(5, 5, 3), pageSizes);
+        assertEquals(1, statementsPerPage.size(), "Ogni pagina deve eseguire lo stesso numero di query");
+    }
+
+    @Test
+    @DisplayName("I filtri sulla data di ritiro si applicano lato server e un cursore non valido è rifiutato")
+    void searchTrips_ShouldFilterByPickupDate_AndRejectInvalidCursor() {
+        Driver listedDriver = driver();
+        persistTrips(listedDriver, 4);
+        LocalDate pickup = LocalDate.now().plusDays(3);
+
+        TripFilter inRange = new TripFilter(null, listedDriver.getId(), null, null, pickup, pickup);
+        TripFilter outOfRange = new TripFilter(null, listedDriver.getId(), null, null, null, pickup.minusDays(1));
+
+        assertEquals(2, tripService.searchTrips(inRange, null, 50, PolylineDetail.NONE).getItems().size());
+        assertTrue(tripService.searchTrips(outOfRange, null, 50, PolylineDetail.NONE).getItems().isEmpty());
+        assertThrows(BusinessRuleException.class,
+                () -> tripService.searchTrips(inRange, "non-un-cursore", 50, PolylineDetail.NONE));
+    }
+
+    @Test
+    @DisplayName("Le rotte precedenti alla geometria compressa caricano la polyline testuale con una query per elenco")
+    void listings_ShouldBatchLegacyPolylines() {
+        Driver listedDriver = driver();
+
+        persistTrips(listedDriver, 2);
+        moveRoutesToLegacyPolyline(listedDriver.getId());
+        long small = statements(() -> tripService.getTripsByDriver(listedDriver.getId(), PolylineDetail.SIMPLIFIED));
+
+        persistTrips(listedDriver, 10);
+        moveRoutesToLegacyPolyline(listedDriver.getId());
+        long large = statements(() -> tripService.getTripsByDriver(listedDriver.getId(), PolylineDetail.SIMPLIFIED));
+
+        assertEquals(small, large, "Il numero di statement non deve dipendere dal numero di rotte precedenti");
+        for (TripResponseDTO trip : tripService.getTripsByDriver(listedDriver.getId(), PolylineDetail.FULL)) {
+            assertEquals(4, PolylineCodec.decode(trip.getRoute().getPolyline()).size());
+        }
+    }
+
+    /**
+     * Riporta le rotte dei viaggi dell'autista al formato precedente: solo polyline testuale, senza geometrie.
+     */
+    private void moveRoutesToLegacyPolyline(Long driverId) {
+        String legacy = PolylineCodec.encode(List.of(
+                new double[]{40.6786, 14.7594}, new double[]{40.7500, 14.7700},
+                new double[]{40.8300, 14.7800}, new double[]{40.9146, 14.7906}));
+        String routeIds = "SELECT route_id FROM trips WHERE driver_id = ? AND route_id IS NOT NULL";
+        jdbcTemplate.update("INSERT INTO route_legacy_polylines (id, polyline) SELECT r.id, ? FROM routes r "
+                + "WHERE r.id IN (" + routeIds + ") AND r.legacy_polyline_id IS NULL", legacy, driverId);
+        jdbcTemplate.update("UPDATE routes SET legacy_polyline_id = id, geometry_id = NULL, "
+                + "simplified_geometry_id = NULL, overview_polyline = NULL WHERE id IN (" + routeIds + ")", driverId);
+    }
+
+    private long[] measureListings(Long driverId) {
+        return new long[]{
+                statements(() -> tripService.getAllTrips(PolylineDetail.FULL)),
+                statements(() -> tripService.getAllTrips(PolylineDetail.SIMPLIFIED)),
+                statements(() -> tripService.getTripsByStatus(TripStatus.IN_TRANSIT, PolylineDetail.OVERVIEW)),
+                statements(() -> tripService.getTripsByStatuses(List.of(TripStatus.IN_TRANSIT, TripStatus.PAUSED), PolylineDetail.FULL)),
+                statements(() -> tripService.getTripsByDriver(driverId, PolylineDetail.FULL))
+        };
+    }
+
+    private long statements(Supplier<List<?>> listing) {
+        statistics.clear();
+        assertFalse(listing.get().isEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Crea viaggi completi (richiesta, cliente, rotta, autista con veicolo), ognuno con un proprio
+     * cliente; uno su due è assegnato all'autista dell'elenco per autista.
+     */
+    private void persistTrips(Driver listedDriver, int count) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                Driver driver = i % 2 == 0 ? driverRepository.findById(listedDriver.getId()).orElseThrow() : driver();
+
+                TransportRequest request = requestRepository.save(TransportRequest.builder()
+                        .client(userRepository.save(TestFixtures.customer()))
+                        .originAddress("Via Roma " + sequence + ", Salerno")
+                        .destinationAddress("Corso Vittorio Emanuele " + sequence + ", Avellino")
+                        .pickupDate(LocalDate.now().plusDays(3))
+                        .requestStatus(RequestStatus.IN_PROGRESS)
+                        .load(TestFixtures.load("Trasformatore", 30000.0, 3.8, 2.9, 12.0))
+                        .build());
+
+                Route route = Route.builder()
+                        .routeDistance(38.4)
+                        .routeDuration(42.0)
+                        .polyline(PolylineCodec.encode(List.of(
+                                new double[]{40.6786, 14.7594}, new double[]{40.7500, 14.7700},
+                                new double[]{40.8300, 14.7800}, new double[]{40.9146, 14.7906})))
+                        .startLocation(new GeoLocation(40.6786, 14.7594))
+                        .endLocation(new GeoLocation(40.9146, 14.7906))
+                        .build();
+
+                Trip trip = new Trip();
+                trip.setTripCode("T-QC-" + sequence++);
+                trip.setStatus(TripStatus.IN_TRANSIT);
+                trip.setRequest(request);
+                trip.setRoute(route);
+                route.setTrip(trip);
+                trip.setDriver(driver);
+                trip.setVehicle(driver.getVehicle());
+                tripRepository.save(trip);
+            }
+        });
+    }
+
+    private Driver driver() {
+        Vehicle vehicle = vehicleRepository.save(TestFixtures.vehicle(VehicleStatus.IN_USE));
+        return driverRepository.save(TestFixtures.driver("qc_driver", DriverStatus.ON_THE_ROAD)
+                .vehicle(vehicle)
+                .build());
+    }
+}
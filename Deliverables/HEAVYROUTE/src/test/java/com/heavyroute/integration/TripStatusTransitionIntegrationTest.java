@@ -0,0 +1,179 @@
+package com.heavyroute.integration;
+
+import com.heavyroute.common.exception.BusinessRuleException;
+import com.heavyroute.common.geo.PolylineCodec;
+import com.heavyroute.common.exception.ResourceNotFoundException;
+import com.heavyroute.core.dto.TripStatusChangeDTO;
+import com.heavyroute.core.dto.TripStatusResultDTO;
+import com.heavyroute.core.enums.RequestStatus;
+import com.heavyroute.core.enums.TripStatus;
+import com.heavyroute.core.model.Route;
+import com.heavyroute.core.model.TransportRequest;
+import com.heavyroute.core.model.Trip;
+import com.heavyroute.core.repository.TransportRequestRepository;
+import com.heavyroute.core.repository.TripRepository;
+import com.heavyroute.core.service.EtaEngine;
+import com.heavyroute.core.service.TripService;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.resources.repository.VehicleRepository;
+import com.heavyroute.support.TestFixtures;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Driver;
+import com.heavyroute.users.repository.DriverRepository;
+import com.heavyroute.users.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DisplayName("TC-INTEGRATION-10: Transizioni di stato dei viaggi")
+class TripStatusTransitionIntegrationTest {
+
+    @Autowired private TripService tripService;
+    @Autowired private TripRepository tripRepository;
+    @Autowired private TransportRequestRepository requestRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private DriverRepository driverRepository;
+    @Autowired private VehicleRepository vehicleRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private EtaEngine etaEngine;
+
+    private static int sequence;
+
+    @Test
+    @DisplayName("Il lotto applica le transizioni consentite e riporta quelle non consentite")
+    void updateStatuses_ShouldApplyLegalTransitionsOnly() {
+        Trip delivering = trip(TripStatus.DELIVERING);
+        Trip confirmed = trip(TripStatus.CONFIRMED);
+        Trip skipping = trip(TripStatus.CONFIRMED);
+
+        List<TripStatusResultDTO> results = tripService.updateStatuses(List.of(
+                new TripStatusChangeDTO(delivering.getId(), TripStatus.COMPLETED),
+                new TripStatusChangeDTO(confirmed.getId(), TripStatus.ACCEPTED),
+                new TripStatusChangeDTO(skipping.getId(), TripStatus.COMPLETED),  // salto non consentito
+                new TripStatusChangeDTO(confirmed.getId(), TripStatus.IN_TRANSIT), // duplicato nel lotto
+                new TripStatusChangeDTO(-1L, TripStatus.COMPLETED)
+        ), null);
+
+        assertEquals(List.of(true, true, false, false, false), results.stream().map(TripStatusResultDTO::isApplied).toList());
+        assertTrue(results.get(2).getMessage().contains("non consentita"));
+        assertEquals(TripStatus.CONFIRMED, results.get(2).getStatus());
+        assertTrue(results.get(3).getMessage().contains("più volte"));
+        assertEquals("Viaggio non trovato", results.get(4).getMessage());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Trip completed = tripRepository.findById(delivering.getId()).orElseThrow();
+            assertEquals(TripStatus.COMPLETED, completed.getStatus());
+            assertEquals(RequestStatus.COMPLETED, completed.getRequest().getRequestStatus());
+            assertEquals(DriverStatus.FREE, completed.getDriver().getDriverStatus());
+            assertEquals(VehicleStatus.AVAILABLE, completed.getVehicle().getStatus());
+
+            Trip accepted = tripRepository.findById(confirmed.getId()).orElseThrow();
+            assertEquals(TripStatus.ACCEPTED, accepted.getStatus());
+            assertEquals(RequestStatus.PLANNED, accepted.getRequest().getRequestStatus());
+            assertEquals(DriverStatus.ASSIGNED, accepted.getDriver().getDriverStatus());
+
+            assertEquals(TripStatus.CONFIRMED, tripRepository.findById(skipping.getId()).orElseThrow().getStatus());
+        });
+    }
+
+    @Test
+    @DisplayName("L'aggiornamento singolo interpreta l'input dell'app e rifiuta i salti di stato")
+    void updateStatus_ShouldParseRawInputAndRejectIllegalJumps() {
+        Trip trip = trip(TripStatus.ACCEPTED);
+
+        tripService.updateStatus(trip.getId(), "\"IN_TRANSIT\"\n", null);
+        tripService.updateStatus(trip.getId(), "IN_TRANSIT", null); // ritrasmissione: nessun effetto
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Trip inTransit = tripRepository.findById(trip.getId()).orElseThrow();
+            assertEquals(TripStatus.IN_TRANSIT, inTransit.getStatus());
+            assertEquals(RequestStatus.IN_PROGRESS, inTransit.getRequest().getRequestStatus());
+        });
+        assertThrows(BusinessRuleException.class, () -> tripService.updateStatus(trip.getId(), "CONFIRMED", null));
+        assertThrows(BusinessRuleException.class, () -> tripService.updateStatus(trip.getId(), "DELIVERED", null));
+        assertThrows(ResourceNotFoundException.class, () -> tripService.updateStatus(-1L, "COMPLETED", null));
+    }
+
+    @Test
+    @DisplayName("Un autista aggiorna solo i propri viaggi e non può annullarli")
+    void updateStatus_ShouldRestrictDriversToOwnTripsAndDriverTargets() {
+        Trip own = trip(TripStatus.ACCEPTED);
+        Trip other = trip(TripStatus.ACCEPTED);
+        String driver = own.getDriver().getUsername();
+
+        assertThrows(AccessDeniedException.class, () -> tripService.updateStatus(other.getId(), "IN_TRANSIT", driver));
+        assertThrows(AccessDeniedException.class, () -> tripService.updateStatus(own.getId(), "CANCELLED", driver));
+        tripService.updateStatus(own.getId(), "IN_TRANSIT", driver);
+
+        List<TripStatusResultDTO> results = tripService.updateStatuses(List.of(
+                new TripStatusChangeDTO(own.getId(), TripStatus.DELIVERING),
+                new TripStatusChangeDTO(other.getId(), TripStatus.CANCELLED)
+        ), driver);
+
+        assertTrue(results.get(0).isApplied());
+        assertFalse(results.get(1).isApplied());
+        assertNull(results.get(1).getStatus(), "Lo stato di un viaggio altrui non viene esposto");
+        assertEquals(TripStatus.DELIVERING, tripRepository.findById(own.getId()).orElseThrow().getStatus());
+        assertEquals(TripStatus.ACCEPTED, tripRepository.findById(other.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Gli UPDATE a insiemi aggiornano la data di modifica; la stima di arrivo è rimossa dopo il commit")
+    void updateStatuses_ShouldTouchUpdatedAt_AndForgetEtaAfterCommit() {
+        Trip trip = trip(TripStatus.DELIVERING);
+        LocalDateTime tripUpdatedAt = tripRepository.findById(trip.getId()).orElseThrow().getUpdatedAt();
+        LocalDateTime requestUpdatedAt = requestRepository.findById(trip.getRequest().getId()).orElseThrow().getUpdatedAt();
+        Route route = Route.builder().routeDistance(10.0).routeDuration(10.0)
+                .polyline(PolylineCodec.encode(List.of(new double[]{40.80, 14.30}, new double[]{40.80, 14.40}))).build();
+        route.setId(-42L);
+        assertNotNull(etaEngine.update(trip.getId(), route, 40.80, 14.35));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tripService.updateStatuses(List.of(new TripStatusChangeDTO(trip.getId(), TripStatus.COMPLETED)), null);
+            assertTrue(etaEngine.current(trip.getId(), -42L).isPresent(), "Prima del commit la stima resta disponibile");
+        });
+
+        assertTrue(etaEngine.current(trip.getId(), -42L).isEmpty());
+        assertTrue(tripRepository.findById(trip.getId()).orElseThrow().getUpdatedAt().isAfter(tripUpdatedAt));
+        assertTrue(requestRepository.findById(trip.getRequest().getId()).orElseThrow().getUpdatedAt().isAfter(requestUpdatedAt));
+    }
+
+    /**
+     * Viaggio nello stato indicato, con autista e veicolo già impegnati.
+     */
+    private Trip trip(TripStatus tripStatus) {
+        int n = sequence++;
+        Driver driver = driverRepository.save(TestFixtures.driver("status_driver", DriverStatus.ASSIGNED).build());
+        Vehicle vehicle = vehicleRepository.save(TestFixtures.vehicle(VehicleStatus.IN_USE));
+
+        return transactionTemplate.execute(status -> {
+            TransportRequest request = requestRepository.save(TransportRequest.builder()
+                    .client(userRepository.save(TestFixtures.customer()))
+                    .originAddress("Via Roma 1, Salerno")
+                    .destinationAddress("Corso Vittorio Emanuele 1, Avellino")
+                    .pickupDate(LocalDate.now().plusDays(1))
+                    .requestStatus(RequestStatus.PLANNED)
+                    .load(TestFixtures.load("Turbina", 20000.0, 3.5, 2.8, 12.0))
+                    .build());
+
+            Trip trip = new Trip();
+            trip.setTripCode("T-STATUS-" + n);
+            trip.setStatus(tripStatus);
+            trip.setRequest(request);
+            trip.setDriver(driver);
+            trip.setVehicle(vehicle);
+            return tripRepository.save(trip);
+        });
+    }
+}
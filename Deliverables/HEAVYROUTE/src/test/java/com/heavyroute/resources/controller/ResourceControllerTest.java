@@ -0,0 +1,81 @@
+package com.heavyroute.resources.controller;
+
+import com.heavyroute.auth.security.JwtUtils;
+import com.heavyroute.auth.security.SecurityConfig;
+import com.heavyroute.auth.service.impl.UserDetailsServiceImpl;
+import com.heavyroute.common.exception.ServiceUnavailableException;
+import com.heavyroute.resources.dto.DriverRequestMatrixDTO;
+import com.heavyroute.resources.service.ResourceService;
+import com.heavyroute.users.service.DriverService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ResourceController.class)
+@Import(SecurityConfig.class)
+class ResourceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ResourceService resourceService;
+
+    @MockitoBean
+    private DriverService driverService;
+
+    @MockitoBean private JwtUtils jwtUtils;
+    @MockitoBean private UserDetailsServiceImpl userDetailsService;
+    @MockitoBean private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMappingContext;
+
+    @Test
+    @WithMockUser(roles = "LOGISTIC_PLANNER")
+    @DisplayName("TC-RESOURCES-01: API Matrice Autisti/Richieste - Celle non raggiungibili a null (Status 200)")
+    void getDriverRequestMatrix_ShouldReturn200_WithMatrix() throws Exception {
+        when(resourceService.getDriverRequestMatrix()).thenReturn(new DriverRequestMatrixDTO(
+                List.of(7L), List.of("Paolo Greco"),
+                List.of(21L, 22L), List.of("Napoli", "Campus Fisciano"),
+                new Double[][]{{12.5, null}}, new Double[][]{{9.8, null}}));
+
+        mockMvc.perform(get("/api/resources/drivers/matrix"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.driverIds[0]").value(7))
+                .andExpect(jsonPath("$.requestIds.length()").value(2))
+                .andExpect(jsonPath("$.durationsMin[0][0]").value(12.5))
+                .andExpect(jsonPath("$.durationsMin[0][1]").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "LOGISTIC_PLANNER")
+    @DisplayName("TC-RESOURCES-02: API Matrice Autisti/Richieste - Servizio di routing non disponibile (Status 503)")
+    void getDriverRequestMatrix_ShouldReturn503_WhenRoutingUnavailable() throws Exception {
+        when(resourceService.getDriverRequestMatrix())
+                .thenThrow(new ServiceUnavailableException("Servizio cartografico temporaneamente sospeso"));
+
+        mockMvc.perform(get("/api/resources/drivers/matrix"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    @DisplayName("TC-RESOURCES-03: API Matrice Autisti/Richieste - Riservata al Pianificatore (Status 403)")
+    void getDriverRequestMatrix_ShouldReturn403_WhenNotPlanner() throws Exception {
+        mockMvc.perform(get("/api/resources/drivers/matrix"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(resourceService);
+    }
+}
@@ -0,0 +1,23 @@
+package com.heavyroute.support;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Punta tutti i contesti Spring dei test al server Mapbox locale ({@link MapboxStubServer}).
+ * <p>
+ * Registrato in {@code META-INF/spring.factories} dei test: nessun test contatta le API reali,
+ * anche quando {@code ExternalMapService} non viene sostituito da un mock.
+ * </p>
+ */
+public class MapboxStubInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("mapboxStub",
+                Map.of("mapbox.api.base-url", MapboxStubServer.shared().baseUrl())));
+    }
+}
@@ -0,0 +1,194 @@
+package com.heavyroute.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server HTTP locale che sostituisce le API Mapbox nei test.
+ * <p>
+ * Risponde alle stesse rotte usate dall'applicazione riproducendo risposte registrate
+ * (cartella {@code src/test/resources/mapbox}):
+ * <ul>
+ * <li><b>Geocoding</b> ({@code /geocoding/v5/mapbox.places/{query}.json}): file
+ * {@code geocoding/<query normalizzata>.json}, es. {@code via-roma-1-salerno-italia.json}.
+ * Per le query senza fixture restituisce una collezione vuota, come Mapbox per gli indirizzi non trovati.</li>
+ * <li><b>Directions</b> ({@code /directions/v5/mapbox/{profilo}/{lon,lat;lon,lat}}): file
+ * {@code directions/<lon>_<lat>_<lon>_<lat>.json} con coordinate arrotondate a 3 decimali.
+ * Senza fixture risponde {@code NoRoute}.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Per simulare un provider lento o guasto si possono impostare una latenza fissa e un numero di
+ * risposte di errore consecutive. Lo stato va ripristinato con {@link #reset()} al termine del test,
+ * perché l'istanza è condivisa da tutti i contesti Spring della JVM (vedi {@link MapboxStubInitializer}).
+ * </p>
+ */
+public final class MapboxStubServer {
+
+    private static final String FIXTURES = "/mapbox/";
+    private static final String GEOCODING_PREFIX = "/geocoding/v5/mapbox.places/";
+    private static final String DIRECTIONS_PREFIX = "/directions/v5/mapbox/";
+
+    private static MapboxStubServer shared;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile long latencyMs;
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus = 503;
+
+    private final AtomicLong geocodingRequests = new AtomicLong();
+    private final AtomicLong directionsRequests = new AtomicLong();
+
+    private MapboxStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mapbox-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(GEOCODING_PREFIX, exchange -> handle(exchange, true));
+        server.createContext(DIRECTIONS_PREFIX, exchange -> handle(exchange, false));
+        server.start();
+    }
+
+    /**
+     * Istanza condivisa, avviata al primo utilizzo su una porta libera.
+     */
+    public static synchronized MapboxStubServer shared() {
+        if (shared == null) {
+            try {
+                shared = new MapboxStubServer();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossibile avviare il server Mapbox locale", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(shared::stop));
+        }
+        return shared;
+    }
+
+    /**
+     * @return URL base da usare al posto di {@code https://api.mapbox.com}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Ritarda ogni risposta della durata indicata.
+     */
+    public void setLatency(Duration latency) {
+        this.latencyMs = latency.toMillis();
+    }
+
+    /**
+     * Le prossime {@code count} richieste ricevono lo stato HTTP indicato invece della fixture.
+     */
+    public void failNext(int count, int status) {
+        this.failureStatus = status;
+        this.failuresLeft.set(count);
+    }
+
+    /**
+     * Ripristina il comportamento di default (nessuna latenza né errori) e azzera i contatori.
+     */
+    public void reset() {
+        latencyMs = 0;
+        failuresLeft.set(0);
+        geocodingRequests.set(0);
+        directionsRequests.set(0);
+    }
+
+    public long geocodingRequests() {
+        return geocodingRequests.get();
+    }
+
+    public long directionsRequests() {
+        return directionsRequests.get();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, boolean geocoding) throws IOException {
+        try (exchange) {
+            (geocoding ? geocodingRequests : directionsRequests).incrementAndGet();
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                send(exchange, failureStatus, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String body = geocoding ? geocodingResponse(path) : directionsResponse(path);
+            send(exchange, 200, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Il client ha chiuso la connessione (es. timeout lato applicazione)
+        }
+    }
+
+    private String geocodingResponse(String path) {
+        String query = path.substring(GEOCODING_PREFIX.length()).replaceFirst("\\.json$", "");
+        String fixture = readFixture("geocoding/" + slug(query) + ".json");
+        return fixture != null ? fixture : "{\"type\":\"FeatureCollection\",\"query\":[],\"features\":[]}";
+    }
+
+    private String directionsResponse(String path) {
+        // /directions/v5/mapbox/{profilo}/{lon,lat;lon,lat}
+        String coordinates = path.substring(path.lastIndexOf('/') + 1);
+        String[] waypoints = coordinates.split(";");
+        StringBuilder key = new StringBuilder();
+        for (String waypoint : waypoints) {
+            for (String value : waypoint.split(",")) {
+                if (key.length() > 0) {
+                    key.append('_');
+                }
+                key.append(String.format(Locale.ROOT, "%.3f", Double.parseDouble(value)));
+            }
+        }
+        String fixture = readFixture("directions/" + key + ".json");
+        return fixture != null ? fixture : "{\"code\":\"NoRoute\",\"message\":\"No route found\",\"routes\":[]}";
+    }
+
+    private static String slug(String query) {
+        return query.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
+
+    private static String readFixture(String name) {
+        try (InputStream input = MapboxStubServer.class.getResourceAsStream(FIXTURES + name)) {
+            return input == null ? null : new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
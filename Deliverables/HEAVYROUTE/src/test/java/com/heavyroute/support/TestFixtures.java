@@ -0,0 +1,94 @@
+package com.heavyroute.support;
+
+import com.heavyroute.core.model.LoadDetails;
+import com.heavyroute.resources.enums.VehicleStatus;
+import com.heavyroute.resources.model.Vehicle;
+import com.heavyroute.users.enums.DriverStatus;
+import com.heavyroute.users.model.Customer;
+import com.heavyroute.users.model.Driver;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entità di prova condivise dai test di integrazione.
+ * <p>
+ * I metodi costruiscono entità valide ma non le salvano: la persistenza resta al test, che usa i
+ * propri repository e la propria transazione. I campi univoci (email, partita IVA, telefono, targa,
+ * matricola) derivano da un contatore unico per la JVM, così i test che condividono il contesto
+ * Spring e il database H2 non entrano in conflitto.
+ * </p>
+ */
+public final class TestFixtures {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Committente con username generato.
+     */
+    public static Customer customer() {
+        return customer("customer_" + SEQUENCE.incrementAndGet());
+    }
+
+    /**
+     * Committente con lo username indicato, utile per i test che lo riusano tra un metodo e l'altro.
+     */
+    public static Customer customer(String username) {
+        long n = SEQUENCE.incrementAndGet();
+        Customer customer = new Customer();
+        customer.setUsername(username);
+        customer.setPassword("password");
+        customer.setEmail(username + "@test.it");
+        customer.setFirstName("Anna");
+        customer.setLastName("Russo");
+        customer.setPhoneNumber("+39" + (3_000_000_000L + n));
+        customer.setActive(true);
+        customer.setCompanyName("Trasporti Test S.r.l.");
+        customer.setVatNumber(String.valueOf(50_000_000_000L + n));
+        customer.setPec(username + "@pec.it");
+        customer.setAddress("Via Roma 1, Salerno");
+        return customer;
+    }
+
+    /**
+     * Carico di un singolo collo con le dimensioni indicate (metri e chilogrammi).
+     */
+    public static LoadDetails load(String type, double weightKg, double height, double width, double length) {
+        LoadDetails load = new LoadDetails();
+        load.setType(type);
+        load.setQuantity(1);
+        load.setWeightKg(weightKg);
+        load.setHeight(height);
+        load.setWidth(width);
+        load.setLength(length);
+        return load;
+    }
+
+    /**
+     * Autista nello stato indicato; il builder restituito permette di completarlo (es. veicolo o posizione).
+     */
+    public static Driver.DriverBuilder<?, ?> driver(String usernamePrefix, DriverStatus status) {
+        long n = SEQUENCE.incrementAndGet();
+        String username = usernamePrefix + "_" + n;
+        return Driver.builder()
+                .username(username).password("password").email(username + "@test.it")
+                .firstName("Paolo").lastName("Greco").phoneNumber("+39" + (3_100_000_000L + n))
+                .active(true).licenseNumber("CE-" + n).serialNumber("DRV-" + n)
+                .hireDate(LocalDate.now().minusYears(2)).driverStatus(status);
+    }
+
+    /**
+     * Mezzo eccezionale con portata di 40 t e ingombro massimo 4,5 x 3 x 20 m.
+     */
+    public static Vehicle vehicle(VehicleStatus status) {
+        return Vehicle.builder()
+                .licensePlate("TS" + SEQUENCE.incrementAndGet() + "ZZ")
+                .model("Volvo FH16")
+                .maxLoadCapacity(40000.0).maxHeight(4.5).maxWidth(3.0).maxLength(20.0)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.heavyroute.users.controller;
+
+import com.heavyroute.auth.security.JwtUtils;
+import com.heavyroute.auth.security.SecurityConfig;
+import com.heavyroute.auth.service.impl.UserDetailsServiceImpl;
+import com.heavyroute.users.service.DriverService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DriverController.class)
+@Import(SecurityConfig.class)
+class DriverControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DriverService driverService;
+
+    @MockitoBean private JwtUtils jwtUtils;
+    @MockitoBean private UserDetailsServiceImpl userDetailsService;
+    @MockitoBean private org.springframework.data.jpa.mapping.JpaMetamodelMappingContext jpaMappingContext;
+
+    @Test
+    @WithMockUser(username = "driver_7", roles = "DRIVER")
+    @DisplayName("TC-USERS-01: API Posizione - Accettata in differita per l'autista autenticato (Status 202)")
+    void updatePosition_ShouldReturn202_ForOwnPosition() throws Exception {
+        mockMvc.perform(put("/api/drivers/7/position").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"latitude\": 40.68, \"longitude\": 14.76}"))
+                .andExpect(status().isAccepted());
+
+        verify(driverService).recordPosition("driver_7", 7L, 40.68, 14.76);
+    }
+
+    @Test
+    @WithMockUser(username = "driver_7", roles = "DRIVER")
+    @DisplayName("TC-USERS-02: API Posizione - Rifiutata per un altro autista (Status 403)")
+    void updatePosition_ShouldReturn403_ForOtherDriver() throws Exception {
+        doThrow(new AccessDeniedException("Un autista può inviare solo la propria posizione"))
+                .when(driverService).recordPosition(eq("driver_7"), eq(8L), anyDouble(), anyDouble());
+
+        mockMvc.perform(put("/api/drivers/8/position").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"latitude\": 40.68, \"longitude\": 14.76}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "driver_7", roles = "DRIVER")
+    @DisplayName("TC-USERS-03: API Posizione - Coordinate fuori intervallo (Status 400)")
+    void updatePosition_ShouldReturn400_WhenCoordinatesInvalid() throws Exception {
+        mockMvc.perform(put("/api/drivers/7/position").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"latitude\": 120.0, \"longitude\": 14.76}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(driverService);
+    }
+
+    @Test
+    @WithMockUser(username = "driver_7", roles = "DRIVER")
+    @DisplayName("TC-USERS-04: API Posizioni a lotti - Accettate per l'autista autenticato (Status 202)")
+    void updatePositions_ShouldReturn202_ForCaller() throws Exception {
+        mockMvc.perform(post("/api/drivers/positions").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"positions\": ["
+                                + "{\"latitude\": 40.68, \"longitude\": 14.76, \"recordedAt\": \"2026-10-17T08:00:00+02:00\"},"
+                                + "{\"latitude\": 40.69, \"longitude\": 14.77}]}"))
+                .andExpect(status().isAccepted());
+
+        verify(driverService).recordPositions(eq("driver_7"), argThat(positions -> positions.size() == 2));
+    }
+
+    @Test
+    @WithMockUser(username = "driver_7", roles = "DRIVER")
+    @DisplayName("TC-USERS-05: API Posizioni a lotti - Lotto vuoto o posizione incompleta (Status 400)")
+    void updatePositions_ShouldReturn400_WhenBatchInvalid() throws Exception {
+        mockMvc.perform(post("/api/drivers/positions").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"positions\": []}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/drivers/positions").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"positions\": [{\"latitude\": 40.68}]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(driverService);
+    }
+
+    @Test
+    @WithMockUser(roles = "LOGISTIC_PLANNER")
+    @DisplayName("TC-USERS-06: API Posizioni - Riservate al ruolo autista (Status 403)")
+    void updatePositions_ShouldReturn403_WhenNotDriver() throws Exception {
+        mockMvc.perform(post("/api/drivers/positions").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"positions\": [{\"latitude\": 40.68, \"longitude\": 14.76}]}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/api/drivers/7/position").with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"latitude\": 40.68, \"longitude\": 14.76}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(driverService);
+    }
+}